@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.jhlabs.image;
+
+import pixelitor.ThreadPool;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+/**
+ * A {@link WholeImageFilter} where each output pixel depends only on the
+ * input pixels within a fixed number of rows (the neighborhood radius).
+ * The image is split into horizontal bands, which are filtered in parallel
+ * by {@link #filterPixels(int, int, int[])}, each together with the rows
+ * within the radius above and below it, so that the result is the same
+ * as the result of filtering the whole image at once.
+ * <p>
+ * The progress is tracked here, the subclasses shouldn't track it in
+ * filterPixels. Filters with sequential dependencies between the
+ * pixels (such as error diffusion dithering) can't use this class.
+ */
+public abstract class BandedWholeImageFilter extends WholeImageFilter {
+    // the minimum number of output rows in a band
+    private static final int MIN_BAND_HEIGHT = 64;
+
+    protected BandedWholeImageFilter(String filterName) {
+        super(filterName);
+    }
+
+    /**
+     * Returns the maximum vertical distance between an output
+     * pixel and the input pixels that it depends on.
+     */
+    protected abstract int getNeighborhoodRadius();
+
+    @Override
+    protected int[] filterImagePixels(int width, int height, int[] inPixels) {
+        int radius = getNeighborhoodRadius();
+
+        // the bands are high enough to keep the overlap small
+        int bandHeight = Math.max(MIN_BAND_HEIGHT, 4 * radius);
+        int numBands = (height + bandHeight - 1) / bandHeight;
+
+        if (numBands <= 1 || ThreadPool.getNumCores() == 1 || ThreadPool.isPoolThread()) {
+            // Not worth parallelizing, or called from a pool thread,
+            // where waiting for other pool tasks could deadlock.
+            pt = createProgressTracker(1);
+            int[] outPixels = filterPixels(width, height, inPixels);
+            pt.unitDone();
+            finishProgressTracker();
+            return outPixels;
+        }
+
+        int[] outPixels = new int[width * height];
+        pt = createProgressTracker(numBands);
+        Future<?>[] bandFutures = new Future<?>[numBands];
+        for (int i = 0; i < numBands; i++) {
+            int startY = i * bandHeight;
+            int endY = Math.min(startY + bandHeight, height);
+            bandFutures[i] = ThreadPool.submit(() ->
+                filterBand(width, height, inPixels, outPixels, startY, endY, radius));
+        }
+        ThreadPool.waitFor(bandFutures, pt);
+        finishProgressTracker();
+
+        return outPixels;
+    }
+
+    private void filterBand(int width, int height, int[] inPixels, int[] outPixels,
+                            int startY, int endY, int radius) {
+        // the rows needed for the output rows of this band
+        int inStartY = Math.max(0, startY - radius);
+        int inEndY = Math.min(height, endY + radius);
+
+        int[] bandPixels = Arrays.copyOfRange(inPixels, inStartY * width, inEndY * width);
+        int[] filtered = filterPixels(width, inEndY - inStartY, bandPixels);
+
+        // the overlapping rows are discarded, because they were
+        // filtered as if they were at the edge of the image
+        System.arraycopy(filtered, (startY - inStartY) * width,
+            outPixels, startY * width, (endY - startY) * width);
+    }
+}
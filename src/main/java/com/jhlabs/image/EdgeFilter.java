@@ -19,7 +19,7 @@ package com.jhlabs.image;
 /**
  * An edge-detection filter.
  */
-public class EdgeFilter extends WholeImageFilter {
+public class EdgeFilter extends BandedWholeImageFilter {
     private static final float SQRT_2 = (float) ImageMath.SQRT_2;
 
     // Roberts cross vertical and horizontal edge detection matrices
@@ -107,17 +107,17 @@ public class EdgeFilter extends WholeImageFilter {
     }
 
     @Override
-    protected int[] filterPixels(int width, int height, int[] inPixels) {
-        pt = createProgressTracker(height);
+    protected int getNeighborhoodRadius() {
+        return 1; // a 3x3 neighborhood
+    }
 
-        int[] outPixels = switch (channel) {
+    @Override
+    protected int[] filterPixels(int width, int height, int[] inPixels) {
+        return switch (channel) {
             case CHANNEL_LUMINANCE -> findEdgesLuma(width, height, inPixels);
             case CHANNEL_RGB -> findEdgesRGB(width, height, inPixels);
             default -> throw new IllegalStateException("channel = " + channel);
         };
-
-        finishProgressTracker();
-        return outPixels;
     }
 
     private int[] findEdgesLuma(int width, int height, int[] inPixels) {
@@ -145,7 +145,6 @@ public class EdgeFilter extends WholeImageFilter {
                 int a = inPixels[index] & 0xFF_00_00_00;
                 outPixels[index++] = a | (i << 16) | (i << 8) | i;
             }
-            pt.unitDone();
         }
         return outPixels;
     }
@@ -191,7 +190,6 @@ public class EdgeFilter extends WholeImageFilter {
 
                 outPixels[index++] = a | (r << 16) | (g << 8) | b;
             }
-            pt.unitDone();
         }
         return outPixels;
     }
@@ -20,7 +20,7 @@ package com.jhlabs.image;
  * Embosses an image by treating its luminance as a height map and applying
  * Lambertian (diffuse) shading from a configurable light direction.
  */
-public class EmbossFilter extends WholeImageFilter {
+public class EmbossFilter extends BandedWholeImageFilter {
     private static final float PIXEL_SCALE = 255.9f;
 
     // the light vector components based on azimuth and elevation
@@ -72,9 +72,12 @@ public class EmbossFilter extends WholeImageFilter {
     }
 
     @Override
-    protected int[] filterPixels(int width, int height, int[] inPixels) {
-        pt = createProgressTracker(height);
+    protected int getNeighborhoodRadius() {
+        return 1; // a 3x3 neighborhood
+    }
 
+    @Override
+    protected int[] filterPixels(int width, int height, int[] inPixels) {
         // a bump map is derived from the brightness values of the
         // input image, and represents the surface's height map
         int[] bumpPixels = ImageMath.calcLuminanceInt(inPixels);
@@ -138,9 +141,7 @@ public class EmbossFilter extends WholeImageFilter {
                     outPixels[index++] = a | (shade << 16) | (shade << 8) | shade;
                 }
             }
-            pt.unitDone();
         }
-        finishProgressTracker();
 
         return outPixels;
     }
@@ -611,24 +611,20 @@ public class ImageMath {
      * Premultiply a block of pixels.
      */
     public static void premultiply(int[] p, int offset, int length) {
+        // The division by 255 is done exactly as (t * 32897) >>> 23
+        // (for t <= 255 * 255), which also handles alpha = 0 and 255
+        // without the special cases.
         length += offset;
         for (int i = offset; i < length; i++) {
             int rgb = p[i];
             int a = rgb >>> 24;
-            if (a == 255) {
-                continue;
-            }
-            if (a == 0) {
-                p[i] = 0;
-                continue;
-            }
             int r = (rgb >> 16) & 0xFF;
             int g = (rgb >> 8) & 0xFF;
             int b = rgb & 0xFF;
 
-            r = (r * a) / 255;
-            g = (g * a) / 255;
-            b = (b * a) / 255;
+            r = (r * a * 32897) >>> 23;
+            g = (g * a * 32897) >>> 23;
+            b = (b * a * 32897) >>> 23;
             p[i] = (a << 24) | (r << 16) | (g << 8) | b;
         }
     }
@@ -637,34 +633,34 @@ public class ImageMath {
         unpremultiply(p, 0, p.length);
     }
 
+    // For each alpha, a 16.16 fixed-point factor such that (c * factor) >>> 16
+    // equals (c * 255) / alpha exactly for all c in 0..255. The factor for
+    // alpha = 0 leaves the pixel unchanged.
+    private static final int[] UNPREMULTIPLY_FACTORS = new int[256];
+
+    static {
+        UNPREMULTIPLY_FACTORS[0] = 1 << 16;
+        for (int a = 1; a < 256; a++) {
+            UNPREMULTIPLY_FACTORS[a] = (int) Math.ceil(255.0 * (1 << 16) / a);
+        }
+    }
+
     /**
      * Unpremultiply a block of pixels.
      */
     public static void unpremultiply(int[] p, int offset, int length) {
+        // the division by alpha is replaced by a table lookup and
+        // a multiplication, and the loop has no branches
+        int[] factors = UNPREMULTIPLY_FACTORS;
         length += offset;
         for (int i = offset; i < length; i++) {
             int rgb = p[i];
-            int a = (rgb >>> 24);
-            if (a != 0 && a != 255) {
-                int r = (rgb >> 16) & 0xFF;
-                int g = (rgb >> 8) & 0xFF;
-                int b = rgb & 0xFF;
-
-                r = (r * 255) / a;
-                g = (g * 255) / a;
-                b = (b * 255) / a;
-
-                if (r > 255) {
-                    r = 255;
-                }
-                if (g > 255) {
-                    g = 255;
-                }
-                if (b > 255) {
-                    b = 255;
-                }
-                p[i] = (a << 24) | (r << 16) | (g << 8) | b;
-            }
+            int a = rgb >>> 24;
+            int f = factors[a];
+            int r = Math.min(255, (((rgb >> 16) & 0xFF) * f) >>> 16);
+            int g = Math.min(255, (((rgb >> 8) & 0xFF) * f) >>> 16);
+            int b = Math.min(255, ((rgb & 0xFF) * f) >>> 16);
+            p[i] = (a << 24) | (r << 16) | (g << 8) | b;
         }
     }
 
@@ -21,6 +21,7 @@ import pixelitor.utils.ImageUtils;
 
 import java.awt.image.BufferedImage;
 import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
 
 import static java.awt.image.BufferedImage.TYPE_BYTE_GRAY;
 
@@ -97,4 +98,22 @@ public abstract class PointFilter extends AbstractBufferedImageOp {
     }
 
     public abstract int processPixel(int x, int y, int rgb);
+
+    /**
+     * Returns the effect of this filter on a single pixel value. Only valid
+     * for filters that don't depend on the pixel position or the image size.
+     */
+    public IntUnaryOperator asPixelFunction() {
+        return rgb -> processPixel(0, 0, rgb);
+    }
+
+    /**
+     * Returns the effect of this filter on a single pixel value of an
+     * image with the given size. It must not change the state of the
+     * filter, because the returned function can be used concurrently
+     * with other uses of the same filter instance.
+     */
+    public IntUnaryOperator asPixelFunction(int width, int height) {
+        return asPixelFunction();
+    }
 }
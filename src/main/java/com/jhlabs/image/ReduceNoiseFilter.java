@@ -21,11 +21,16 @@ package com.jhlabs.image;
  * and if it's a minimum or maximum, replacing it by the next
  * minimum or maximum of the neighbors.
  */
-public class ReduceNoiseFilter extends WholeImageFilter {
+public class ReduceNoiseFilter extends BandedWholeImageFilter {
     public ReduceNoiseFilter(String filterName) {
         super(filterName);
     }
 
+    @Override
+    protected int getNeighborhoodRadius() {
+        return 1; // the 8 neighbors
+    }
+
     @Override
     protected int[] filterPixels(int width, int height, int[] inPixels) {
         int index = 0;
@@ -34,8 +39,6 @@ public class ReduceNoiseFilter extends WholeImageFilter {
         int[] b = new int[9];
         int[] outPixels = new int[width * height];
 
-        pt = createProgressTracker(height);
-
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
                 int k = 0;
@@ -73,11 +76,8 @@ public class ReduceNoiseFilter extends WholeImageFilter {
                 outPixels[index] = (irgb & 0xFF_00_00_00) | (smooth(r) << 16) | (smooth(g) << 8) | smooth(b);
                 index++;
             }
-            pt.unitDone();
         }
 
-        finishProgressTracker();
-
         return outPixels;
     }
 
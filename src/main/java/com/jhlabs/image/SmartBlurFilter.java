@@ -16,8 +16,11 @@ limitations under the License.
 
 package com.jhlabs.image;
 
+import pixelitor.ThreadPool;
+
 import java.awt.image.BufferedImage;
 import java.awt.image.Kernel;
+import java.util.concurrent.Future;
 
 /**
  * A filter which performs a "smart blur", i.e. a blur that smooths
@@ -78,77 +81,89 @@ public class SmartBlurFilter extends AbstractBufferedImageOp {
      * "smart blur". Each channel of each pixel is only blurred with neighbors
      * whose value in that channel is within {@code threshold} of the center
      * pixel's, which is what keeps edges sharp while smoothing flat regions.
+     * The rows are processed in parallel.
      */
     private void thresholdBlurAndTranspose(Kernel kernel, int[] inPixels, int[] outPixels,
                                            int width, int height) {
         float[] matrix = kernel.getKernelData(null);
         int cols2 = kernel.getWidth() / 2;
 
+        Future<?>[] rowFutures = new Future[height];
         for (int y = 0; y < height; y++) {
-            int ioffset = y * width;
-            int outIndex = y;
-            for (int x = 0; x < width; x++) {
-                float r = 0, g = 0, b = 0, a = 0;
-
-                int rgb1 = inPixels[ioffset + x];
-                int a1 = rgb1 >>> 24;
-                int r1 = (rgb1 >> 16) & 0xFF;
-                int g1 = (rgb1 >> 8) & 0xFF;
-                int b1 = rgb1 & 0xFF;
-
-                float af = 0, rf = 0, gf = 0, bf = 0;
-
-                for (int col = -cols2; col <= cols2; col++) {
-                    float f = matrix[cols2 + col];
-                    if (f == 0) {
-                        continue;
-                    }
-
-                    int ix = x + col;
-                    if (ix < 0 || ix >= width) {
-                        ix = x;
-                    }
-
-                    int rgb2 = inPixels[ioffset + ix];
-                    int a2 = rgb2 >>> 24;
-                    int r2 = (rgb2 >> 16) & 0xFF;
-                    int g2 = (rgb2 >> 8) & 0xFF;
-                    int b2 = rgb2 & 0xFF;
-
-                    if (Math.abs(a1 - a2) <= threshold) {
-                        a += f * a2;
-                        af += f;
-                    }
-                    if (Math.abs(r1 - r2) <= threshold) {
-                        r += f * r2;
-                        rf += f;
-                    }
-                    if (Math.abs(g1 - g2) <= threshold) {
-                        g += f * g2;
-                        gf += f;
-                    }
-                    if (Math.abs(b1 - b2) <= threshold) {
-                        b += f * b2;
-                        bf += f;
-                    }
+            int finalY = y;
+            Runnable rowTask = () -> thresholdBlurAndTransposeRow(
+                inPixels, outPixels, width, height, matrix, cols2, finalY);
+            rowFutures[y] = ThreadPool.submit(rowTask);
+        }
+
+        ThreadPool.waitFor(rowFutures, pt);
+    }
+
+    private void thresholdBlurAndTransposeRow(int[] inPixels, int[] outPixels,
+                                              int width, int height,
+                                              float[] matrix, int cols2, int y) {
+        int ioffset = y * width;
+        int outIndex = y;
+        for (int x = 0; x < width; x++) {
+            float r = 0, g = 0, b = 0, a = 0;
+
+            int rgb1 = inPixels[ioffset + x];
+            int a1 = rgb1 >>> 24;
+            int r1 = (rgb1 >> 16) & 0xFF;
+            int g1 = (rgb1 >> 8) & 0xFF;
+            int b1 = rgb1 & 0xFF;
+
+            float af = 0, rf = 0, gf = 0, bf = 0;
+
+            for (int col = -cols2; col <= cols2; col++) {
+                float f = matrix[cols2 + col];
+                if (f == 0) {
+                    continue;
                 }
 
-                // the divisors below will never be 0, because
-                // a Gaussian kernel center is always positive
-                a = a / af;
-                r = r / rf;
-                g = g / gf;
-                b = b / bf;
+                int ix = x + col;
+                if (ix < 0 || ix >= width) {
+                    ix = x;
+                }
 
-                int ia = PixelUtils.clamp((int) (a + 0.5));
-                int ir = PixelUtils.clamp((int) (r + 0.5));
-                int ig = PixelUtils.clamp((int) (g + 0.5));
-                int ib = PixelUtils.clamp((int) (b + 0.5));
+                int rgb2 = inPixels[ioffset + ix];
+                int a2 = rgb2 >>> 24;
+                int r2 = (rgb2 >> 16) & 0xFF;
+                int g2 = (rgb2 >> 8) & 0xFF;
+                int b2 = rgb2 & 0xFF;
 
-                outPixels[outIndex] = (ia << 24) | (ir << 16) | (ig << 8) | ib;
-                outIndex += height;
+                if (Math.abs(a1 - a2) <= threshold) {
+                    a += f * a2;
+                    af += f;
+                }
+                if (Math.abs(r1 - r2) <= threshold) {
+                    r += f * r2;
+                    rf += f;
+                }
+                if (Math.abs(g1 - g2) <= threshold) {
+                    g += f * g2;
+                    gf += f;
+                }
+                if (Math.abs(b1 - b2) <= threshold) {
+                    b += f * b2;
+                    bf += f;
+                }
             }
-            pt.unitDone();
+
+            // the divisors below will never be 0, because
+            // a Gaussian kernel center is always positive
+            a = a / af;
+            r = r / rf;
+            g = g / gf;
+            b = b / bf;
+
+            int ia = PixelUtils.clamp((int) (a + 0.5));
+            int ir = PixelUtils.clamp((int) (r + 0.5));
+            int ig = PixelUtils.clamp((int) (g + 0.5));
+            int ib = PixelUtils.clamp((int) (b + 0.5));
+
+            outPixels[outIndex] = (ia << 24) | (ir << 16) | (ig << 8) | ib;
+            outIndex += height;
         }
     }
 }
@@ -17,6 +17,7 @@ limitations under the License.
 package com.jhlabs.image;
 
 import java.awt.image.BufferedImage;
+import java.util.function.IntUnaryOperator;
 
 public abstract class TransferFilter extends PointFilter {
     protected int[] rTable, gTable, bTable;
@@ -46,6 +47,14 @@ public abstract class TransferFilter extends PointFilter {
         return super.filter(src, dst);
     }
 
+    @Override
+    public IntUnaryOperator asPixelFunction() {
+        if (!initialized) {
+            initialize();
+        }
+        return super.asPixelFunction();
+    }
+
     protected void initialize() {
         initialized = true;
         rTable = gTable = bTable = makeTable();
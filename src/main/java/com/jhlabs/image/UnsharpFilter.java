@@ -16,6 +16,8 @@ limitations under the License.
 
 package com.jhlabs.image;
 
+import pixelitor.ThreadPool;
+
 import java.awt.image.BufferedImage;
 
 /**
@@ -76,9 +78,9 @@ public class UnsharpFilter extends GaussianFilter {
 
         float a = 4 * amount;
 
-        int index = 0;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
+        // combine the original (outPixels) and the blurred (inPixels) pixels
+        ThreadPool.processPixels(width * height, (start, end) -> {
+            for (int index = start; index < end; index++) {
                 int rgb1 = outPixels[index];
                 int r1 = (rgb1 >> 16) & 0xFF;
                 int g1 = (rgb1 >> 8) & 0xFF;
@@ -100,9 +102,8 @@ public class UnsharpFilter extends GaussianFilter {
                 }
 
                 inPixels[index] = (rgb1 & 0xFF_00_00_00) | (r1 << 16) | (g1 << 8) | b1;
-                index++;
             }
-        }
+        });
 
         dst.setRGB(0, 0, width, height, inPixels, 0, width);
 
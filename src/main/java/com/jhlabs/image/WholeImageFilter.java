@@ -44,12 +44,20 @@ public abstract class WholeImageFilter extends AbstractBufferedImageOp {
         }
 
         int[] inPixels = getRGB(src, 0, 0, width, height, null);
-        inPixels = filterPixels(width, height, inPixels);
+        inPixels = filterImagePixels(width, height, inPixels);
         setRGB(dst, 0, 0, width, height, inPixels);
 
         return dst;
     }
 
+    /**
+     * Filters the pixels of the whole image. By default, it's
+     * a single call to {@link #filterPixels(int, int, int[])}.
+     */
+    protected int[] filterImagePixels(int width, int height, int[] inPixels) {
+        return filterPixels(width, height, inPixels);
+    }
+
     /**
      * Actually filter the pixels.
      *
@@ -6,11 +6,17 @@
 
 package pd;
 
+import pixelitor.ThreadPool;
+
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class AnimatedGifEncoder - Encodes a GIF file consisting of one or more
@@ -26,6 +32,9 @@ import java.io.*;
  *     e.finish();
  * </pre>
  *
+ * The color quantization and the LZW compression of the frames run in
+ * parallel on the thread pool, and the encoded frames are written in order.
+ *
  * No copyright asserted on the source code of this class. May be used for any
  * purpose, however, refer to the Unisys LZW patent for restrictions on use of
  * the associated LZWEncoder class. Please forward any corrections to
@@ -35,21 +44,18 @@ import java.io.*;
  * @version 1.03 November 2003
  */
 public class AnimatedGifEncoder {
+    // the memory limit for the frames waiting to be encoded or written
+    private static final long MAX_PENDING_BYTES = 256L * 1024 * 1024;
+
     private int width; // image size
     private int height;
     private Color transparent = null; // transparent color if given
-    private int transIndex; // transparent index in color table
     private int repeat = -1; // no repeat
     private int delay = 0; // frame delay (hundredths)
     private boolean started = false; // ready to output frames
     private OutputStream out;
-    private BufferedImage image; // current frame
-    private byte[] pixels; // BGR byte array from frame
-    private byte[] indexedPixels; // converted frame indexed to palette
-    private int colorDepth; // number of bit planes
-    private byte[] colorTab; // RGB palette
-    private final boolean[] usedEntry = new boolean[256]; // active palette entries
-    private int palSize = 7; // color table size (bits-1)
+    private static final int colorDepth = 8; // number of bit planes
+    private static final int palSize = 7; // color table size (bits-1)
     private int dispose = -1; // disposal code (-1 = use default)
     private boolean closeStream = false; // close stream when finished
     private boolean firstFrame = true;
@@ -57,9 +63,27 @@ public class AnimatedGifEncoder {
     private int sample = 10; // default sample interval for quantizer
     private File file;
 
+    private boolean globalPalette = false; // use the palette of the first frame for all frames
+    private boolean frameDifferencing = false; // make the unchanged pixels transparent
+    private NeuQuant globalQuantizer; // the quantizer of the global palette
+    private byte[] globalColorTab; // the global RGB palette
+    private byte[] prevPixels; // BGR byte array of the previous frame
+
+    // the frames being encoded, in the order they have to be written
+    private final Queue<Future<EncodedFrame>> pendingFrames = new ArrayDeque<>();
+    private int maxPendingFrames;
+
+    /**
+     * A frame that is ready to be written.
+     */
+    private record EncodedFrame(boolean first, byte[] colorTab,
+                                int x, int y, int width, int height,
+                                boolean transparency, int transIndex,
+                                int disposal, int delay, byte[] imageData) {
+    }
+
     /**
-     * Sets the delay time between each frame, or changes it for subsequent frames
-     * (applies to last frame added).
+     * Sets the delay time between each frame, or changes it for subsequent frames.
      *
      * @param ms int delay time in milliseconds
      */
@@ -68,9 +92,8 @@ public class AnimatedGifEncoder {
     }
 
     /**
-     * Sets the GIF frame disposal code for the last added frame and any
-     * subsequent frames. Default is 0 if no transparent color has been set,
-     * otherwise 2.
+     * Sets the GIF frame disposal code for subsequent frames. Default is 0 if
+     * no transparent color has been set, otherwise 2.
      *
      * @param code int disposal code.
      */
@@ -94,11 +117,11 @@ public class AnimatedGifEncoder {
     }
 
     /**
-     * Sets the transparent color for the last added frame and any subsequent
-     * frames. Since all colors are subject to modification in the quantization
-     * process, the color in the final palette for each frame closest to the given
-     * color becomes the transparent color for that frame. May be set to null to
-     * indicate no transparent color.
+     * Sets the transparent color for subsequent frames. Since all colors are
+     * subject to modification in the quantization process, the color in the
+     * final palette for each frame closest to the given color becomes the
+     * transparent color for that frame. May be set to null to indicate no
+     * transparent color.
      *
      * @param c Color to be treated as transparent on display.
      */
@@ -107,11 +130,38 @@ public class AnimatedGifEncoder {
     }
 
     /**
-     * Adds next GIF frame. The frame is not written immediately, but is actually
-     * deferred until the next frame is received so that timing data can be
-     * inserted. Invoking <code>finish()</code> flushes all frames. If
-     * <code>setSize</code> was not invoked, the size of the first image is used
-     * for all subsequent frames.
+     * Sets whether all frames should use the palette calculated from the first
+     * frame. This is much faster, because the palette is not trained again for
+     * each frame, and the file is smaller without the local palettes, but the
+     * colors of the later frames can be less accurate. Must be invoked before
+     * the first image is added.
+     *
+     * @param global true for a single global palette.
+     */
+    public void setGlobalPalette(boolean global) {
+        if (firstFrame) {
+            globalPalette = global;
+        }
+    }
+
+    /**
+     * Sets whether only the changed part of each frame should be written.
+     * The pixels that are the same as in the previous frame become
+     * transparent, and only their bounding box is encoded, which makes both
+     * the encoding and the file faster and smaller. It's ignored for frames
+     * with a transparent color or with a disposal code that clears the frame.
+     *
+     * @param differencing true to write only the frame differences.
+     */
+    public void setFrameDifferencing(boolean differencing) {
+        frameDifferencing = differencing;
+    }
+
+    /**
+     * Adds next GIF frame. The frame is encoded in the background, and it is
+     * written after the previously added frames. Invoking <code>finish()</code>
+     * flushes all frames. If <code>setSize</code> was not invoked, the size of
+     * the first image is used for all subsequent frames.
      *
      * @param im BufferedImage containing frame to write.
      */
@@ -119,31 +169,46 @@ public class AnimatedGifEncoder {
         if ((im == null) || !started) {
             throw new IllegalStateException();
         }
-        try {
-            if (!sizeSet) {
-                // use first frame's size
-                setSize(im.getWidth(), im.getHeight());
-            }
-            image = im;
-            getImagePixels(); // convert to correct format if necessary
-            analyzePixels(); // build color table & map pixels
-            if (firstFrame) {
-                writeLSD(); // logical screen descriptior
-                writePalette(); // global color table
-                if (repeat >= 0) {
-                    // use NS app extension to indicate reps
-                    writeNetscapeExt();
-                }
-            }
-            writeGraphicCtrlExt(); // write graphic control extension
-            writeImageDesc(); // image descriptor
-            if (!firstFrame) {
-                writePalette(); // local color table
+        if (!sizeSet) {
+            // use first frame's size
+            setSize(im.getWidth(), im.getHeight());
+        }
+        byte[] pixels = getImagePixels(im); // convert to correct format if necessary
+        boolean first = firstFrame;
+        if (first) {
+            long frameBytes = 4L * width * height;
+            maxPendingFrames = (int) Math.max(2,
+                Math.min(2L * ThreadPool.getNumCores(), MAX_PENDING_BYTES / frameBytes));
+            if (globalPalette) {
+                globalQuantizer = new NeuQuant(pixels, pixels.length, sample);
+                globalColorTab = toRGB(globalQuantizer.process());
             }
-            writePixels(); // encode and write pixel data
-            firstFrame = false;
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        }
+
+        // the settings are captured, because they can change before the frame is encoded
+        Color frameTransparent = transparent;
+        int frameDispose = dispose;
+        int frameDelay = delay;
+        boolean canUseDifference = frameDifferencing && !first
+            && frameTransparent == null && frameDispose < 2;
+        byte[] prev = canUseDifference ? prevPixels : null;
+
+        pendingFrames.add(ThreadPool.submit2(() ->
+            encodeFrame(pixels, prev, first, frameTransparent, frameDispose, frameDelay)));
+        prevPixels = frameDifferencing ? pixels : null;
+        firstFrame = false;
+
+        while (pendingFrames.size() > maxPendingFrames) {
+            writeNextFrame();
+        }
+    }
+
+    /**
+     * Waits until all the added frames are encoded, and writes them.
+     */
+    public void flush() {
+        while (!pendingFrames.isEmpty()) {
+            writeNextFrame();
         }
     }
 
@@ -157,6 +222,7 @@ public class AnimatedGifEncoder {
         }
         started = false;
         try {
+            flush();
             out.write(0x3b); // gif trailer
             out.flush();
             if (closeStream) {
@@ -164,20 +230,28 @@ public class AnimatedGifEncoder {
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            // reset for subsequent use
+            for (Future<EncodedFrame> frame : pendingFrames) {
+                frame.cancel(false);
+            }
+            pendingFrames.clear();
+            out = null;
+            prevPixels = null;
+            globalQuantizer = null;
+            globalColorTab = null;
+            closeStream = false;
+            firstFrame = true;
         }
-
-        // reset for subsequent use
-        transIndex = 0;
-        out = null;
-        image = null;
-        pixels = null;
-        indexedPixels = null;
-        colorTab = null;
-        closeStream = false;
-        firstFrame = true;
     }
 
     public void cancel() {
+        // the frames that are not written yet are not needed
+        for (Future<EncodedFrame> frame : pendingFrames) {
+            frame.cancel(false);
+        }
+        pendingFrames.clear();
+
         boolean ok = true;
         try {
             finish();
@@ -279,70 +353,250 @@ public class AnimatedGifEncoder {
     }
 
     /**
-     * Analyzes image colors and creates color map.
+     * Waits for the oldest pending frame, and writes it.
+     */
+    private void writeNextFrame() {
+        EncodedFrame frame;
+        try {
+            frame = pendingFrames.remove().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        try {
+            if (frame.first()) {
+                writeLSD(); // logical screen descriptior
+                writePalette(frame.colorTab()); // global color table
+                if (repeat >= 0) {
+                    // use NS app extension to indicate reps
+                    writeNetscapeExt();
+                }
+            }
+            writeGraphicCtrlExt(frame); // write graphic control extension
+            writeImageDesc(frame); // image descriptor
+            if (hasLocalPalette(frame)) {
+                writePalette(frame.colorTab()); // local color table
+            }
+            out.write(frame.imageData()); // the encoded pixel data
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean hasLocalPalette(EncodedFrame frame) {
+        return !frame.first() && !globalPalette;
+    }
+
+    /**
+     * Builds the color table, maps the pixels and compresses them. Runs on
+     * the thread pool, so it must not change the given pixel arrays or the
+     * fields of the encoder.
+     *
+     * @param pixels the BGR pixels of the frame
+     * @param prev the BGR pixels of the previous frame, or null if the whole frame must be written
+     */
+    private EncodedFrame encodeFrame(byte[] pixels, byte[] prev, boolean first,
+                                     Color transparent, int dispose, int delay) throws IOException {
+        // the written part of the frame
+        int x = 0;
+        int y = 0;
+        int w = width;
+        int h = height;
+        if (prev != null) {
+            int[] bounds = findChangedBounds(pixels, prev);
+            if (bounds == null) {
+                // nothing changed, but at least one (transparent) pixel must be written
+                w = 1;
+                h = 1;
+            } else {
+                x = bounds[0];
+                y = bounds[1];
+                w = bounds[2] - x;
+                h = bounds[3] - y;
+            }
+        }
+
+        int nPix = w * h;
+        byte[] areaPixels; // the pixels to be mapped, without the unchanged ones
+        boolean[] unchanged = null;
+        int numChanged = 0;
+        if (prev == null) {
+            areaPixels = pixels;
+            numChanged = nPix;
+        } else {
+            // copy the changed pixels of the written part, and mark the unchanged ones
+            areaPixels = new byte[nPix * 3];
+            unchanged = new boolean[nPix];
+            for (int row = 0; row < h; row++) {
+                int k = ((y + row) * width + x) * 3;
+                for (int col = 0; col < w; col++, k += 3) {
+                    if (pixels[k] == prev[k] && pixels[k + 1] == prev[k + 1] && pixels[k + 2] == prev[k + 2]) {
+                        unchanged[row * w + col] = true;
+                        continue;
+                    }
+                    int j = numChanged * 3;
+                    areaPixels[j] = pixels[k];
+                    areaPixels[j + 1] = pixels[k + 1];
+                    areaPixels[j + 2] = pixels[k + 2];
+                    numChanged++;
+                }
+            }
+        }
+
+        // build the color table, trained only on the changed pixels
+        NeuQuant nq;
+        byte[] colorTab;
+        if (globalPalette) {
+            nq = globalQuantizer;
+            colorTab = globalColorTab;
+        } else {
+            nq = new NeuQuant(areaPixels, numChanged * 3, sample);
+            colorTab = toRGB(nq.process());
+        }
+
+        // map the changed pixels to the palette
+        byte[] indexedPixels = new byte[nPix];
+        int[] usage = new int[256];
+        for (int i = 0, k = 0; i < nPix; i++) {
+            if (unchanged != null && unchanged[i]) {
+                continue;
+            }
+            int index = nq.map(areaPixels[k] & 0xFF, areaPixels[k + 1] & 0xFF, areaPixels[k + 2] & 0xFF);
+            k += 3;
+            usage[index]++;
+            indexedPixels[i] = (byte) index;
+        }
+
+        boolean transparency = false;
+        int transIndex = 0;
+        int disposal = 0; // no action
+        if (unchanged != null) {
+            // the least used color becomes transparent, and its pixels
+            // are mapped to the closest of the remaining colors
+            transparency = true;
+            transIndex = findLeastUsed(usage);
+            if (usage[transIndex] > 0) {
+                int replacement = findClosest(colorTab, usage,
+                    colorTab[transIndex * 3] & 0xFF,
+                    colorTab[transIndex * 3 + 1] & 0xFF,
+                    colorTab[transIndex * 3 + 2] & 0xFF, transIndex);
+                for (int i = 0; i < nPix; i++) {
+                    if (unchanged[i]) {
+                        indexedPixels[i] = (byte) transIndex;
+                    } else if ((indexedPixels[i] & 0xFF) == transIndex) {
+                        indexedPixels[i] = (byte) replacement;
+                    }
+                }
+            } else {
+                for (int i = 0; i < nPix; i++) {
+                    if (unchanged[i]) {
+                        indexedPixels[i] = (byte) transIndex;
+                    }
+                }
+            }
+            disposal = 1; // leave the previous frame in place
+        } else if (transparent != null) {
+            // get closest match to transparent color if specified
+            transparency = true;
+            transIndex = findClosest(colorTab, usage,
+                transparent.getRed(), transparent.getGreen(), transparent.getBlue(), -1);
+            disposal = 2; // force clear if using transparent color
+        }
+        if (dispose >= 0 && unchanged == null) {
+            disposal = dispose & 7; // user override
+        }
+
+        ByteArrayOutputStream imageData = new ByteArrayOutputStream(nPix / 2 + 64);
+        new LZWEncoder(w, h, indexedPixels, colorDepth).encode(imageData);
+
+        return new EncodedFrame(first, colorTab, x, y, w, h,
+            transparency, transIndex, disposal, delay, imageData.toByteArray());
+    }
+
+    /**
+     * Returns the bounds {minX, minY, maxX, maxY} (exclusive maximum) of
+     * the pixels that are different in the two frames, or null if none are.
+     */
+    private int[] findChangedBounds(byte[] pixels, byte[] prev) {
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width * 3;
+            for (int x = 0; x < width; x++) {
+                int k = rowStart + x * 3;
+                if (pixels[k] != prev[k] || pixels[k + 1] != prev[k + 1] || pixels[k + 2] != prev[k + 2]) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = y;
+                }
+            }
+        }
+        if (maxY < 0) {
+            return null;
+        }
+        return new int[]{minX, minY, maxX + 1, maxY + 1};
+    }
+
+    /**
+     * Converts a color map from BGR to RGB.
      */
-    private void analyzePixels() {
-        int len = pixels.length;
-        int nPix = len / 3;
-        indexedPixels = new byte[nPix];
-        NeuQuant nq = new NeuQuant(pixels, len, sample);
-        // initialize quantizer
-        colorTab = nq.process(); // create reduced palette
-        // convert map from BGR to RGB
+    private static byte[] toRGB(byte[] colorTab) {
         for (int i = 0; i < colorTab.length; i += 3) {
             byte temp = colorTab[i];
             colorTab[i] = colorTab[i + 2];
             colorTab[i + 2] = temp;
-            usedEntry[i / 3] = false;
-        }
-        // map image pixels to new palette
-        int k = 0;
-        for (int i = 0; i < nPix; i++) {
-            int index = nq.map(pixels[k++] & 0xFF, pixels[k++] & 0xFF, pixels[k++] & 0xFF);
-            usedEntry[index] = true;
-            indexedPixels[i] = (byte) index;
         }
-        pixels = null;
-        colorDepth = 8;
-        palSize = 7;
-        // get closest match to transparent color if specified
-        if (transparent != null) {
-            transIndex = findClosest(transparent);
+        return colorTab;
+    }
+
+    private static int findLeastUsed(int[] usage) {
+        int minIndex = 0;
+        for (int i = 1; i < usage.length; i++) {
+            if (usage[i] < usage[minIndex]) {
+                minIndex = i;
+            }
         }
+        return minIndex;
     }
 
     /**
-     * Returns index of palette color closest to c
+     * Returns index of the used palette color closest to the given color,
+     * ignoring the given excluded index. If no other color is used, then
+     * any color can be returned.
      */
-    private int findClosest(Color c) {
-        if (colorTab == null) {
-            return -1;
-        }
-        int r = c.getRed();
-        int g = c.getGreen();
-        int b = c.getBlue();
-        int minpos = 0;
+    private static int findClosest(byte[] colorTab, int[] usage, int r, int g, int b, int excludedIndex) {
+        int minpos = excludedIndex == 0 ? 1 : 0;
         int dmin = 256 * 256 * 256;
-        int len = colorTab.length;
-        for (int i = 0; i < len; ) {
-            int dr = r - (colorTab[i++] & 0xFF);
-            int dg = g - (colorTab[i++] & 0xFF);
-            int db = b - (colorTab[i] & 0xFF);
+        for (int index = 0; index < colorTab.length / 3; index++) {
+            if (usage[index] == 0 || index == excludedIndex) {
+                continue;
+            }
+            int i = index * 3;
+            int dr = r - (colorTab[i] & 0xFF);
+            int dg = g - (colorTab[i + 1] & 0xFF);
+            int db = b - (colorTab[i + 2] & 0xFF);
             int d = dr * dr + dg * dg + db * db;
-            int index = i / 3;
-            if (usedEntry[index] && (d < dmin)) {
+            if (d < dmin) {
                 dmin = d;
                 minpos = index;
             }
-            i++;
         }
         return minpos;
     }
 
     /**
-     * Extracts image pixels into byte array "pixels"
+     * Extracts the pixels of the given image into a new BGR byte array
      */
-    private void getImagePixels() {
+    private byte[] getImagePixels(BufferedImage image) {
         int w = image.getWidth();
         int h = image.getHeight();
         int type = image.getType();
@@ -351,30 +605,22 @@ public class AnimatedGifEncoder {
             BufferedImage temp = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
             Graphics2D g = temp.createGraphics();
             g.drawImage(image, 0, 0, null);
-            image = temp;
+            g.dispose();
+            return ((DataBufferByte) temp.getRaster().getDataBuffer()).getData();
         }
-        pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        // copied, because the image can change while the frame is encoded
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData().clone();
     }
 
     /**
      * Writes Graphic Control Extension
      */
-    private void writeGraphicCtrlExt() throws IOException {
+    private void writeGraphicCtrlExt(EncodedFrame frame) throws IOException {
         out.write(0x21); // extension introducer
         out.write(0xf9); // GCE label
         out.write(4); // data block size
-        int transp, disp;
-        if (transparent == null) {
-            transp = 0;
-            disp = 0; // dispose = no action
-        } else {
-            transp = 1;
-            disp = 2; // force clear if using transparent color
-        }
-        if (dispose >= 0) {
-            disp = dispose & 7; // user override
-        }
-        disp <<= 2;
+        int transp = frame.transparency() ? 1 : 0;
+        int disp = frame.disposal() << 2;
 
         // packed fields
         out.write(0 | // 1:3 reserved
@@ -382,23 +628,24 @@ public class AnimatedGifEncoder {
             0 | // 7 user input - 0 = none
             transp); // 8 transparency flag
 
-        writeShort(delay); // delay x 1/100 sec
-        out.write(transIndex); // transparent color index
+        writeShort(frame.delay()); // delay x 1/100 sec
+        out.write(frame.transIndex()); // transparent color index
         out.write(0); // block terminator
     }
 
     /**
      * Writes Image Descriptor
      */
-    private void writeImageDesc() throws IOException {
+    private void writeImageDesc(EncodedFrame frame) throws IOException {
         out.write(0x2c); // image separator
-        writeShort(0); // image position x,y = 0,0
-        writeShort(0);
-        writeShort(width); // image size
-        writeShort(height);
+        writeShort(frame.x()); // image position x,y
+        writeShort(frame.y());
+        writeShort(frame.width()); // image size
+        writeShort(frame.height());
         // packed fields
-        if (firstFrame) {
-            // no LCT - GCT is used for first (or only) frame
+        if (!hasLocalPalette(frame)) {
+            // no LCT - GCT is used for first (or only) frame,
+            // and for all frames if the palette is global
             out.write(0);
         } else {
             // specify normal LCT
@@ -444,7 +691,7 @@ public class AnimatedGifEncoder {
     /**
      * Writes color table
      */
-    private void writePalette() throws IOException {
+    private void writePalette(byte[] colorTab) throws IOException {
         out.write(colorTab, 0, colorTab.length);
         int n = (3 * 256) - colorTab.length;
         for (int i = 0; i < n; i++) {
@@ -452,14 +699,6 @@ public class AnimatedGifEncoder {
         }
     }
 
-    /**
-     * Encodes and writes pixel data
-     */
-    private void writePixels() throws IOException {
-        LZWEncoder encoder = new LZWEncoder(width, height, indexedPixels, colorDepth);
-        encoder.encode(out);
-    }
-
     /**
      * Write 16-bit value to output stream, LSB first
      */
@@ -8,11 +8,12 @@
 package pd;
 
 import net.jafama.FastMath;
+import pixelitor.ThreadPool;
 import pixelitor.progress.ProgressTracker;
 import pixelitor.progress.StatusBarProgressTracker;
 
 import java.awt.image.BufferedImage;
-import java.util.Arrays;
+import java.lang.ref.SoftReference;
 
 /**
  * <p><em>This software has been released into the public domain.
@@ -21,8 +22,9 @@ import java.util.Arrays;
  *
  * <p>This class provides a configurable implementation of the Canny edge
  * detection algorithm. This classic algorithm has a number of shortcomings,
- * but remains an effective tool in many scenarios. <em>This class is designed
- * for single threaded use only.</em></p>
+ * but remains an effective tool in many scenarios. <em>A detector object
+ * should be used by one thread at a time, but it processes the image
+ * in parallel bands.</em></p>
  *
  * <p>Sample usage:</p>
  *
@@ -71,9 +73,15 @@ public class CannyEdgeDetector {
     private float[] yConv;
     private float[] xGradient;
     private float[] yGradient;
+    private boolean[] strongRoots;
 
     private ProgressTracker pt;
 
+    // The work arrays of the last run, kept for the next run with the
+    // same image size (typically the next preview). The reference is soft,
+    // so that the arrays don't prevent other allocations.
+    private static SoftReference<WorkArrays> pooledArrays;
+
     // constructors
 
     /**
@@ -270,48 +278,101 @@ public class CannyEdgeDetector {
         width = sourceImage.getWidth();
         height = sourceImage.getHeight();
 
-        // the number of computational units are experimental values
-        // that seem to work pretty well
-        pt = new StatusBarProgressTracker("Canny", width + 450);
+        pt = new StatusBarProgressTracker("Canny", 100);
 
         picsize = width * height;
-        initArrays();
-
-        pt.unitsDone(10);
-
-        readLuminance();
+        WorkArrays arrays = takeArrays(picsize);
+        try {
+            pt.unitsDone(5);
 
-        pt.unitsDone(50);
-
-        if (contrastNormalized) {
-            normalizeContrast();
+            readLuminance();
             pt.unitsDone(10);
-        }
 
-        computeGradients(gaussianKernelRadius, gaussianKernelWidth);
-        int low = Math.round(lowThreshold * MAGNITUDE_SCALE);
-        int high = Math.round(highThreshold * MAGNITUDE_SCALE);
-        performHysteresis(low, high);
-        pt.unitDone();
+            if (contrastNormalized) {
+                normalizeContrast();
+            }
+            pt.unitsDone(5);
 
-        thresholdEdges();
-        pt.unitDone();
+            computeGradients(gaussianKernelRadius, gaussianKernelWidth);
+            int low = Math.round(lowThreshold * MAGNITUDE_SCALE);
+            int high = Math.round(highThreshold * MAGNITUDE_SCALE);
+            performHysteresis(low, high);
+            pt.unitsDone(10);
 
-        writeEdges(luminance);
+            writeEdges(luminance);
+        } finally {
+            returnArrays(arrays);
+        }
         pt.finished();
     }
 
     // private utility methods
 
-    private void initArrays() {
-        if (luminance == null || picsize != luminance.length) {
-            luminance = new int[picsize];
-            magnitude = new int[picsize];
+    /**
+     * Takes the pooled work arrays if they have the right size,
+     * otherwise allocates new ones. The arrays are removed from the
+     * pool while they are used, so concurrent detectors don't share them.
+     */
+    private WorkArrays takeArrays(int size) {
+        WorkArrays arrays = null;
+        synchronized (CannyEdgeDetector.class) {
+            if (pooledArrays != null) {
+                arrays = pooledArrays.get();
+                pooledArrays = null;
+            }
+        }
+        if (arrays == null || arrays.size != size) {
+            arrays = new WorkArrays(size);
+        }
 
-            xConv = new float[picsize];
-            yConv = new float[picsize];
-            xGradient = new float[picsize];
-            yGradient = new float[picsize];
+        luminance = arrays.luminance;
+        magnitude = arrays.magnitude;
+        xConv = arrays.xConv;
+        yConv = arrays.yConv;
+        xGradient = arrays.xGradient;
+        yGradient = arrays.yGradient;
+        strongRoots = arrays.strongRoots;
+        return arrays;
+    }
+
+    private void returnArrays(WorkArrays arrays) {
+        luminance = null;
+        magnitude = null;
+        xConv = null;
+        yConv = null;
+        xGradient = null;
+        yGradient = null;
+        strongRoots = null;
+
+        synchronized (CannyEdgeDetector.class) {
+            pooledArrays = new SoftReference<>(arrays);
+        }
+    }
+
+    /**
+     * The image-sized arrays used by the processing. Every stage writes all
+     * the elements it later reads, so the arrays don't have to be cleared
+     * before they are reused.
+     */
+    private static final class WorkArrays {
+        final int size;
+        final int[] luminance;
+        final int[] magnitude;
+        final float[] xConv;
+        final float[] yConv;
+        final float[] xGradient;
+        final float[] yGradient;
+        final boolean[] strongRoots;
+
+        WorkArrays(int size) {
+            this.size = size;
+            luminance = new int[size];
+            magnitude = new int[size];
+            xConv = new float[size];
+            yConv = new float[size];
+            xGradient = new float[size];
+            yGradient = new float[size];
+            strongRoots = new boolean[size];
         }
     }
 
@@ -343,148 +404,176 @@ public class CannyEdgeDetector {
             diffKernel[kwidth] = g3 - g2;
         }
 
-        pt.unitDone();
+        int kw = kwidth;
 
-        int initX = kwidth - 1;
-        int maxX = width - (kwidth - 1);
-        int initY = width * (kwidth - 1);
-        int maxY = width * (height - (kwidth - 1));
+        // The stages below process the image in parallel row bands, and
+        // each stage starts only after the previous one has finished,
+        // because it reads the results of the neighboring rows. Outside
+        // the regions where the kernels fit, the results are zero.
 
         //perform convolution in x and y directions
-        for (int x = initX; x < maxX; x++) {
-            for (int y = initY; y < maxY; y += width) {
-                int index = x + y;
-                float sumX = luminance[index] * kernel[0];
-                float sumY = sumX;
-                int xOffset = 1;
-                int yOffset = width;
-                while (xOffset < kwidth) {
-                    sumY += kernel[xOffset] * (luminance[index - yOffset] + luminance[index + yOffset]);
-                    sumX += kernel[xOffset] * (luminance[index - xOffset] + luminance[index + xOffset]);
-                    yOffset += width;
-                    xOffset++;
-                }
+        int convMin = kw - 1;
+        int convMaxX = width - (kw - 1);
+        int convMaxY = height - (kw - 1);
+        ThreadPool.processBands(height, (startY, endY) -> {
+            for (int y = startY; y < endY; y++) {
+                boolean rowInside = y >= convMin && y < convMaxY;
+                int index = y * width;
+                for (int x = 0; x < width; x++, index++) {
+                    if (!rowInside || x < convMin || x >= convMaxX) {
+                        xConv[index] = 0;
+                        yConv[index] = 0;
+                        continue;
+                    }
+                    float sumX = luminance[index] * kernel[0];
+                    float sumY = sumX;
+                    int xOffset = 1;
+                    int yOffset = width;
+                    while (xOffset < kw) {
+                        sumY += kernel[xOffset] * (luminance[index - yOffset] + luminance[index + yOffset]);
+                        sumX += kernel[xOffset] * (luminance[index - xOffset] + luminance[index + xOffset]);
+                        yOffset += width;
+                        xOffset++;
+                    }
 
-                yConv[index] = sumY;
-                xConv[index] = sumX;
+                    yConv[index] = sumY;
+                    xConv[index] = sumX;
+                }
             }
-
-        }
-
-        pt.unitsDone(200);
-
-        for (int x = initX; x < maxX; x++) {
-            for (int y = initY; y < maxY; y += width) {
-                float sum = 0.0f;
-                int index = x + y;
-                for (int i = 1; i < kwidth; i++) {
-                    sum += diffKernel[i] * (yConv[index - i] - yConv[index + i]);
+        });
+
+        pt.unitsDone(30);
+
+        ThreadPool.processBands(height, (startY, endY) -> {
+            for (int y = startY; y < endY; y++) {
+                boolean rowInside = y >= convMin && y < convMaxY;
+                int index = y * width;
+                for (int x = 0; x < width; x++, index++) {
+                    float xSum = 0.0f;
+                    if (rowInside && x >= convMin && x < convMaxX) {
+                        for (int i = 1; i < kw; i++) {
+                            xSum += diffKernel[i] * (yConv[index - i] - yConv[index + i]);
+                        }
+                    }
+                    xGradient[index] = xSum;
+
+                    float ySum = 0.0f;
+                    if (rowInside && x >= kw && x < width - kw) {
+                        int yOffset = width;
+                        for (int i = 1; i < kw; i++) {
+                            ySum += diffKernel[i] * (xConv[index - yOffset] - xConv[index + yOffset]);
+                            yOffset += width;
+                        }
+                    }
+                    yGradient[index] = ySum;
                 }
-
-                xGradient[index] = sum;
             }
+        });
 
-        }
-
-        pt.unitsDone(100);
+        pt.unitsDone(20);
 
-        for (int x = kwidth; x < width - kwidth; x++) {
-            for (int y = initY; y < maxY; y += width) {
-                float sum = 0.0f;
-                int index = x + y;
-                int yOffset = width;
-                for (int i = 1; i < kwidth; i++) {
-                    sum += diffKernel[i] * (xConv[index - yOffset] - xConv[index + yOffset]);
-                    yOffset += width;
+        // the gradient magnitudes, which are needed for each
+        // pixel by all of its neighbors in the next stage
+        float[] gradMagnitude = xConv;
+        ThreadPool.processPixels(picsize, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                gradMagnitude[i] = hypot(xGradient[i], yGradient[i]);
+            }
+        });
+
+        pt.unitsDone(5);
+
+        ThreadPool.processBands(height, (startY, endY) -> {
+            for (int y = startY; y < endY; y++) {
+                boolean rowInside = y >= kw && y < height - kw;
+                int index = y * width;
+                for (int x = 0; x < width; x++, index++) {
+                    if (!rowInside || x < kw || x >= width - kw) {
+                        magnitude[index] = 0;
+                        continue;
+                    }
+                    magnitude[index] = suppressNonMaximum(index, gradMagnitude);
                 }
-
-                yGradient[index] = sum;
             }
+        });
 
-        }
+        pt.unitsDone(15);
+    }
 
-        pt.unitsDone(100);
-
-        initX = kwidth;
-        maxX = width - kwidth;
-        initY = width * kwidth;
-        maxY = width * (height - kwidth);
-        for (int x = initX; x < maxX; x++) {
-            pt.unitDone();
-            for (int y = initY; y < maxY; y += width) {
-                int index = x + y;
-                int indexN = index - width;
-                int indexS = index + width;
-                int indexW = index - 1;
-                int indexE = index + 1;
-                int indexNW = indexN - 1;
-                int indexNE = indexN + 1;
-                int indexSW = indexS - 1;
-                int indexSE = indexS + 1;
-
-                float xGrad = xGradient[index];
-                float yGrad = yGradient[index];
-                float gradMag = hypot(xGrad, yGrad);
-
-                //perform non-maximal supression
-                float nMag = hypot(xGradient[indexN], yGradient[indexN]);
-                float sMag = hypot(xGradient[indexS], yGradient[indexS]);
-                float wMag = hypot(xGradient[indexW], yGradient[indexW]);
-                float eMag = hypot(xGradient[indexE], yGradient[indexE]);
-                float neMag = hypot(xGradient[indexNE], yGradient[indexNE]);
-                float seMag = hypot(xGradient[indexSE], yGradient[indexSE]);
-                float swMag = hypot(xGradient[indexSW], yGradient[indexSW]);
-                float nwMag = hypot(xGradient[indexNW], yGradient[indexNW]);
-                float tmp;
-                /*
-                 * An explanation of what's happening here, for those who want
-                 * to understand the source: This performs the "non-maximal
-                 * supression" phase of the Canny edge detection in which we
-                 * need to compare the gradient magnitude to that in the
-                 * direction of the gradient; only if the value is a local
-                 * maximum do we consider the point as an edge candidate.
-                 *
-                 * We need to break the comparison into a number of different
-                 * cases depending on the gradient direction so that the
-                 * appropriate values can be used. To avoid computing the
-                 * gradient direction, we use two simple comparisons: first we
-                 * check that the partial derivatives have the same sign (1)
-                 * and then we check which is larger (2). As a consequence, we
-                 * have reduced the problem to one of four identical cases that
-                 * each test the central gradient magnitude against the values at
-                 * two points with 'identical support'; what this means is that
-                 * the geometry required to accurately interpolate the magnitude
-                 * of gradient function at those points has an identical
-                 * geometry (upto right-angled-rotation/reflection).
-                 *
-                 * When comparing the central gradient to the two interpolated
-                 * values, we avoid performing any divisions by multiplying both
-                 * sides of each inequality by the greater of the two partial
-                 * derivatives. The common comparand is stored in a temporary
-                 * variable (3) and reused in the mirror case (4).
-                 *
-                 */
-                if (xGrad * yGrad <= 0 /*(1)*/
-                    ? Math.abs(xGrad) >= Math.abs(yGrad) /*(2)*/
-                    ? (tmp = Math.abs(xGrad * gradMag)) >= Math.abs(yGrad * neMag - (xGrad + yGrad) * eMag) /*(3)*/
-                    && tmp > Math.abs(yGrad * swMag - (xGrad + yGrad) * wMag) /*(4)*/
-                    : (tmp = Math.abs(yGrad * gradMag)) >= Math.abs(xGrad * neMag - (yGrad + xGrad) * nMag) /*(3)*/
-                    && tmp > Math.abs(xGrad * swMag - (yGrad + xGrad) * sMag) /*(4)*/
-                    : Math.abs(xGrad) >= Math.abs(yGrad) /*(2)*/
-                    ? (tmp = Math.abs(xGrad * gradMag)) >= Math.abs(yGrad * seMag + (xGrad - yGrad) * eMag) /*(3)*/
-                    && tmp > Math.abs(yGrad * nwMag + (xGrad - yGrad) * wMag) /*(4)*/
-                    : (tmp = Math.abs(yGrad * gradMag)) >= Math.abs(xGrad * seMag + (yGrad - xGrad) * sMag) /*(3)*/
-                    && tmp > Math.abs(xGrad * nwMag + (yGrad - xGrad) * nMag) /*(4)*/
-                ) {
-                    magnitude[index] = gradMag >= MAGNITUDE_LIMIT ? MAGNITUDE_MAX : (int) (MAGNITUDE_SCALE * gradMag);
-                    //NOTE: The orientation of the edge is not employed by this
-                    //implementation. It is a simple matter to compute it at
-                    //this point as: Math.atan2(yGrad, xGrad);
-                } else {
-                    magnitude[index] = 0;
-                }
-            }
+    /**
+     * Returns the scaled gradient magnitude at the given index if
+     * it is a local maximum in the direction of the gradient, or zero.
+     */
+    private int suppressNonMaximum(int index, float[] gradMagnitude) {
+        int indexN = index - width;
+        int indexS = index + width;
+        int indexW = index - 1;
+        int indexE = index + 1;
+        int indexNW = indexN - 1;
+        int indexNE = indexN + 1;
+        int indexSW = indexS - 1;
+        int indexSE = indexS + 1;
+
+        float xGrad = xGradient[index];
+        float yGrad = yGradient[index];
+        float gradMag = gradMagnitude[index];
+
+        //perform non-maximal supression
+        float nMag = gradMagnitude[indexN];
+        float sMag = gradMagnitude[indexS];
+        float wMag = gradMagnitude[indexW];
+        float eMag = gradMagnitude[indexE];
+        float neMag = gradMagnitude[indexNE];
+        float seMag = gradMagnitude[indexSE];
+        float swMag = gradMagnitude[indexSW];
+        float nwMag = gradMagnitude[indexNW];
+        float tmp;
+        /*
+         * An explanation of what's happening here, for those who want
+         * to understand the source: This performs the "non-maximal
+         * supression" phase of the Canny edge detection in which we
+         * need to compare the gradient magnitude to that in the
+         * direction of the gradient; only if the value is a local
+         * maximum do we consider the point as an edge candidate.
+         *
+         * We need to break the comparison into a number of different
+         * cases depending on the gradient direction so that the
+         * appropriate values can be used. To avoid computing the
+         * gradient direction, we use two simple comparisons: first we
+         * check that the partial derivatives have the same sign (1)
+         * and then we check which is larger (2). As a consequence, we
+         * have reduced the problem to one of four identical cases that
+         * each test the central gradient magnitude against the values at
+         * two points with 'identical support'; what this means is that
+         * the geometry required to accurately interpolate the magnitude
+         * of gradient function at those points has an identical
+         * geometry (upto right-angled-rotation/reflection).
+         *
+         * When comparing the central gradient to the two interpolated
+         * values, we avoid performing any divisions by multiplying both
+         * sides of each inequality by the greater of the two partial
+         * derivatives. The common comparand is stored in a temporary
+         * variable (3) and reused in the mirror case (4).
+         *
+         */
+        if (xGrad * yGrad <= 0 /*(1)*/
+            ? Math.abs(xGrad) >= Math.abs(yGrad) /*(2)*/
+            ? (tmp = Math.abs(xGrad * gradMag)) >= Math.abs(yGrad * neMag - (xGrad + yGrad) * eMag) /*(3)*/
+            && tmp > Math.abs(yGrad * swMag - (xGrad + yGrad) * wMag) /*(4)*/
+            : (tmp = Math.abs(yGrad * gradMag)) >= Math.abs(xGrad * neMag - (yGrad + xGrad) * nMag) /*(3)*/
+            && tmp > Math.abs(xGrad * swMag - (yGrad + xGrad) * sMag) /*(4)*/
+            : Math.abs(xGrad) >= Math.abs(yGrad) /*(2)*/
+            ? (tmp = Math.abs(xGrad * gradMag)) >= Math.abs(yGrad * seMag + (xGrad - yGrad) * eMag) /*(3)*/
+            && tmp > Math.abs(yGrad * nwMag + (xGrad - yGrad) * wMag) /*(4)*/
+            : (tmp = Math.abs(yGrad * gradMag)) >= Math.abs(xGrad * seMag + (yGrad - xGrad) * sMag) /*(3)*/
+            && tmp > Math.abs(xGrad * nwMag + (yGrad - xGrad) * nMag) /*(4)*/
+        ) {
+            //NOTE: The orientation of the edge is not employed by this
+            //implementation. It is a simple matter to compute it at
+            //this point as: Math.atan2(yGrad, xGrad);
+            return gradMag >= MAGNITUDE_LIMIT ? MAGNITUDE_MAX : (int) (MAGNITUDE_SCALE * gradMag);
         }
+        return 0;
     }
 
     //NOTE: It is quite feasible to replace the implementation of this method
@@ -498,48 +587,132 @@ public class CannyEdgeDetector {
         return (float) Math.exp(-(x * x) / (2.0f * sigma * sigma));
     }
 
+    /**
+     * Keeps the edge candidates (the pixels with a magnitude of at least
+     * the low threshold) that are connected to a strong edge pixel (with a
+     * magnitude of at least the high threshold), and writes the result
+     * into the luminance array as white edges on black.
+     * <p>
+     * The connected components of the candidates are found with a
+     * union-find forest, which is built in parallel row bands, and
+     * then joined at the band boundaries.
+     */
     private void performHysteresis(int low, int high) {
         //NOTE: this implementation reuses the data array to store both
-        //luminance data from the image, and edge intensity from the processing.
+        //luminance data from the image, and the union-find forest.
         //This is done for memory efficiency, other implementations may wish
         //to separate these functions.
-        Arrays.fill(luminance, 0);
+        int[] parent = luminance;
+        int threshold = Math.max(low, 1);
+
+        // the first row of each band, except the first band
+        boolean[] bandStart = new boolean[height];
+        ThreadPool.processBands(height, (startY, endY) -> {
+            if (startY > 0) {
+                bandStart[startY] = true;
+            }
+            for (int y = startY; y < endY; y++) {
+                int index = y * width;
+                for (int x = 0; x < width; x++, index++) {
+                    if (magnitude[index] < threshold) {
+                        parent[index] = -1;
+                        continue;
+                    }
+                    parent[index] = index;
+                    // the previously visited neighbors, if they are in the same band
+                    if (x > 0) {
+                        union(index, index - 1, threshold);
+                    }
+                    if (y > startY) {
+                        unionWithRowAbove(index, x, threshold);
+                    }
+                }
+            }
+        });
+
+        for (int y = 1; y < height; y++) {
+            if (bandStart[y]) {
+                int index = y * width;
+                for (int x = 0; x < width; x++, index++) {
+                    if (parent[index] >= 0) {
+                        unionWithRowAbove(index, x, threshold);
+                    }
+                }
+            }
+        }
 
-        int offset = 0;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (luminance[offset] == 0 && magnitude[offset] >= high) {
-                    follow(x, y, offset, low);
+        // Point each candidate directly to its root. Other threads can
+        // concurrently read the entries written here, but they see
+        // either the old parent or the root, and both are in the same tree.
+        ThreadPool.processPixels(picsize, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                if (parent[i] >= 0) {
+                    int root = i;
+                    while (parent[root] != root) {
+                        root = parent[root];
+                    }
+                    parent[i] = root;
+                    strongRoots[i] = false;
                 }
-                offset++;
             }
+        });
+
+        ThreadPool.processPixels(picsize, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                if (magnitude[i] >= high && parent[i] >= 0) {
+                    // all the writes store the same value
+                    strongRoots[parent[i]] = true;
+                }
+            }
+        });
+
+        ThreadPool.processPixels(picsize, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                int root = parent[i];
+                boolean edge = root >= 0 && strongRoots[root];
+                luminance[i] = edge ? -1 : 0xFF_00_00_00;
+            }
+        });
+    }
+
+    private void unionWithRowAbove(int index, int x, int threshold) {
+        int above = index - width;
+        if (x > 0) {
+            union(index, above - 1, threshold);
+        }
+        union(index, above, threshold);
+        if (x < width - 1) {
+            union(index, above + 1, threshold);
         }
     }
 
-    private void follow(int x1, int y1, int i1, int threshold) {
-        int x0 = x1 == 0 ? x1 : x1 - 1;
-        int x2 = x1 == width - 1 ? x1 : x1 + 1;
-        int y0 = y1 == 0 ? y1 : y1 - 1;
-        int y2 = y1 == height - 1 ? y1 : y1 + 1;
-
-        luminance[i1] = magnitude[i1];
-        for (int x = x0; x <= x2; x++) {
-            for (int y = y0; y <= y2; y++) {
-                int i2 = x + y * width;
-                if ((y != y1 || x != x1)
-                    && luminance[i2] == 0
-                    && magnitude[i2] >= threshold) {
-                    follow(x, y, i2, threshold);
-                    return;
-                }
+    // joins the trees of the two pixels, if both are edge candidates
+    private void union(int a, int b, int threshold) {
+        if (magnitude[b] < threshold) {
+            return;
+        }
+        int rootA = findRoot(a);
+        int rootB = findRoot(b);
+        if (rootA != rootB) {
+            // the smaller index is the root, so the result doesn't
+            // depend on the order of the unions
+            int[] parent = luminance;
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+            } else {
+                parent[rootA] = rootB;
             }
         }
     }
 
-    private void thresholdEdges() {
-        for (int i = 0; i < picsize; i++) {
-            luminance[i] = luminance[i] > 0 ? -1 : 0xFF_00_00_00;
+    // finds the root with path halving
+    private int findRoot(int i) {
+        int[] parent = luminance;
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
         }
+        return i;
     }
 
     private static int luminance(float r, float g, float b) {
@@ -559,14 +732,16 @@ public class CannyEdgeDetector {
     }
 
     private void readRGBLuminance() {
-        int[] pixels = (int[]) sourceImage.getData().getDataElements(0, 0, width, height, null);
-        for (int i = 0; i < picsize; i++) {
-            int p = pixels[i];
-            int r = (p & 0xFF_00_00) >> 16;
-            int g = (p & 0xFF_00) >> 8;
-            int b = p & 0xFF;
-            luminance[i] = luminance(r, g, b);
-        }
+        int[] pixels = (int[]) sourceImage.getRaster().getDataElements(0, 0, width, height, null);
+        ThreadPool.processPixels(picsize, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                int p = pixels[i];
+                int r = (p & 0xFF_00_00) >> 16;
+                int g = (p & 0xFF_00) >> 8;
+                int b = p & 0xFF;
+                luminance[i] = luminance(r, g, b);
+            }
+        });
     }
 
     private void readArgbPremultipliedLuminance() {
@@ -32,7 +32,12 @@ public enum AppMode {
     /**
      * In this mode there is no GUI, and some objects might be mocked.
      */
-    UNIT_TESTS;
+    UNIT_TESTS,
+    /**
+     * In this mode there is no GUI, the files given
+     * on the command line are processed on the console.
+     */
+    HEADLESS;
 
     public static AppMode ACTIVE = STANDARD_GUI;
 
@@ -51,4 +56,12 @@ public enum AppMode {
     public static void setUnitTestingMode() {
         ACTIVE = UNIT_TESTS;
     }
+
+    public static boolean isHeadless() {
+        return ACTIVE == HEADLESS;
+    }
+
+    public static void setHeadlessMode() {
+        ACTIVE = HEADLESS;
+    }
 }
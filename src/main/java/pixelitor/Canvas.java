@@ -91,11 +91,7 @@ public class Canvas implements Serializable, Debuggable {
      * Resizes the canvas using values given in image space.
      */
     public void resize(int newWidth, int newHeight, View view, boolean updateView) {
-        validateNewSize(newWidth, newHeight);
-        width = newWidth;
-        height = newHeight;
-
-        thumbSize = null; // invalidate cache
+        resize(newWidth, newHeight);
         recalcCoSize(view, updateView);
 
         if (view.isActive()) {
@@ -103,6 +99,18 @@ public class Canvas implements Serializable, Debuggable {
         }
     }
 
+    /**
+     * Resizes the canvas of a composition that isn't shown in a view,
+     * without recalculating the component-space size.
+     */
+    public void resize(int newWidth, int newHeight) {
+        validateNewSize(newWidth, newHeight);
+        width = newWidth;
+        height = newHeight;
+
+        thumbSize = null; // invalidate cache
+    }
+
     /**
      * Recalculates the component-space size.
      */
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor;
+
+import pixelitor.layers.Layer;
+import pixelitor.utils.ImageUtils;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+
+/**
+ * A canvas-sized composite image that is updated in tiles: the changes
+ * of the layers mark only the tiles in the changed region as outdated,
+ * and only the outdated tiles are composited again. When zoomed in, the
+ * view updates only the visible tiles, and the other consumers of the
+ * composite image get a copy with all the tiles updated.
+ * <p>
+ * This works only if all the layers can be rendered on a part of
+ * the canvas (see {@link Layer#canRenderInTiles()}). The pixels are
+ * the same as in a full composite, except that the antialiased edges
+ * of vector shapes crossing a tile boundary can differ slightly,
+ * because Java2D clips the shapes to the tile before rasterizing them.
+ */
+class CompositeTiles {
+    private static final int TILE_SIZE = 256;
+
+    // The maximum time spent on compositing tiles during a single paint.
+    // After this, the outdated tiles are painted, and a new paint is requested.
+    private static final long PAINT_BUDGET_NANOS = 40_000_000L;
+
+    private BufferedImage image;
+    private int numCols;
+
+    private boolean[] upToDate;
+
+    // the outdated tiles that were rendered before still
+    // contain the previous composite, which can be painted
+    private boolean[] rendered;
+
+    /**
+     * Paints the tiles intersecting the given image-space clip region,
+     * compositing the outdated ones from the given layers. The tiles
+     * closer to the center of the region are composited first.
+     * Returns true if some tiles couldn't be updated within the time
+     * budget, and therefore another paint is needed.
+     */
+    boolean paint(Graphics2D g, List<Layer> layers, Canvas canvas, Rectangle imClip) {
+        ensureSize(canvas);
+
+        Rectangle region = imClip.intersection(canvas.getBounds());
+        if (region.isEmpty()) {
+            return false;
+        }
+
+        int firstCol = region.x / TILE_SIZE;
+        int lastCol = (region.x + region.width - 1) / TILE_SIZE;
+        int firstRow = region.y / TILE_SIZE;
+        int lastRow = (region.y + region.height - 1) / TILE_SIZE;
+
+        List<Integer> outdated = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int index = row * numCols + col;
+                if (!upToDate[index]) {
+                    outdated.add(index);
+                }
+            }
+        }
+
+        double centerX = region.getCenterX();
+        double centerY = region.getCenterY();
+        outdated.sort(Comparator.comparingDouble(index -> {
+            double dx = (index % numCols + 0.5) * TILE_SIZE - centerX;
+            double dy = (index / numCols + 0.5) * TILE_SIZE - centerY;
+            return dx * dx + dy * dy;
+        }));
+
+        long startTime = System.nanoTime();
+        boolean needsRepaint = false;
+        for (int index : outdated) {
+            boolean overBudget = System.nanoTime() - startTime > PAINT_BUDGET_NANOS;
+            if (overBudget && rendered[index]) {
+                // paint the previous content of the tile for now
+                needsRepaint = true;
+            } else {
+                render(getTileBounds(index), layers);
+                upToDate[index] = true;
+                rendered[index] = true;
+            }
+        }
+
+        g.drawImage(image, 0, 0, null);
+        return needsRepaint;
+    }
+
+    /**
+     * Returns a copy of the composite image, after
+     * compositing all the outdated tiles from the given layers.
+     */
+    BufferedImage createImage(List<Layer> layers, Canvas canvas) {
+        ensureSize(canvas);
+
+        // the outdated tiles are composited in a single pass
+        Rectangle region = null;
+        for (int i = 0; i < upToDate.length; i++) {
+            if (!upToDate[i]) {
+                if (region == null) {
+                    region = getTileBounds(i);
+                } else {
+                    region.add(getTileBounds(i));
+                }
+            }
+        }
+        if (region != null) {
+            render(region, layers);
+            markUpToDate(region);
+        }
+
+        return ImageUtils.copyImage(image);
+    }
+
+    // composites the given region, like ImageUtils.calcComposite
+    private void render(Rectangle region, List<Layer> layers) {
+        Graphics2D g = image.createGraphics();
+        if (region.width < image.getWidth() || region.height < image.getHeight()) {
+            g.setClip(region);
+        }
+        g.setComposite(AlphaComposite.Clear);
+        g.fill(region);
+        g.setComposite(AlphaComposite.SrcOver);
+
+        // the first visible layer is always applied with normal blending mode
+        boolean firstVisibleLayer = true;
+        for (Layer layer : layers) {
+            if (!layer.isVisible()) {
+                continue;
+            }
+            BufferedImage result = layer.render(g, image, firstVisibleLayer);
+            assert result == null : layer.getName() + " replaced the composite";
+            firstVisibleLayer = false;
+        }
+        g.dispose();
+    }
+
+    private Rectangle getTileBounds(int index) {
+        int x = (index % numCols) * TILE_SIZE;
+        int y = (index / numCols) * TILE_SIZE;
+        return new Rectangle(x, y,
+            Math.min(TILE_SIZE, image.getWidth() - x),
+            Math.min(TILE_SIZE, image.getHeight() - y));
+    }
+
+    /**
+     * Marks the tiles intersecting the given image-space region as outdated.
+     */
+    void invalidate(Rectangle imRegion) {
+        if (image == null) {
+            return;
+        }
+        Rectangle region = imRegion.intersection(
+            new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        if (region.isEmpty()) {
+            return;
+        }
+        int lastCol = (region.x + region.width - 1) / TILE_SIZE;
+        int lastRow = (region.y + region.height - 1) / TILE_SIZE;
+        for (int row = region.y / TILE_SIZE; row <= lastRow; row++) {
+            for (int col = region.x / TILE_SIZE; col <= lastCol; col++) {
+                upToDate[row * numCols + col] = false;
+            }
+        }
+    }
+
+    /**
+     * Marks all tiles as outdated.
+     */
+    void invalidateAll() {
+        if (upToDate != null) {
+            Arrays.fill(upToDate, false);
+        }
+    }
+
+    private void markUpToDate(Rectangle region) {
+        int lastCol = (region.x + region.width - 1) / TILE_SIZE;
+        int lastRow = (region.y + region.height - 1) / TILE_SIZE;
+        for (int row = region.y / TILE_SIZE; row <= lastRow; row++) {
+            for (int col = region.x / TILE_SIZE; col <= lastCol; col++) {
+                upToDate[row * numCols + col] = true;
+                rendered[row * numCols + col] = true;
+            }
+        }
+    }
+
+    private void ensureSize(Canvas canvas) {
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+        if (image != null && image.getWidth() == width && image.getHeight() == height) {
+            return;
+        }
+        dispose();
+        image = new BufferedImage(width, height, TYPE_INT_ARGB_PRE);
+        numCols = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int numRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        upToDate = new boolean[numCols * numRows];
+        rendered = new boolean[numCols * numRows];
+    }
+
+    /**
+     * Releases the image, which is recreated when it's needed again.
+     */
+    void dispose() {
+        if (image != null) {
+            image.flush();
+            image = null;
+            upToDate = null;
+            rendered = null;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import pixelitor.selection.Selection;
 import pixelitor.selection.SelectionActions;
 import pixelitor.selection.SelectionChangeResult;
 import pixelitor.selection.ShapeCombinator;
+import pixelitor.tools.StrokePainter;
 import pixelitor.tools.Tool;
 import pixelitor.tools.Tools;
 import pixelitor.tools.move.MoveMode;
@@ -43,6 +44,7 @@ import pixelitor.tools.pen.history.ConvertSelectionToPathEdit;
 import pixelitor.tools.selection.SelectionChangeListener;
 import pixelitor.tools.util.PPoint;
 import pixelitor.tools.util.PRectangle;
+import pixelitor.utils.ImagePyramid;
 import pixelitor.utils.ImageUtils;
 import pixelitor.utils.Messages;
 import pixelitor.utils.Shapes;
@@ -124,6 +126,23 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
     // cached rendering of all visible layers combined
     private transient BufferedImage compositeImage;
 
+    // downscaled versions of the composite image, used when zoomed out
+    private transient ImagePyramid compositePyramid = new ImagePyramid();
+
+    // the composite image updated in tiles, used if all the layers allow it
+    private transient CompositeTiles compositeTiles = new CompositeTiles();
+
+    // the region of the composite image that changed since the last
+    // histogram calculation, or null if there were no regional changes
+    private transient Rectangle histogramChangedRegion;
+
+    // whether the whole composite image could have changed since the last histogram calculation
+    private transient boolean histogramNeedsFullUpdate = true;
+
+    // true while running an update that doesn't change the composite
+    // image outside the regions that were passed to repaintRegion
+    private transient boolean regionalUpdateInProgress = false;
+
     // the View that shows this composition, if any
     private transient View view;
 
@@ -199,6 +218,11 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         // Initialize transient variables
         compositeImage = null; // will be set when needed
+        compositePyramid = new ImagePyramid();
+        compositeTiles = new CompositeTiles();
+        histogramChangedRegion = null;
+        histogramNeedsFullUpdate = true;
+        regionalUpdateInProgress = false;
         file = null; // will be set later
         fileTimestamp = 0;
         debugName = null; // will be set later
@@ -1256,7 +1280,11 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
     }
 
     public void repaintRegion(PPoint start, PPoint end, double thickness) {
-        invalidateImageCache();
+        invalidateCompositeImage();
+        Rectangle imRegion = PPoint.calcImBounds(start, end, thickness);
+        compositePyramid.regionChanged(imRegion);
+        addHistogramChange(imRegion);
+        compositeTiles.invalidate(imRegion);
         if (view != null) { // it might not be opened during image reloading
             view.repaintRegion(start, end, thickness);
             view.repaintNavigator(false);
@@ -1264,7 +1292,12 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
     }
 
     public void repaintRegion(PRectangle area) {
-        invalidateImageCache();
+        invalidateCompositeImage();
+        Rectangle imRegion = area.getIm().getBounds();
+        imRegion.grow(1, 1);
+        compositePyramid.regionChanged(imRegion);
+        addHistogramChange(imRegion);
+        compositeTiles.invalidate(imRegion);
         if (view != null) { // it might not be opened during image reloading
             view.repaintRegion(area);
             view.repaintNavigator(false);
@@ -1480,7 +1513,9 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
         if (paths != null) {
             paths.imCoordsChanged(at);
         }
-        Tools.imCoordsChanged(at, view);
+        if (view != null) { // null if resized without a view
+            Tools.imCoordsChanged(at, view);
+        }
     }
 
     /**
@@ -1498,12 +1533,43 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
      */
     public BufferedImage getCompositeImage() {
         if (compositeImage == null) {
-            compositeImage = ImageUtils.calcComposite(layerList, canvas);
+            // the layers can't be painted by a brush stroke while they are composited
+            compositeImage = StrokePainter.callExclusively(this::calcCompositeImage);
             assert compositeImage != null;
         }
         return compositeImage;
     }
 
+    private BufferedImage calcCompositeImage() {
+        if (usesCompositeTiles()) {
+            // only the changed tiles are composited again
+            return compositeTiles.createImage(layerList, canvas);
+        }
+        compositeTiles.dispose();
+        return ImageUtils.calcComposite(layerList, canvas);
+    }
+
+    /**
+     * Returns true if the composite image is maintained in tiles, both for
+     * the view and for the other consumers of the composite image. This
+     * requires that all visible layers can be rendered on a part of the canvas.
+     * Adjustment layers and watermarking text layers transform the whole
+     * composite, therefore with them every change recalculates the whole image.
+     * The composite of a single layer is usually the layer image itself,
+     * so it doesn't need tiles.
+     */
+    private boolean usesCompositeTiles() {
+        if (layerList.size() < 2) {
+            return false;
+        }
+        for (Layer layer : layerList) {
+            if (layer.isVisible() && !layer.canRenderInTiles()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public BufferedImage getImage() {
         BufferedImage image = getCompositeImage();
@@ -1520,12 +1586,97 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
      */
     @Override
     public void invalidateImageCache() {
+        invalidateCompositeImage();
+        if (!regionalUpdateInProgress) {
+            histogramNeedsFullUpdate = true;
+        }
+        compositePyramid.invalidate();
+        compositeTiles.invalidateAll();
+    }
+
+    private void addHistogramChange(Rectangle region) {
+        if (histogramChangedRegion == null) {
+            histogramChangedRegion = new Rectangle(region);
+        } else {
+            histogramChangedRegion.add(region);
+        }
+    }
+
+    /**
+     * Runs an update that changes the composite image only in the regions
+     * that were already passed to repaintRegion (for example at the end
+     * of a brush stroke), so that the histograms can be updated incrementally.
+     */
+    public void updateRegionally(Runnable update) {
+        regionalUpdateInProgress = true;
+        try {
+            update.run();
+        } finally {
+            regionalUpdateInProgress = false;
+        }
+    }
+
+    /**
+     * Returns the region of the composite image that changed since the
+     * last call, or null if the whole image could have changed.
+     * Calling this method resets the tracked changes.
+     */
+    public Rectangle takeHistogramChanges() {
+        Rectangle changes = null;
+        if (!histogramNeedsFullUpdate) {
+            changes = histogramChangedRegion != null ? histogramChangedRegion : new Rectangle();
+        }
+        histogramChangedRegion = null;
+
+        // the composite image of a single-layer composition can be the
+        // layer image itself, which is modified in place, therefore it
+        // can't be the basis of the next incremental histogram update
+        histogramNeedsFullUpdate = layerList.size() == 1;
+
+        return changes;
+    }
+
+    // the caller is responsible for updating the pyramid
+    private void invalidateCompositeImage() {
         if (compositeImage != null) {
             compositeImage.flush();
         }
         compositeImage = null;
     }
 
+    /**
+     * Paints the composite image on the given {@link Graphics2D}, which is
+     * expected to be in image space, but it can be scaled down. If it's
+     * scaled down enough, then a smaller level of the composite's pyramid
+     * is painted, which is faster and also looks better.
+     */
+    public void paintCompositeImage(Graphics2D g) {
+        // the layers can't be painted by a brush stroke while they are read
+        StrokePainter.runExclusively(() -> paintCompositeImageExclusively(g));
+    }
+
+    private void paintCompositeImageExclusively(Graphics2D g) {
+        int level = ImagePyramid.selectLevel(g.getTransform().getScaleX());
+        if (level == 0) {
+            if (compositeImage == null && calledOnEDT() && usesCompositeTiles()) {
+                // composite only the visible tiles, the others are
+                // composited when the whole image is needed
+                Rectangle imClip = g.getClipBounds();
+                if (imClip != null) {
+                    boolean needsRepaint = compositeTiles.paint(g, layerList, canvas, imClip);
+                    if (needsRepaint) {
+                        repaint();
+                    }
+                    return;
+                }
+            }
+            g.drawImage(getCompositeImage(), 0, 0, null);
+        } else {
+            BufferedImage levelImg = compositePyramid.getLevel(getCompositeImage(), level);
+            g.drawImage(levelImg, 0, 0, canvas.getWidth(), canvas.getHeight(), null);
+        }
+    }
+
     @Override
     public void update() {
         update(false);
@@ -1540,9 +1691,10 @@ public class Composition implements Serializable, ImageSource, LayerHolder {
         if (isOpen()) {
             view.repaint();
             view.repaintNavigator(canvasSizeChanged);
-        }
 
-        HistogramsPanel.updateFrom(this);
+            // only the histograms of open compositions can be shown
+            HistogramsPanel.updateFrom(this);
+        }
     }
 
     public boolean isActive() {
@@ -19,6 +19,7 @@ package pixelitor;
 
 import com.bric.util.JVM;
 import net.jafama.FastMath;
+import pixelitor.automate.HeadlessProcessor;
 import pixelitor.colors.FgBgColors;
 import pixelitor.filters.util.Filters;
 import pixelitor.gui.*;
@@ -57,6 +58,13 @@ public class Pixelitor {
     }
 
     public static void main(String[] args) {
+        if (HeadlessProcessor.isRequested(args)) {
+            // must be set before the AWT is initialized
+            System.setProperty("java.awt.headless", "true");
+            configureLanguage(); // the texts are also used outside the GUI
+            System.exit(HeadlessProcessor.run(args));
+        }
+
         initExceptionHandling();
         initAppMode();
         configureLanguage();
@@ -104,7 +112,8 @@ public class Pixelitor {
             System.setProperty("swing.aatext", "true");
         }
         if (GraphicsEnvironment.isHeadless()) {
-            System.err.println("Pixelitor can't be used in headless mode");
+            System.err.println("Pixelitor can't be used in headless mode without the "
+                + HeadlessProcessor.HEADLESS_ARG + " command-line flag");
             System.exit(1);
         }
     }
@@ -30,6 +30,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ThreadPool {
     private static final int NUM_CORES = Runtime.getRuntime().availableProcessors();
+    private static final String THREAD_NAME_PREFIX = "ImageProcessor-";
+
+    // bands smaller than this are not worth the scheduling overhead
+    private static final int MIN_BAND_HEIGHT = 16;
+
+    // the pixel arrays are split at multiples of this
+    private static final int PIXELS_PER_UNIT = 1024;
 
     private static final ExecutorService pool =
         Executors.newFixedThreadPool(NUM_CORES, new ThreadFactory() {
@@ -37,7 +44,7 @@ public class ThreadPool {
 
             @Override
             public Thread newThread(Runnable r) {
-                Thread thread = new Thread(r, "ImageProcessor-" + threadCount.getAndIncrement());
+                Thread thread = new Thread(r, THREAD_NAME_PREFIX + threadCount.getAndIncrement());
                 thread.setDaemon(true);
                 return thread;
             }
@@ -48,17 +55,27 @@ public class ThreadPool {
     }
 
     /**
-     * Submits a task that doesn't return anything.
+     * Submits a task that doesn't return anything. If called
+     * on a pool thread, the task is run before returning.
      */
     public static Future<?> submit(Runnable task) {
-        return pool.submit(task);
+        return submit2(Executors.callable(task));
     }
 
     /**
      * Submits a task that returns a value, such as
-     * the calculated pixels in a line.
+     * the calculated pixels in a line. If called on
+     * a pool thread, the task is run before returning.
      */
     public static <T> Future<T> submit2(Callable<T> task) {
+        if (isPoolThread()) {
+            // A pool thread waiting for the queued tasks could deadlock
+            // if all the other pool threads were also waiting (for example
+            // while rendering the layer groups in parallel).
+            FutureTask<T> future = new FutureTask<>(task);
+            future.run();
+            return future;
+        }
         return pool.submit(task);
     }
 
@@ -115,7 +132,103 @@ public class ThreadPool {
         }
     }
 
+    /**
+     * Processes the rows of an image in parallel, horizontal bands,
+     * and waits until all bands are processed. The calling thread
+     * also processes one of the bands.
+     */
+    public static void processBands(int numRows, BandTask task) {
+        int numBands = Math.min(NUM_CORES, numRows / MIN_BAND_HEIGHT);
+        if (numBands <= 1 || isPoolThread()) {
+            // Not worth parallelizing, or called from a pool thread,
+            // where waiting for other pool tasks could deadlock.
+            task.process(0, numRows);
+            return;
+        }
+
+        Future<?>[] futures = new Future<?>[numBands - 1];
+        for (int i = 0; i < numBands - 1; i++) {
+            int startY = i * numRows / numBands;
+            int endY = (i + 1) * numRows / numBands;
+            futures[i] = pool.submit(() -> task.process(startY, endY));
+        }
+        task.process((numBands - 1) * numRows / numBands, numRows);
+
+        waitForAll(futures);
+    }
+
+    /**
+     * Runs the given independent tasks in parallel, and waits until
+     * all of them are finished. The calling thread runs the last task.
+     */
+    public static void runInParallel(Runnable[] tasks) {
+        int numTasks = tasks.length;
+        if (numTasks <= 1 || isPoolThread()) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+
+        Future<?>[] futures = new Future<?>[numTasks - 1];
+        for (int i = 0; i < numTasks - 1; i++) {
+            futures[i] = pool.submit(tasks[i]);
+        }
+        tasks[numTasks - 1].run();
+
+        waitForAll(futures);
+    }
+
+    // waits for the futures, rethrowing the exceptions of the tasks
+    private static void waitForAll(Future<?>[] futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Processes the elements of a pixel array in parallel chunks,
+     * similarly to {@link #processBands(int, BandTask)}. The arguments
+     * of the task are the start (inclusive) and end (exclusive) indices.
+     */
+    public static void processPixels(int numPixels, BandTask task) {
+        int numUnits = (numPixels + PIXELS_PER_UNIT - 1) / PIXELS_PER_UNIT;
+        processBands(numUnits, (startUnit, endUnit) -> task.process(
+            startUnit * PIXELS_PER_UNIT,
+            Math.min(endUnit * PIXELS_PER_UNIT, numPixels)));
+    }
+
+    /**
+     * Returns true if called on one of the threads of this pool.
+     */
+    public static boolean isPoolThread() {
+        return Thread.currentThread().getName().startsWith(THREAD_NAME_PREFIX);
+    }
+
+    public static int getNumCores() {
+        return NUM_CORES;
+    }
+
     public static Executor getExecutor() {
         return pool;
     }
+
+    /**
+     * A task that processes the rows between startY (inclusive)
+     * and endY (exclusive) of an image.
+     */
+    @FunctionalInterface
+    public interface BandTask {
+        void process(int startY, int endY);
+    }
 }
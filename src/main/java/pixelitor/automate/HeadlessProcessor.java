@@ -0,0 +1,361 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.automate;
+
+import pixelitor.AppMode;
+import pixelitor.Composition;
+import pixelitor.compactions.CompAction;
+import pixelitor.compactions.Resize;
+import pixelitor.filters.Filter;
+import pixelitor.filters.gui.UserPreset;
+import pixelitor.io.FileFormat;
+import pixelitor.io.FileIO;
+import pixelitor.io.FileUtils;
+import pixelitor.io.SaveSettings;
+import pixelitor.layers.Drawable;
+import pixelitor.utils.ConsoleMessageHandler;
+import pixelitor.utils.Messages;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import static pixelitor.filters.FilterContext.BATCH_AUTOMATE;
+
+/**
+ * Processes the files given on the command line without creating any
+ * Swing components: loads them, applies the given operations in order,
+ * and saves the results. The compositions are never opened in a view,
+ * so there is no undo and all the processing happens on the main thread
+ * (the filters and the resizing still use all the cores internally).
+ */
+public class HeadlessProcessor {
+    public static final String HEADLESS_ARG = "--headless";
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_PROCESSING_ERROR = 1;
+    static final int EXIT_USAGE_ERROR = 2;
+
+    // the packages searched for the filter classes given by simple name
+    private static final String[] FILTER_PACKAGES = {
+        "pixelitor.filters",
+        "pixelitor.filters.jhlabsproxies",
+        "pixelitor.filters.convolve",
+        "pixelitor.filters.curves",
+        "pixelitor.filters.levels",
+        "pixelitor.filters.lookup",
+        "pixelitor.filters.painters",
+        "pixelitor.filters.transitions",
+        "pixelitor.filters.gmic",
+    };
+
+    private static final String USAGE = """
+        Usage: pixelitor --headless [options] <input files>
+
+        Options (the operations are applied in the given order):
+          --filter <name>         applies a filter to the active layer, given by
+                                  its class name, for example JHGaussianBlur
+          --preset <settings>     the settings of the preceding filter, either as
+                                  key=value pairs separated by semicolons,
+                                  or as @<file> for a saved preset file
+          --resize <w>x<h>        resizes to exactly the given size
+          --fit <w>x<h>           resizes to fit within the given size,
+                                  keeping the aspect ratio
+          --flatten               merges the visible layers into one layer
+          --output <file|dir>     the output file (for a single input file)
+                                  or an existing directory, required
+          --format <extension>    the output format if the output is a directory,
+                                  defaults to the input format
+        """;
+
+    private final List<CompAction> actions = new ArrayList<>();
+    private final List<File> inputFiles = new ArrayList<>();
+    private File output;
+    private FileFormat outputFormat;
+
+    private HeadlessProcessor() {
+    }
+
+    /**
+     * Returns true if the headless mode was explicitly requested
+     * by the first command-line argument. A missing display alone
+     * isn't enough, because that's also the case in the headless test runs.
+     */
+    public static boolean isRequested(String[] args) {
+        return args.length > 0 && args[0].equals(HEADLESS_ARG);
+    }
+
+    /**
+     * Processes the files according to the given command-line
+     * arguments, and returns the exit code of the app.
+     */
+    public static int run(String[] args) {
+        AppMode.setHeadlessMode();
+        var msgHandler = new ConsoleMessageHandler();
+        Messages.setHandler(msgHandler);
+
+        return run(args, msgHandler, System.err);
+    }
+
+    /**
+     * Runs with the given message handler, which must be
+     * already registered, and prints the usage errors to err.
+     */
+    static int run(String[] args, ConsoleMessageHandler msgHandler, PrintStream err) {
+        HeadlessProcessor processor;
+        try {
+            processor = parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println();
+            err.print(USAGE);
+            return EXIT_USAGE_ERROR;
+        }
+
+        processor.processFiles();
+        return msgHandler.hasErrors() ? EXIT_PROCESSING_ERROR : EXIT_OK;
+    }
+
+    /**
+     * Parses the command-line arguments, the first of which
+     * must be the headless flag.
+     */
+    static HeadlessProcessor parseArgs(String[] args) {
+        if (!isRequested(args)) {
+            throw new IllegalArgumentException("The first argument must be " + HEADLESS_ARG);
+        }
+
+        var processor = new HeadlessProcessor();
+        Filter lastFilter = null;
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                processor.inputFiles.add(new File(arg));
+                continue;
+            }
+            if (arg.equals("--flatten")) {
+                processor.actions.add(HeadlessProcessor::flatten);
+                continue;
+            }
+
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value after " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--filter" -> {
+                    lastFilter = createFilter(value);
+                    processor.actions.add(createFilterAction(lastFilter));
+                }
+                case "--preset" -> {
+                    if (lastFilter == null) {
+                        throw new IllegalArgumentException("--preset must follow a --filter");
+                    }
+                    loadPreset(lastFilter, value);
+                }
+                case "--resize" -> processor.actions.add(createResizeAction(value, false));
+                case "--fit" -> processor.actions.add(createResizeAction(value, true));
+                case "--output" -> processor.output = new File(value);
+                case "--format" -> processor.outputFormat = FileFormat.fromExtension(value.toLowerCase(Locale.ROOT))
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported format: " + value));
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        if (processor.inputFiles.isEmpty()) {
+            throw new IllegalArgumentException("No input files were given.");
+        }
+        // the input files are never overwritten by default
+        if (processor.output == null) {
+            throw new IllegalArgumentException("No output was given.");
+        }
+        if (processor.inputFiles.size() > 1 && !processor.output.isDirectory()) {
+            throw new IllegalArgumentException("The output must be an existing directory for multiple input files.");
+        }
+        return processor;
+    }
+
+    List<File> getInputFiles() {
+        return inputFiles;
+    }
+
+    int getNumActions() {
+        return actions.size();
+    }
+
+    File getOutput() {
+        return output;
+    }
+
+    FileFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Creates a filter from its fully qualified class name, or from
+     * its simple class name in one of the filter packages. The name can
+     * also be given without the "JH" prefix of the JH Labs filters.
+     */
+    private static Filter createFilter(String name) {
+        List<String> classNames = new ArrayList<>();
+        classNames.add(name);
+        String simpleName = name.replace(" ", "");
+        for (String pkg : FILTER_PACKAGES) {
+            classNames.add(pkg + "." + simpleName);
+            classNames.add(pkg + ".JH" + simpleName);
+        }
+
+        for (String className : classNames) {
+            Class<?> filterClass;
+            try {
+                filterClass = Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                continue;
+            }
+            if (!Filter.class.isAssignableFrom(filterClass)) {
+                continue;
+            }
+            try {
+                return (Filter) filterClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("The filter " + name
+                    + " can't be used on the command line.", e);
+            }
+        }
+        throw new IllegalArgumentException("Filter not found: " + name);
+    }
+
+    private static void loadPreset(Filter filter, String settings) {
+        if (!filter.supportsUserPresets()) {
+            throw new IllegalArgumentException("The filter "
+                + filter.getName() + " doesn't support presets.");
+        }
+
+        String content;
+        if (settings.startsWith("@")) {
+            try {
+                content = Files.readString(new File(settings.substring(1)).toPath());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Could not read the preset file " + settings.substring(1), e);
+            }
+        } else {
+            content = settings.replace(';', '\n');
+        }
+
+        UserPreset preset = new UserPreset("command line", null);
+        preset.loadFromString(content);
+        filter.loadUserPreset(preset);
+    }
+
+    private static CompAction createFilterAction(Filter filter) {
+        return comp -> {
+            Drawable dr = comp.getActiveDrawableOrThrow();
+            BufferedImage filtered = filter.transformImage(dr.getFilterSourceImage());
+            dr.filterWithoutDialogFinished(filtered, BATCH_AUTOMATE, filter.getName());
+            return CompletableFuture.completedFuture(comp);
+        };
+    }
+
+    private static CompAction createResizeAction(String size, boolean preserveAspectRatio) {
+        String[] parts = size.toLowerCase(Locale.ROOT).split("x");
+        int width;
+        int height;
+        try {
+            width = Integer.parseInt(parts[0]);
+            height = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid size: " + size, e);
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+
+        var resize = new Resize(width, height, preserveAspectRatio);
+        return comp -> {
+            resize.resizeDetached(comp);
+            return CompletableFuture.completedFuture(comp);
+        };
+    }
+
+    private static CompletableFuture<Composition> flatten(Composition comp) {
+        if (comp.getNumLayers() < 2) { // already flat
+            return CompletableFuture.completedFuture(comp);
+        }
+        Composition flattened = Composition.fromImage(
+            comp.getCompositeImage(), comp.getFile(), comp.getName());
+        return CompletableFuture.completedFuture(flattened);
+    }
+
+    private void processFiles() {
+        for (File file : inputFiles) {
+            try {
+                processFile(file);
+            } catch (Exception e) {
+                // continue with the next file
+                Messages.showException(e);
+            }
+        }
+    }
+
+    private void processFile(File file) {
+        if (!file.isFile()) {
+            Messages.showError("File Not Found", file.getAbsolutePath());
+            return;
+        }
+
+        Composition comp = FileIO.loadCompSync(file);
+        if (comp == null) {
+            return; // the error was already shown
+        }
+
+        for (CompAction action : actions) {
+            comp = action.process(comp).join();
+        }
+
+        File outputFile = createOutputFile(file);
+        FileFormat format = FileUtils.findExtension(outputFile.getName())
+            .flatMap(FileFormat::fromExtension)
+            .orElse(null);
+        if (format == null) {
+            Messages.showError("Unsupported Format", "Can't save " + outputFile.getAbsolutePath());
+            return;
+        }
+
+        format.createSaveTask(comp, new SaveSettings.Default(format, outputFile)).run();
+        Messages.showFileSavedMessage(outputFile);
+    }
+
+    private File createOutputFile(File inputFile) {
+        if (!output.isDirectory()) {
+            return output;
+        }
+
+        String fileName = inputFile.getName();
+        if (outputFormat != null) {
+            fileName = FileUtils.replaceExtension(fileName, outputFormat.toString());
+        }
+        return new File(output, fileName);
+    }
+}
@@ -85,6 +85,27 @@ public class Resize implements CompAction {
             });
     }
 
+    /**
+     * Resizes the given composition in place, without a view, undo
+     * or progress bar. Used when processing files on the command line.
+     */
+    public void resizeDetached(Composition comp) {
+        assert !comp.isOpen();
+
+        Canvas canvas = comp.getCanvas();
+        if (canvas.hasImSize(targetWidth, targetHeight)) {
+            return;
+        }
+
+        var targetSize = calcTargetSize(canvas);
+        var canvasTransform = canvas.createImTransformToFit(targetSize);
+
+        resizeLayersInParallel(comp, targetSize).join();
+        canvas.resize(targetSize.width, targetSize.height);
+        comp.imCoordsChanged(canvasTransform, false, null);
+        comp.update(true);
+    }
+
     private Dimension calcTargetSize(Canvas srcCanvas) {
         if (!preserveAspectRatio) {
             return new Dimension(targetWidth, targetHeight);
@@ -18,11 +18,13 @@
 package pixelitor.filters;
 
 import com.jhlabs.image.PixelUtils;
+import pixelitor.ThreadPool;
 import pixelitor.filters.gui.RangeParam;
 import pixelitor.utils.ImageUtils;
 
 import java.awt.image.BufferedImage;
 import java.io.Serial;
+import java.util.function.IntUnaryOperator;
 
 import static pixelitor.gui.GUIText.BRIGHTNESS;
 import static pixelitor.utils.Texts.i18n;
@@ -30,7 +32,7 @@ import static pixelitor.utils.Texts.i18n;
 /**
  * The Brightness/Contrast filter
  */
-public class BrightnessContrast extends ParametrizedFilter {
+public class BrightnessContrast extends ParametrizedFilter implements PointAdjustment {
     private static final String CONTRAST = i18n("contrast");
     public static final String NAME = BRIGHTNESS + "/" + CONTRAST;
 
@@ -58,6 +60,30 @@ public class BrightnessContrast extends ParametrizedFilter {
             return src;
         }
 
+        int[] lookup = createLookup();
+
+        // transform the image
+        int[] srcPixels = ImageUtils.getPixels(src);
+        int[] destPixels = ImageUtils.getPixels(dest);
+        ThreadPool.processPixels(destPixels.length, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                destPixels[i] = adjustPixel(srcPixels[i], lookup);
+            }
+        });
+
+        return dest;
+    }
+
+    @Override
+    public IntUnaryOperator createPixelFunction(BufferedImage image) {
+        if (brightnessParam.isZero() && contrastParam.isZero()) {
+            return IntUnaryOperator.identity();
+        }
+        int[] lookup = createLookup();
+        return rgb -> adjustPixel(rgb, lookup);
+    }
+
+    private int[] createLookup() {
         // prepare brightness
         double brightnessValue = brightnessParam.getValue() / 10.0;
         double pow = -brightnessValue + 1;
@@ -83,30 +109,23 @@ public class BrightnessContrast extends ParametrizedFilter {
 
             lookup[i] = PixelUtils.clamp((int) lookupValue);
         }
+        return lookup;
+    }
 
-        // transform the image
-        int[] srcPixels = ImageUtils.getPixels(src);
-        int[] destPixels = ImageUtils.getPixels(dest);
-        for (int i = 0; i < destPixels.length; i++) {
-            int rgb = srcPixels[i];
-
-            int a = rgb & 0xFF_00_00_00; // not in the range 0..255!
-            if (a == 0) {
-                destPixels[i] = 0; // for premultiplied images
-            } else {
-                int r = (rgb >>> 16) & 0xFF;
-                int g = (rgb >>> 8) & 0xFF;
-                int b = rgb & 0xFF;
-
-                r = lookup[r];
-                g = lookup[g];
-                b = lookup[b];
-
-                destPixels[i] = a | r << 16 | g << 8 | b;
-            }
+    private static int adjustPixel(int rgb, int[] lookup) {
+        int a = rgb & 0xFF_00_00_00; // not in the range 0..255!
+        if (a == 0) {
+            return 0; // for premultiplied images
         }
+        int r = (rgb >>> 16) & 0xFF;
+        int g = (rgb >>> 8) & 0xFF;
+        int b = rgb & 0xFF;
 
-        return dest;
+        r = lookup[r];
+        g = lookup[g];
+        b = lookup[b];
+
+        return a | r << 16 | g << 8 | b;
     }
 
     @Override
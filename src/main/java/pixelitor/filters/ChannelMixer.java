@@ -18,6 +18,7 @@
 package pixelitor.filters;
 
 import com.jhlabs.image.PixelUtils;
+import pixelitor.ThreadPool;
 import pixelitor.filters.gui.*;
 import pixelitor.gui.utils.TaskAction;
 import pixelitor.layers.Filterable;
@@ -28,6 +29,7 @@ import java.awt.image.BandCombineOp;
 import java.awt.image.BufferedImage;
 import java.io.Serial;
 import java.util.function.BooleanSupplier;
+import java.util.function.IntUnaryOperator;
 
 import static pixelitor.gui.utils.SliderSpinner.LabelPosition.NONE;
 import static pixelitor.utils.Texts.i18n;
@@ -35,7 +37,7 @@ import static pixelitor.utils.Texts.i18n;
 /**
  * The "Channel Mixer" filter.
  */
-public class ChannelMixer extends ParametrizedFilter {
+public class ChannelMixer extends ParametrizedFilter implements PointAdjustment {
     public static final String NAME = i18n("channel_mixer");
 
     @Serial
@@ -205,22 +207,8 @@ public class ChannelMixer extends ParametrizedFilter {
 
     @Override
     public BufferedImage transform(BufferedImage src, BufferedImage dest) {
-        float rfr = (float) redFromRed.getPercentage();
-        float rfg = (float) redFromGreen.getPercentage();
-        float rfb = (float) redFromBlue.getPercentage();
-
-        float gfr = (float) greenFromRed.getPercentage();
-        float gfg = (float) greenFromGreen.getPercentage();
-        float gfb = (float) greenFromBlue.getPercentage();
-
-        float bfr = (float) blueFromRed.getPercentage();
-        float bfg = (float) blueFromGreen.getPercentage();
-        float bfb = (float) blueFromBlue.getPercentage();
-
-        // identity matrix => skip processing
-        if (rfr == 1.0f && rfg == 0.0f && rfb == 0.0f
-            && gfr == 0.0f && gfg == 1.0f && gfb == 0.0f
-            && bfr == 0.0f && bfg == 0.0f && bfb == 1.0f) {
+        float[][] matrix = createMatrix();
+        if (isIdentity(matrix)) { // skip processing
             return src;
         }
 
@@ -232,29 +220,13 @@ public class ChannelMixer extends ParametrizedFilter {
             int length = srcPixels.length;
             assert length == destPixels.length;
 
-            for (int i = 0; i < length; i++) {
-                int rgb = srcPixels[i];
-                int a = rgb & 0xFF_00_00_00;
-                int r = (rgb >>> 16) & 0xFF;
-                int g = (rgb >>> 8) & 0xFF;
-                int b = rgb & 0xFF;
-
-                int newRed = (int) (rfr * r + rfg * g + rfb * b);
-                int newGreen = (int) (gfr * r + gfg * g + gfb * b);
-                int newBlue = (int) (bfr * r + bfg * g + bfb * b);
-
-                newRed = PixelUtils.clamp(newRed);
-                newGreen = PixelUtils.clamp(newGreen);
-                newBlue = PixelUtils.clamp(newBlue);
-
-                destPixels[i] = a | newRed << 16 | newGreen << 8 | newBlue;
-            }
+            ThreadPool.processPixels(length, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    destPixels[i] = mixPixel(srcPixels[i], matrix);
+                }
+            });
         } else { // not packed int
-            var bandCombineOp = new BandCombineOp(new float[][]{
-                {rfr, rfg, rfb},
-                {gfr, gfg, gfb},
-                {bfr, bfg, bfb}
-            }, null);
+            var bandCombineOp = new BandCombineOp(matrix, null);
             var srcRaster = src.getRaster();
             var destRaster = dest.getRaster();
             bandCombineOp.filter(srcRaster, destRaster);
@@ -263,6 +235,52 @@ public class ChannelMixer extends ParametrizedFilter {
         return dest;
     }
 
+    @Override
+    public IntUnaryOperator createPixelFunction(BufferedImage image) {
+        float[][] matrix = createMatrix();
+        if (isIdentity(matrix)) {
+            return IntUnaryOperator.identity();
+        }
+        return rgb -> mixPixel(rgb, matrix);
+    }
+
+    private float[][] createMatrix() {
+        return new float[][]{
+            {(float) redFromRed.getPercentage(),
+                (float) redFromGreen.getPercentage(),
+                (float) redFromBlue.getPercentage()},
+            {(float) greenFromRed.getPercentage(),
+                (float) greenFromGreen.getPercentage(),
+                (float) greenFromBlue.getPercentage()},
+            {(float) blueFromRed.getPercentage(),
+                (float) blueFromGreen.getPercentage(),
+                (float) blueFromBlue.getPercentage()}
+        };
+    }
+
+    private static boolean isIdentity(float[][] m) {
+        return m[0][0] == 1.0f && m[0][1] == 0.0f && m[0][2] == 0.0f
+            && m[1][0] == 0.0f && m[1][1] == 1.0f && m[1][2] == 0.0f
+            && m[2][0] == 0.0f && m[2][1] == 0.0f && m[2][2] == 1.0f;
+    }
+
+    private static int mixPixel(int rgb, float[][] m) {
+        int a = rgb & 0xFF_00_00_00;
+        int r = (rgb >>> 16) & 0xFF;
+        int g = (rgb >>> 8) & 0xFF;
+        int b = rgb & 0xFF;
+
+        int newRed = (int) (m[0][0] * r + m[0][1] * g + m[0][2] * b);
+        int newGreen = (int) (m[1][0] * r + m[1][1] * g + m[1][2] * b);
+        int newBlue = (int) (m[2][0] * r + m[2][1] * g + m[2][2] * b);
+
+        newRed = PixelUtils.clamp(newRed);
+        newGreen = PixelUtils.clamp(newGreen);
+        newBlue = PixelUtils.clamp(newBlue);
+
+        return a | newRed << 16 | newGreen << 8 | newBlue;
+    }
+
     // replaces the adjustment listeners with custom versions that
     // change other values before triggering the filter
     public void replaceAdjustmentListeners() {
@@ -28,6 +28,7 @@ import pixelitor.utils.debug.Debuggable;
 import java.awt.image.BufferedImage;
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static pixelitor.utils.ImageUtils.isGrayscale;
 
@@ -41,8 +42,9 @@ public abstract class Filter implements Serializable, PresetOwner, Debuggable {
 
     private transient String name;
 
-    // tracking counter to detect unnecessary filter executions
-    public static long executionCount = 0;
+    // tracking counter to detect unnecessary filter executions (atomic,
+    // because the filters of layer groups can run on the pool threads)
+    private static final AtomicLong executionCount = new AtomicLong();
 
     protected Filter() {
     }
@@ -56,6 +58,24 @@ public abstract class Filter implements Serializable, PresetOwner, Debuggable {
      * Executes the filter, handling grayscale conversion if necessary.
      */
     public BufferedImage transformImage(BufferedImage src) {
+        BufferedImage dest = transformImageUncounted(src);
+        executionCount.incrementAndGet();
+        return dest;
+    }
+
+    /**
+     * Returns the number of counted filter executions so far.
+     */
+    public static long getExecutionCount() {
+        return executionCount.get();
+    }
+
+    /**
+     * Executes the filter without counting the execution. It's used for
+     * the executions that can overlap with the checks of the counter on
+     * the EDT, such as the parallel rendering of the animation frames.
+     */
+    public BufferedImage transformImageUncounted(BufferedImage src) {
         boolean convertedToRgb = false;
 
         // handle grayscale images (in layer masks) if
@@ -77,8 +97,6 @@ public abstract class Filter implements Serializable, PresetOwner, Debuggable {
             dest = ImageUtils.convertToGrayscaleImage(dest);
         }
 
-        executionCount++;
-
         assert dest != null : getName() + " returned null image";
 
         return dest;
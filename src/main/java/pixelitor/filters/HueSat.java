@@ -22,18 +22,20 @@ import com.jhlabs.image.PointFilter;
 import pixelitor.colors.ColorSpaces;
 import pixelitor.filters.gui.EnumParam;
 import pixelitor.filters.gui.RangeParam;
+import pixelitor.filters.lookup.Lut3DFilter;
 import pixelitor.filters.util.CylColorSpace;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.Serial;
+import java.util.function.IntUnaryOperator;
 
 import static pixelitor.gui.GUIText.*;
 
 /**
  * The Hue-Saturation filter.
  */
-public class HueSat extends ParametrizedFilter {
+public class HueSat extends ParametrizedFilter implements PointAdjustment {
     public static final String NAME = HUE + "/" + SATURATION;
 
     @Serial
@@ -44,6 +46,9 @@ public class HueSat extends ParametrizedFilter {
     private final RangeParam saturation = new RangeParam(SATURATION, -100, 0, 100);
     private final RangeParam brightness = new RangeParam(BRIGHTNESS, -100, 0, 100);
 
+    // reused while the settings don't change, because its lookup table is expensive
+    private transient OklchFilter oklchFilter;
+
     public HueSat() {
         super(true);
 
@@ -61,37 +66,56 @@ public class HueSat extends ParametrizedFilter {
 
     @Override
     public BufferedImage transform(BufferedImage src, BufferedImage dest) {
-        if (hue.isZero() && saturation.isZero() && brightness.isZero()) {
+        if (isIdentity()) {
             return src;
         }
 
+        return createPointFilter().filter(src, dest);
+    }
+
+    @Override
+    public IntUnaryOperator createPixelFunction(BufferedImage image) {
+        if (isIdentity()) {
+            return IntUnaryOperator.identity();
+        }
+        return PointAdjustment.toPixelFunction(createPointFilter(), image);
+    }
+
+    private boolean isIdentity() {
+        return hue.isZero() && saturation.isZero() && brightness.isZero();
+    }
+
+    private PointFilter createPointFilter() {
         return switch (colorSpace.getSelected()) {
-            case HSV -> filterHsv(src, dest);
-            case OKLCH -> filterOklch(src, dest);
+            case HSV -> createHsvFilter();
+            case OKLCH -> createOklchFilter();
         };
     }
 
-    private BufferedImage filterHsv(BufferedImage src, BufferedImage dest) {
+    private PointFilter createHsvFilter() {
         float satShift = (float) saturation.getPercentage();
         float briShift = (float) brightness.getPercentage();
         float hueRot = hue.getValueAsFloat() / 360.0f;
 
-        return new HsvFilter(hueRot, satShift, briShift).filter(src, dest);
+        return new HsvFilter(hueRot, satShift, briShift);
     }
 
-    private BufferedImage filterOklch(BufferedImage src, BufferedImage dest) {
+    private PointFilter createOklchFilter() {
         float hueShift = hue.getValueAsFloat();
         // satFactor is a multiplier, e.g., 1.5 for a 50% increase
         float satFactor = 1.0f + (float) saturation.getPercentage();
         float briShift = (float) brightness.getPercentage();
 
-        return new OklchFilter(hueShift, satFactor, briShift).filter(src, dest);
+        if (oklchFilter == null || !oklchFilter.hasSettings(hueShift, satFactor, briShift)) {
+            oklchFilter = new OklchFilter(hueShift, satFactor, briShift);
+        }
+        return oklchFilter;
     }
 
     /**
      * An implementation of the filter that works in the Oklch color space.
      */
-    private static class OklchFilter extends PointFilter {
+    private static class OklchFilter extends Lut3DFilter {
         private final float hueShift;
         private final float satFactor;
         private final float briShift;
@@ -103,10 +127,14 @@ public class HueSat extends ParametrizedFilter {
             this.briShift = briShift;
         }
 
-        @Override
-        public int processPixel(int x, int y, int rgb) {
-            int a = rgb & 0xFF_00_00_00;
+        boolean hasSettings(float hueShift, float satFactor, float briShift) {
+            return this.hueShift == hueShift
+                && this.satFactor == satFactor
+                && this.briShift == briShift;
+        }
 
+        @Override
+        protected int calcColor(int rgb) {
             float[] oklch = ColorSpaces.srgbToOklch(rgb);
 
             // L is in [0, 1], C is >= 0, h is in [0, 360)
@@ -123,8 +151,7 @@ public class HueSat extends ParametrizedFilter {
             oklch[1] = c;
             oklch[2] = h;
 
-            int newRGB = ColorSpaces.oklchToSrgb(oklch);
-            return a | (newRGB & 0x00_FF_FF_FF);
+            return ColorSpaces.oklchToSrgb(oklch);
         }
     }
 
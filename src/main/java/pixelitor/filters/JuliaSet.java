@@ -99,7 +99,7 @@ class JuliaSetFilter extends ComplexFractalFilter {
     }
 
     @Override
-    public int processPixel(int x, int y, int rgb) {
+    protected int calcIterations(int x, int y) {
         // for Julia-type sets, the initial z is mapped from the pixel's image coordinates
         double zx = xStart + x * xMultiplier;
         double zy = yStart + y * yMultiplier;
@@ -109,7 +109,7 @@ class JuliaSetFilter extends ComplexFractalFilter {
             double d = zx * zx + zy * zy;
             if (d == 0) {
                 // z0 is at the origin, so 1/z0 is at infinity => escape immediately
-                return colors[colors.length - 1];
+                return getMaxIterations();
             }
             // use the inverted z0' as z0
             zx = zx / d;
@@ -117,6 +117,6 @@ class JuliaSetFilter extends ComplexFractalFilter {
         }
 
         // the complex constant c is fixed for the entire image
-        return calcIteratedColor(zx, zy, cx, cy);
+        return iterate(zx, zy, cx, cy);
     }
 }
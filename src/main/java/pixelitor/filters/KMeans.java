@@ -17,6 +17,7 @@
 
 package pixelitor.filters;
 
+import pixelitor.ThreadPool;
 import pixelitor.filters.gui.BooleanParam;
 import pixelitor.filters.gui.IntChoiceParam;
 import pixelitor.filters.gui.RangeParam;
@@ -40,11 +41,13 @@ public class KMeans extends ParametrizedFilter {
     private static final long serialVersionUID = 1L;
 
     private final RangeParam k = new RangeParam(
-        "Number of Colors", 2, 5, 10);
+        "Number of Colors", 2, 5, 64);
     private final RangeParam iterations = new RangeParam(
         "Iterations", 1, 5, 20);
     private final BooleanParam kpp = new BooleanParam(
         "PlusPlus", false);
+    private final BooleanParam miniBatch = new BooleanParam(
+        "Mini-Batch (Faster)", false);
 
     private final RangeParam diffusionStrengthParam = new RangeParam("Dithering Amount (%)", 0, 0, 100);
     private final IntChoiceParam ditheringMethodParam = Dithering.createDitheringChoices();
@@ -58,6 +61,7 @@ public class KMeans extends ParametrizedFilter {
             k,
             iterations,
             kpp,
+            miniBatch,
             diffusionStrengthParam,
             ditheringMethodParam
         ).withReseedAction();
@@ -70,20 +74,38 @@ public class KMeans extends ParametrizedFilter {
         Random random = paramSet.getRandomWithLastSeed();
         int numIterations = iterations.getValue();
 
-        boolean dither = diffusionStrengthParam.getValue() != 0;
-        double diffusionStrength = diffusionStrengthParam.getPercentage();
-        int ditheringMethod = ditheringMethodParam.getValue();
-
         var pt = new StatusBarProgressTracker(NAME, numIterations + 2);
 
-        // if dithering, work on a copy of the source pixels to propagate errors
-        int[] inputPixels = dither ? Arrays.copyOf(srcPixels, srcPixels.length) : srcPixels;
-
         // perform k-means clustering to find the color palette
-        KMeansClustering kmeans = new KMeansClustering(k.getValue(), numIterations, random);
+        KMeansClustering kmeans = new KMeansClustering(k.getValue(), numIterations, miniBatch.isChecked(), random);
         int[] centroids = kmeans.cluster(srcPixels, kpp.isChecked(), pt);
 
-        int width = src.getWidth();
+        if (diffusionStrengthParam.getValue() != 0) {
+            mapPixelsWithDithering(srcPixels, destPixels, src.getWidth(), centroids);
+        } else {
+            // without dithering, the pixels are mapped independently
+            ThreadPool.processPixels(destPixels.length, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    int rgb = srcPixels[i];
+                    int closestCentroidIndex = KMeansClustering.findClosestCentroidIndex(rgb, centroids);
+                    // combine the new RGB with the original alpha
+                    destPixels[i] = (rgb & 0xFF_00_00_00) | centroids[closestCentroidIndex];
+                }
+            });
+        }
+
+        pt.unitDone();
+        pt.finished();
+
+        return dest;
+    }
+
+    private void mapPixelsWithDithering(int[] srcPixels, int[] destPixels, int width, int[] centroids) {
+        double diffusionStrength = diffusionStrengthParam.getPercentage();
+        int ditheringMethod = ditheringMethodParam.getValue();
+
+        // work on a copy of the source pixels to propagate errors
+        int[] inputPixels = Arrays.copyOf(srcPixels, srcPixels.length);
         int length = destPixels.length;
 
         // map each pixel to the nearest color in the palette
@@ -96,32 +118,25 @@ public class KMeans extends ParametrizedFilter {
             int closestCentroidIndex = KMeansClustering.findClosestCentroidIndex(inRGB, centroids);
             int outRGB = centroids[closestCentroidIndex];
 
-            if (dither) {
-                // calculate the quantization error
-                int inR = (inRGB >>> 16) & 0xFF;
-                int inG = (inRGB >>> 8) & 0xFF;
-                int inB = inRGB & 0xFF;
+            // calculate the quantization error
+            int inR = (inRGB >>> 16) & 0xFF;
+            int inG = (inRGB >>> 8) & 0xFF;
+            int inB = inRGB & 0xFF;
 
-                int outR = (outRGB >>> 16) & 0xFF;
-                int outG = (outRGB >>> 8) & 0xFF;
-                int outB = outRGB & 0xFF;
+            int outR = (outRGB >>> 16) & 0xFF;
+            int outG = (outRGB >>> 8) & 0xFF;
+            int outB = outRGB & 0xFF;
 
-                double errorR = (inR - outR) * diffusionStrength;
-                double errorG = (inG - outG) * diffusionStrength;
-                double errorB = (inB - outB) * diffusionStrength;
+            double errorR = (inR - outR) * diffusionStrength;
+            double errorG = (inG - outG) * diffusionStrength;
+            double errorB = (inB - outB) * diffusionStrength;
 
-                // distribute the error to neighboring pixels
-                Dithering.ditherRGB(ditheringMethod, inputPixels, i, width, length, errorR, errorG, errorB);
-            }
+            // distribute the error to neighboring pixels
+            Dithering.ditherRGB(ditheringMethod, inputPixels, i, width, length, errorR, errorG, errorB);
 
             // combine the new RGB with the original alpha
             destPixels[i] = alpha | outRGB;
         }
-
-        pt.unitDone();
-        pt.finished();
-
-        return dest;
     }
 
     @Override
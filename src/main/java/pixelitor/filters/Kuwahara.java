@@ -17,15 +17,16 @@
 
 package pixelitor.filters;
 
+import pixelitor.ThreadPool;
 import pixelitor.filters.gui.Help;
 import pixelitor.filters.gui.RangeParam;
 import pixelitor.progress.ProgressTracker;
 import pixelitor.progress.StatusBarProgressTracker;
 import pixelitor.utils.ImageUtils;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.Serial;
+import java.util.concurrent.Future;
 
 /**
  * Kuwahara filter.
@@ -36,8 +37,14 @@ public class Kuwahara extends ParametrizedFilter {
 
     public static final String NAME = "Kuwahara";
 
+    // the strips are processed in parallel, and the overlapping
+    // rows of their integral images are calculated twice
+    private static final int MIN_STRIP_HEIGHT = 16;
+    private static final int MAX_STRIP_HEIGHT = 128;
+
+    // the squared brightness sums of the sub-regions must fit into an int
     private final RangeParam radiusParam = new RangeParam(
-        "Radius", 1, 1, 10);
+        "Radius", 1, 1, 50);
 
     public Kuwahara() {
         super(true);
@@ -51,9 +58,6 @@ public class Kuwahara extends ParametrizedFilter {
 
     @Override
     public BufferedImage transform(BufferedImage src, BufferedImage dest) {
-        // ensure the destination image is a distinct copy of the source
-        dest = ImageUtils.copyImage(src);
-
         int radius = radiusParam.getValue();
         int width = src.getWidth();
         int height = src.getHeight();
@@ -68,58 +72,67 @@ public class Kuwahara extends ParametrizedFilter {
 
     /**
      * Applies the Kuwahara filter, reading from the source pixels and writing to the destination pixels.
+     * The image is processed in parallel horizontal strips, and each strip has its own integral
+     * images, which extend only by the radius beyond the strip, so that the memory use doesn't
+     * depend on the image height.
      */
-    private static void apply(int[] srcPixels, int[] destPixels, int width, int height, int radius) {
-        ProgressTracker pt = new StatusBarProgressTracker(NAME, height + 2);
-
-        // pre-calculate brightness for all pixels
-        float[][] brightnesses = new float[height][width];
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                brightnesses[y][x] = rgbToBrightness(srcPixels[y * width + x]);
-            }
-        }
-        pt.unitDone();
-
-        // pre-compute integral images for sum and sum-of-squares
-        double[][] integralSum = new double[height + 1][width + 1];
-        double[][] integralSumSq = new double[height + 1][width + 1];
-        computeIntegralImages(brightnesses, width, height, integralSum, integralSumSq);
-        pt.unitDone();
-
-        float[] hsv = new float[3];
-
-        // main filter loop
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // find the mean brightness of the most homogeneous sub-region around the current pixel
-                float bestMean = findBestRegionMean(integralSum, integralSumSq, width, height, x, y, radius);
-
-                // preserve the original hue and saturation, but use the new brightness
-                int index = y * width + x;
-                rgbToHsv(srcPixels[index], hsv);
-                hsv[2] = bestMean;
-                destPixels[index] = hsvToRgb(hsv);
-            }
-            pt.unitDone();
+    static void apply(int[] srcPixels, int[] destPixels, int width, int height, int radius) {
+        int stripHeight = Math.clamp(height / (4L * ThreadPool.getNumCores()), MIN_STRIP_HEIGHT, MAX_STRIP_HEIGHT);
+        int numStrips = (height + stripHeight - 1) / stripHeight;
+        ProgressTracker pt = new StatusBarProgressTracker(NAME, numStrips);
+
+        Future<?>[] futures = new Future<?>[numStrips];
+        for (int i = 0; i < numStrips; i++) {
+            int startY = i * stripHeight;
+            int endY = Math.min(startY + stripHeight, height);
+            futures[i] = ThreadPool.submit(() ->
+                filterStrip(srcPixels, destPixels, width, height, radius, startY, endY));
         }
+        ThreadPool.waitFor(futures, pt);
         pt.finished();
     }
 
     /**
-     * Computes integral images for both the sum and the sum of squares of brightness values.
+     * Filters the rows between startY (inclusive) and endY (exclusive).
      */
-    private static void computeIntegralImages(float[][] brightnesses, int width, int height, double[][] integralSum, double[][] integralSumSq) {
-        for (int y = 0; y < height; y++) {
-            double rowSum = 0.0;
-            double rowSumSq = 0.0;
+    private static void filterStrip(int[] srcPixels, int[] destPixels, int width, int height,
+                                    int radius, int startY, int endY) {
+        // the rows that can be covered by the sub-regions of the strip's pixels
+        int firstRow = Math.max(0, startY - radius);
+        int lastRow = Math.min(height - 1, endY - 1 + radius);
+        int numRows = lastRow - firstRow + 1;
+
+        // The integral images of the brightness (as 0..255 ints) and
+        // its square, in flat arrays with padded rows and columns. They
+        // can overflow for big images, but the region sums are still correct,
+        // because the overflow cancels out in the integer arithmetic.
+        int stride = width + 1;
+        int[] integralSum = new int[(numRows + 1) * stride];
+        int[] integralSumSq = new int[(numRows + 1) * stride];
+        for (int row = 0; row < numRows; row++) {
+            int rowSum = 0;
+            int rowSumSq = 0;
+            int srcIndex = (firstRow + row) * width;
+            int above = row * stride;
+            int current = above + stride;
             for (int x = 0; x < width; x++) {
-                float b = brightnesses[y][x];
+                int b = brightness(srcPixels[srcIndex + x]);
                 rowSum += b;
                 rowSumSq += b * b;
-                // uses padded (height+1, width+1) arrays to simplify boundary checks later
-                integralSum[y + 1][x + 1] = rowSum + integralSum[y][x + 1];
-                integralSumSq[y + 1][x + 1] = rowSumSq + integralSumSq[y][x + 1];
+                integralSum[current + x + 1] = rowSum + integralSum[above + x + 1];
+                integralSumSq[current + x + 1] = rowSumSq + integralSumSq[above + x + 1];
+            }
+        }
+
+        for (int y = startY; y < endY; y++) {
+            int index = y * width;
+            for (int x = 0; x < width; x++, index++) {
+                // find the mean brightness of the most homogeneous sub-region around the current pixel
+                float bestMean = findBestRegionMean(integralSum, integralSumSq,
+                    stride, width, height, firstRow, x, y, radius);
+
+                // preserve the original hue and saturation, but use the new brightness
+                destPixels[index] = changeBrightness(srcPixels[index], bestMean);
             }
         }
     }
@@ -127,82 +140,89 @@ public class Kuwahara extends ParametrizedFilter {
     /**
      * Calculates the sum of values within a given rectangular
      * region in O(1) time using a pre-computed integral image.
-     *
-     * @param integralImage The padded (height+1, width+1) integral image.
-     * @param x1            The starting x-coordinate of the region (inclusive).
-     * @param y1            The starting y-coordinate of the region (inclusive).
-     * @param x2            The ending x-coordinate of the region (inclusive).
-     * @param y2            The ending y-coordinate of the region (inclusive).
-     * @return The sum of values in the specified rectangle.
+     * The coordinates are inclusive and relative to the integral image's first row.
      */
-    private static double getRegionSum(double[][] integralImage, int x1, int y1, int x2, int y2) {
-        // I[y+1][x+1] corresponds to the sum of the rectangle from origin to original pixel (x,y)
-        return integralImage[y2 + 1][x2 + 1] - integralImage[y1][x2 + 1] - integralImage[y2 + 1][x1] + integralImage[y1][x1];
+    private static int getRegionSum(int[] integralImage, int stride, int x1, int y1, int x2, int y2) {
+        // the element at (x+1, y+1) is the sum of the rectangle from the origin to the pixel (x, y)
+        return integralImage[(y2 + 1) * stride + x2 + 1] - integralImage[y1 * stride + x2 + 1]
+            - integralImage[(y2 + 1) * stride + x1] + integralImage[y1 * stride + x1];
     }
 
     /**
-     * Calculates the mean brightness of the sub-region with the lowest variance using integral images.
+     * Calculates the mean brightness (0..255) of the sub-region with the lowest variance using integral images.
      */
-    private static float findBestRegionMean(double[][] integralSum, double[][] integralSumSq, int width, int height, int cx, int cy, int radius) {
-        // the top-left corners of the four overlapping sub-regions
-        int[][] regionOrigins = {
-            {cx - radius, cy - radius}, {cx, cy - radius},
-            {cx - radius, cy}, {cx, cy}
-        };
-
-        float minVariance = Float.MAX_VALUE;
+    private static float findBestRegionMean(int[] integralSum, int[] integralSumSq, int stride,
+                                            int width, int height, int firstRow,
+                                            int cx, int cy, int radius) {
+        double minVariance = Double.MAX_VALUE;
         float bestMean = 0.0f;
 
-        // analyze each of the four sub-regions
-        for (int[] origin : regionOrigins) {
+        // analyze each of the four overlapping sub-regions,
+        // given by their top-left corners
+        for (int region = 0; region < 4; region++) {
+            int originX = (region & 1) == 0 ? cx - radius : cx;
+            int originY = (region & 2) == 0 ? cy - radius : cy;
+
             // define the sub-region boundaries, clamped to the image dimensions
-            int x1 = Math.max(0, origin[0]);
-            int y1 = Math.max(0, origin[1]);
-            int x2 = Math.min(width - 1, origin[0] + radius);
-            int y2 = Math.min(height - 1, origin[1] + radius);
+            int x1 = Math.max(0, originX);
+            int y1 = Math.max(0, originY);
+            int x2 = Math.min(width - 1, originX + radius);
+            int y2 = Math.min(height - 1, originY + radius);
 
             // skip if the region is entirely outside the image
             if (x1 > x2 || y1 > y2) {
                 continue;
             }
 
-            int count = (x2 - x1 + 1) * (y2 - y1 + 1);
+            long count = (long) (x2 - x1 + 1) * (y2 - y1 + 1);
 
             // calculate sum and sum of squares in O(1) using the integral images
-            double sum = getRegionSum(integralSum, x1, y1, x2, y2);
-            double sumSq = getRegionSum(integralSumSq, x1, y1, x2, y2);
+            long sum = getRegionSum(integralSum, stride, x1, y1 - firstRow, x2, y2 - firstRow);
+            long sumSq = getRegionSum(integralSumSq, stride, x1, y1 - firstRow, x2, y2 - firstRow);
 
-            float mean = (float) (sum / count);
-            // variance = E[X²] - (E[X])²
-            float variance = (float) (sumSq / count) - (mean * mean);
+            // variance = E[X²] - (E[X])², calculated exactly in integers
+            double variance = (double) (count * sumSq - sum * sum) / (count * count);
 
             if (variance < minVariance) {
                 minVariance = variance;
-                bestMean = mean;
+                bestMean = (float) sum / count;
             }
         }
 
         return bestMean;
     }
 
-    private static void rgbToHsv(int rgb, float[] hsv) {
-        int red = (rgb >> 16) & 0xFF;
-        int green = (rgb >> 8) & 0xFF;
-        int blue = rgb & 0xFF;
-        Color.RGBtoHSB(red, green, blue, hsv);
+    // the brightness is the 'value' component of the HSV/HSB color model
+    private static int brightness(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+
+        return Math.max(r, Math.max(g, b));
     }
 
-    private static float rgbToBrightness(int rgb) {
+    /**
+     * Returns the opaque color with the same hue and saturation as the given
+     * color, and with the given brightness (0..255). Scaling all the
+     * channels by the same factor has the same effect as changing the
+     * brightness in the HSV color model, but it's much faster.
+     */
+    private static int changeBrightness(int rgb, float newBrightness) {
         int r = (rgb >> 16) & 0xFF;
         int g = (rgb >> 8) & 0xFF;
         int b = rgb & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
 
-        // brightness is the 'value' component of the HSV/HSB color model
-        return Math.max(r, Math.max(g, b)) / 255.0f;
-    }
+        if (max == 0) { // black has no hue or saturation
+            int gray = (int) (newBrightness + 0.5f);
+            return 0xFF_00_00_00 | gray << 16 | gray << 8 | gray;
+        }
 
-    private static int hsvToRgb(float[] hsv) {
-        return Color.HSBtoRGB(hsv[0], hsv[1], hsv[2]);
+        float scale = newBrightness / max;
+        return 0xFF_00_00_00
+            | (int) (r * scale + 0.5f) << 16
+            | (int) (g * scale + 0.5f) << 8
+            | (int) (b * scale + 0.5f);
     }
 
     @Override
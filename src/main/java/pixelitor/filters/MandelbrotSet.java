@@ -21,6 +21,7 @@ import pixelitor.filters.gui.Help;
 import pixelitor.filters.impl.ComplexFractalFilter;
 import pixelitor.filters.impl.ComplexFractalFilter.IterationStrategy;
 
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.Serial;
@@ -87,7 +88,20 @@ class MandelbrotSetFilter extends ComplexFractalFilter {
     }
 
     @Override
-    public int processPixel(int x, int y, int rgb) {
+    protected boolean canSubdivide() {
+        // the inversion maps the set's outside near the origin,
+        // where it's enclosed by the points that escape slower
+        return iterator.hasConnectedLevelSets() && !insideOut;
+    }
+
+    @Override
+    protected Point2D getPointInSet() {
+        // c = 0 is in the Mandelbrot and Multibrot sets
+        return new Point2D.Double(-xStart / xMultiplier, -yStart / yMultiplier);
+    }
+
+    @Override
+    protected int calcIterations(int x, int y) {
         // for Mandelbrot-type sets, z starts at 0
         double zx = 0;
         double zy = 0;
@@ -101,7 +115,7 @@ class MandelbrotSetFilter extends ComplexFractalFilter {
             double d = cx * cx + cy * cy;
             if (d == 0) {
                 // c is at the origin, so 1/c is at infinity => escape immediately
-                return colors[colors.length - 1];
+                return getMaxIterations();
             }
             // use the inverted c' as c
             cx = cx / d;
@@ -110,8 +124,8 @@ class MandelbrotSetFilter extends ComplexFractalFilter {
 
         // check for known regions of the set for a quick exit
         if (iterator.checkShortcuts(cx, cy)) {
-            return 0xFF_00_00_00; // black, indicating the point is in the set
+            return 0; // the point is in the set
         }
-        return calcIteratedColor(zx, zy, cx, cy);
+        return iterate(zx, zy, cx, cy);
     }
 }
@@ -53,10 +53,11 @@ public class Morphology extends ParametrizedFilter {
         new Item("YCbCr/Y", MorphologyFilter.CHANNEL_YCBCR),
         new Item("HSV/V", MorphologyFilter.CHANNEL_HSV),
     });
-    private final RangeParam radius = new RangeParam(GUIText.RADIUS, 1, 1, 21);
+    private final RangeParam radius = new RangeParam(GUIText.RADIUS, 1, 1, 100);
     private final IntChoiceParam kernel = new IntChoiceParam("Kernel Shape", new Item[]{
         new Item("Diamond", MorphologyFilter.KERNEL_DIAMOND),
         new Item("Square", MorphologyFilter.KERNEL_SQUARE),
+        new Item("Disk", MorphologyFilter.KERNEL_DISK),
     });
     private final IntChoiceParam op = new IntChoiceParam("Operation", new Item[]{
         new Item("Maximum (Dilate)", OP_DILATE),
@@ -76,12 +77,10 @@ public class Morphology extends ParametrizedFilter {
 
     @Override
     public BufferedImage transform(BufferedImage src, BufferedImage dest) {
-        int iterations = radius.getValue();
-
         var filter = new MorphologyFilter(NAME,
             kernel.getValue(),
             channel.getValue(),
-            iterations);
+            radius.getValue());
 
         int selectedOp = op.getValue();
         if (selectedOp == OP_DILATE || selectedOp == OP_ERODE) {
@@ -89,7 +88,7 @@ public class Morphology extends ParametrizedFilter {
             dest = filter.filter(src, dest);
         } else {
             // use custom progress tracker with twice as many work units
-            var pt = new StatusBarProgressTracker(NAME, 2 * iterations);
+            var pt = new StatusBarProgressTracker(NAME, 2 * filter.getWorkUnits());
             filter.setProgressTracker(pt);
 
             switch (selectedOp) {
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.filters;
+
+import com.jhlabs.image.PointFilter;
+import pixelitor.filters.lookup.FastLookupOp;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A filter that changes each pixel based only on its own value. Consecutive
+ * adjustment layers with such filters are applied in a single pass.
+ */
+public interface PointAdjustment {
+    /**
+     * Returns a function that maps each pixel value of the given packed int
+     * image to the value this filter would produce with the current settings,
+     * or null if the current settings can't be expressed as such a function.
+     */
+    IntUnaryOperator createPixelFunction(BufferedImage image);
+
+    /**
+     * Returns the per-pixel function of the given image operation for the
+     * given image, or null if it isn't known to be a point operation.
+     */
+    static IntUnaryOperator toPixelFunction(BufferedImageOp op, BufferedImage image) {
+        return switch (op) {
+            case FastLookupOp lookupOp -> lookupOp.asPixelFunction(image.isAlphaPremultiplied());
+            // some point filters choose their algorithm based on the image size
+            case PointFilter pointFilter -> pointFilter.asPixelFunction(image.getWidth(), image.getHeight());
+            case null, default -> null;
+        };
+    }
+}
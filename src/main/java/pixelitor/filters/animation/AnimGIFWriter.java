@@ -28,11 +28,12 @@ import java.io.File;
 public class AnimGIFWriter implements AnimationWriter {
     private final AnimatedGifEncoder encoder;
 
-    public AnimGIFWriter(File file, int delayMillis) {
+    public AnimGIFWriter(File file, int delayMillis, boolean frameDifferencing) {
         encoder = new AnimatedGifEncoder();
         encoder.start(file);
         encoder.setDelay(delayMillis);
         encoder.setRepeat(0); // loop indefinitely
+        encoder.setFrameDifferencing(frameDifferencing);
     }
 
     @Override
@@ -40,6 +41,11 @@ public class AnimGIFWriter implements AnimationWriter {
         encoder.addFrame(image);
     }
 
+    @Override
+    public void flush() {
+        encoder.flush();
+    }
+
     @Override
     public void finish() {
         encoder.finish();
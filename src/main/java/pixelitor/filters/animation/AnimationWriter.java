@@ -24,10 +24,19 @@ import java.io.IOException;
  */
 public interface AnimationWriter {
     /**
-     * Adds a frame to the animation.
+     * Adds a frame to the animation. The image must not be
+     * changed afterward, because it can be written later.
      */
     void addFrame(BufferedImage image) throws IOException;
 
+    /**
+     * Waits until all the added frames are written. Called on
+     * the rendering thread after the last frame was added.
+     */
+    default void flush() throws IOException {
+        // the frames are written in addFrame by default
+    }
+
     /**
      * Called if the animation rendering was canceled.
      */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Laszlo Balazs-Csiki and Contributors
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
  *
  * This file is part of Pixelitor. Pixelitor is free software: you
  * can redistribute it and/or modify it under the terms of the GNU
@@ -17,42 +17,168 @@
 
 package pixelitor.filters.animation;
 
-import pixelitor.io.TrackedIO;
+import pixelitor.ThreadPool;
 import pixelitor.utils.Messages;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.EventQueue;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import static java.lang.String.format;
 
 /**
  * An {@link AnimationWriter} implementation
  * that writes a sequence of PNG files.
+ *
+ * The frames are encoded and written on background threads, so that
+ * the rendering of the next frames isn't blocked by the PNG compression.
+ * If too many frames are waiting to be written, then adding a new
+ * frame blocks until one of them is written.
+ *
+ * The writer threads don't touch the Swing state: the PNG files are
+ * written without the status bar tracking of the regular image saving,
+ * and the written frames are reported on the EDT.
  */
 public class PNGFileSequenceWriter implements AnimationWriter {
+    private static final int NUM_ENCODER_THREADS = Math.min(ThreadPool.getNumCores(), 4);
+
+    // the maximum number of frames that are being written or waiting to
+    // be written, which limits the memory used by the unwritten frames
+    private static final int MAX_PENDING_FRAMES = 2 * NUM_ENCODER_THREADS;
+
+    // corresponds to deflate level 1 in the PNG writer,
+    // which is much faster and compresses only slightly worse
+    private static final float FAST_COMPRESSION_QUALITY = 0.85f;
+
     private final File outputDir;
+    private final boolean fastCompression;
     private int frameCount;
 
-    public PNGFileSequenceWriter(File outputDir) {
+    // only accessed on the EDT
+    private int numWrittenFrames;
+
+    private final ExecutorService encoders = Executors.newFixedThreadPool(NUM_ENCODER_THREADS, r -> {
+        Thread thread = new Thread(r, "PNG Frame Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Semaphore pendingFramePermits = new Semaphore(MAX_PENDING_FRAMES);
+    private final Queue<Future<?>> pendingFrames = new ArrayDeque<>();
+
+    public PNGFileSequenceWriter(File outputDir, boolean fastCompression) {
         this.outputDir = outputDir;
+        this.fastCompression = fastCompression;
     }
 
     @Override
     public void addFrame(BufferedImage image) throws IOException {
+        // report the errors of the already written frames as soon as possible
+        while (!pendingFrames.isEmpty() && pendingFrames.peek().isDone()) {
+            waitFor(pendingFrames.remove());
+        }
+
         String fileName = format("frame_%05d.png", frameCount++);
         File outputFile = new File(outputDir, fileName);
 
-        TrackedIO.write(image, "PNG", outputFile, null);
+        try {
+            pendingFramePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for " + fileName);
+        }
+        pendingFrames.add(encoders.submit(() -> {
+            try {
+                writePNG(image, outputFile, fastCompression);
+                EventQueue.invokeLater(this::frameWritten);
+            } finally {
+                pendingFramePermits.release();
+            }
+            return null;
+        }));
+    }
+
+    // called on the writer threads
+    private static void writePNG(BufferedImage image, File outputFile,
+                                 boolean fastCompression) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("PNG").next();
+        ImageWriteParam param = null;
+        if (fastCompression) {
+            param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(FAST_COMPRESSION_QUALITY);
+        }
+
+        // the FileOutputStream truncates the existing files
+        try (FileOutputStream fos = new FileOutputStream(outputFile);
+             ImageOutputStream ios = ImageIO.createImageOutputStream(fos)) {
+            if (ios == null) {
+                throw new IOException("Could not save to " + outputFile.getPath());
+            }
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+            ios.flush();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // called on the EDT after each written frame
+    private void frameWritten() {
+        numWrittenFrames++;
+        Messages.showPlainStatusMessage(format("%d of the frames written to %s",
+            numWrittenFrames, outputDir.getAbsolutePath()));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        while (!pendingFrames.isEmpty()) {
+            waitFor(pendingFrames.remove());
+        }
+    }
+
+    private static void waitFor(Future<?> frame) throws IOException {
+        try {
+            frame.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while writing the frames");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
     }
 
     @Override
     public void finish() {
+        encoders.shutdown();
         Messages.showBulkSaveMessage(frameCount, outputDir);
     }
 
     @Override
     public void cancel() {
-        // do nothing
+        // the already written files are kept, but
+        // the frames that aren't started are skipped
+        for (Future<?> frame : pendingFrames) {
+            frame.cancel(false);
+        }
+        pendingFrames.clear();
+        encoders.shutdown();
     }
 }
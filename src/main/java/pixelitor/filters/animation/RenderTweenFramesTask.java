@@ -18,6 +18,7 @@
 package pixelitor.filters.animation;
 
 import pixelitor.Composition;
+import pixelitor.ThreadPool;
 import pixelitor.filters.Filter;
 import pixelitor.filters.ParametrizedFilter;
 import pixelitor.filters.gui.FilterState;
@@ -29,6 +30,16 @@ import pixelitor.utils.Threads;
 import javax.swing.*;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import static java.lang.String.format;
 import static pixelitor.filters.FilterContext.TWEEN_PREVIEW;
@@ -37,12 +48,28 @@ import static pixelitor.utils.Threads.calledOutsideEDT;
 /**
  * A SwingWorker that renders frames for a tweening animation
  * by interpolating between two filter states.
+ *
+ * If the filter can be copied, then several frames are filtered at the
+ * same time, each with its own copy of the filter, and only the cheap
+ * preview update runs on the EDT, in frame order.
  */
 class RenderTweenFramesTask extends SwingWorker<Void, Void> {
+    // The frames are filtered on their own threads, not on the thread pool,
+    // because the filters themselves wait for the tasks they submit to the pool.
+    // Their number is limited, because each frame holds a full image.
+    private static final int NUM_FRAME_THREADS = Math.min(ThreadPool.getNumCores(), 4);
+
+    // the maximum number of frames that are filtered
+    // or waiting to be written at the same time
+    private static final int MAX_FRAMES_IN_FLIGHT = 2 * NUM_FRAME_THREADS;
+
     private final TweenAnimation animation;
     private final Drawable drawable;
     private final ProgressMonitor progressMonitor;
 
+    // the unfiltered image of the drawable, shared by the parallel frames
+    private final BufferedImage srcImage;
+
     private AnimationWriter animationWriter;
     private boolean hasError = false;
 
@@ -56,6 +83,7 @@ class RenderTweenFramesTask extends SwingWorker<Void, Void> {
 
         // call it while on the EDT
         drawable.startPreviewing();
+        srcImage = drawable.getFilterSourceImage();
     }
 
     private void handleProgressUpdate(PropertyChangeEvent evt) {
@@ -84,22 +112,123 @@ class RenderTweenFramesTask extends SwingWorker<Void, Void> {
             int baseFrameCount = animation.getNumFrames();
             int totalFrames = calcTotalFrameCount(baseFrameCount);
 
+            if (filter.canBeSmart()) { // the filter can be copied
+                renderInParallel(filter, baseFrameCount, totalFrames);
+            } else {
+                renderOnEDT(filter, baseFrameCount, totalFrames);
+            }
+            if (!isCancelled()) {
+                // wait here for the frames that are still being written,
+                // because the writer is finished on the EDT
+                animationWriter.flush();
+            }
+        } catch (Exception e) {
+            hasError = true;
+            Messages.showExceptionOnEDT(e);
+        }
+        setProgress(100);
+        return null;
+    }
+
+    private void renderOnEDT(ParametrizedFilter filter, int baseFrameCount, int totalFrames) throws IOException {
+        for (int frameIndex = 0; frameIndex < totalFrames; frameIndex++) {
+            if (isCancelled()) {
+                break;
+            }
+            setProgress((int) ((100.0 * frameIndex) / totalFrames));
+
+            double interpolationTime = calcInterpolationTime(frameIndex, baseFrameCount);
+            BufferedImage image = renderSingleFrame(filter, interpolationTime);
+            animationWriter.addFrame(image);
+        }
+    }
+
+    private void renderInParallel(ParametrizedFilter filter, int baseFrameCount, int totalFrames)
+        throws IOException, InterruptedException, ExecutionException {
+        BlockingQueue<ParametrizedFilter> filterCopies = new LinkedBlockingQueue<>();
+        for (int i = 0; i < NUM_FRAME_THREADS; i++) {
+            filterCopies.add((ParametrizedFilter) filter.copy());
+        }
+
+        // The forward frames can be reused in the reverse phase of a
+        // ping-pong animation. They are softly referenced through their
+        // futures, so that the not yet finished ones can also be reused.
+        @SuppressWarnings("unchecked")
+        SoftReference<Future<BufferedImage>>[] forwardFrames = new SoftReference[baseFrameCount];
+
+        // the frames are submitted in order and finish in any order, but this
+        // queue of futures returns them in order (the reorder buffer)
+        Queue<Future<BufferedImage>> pendingFrames = new ArrayDeque<>();
+        ExecutorService frameRenderer = Executors.newFixedThreadPool(NUM_FRAME_THREADS, r -> {
+            Thread thread = new Thread(r, "Tween Frame Renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int numSubmitted = 0;
+        try {
             for (int frameIndex = 0; frameIndex < totalFrames; frameIndex++) {
                 if (isCancelled()) {
                     break;
                 }
                 setProgress((int) ((100.0 * frameIndex) / totalFrames));
 
-                double interpolationTime = calcInterpolationTime(frameIndex, baseFrameCount);
-                BufferedImage image = renderSingleFrame(filter, interpolationTime);
-                animationWriter.addFrame(image);
+                while (numSubmitted < totalFrames && numSubmitted < frameIndex + MAX_FRAMES_IN_FLIGHT) {
+                    pendingFrames.add(submitFrame(numSubmitted, baseFrameCount,
+                        forwardFrames, filterCopies, frameRenderer));
+                    numSubmitted++;
+                }
+
+                BufferedImage filteredImage = pendingFrames.remove().get();
+                animationWriter.addFrame(showFilteredFrame(filteredImage, filter.getName()));
             }
-        } catch (Exception e) {
-            hasError = true;
-            Messages.showExceptionOnEDT(e);
+        } finally {
+            // after a cancellation or error, the unneeded frames are skipped
+            for (Future<BufferedImage> frame : pendingFrames) {
+                frame.cancel(false);
+            }
+            frameRenderer.shutdown();
         }
-        setProgress(100);
-        return null;
+    }
+
+    private Future<BufferedImage> submitFrame(int frameIndex, int baseFrameCount,
+                                              SoftReference<Future<BufferedImage>>[] forwardFrames,
+                                              BlockingQueue<ParametrizedFilter> filterCopies,
+                                              ExecutorService frameRenderer) {
+        int timeIndex = calcTimeIndex(frameIndex, baseFrameCount);
+        if (frameIndex >= baseFrameCount) { // reverse phase
+            Future<BufferedImage> forwardFrame = forwardFrames[timeIndex].get();
+            if (forwardFrame != null) {
+                return forwardFrame;
+            }
+        }
+
+        FilterState state = animation.interpolateState(calcInterpolationTime(frameIndex, baseFrameCount));
+        Future<BufferedImage> frame = frameRenderer.submit(() -> {
+            // each frame thread finds an unused copy
+            ParametrizedFilter filterCopy = filterCopies.take();
+            try {
+                filterCopy.getParamSet().setState(state, true);
+                // the execution counter is only updated on the EDT
+                return filterCopy.transformImageUncounted(srcImage);
+            } finally {
+                filterCopies.add(filterCopy);
+            }
+        });
+        if (frameIndex < baseFrameCount) {
+            forwardFrames[timeIndex] = new SoftReference<>(frame);
+        }
+        return frame;
+    }
+
+    // shows the already filtered image as the preview of the drawable,
+    // and returns the composite image of the resulting animation frame
+    private BufferedImage showFilteredFrame(BufferedImage filteredImage, String filterName) {
+        GUIUtils.invokeAndWait(() ->
+            drawable.changePreviewImage(filteredImage, filterName, TWEEN_PREVIEW));
+
+        Composition comp = drawable.getComp();
+        comp.repaint();
+        return comp.getCompositeImage();
     }
 
     // invoked exactly once on the EDT
@@ -134,25 +263,22 @@ class RenderTweenFramesTask extends SwingWorker<Void, Void> {
 
         // time moves from 0.0 to 1.0 inclusive over baseFrameCount frames
         double timeStep = 1.0 / (baseFrameCount - 1);
+        return calcTimeIndex(frameIndex, baseFrameCount) * timeStep;
+    }
 
+    // returns the index of the forward frame that shows the same time
+    private static int calcTimeIndex(int frameIndex, int baseFrameCount) {
         if (frameIndex < baseFrameCount) {
             // forward animation phase
-            return frameIndex * timeStep;
+            return frameIndex;
         } else {
             // reverse animation phase (pong)
-
-            // Here the same frames are calculated again.
-            // They could be cached in an array of soft references
-            // or in the case of the file sequence output,
-            // the output files could be copied.
-            // However, "ping-pong" animations are probably uncommon.
-            int reverseIndex = 2 * (baseFrameCount - 1) - frameIndex;
-            return reverseIndex * timeStep;
+            return 2 * (baseFrameCount - 1) - frameIndex;
         }
     }
 
     private BufferedImage renderSingleFrame(ParametrizedFilter filter, double time) {
-        long executionsBefore = Filter.executionCount;
+        long executionsBefore = Filter.getExecutionCount();
 
         // filters must run on the EDT
         GUIUtils.invokeAndWait(() -> {
@@ -161,7 +287,7 @@ class RenderTweenFramesTask extends SwingWorker<Void, Void> {
             drawable.startFilter(filter, TWEEN_PREVIEW);
         });
 
-        assert Filter.executionCount == executionsBefore + 1;
+        assert Filter.getExecutionCount() == executionsBefore + 1;
 
         Composition comp = drawable.getComp();
         comp.repaint();
@@ -43,6 +43,8 @@ public class TweenAnimation {
     private int millisBetweenFrames;
     private TimeInterpolation interpolation;
     private boolean pingPong;
+    private boolean fastCompression;
+    private boolean frameDifferencing;
 
     private TweenOutputType outputType;
     private File outputLocation; // file or directory
@@ -72,7 +74,8 @@ public class TweenAnimation {
     }
 
     public AnimationWriter createWriter() {
-        return outputType.createWriter(outputLocation, millisBetweenFrames);
+        return outputType.createWriter(outputLocation, millisBetweenFrames,
+            fastCompression, frameDifferencing);
     }
 
     public void setInterpolation(TimeInterpolation interpolation) {
@@ -107,6 +110,14 @@ public class TweenAnimation {
         return pingPong;
     }
 
+    public void setFastCompression(boolean fastCompression) {
+        this.fastCompression = fastCompression;
+    }
+
+    public void setFrameDifferencing(boolean frameDifferencing) {
+        this.frameDifferencing = frameDifferencing;
+    }
+
     /**
      * Warns the user about overwriting existing files and returns whether to proceed.
      */
@@ -47,6 +47,8 @@ public class TweenOutputSettingsPanel extends JPanel implements Validated {
     private JComboBox<TimeInterpolation> ipCB;
     private JComboBox<TweenOutputType> outputTypeCB;
     private final JCheckBox pingPongCB = new JCheckBox();
+    private final JCheckBox fastCompressionCB = new JCheckBox();
+    private final JCheckBox frameDifferencingCB = new JCheckBox("", true);
     private final BrowseFilesSupport browseSupport = new BrowseFilesSupport(
         RecentDirs.getLastSavePath());
     private JTextField fileNameTF;
@@ -70,6 +72,8 @@ public class TweenOutputSettingsPanel extends JPanel implements Validated {
         addAnimationLengthSelectors(gbh);
         addInterpolationSelector(gbh);
         addPingPongSelector(gbh);
+        addFastCompressionSelector(gbh);
+        addFrameDifferencingSelector(gbh);
         addFileSelector(gbh);
     }
 
@@ -111,6 +115,16 @@ public class TweenOutputSettingsPanel extends JPanel implements Validated {
         pingPongCB.addActionListener(_ -> updateCalculations());
     }
 
+    private void addFastCompressionSelector(GridBagHelper gbh) {
+        fastCompressionCB.setToolTipText("Writes the PNG files faster, but they will be slightly bigger");
+        gbh.addLabelAndControl("Fast PNG Compression:", fastCompressionCB);
+    }
+
+    private void addFrameDifferencingSelector(GridBagHelper gbh) {
+        frameDifferencingCB.setToolTipText("Writes only the changed pixels of each GIF frame, which makes the file smaller");
+        gbh.addLabelAndControl("GIF Frame Differencing:", frameDifferencingCB);
+    }
+
     private void addFileSelector(GridBagHelper gbh) {
         JPanel filePanel = new JPanel(new FlowLayout());
         filePanel.setBorder(createTitledBorder("Output File/Folder"));
@@ -122,6 +136,8 @@ public class TweenOutputSettingsPanel extends JPanel implements Validated {
 
     private void outputTypeChanged() {
         TweenOutputType outputType = getOutputType();
+        fastCompressionCB.setEnabled(outputType == TweenOutputType.PNG_FILE_SEQUENCE);
+        frameDifferencingCB.setEnabled(outputType == TweenOutputType.ANIM_GIF);
         if (outputType.needsDirectory()) {
             browseSupport.setSelectionMode(DIRECTORY);
             browseSupport.setChooserDialogTitle("Select Output Folder");
@@ -176,6 +192,9 @@ public class TweenOutputSettingsPanel extends JPanel implements Validated {
         animation.setMillisBetweenFrames((int) (1000.0 / fps));
         animation.setInterpolation((TimeInterpolation) ipCB.getSelectedItem());
         animation.setPingPong(pingPongCB.isSelected());
+        animation.setFastCompression(fastCompressionCB.isSelected()
+            && getOutputType() == TweenOutputType.PNG_FILE_SEQUENCE);
+        animation.setFrameDifferencing(frameDifferencingCB.isSelected());
 
         File outputLocation = browseSupport.getSelectedFile();
         animation.setOutputLocation(outputLocation);
@@ -30,8 +30,9 @@ import java.nio.file.Files;
 public enum TweenOutputType {
     PNG_FILE_SEQUENCE("PNG File Sequence", true) {
         @Override
-        AnimationWriter createWriter(File outputDir, int delayMillis) {
-            return new PNGFileSequenceWriter(outputDir);
+        AnimationWriter createWriter(File outputDir, int delayMillis,
+                                     boolean fastCompression, boolean frameDifferencing) {
+            return new PNGFileSequenceWriter(outputDir, fastCompression);
         }
 
         @Override
@@ -45,8 +46,9 @@ public enum TweenOutputType {
         }
     }, ANIM_GIF("Animated GIF File", false) {
         @Override
-        AnimationWriter createWriter(File file, int delayMillis) {
-            return new AnimGIFWriter(file, delayMillis);
+        AnimationWriter createWriter(File file, int delayMillis,
+                                     boolean fastCompression, boolean frameDifferencing) {
+            return new AnimGIFWriter(file, delayMillis, frameDifferencing);
         }
 
         @Override
@@ -74,8 +76,11 @@ public enum TweenOutputType {
 
     /**
      * Creates an appropriate {@link AnimationWriter} for this output type.
+     * The fast compression setting is only used by the PNG output,
+     * and the frame differencing setting only by the GIF output.
      */
-    abstract AnimationWriter createWriter(File file, int delayMillis);
+    abstract AnimationWriter createWriter(File file, int delayMillis,
+                                          boolean fastCompression, boolean frameDifferencing);
 
     /**
      * Validates that the given output location (file or directory)
@@ -17,15 +17,16 @@
 
 package pixelitor.filters.curves;
 
-import com.jhlabs.image.Curve;
 import com.jhlabs.image.ImageMath;
-import com.jhlabs.image.PointFilter;
 import pixelitor.colors.ColorSpaces;
+import pixelitor.filters.lookup.Lut3DFilter;
+
+import java.util.Arrays;
 
 /**
  * A PointFilter that applies curves in the Oklab color space.
  */
-public class OklabCurvesFilter extends PointFilter {
+public class OklabCurvesFilter extends Lut3DFilter {
     /**
      * Domain for the 'a' and 'b' channels of Oklab that comfortably covers the sRGB gamut.
      */
@@ -37,15 +38,32 @@ public class OklabCurvesFilter extends PointFilter {
     private final int[] aTable;
     private final int[] bTable;
 
-    public OklabCurvesFilter(Curve lCurve, Curve aCurve, Curve bCurve) {
+    /**
+     * Creates the filter from the lookup tables of the L, a and b curves.
+     */
+    public OklabCurvesFilter(int[] lTable, int[] aTable, int[] bTable) {
         super("Oklab Curves");
-        this.lTable = lCurve.makeTable();
-        this.aTable = aCurve.makeTable();
-        this.bTable = bCurve.makeTable();
+        this.lTable = lTable;
+        this.aTable = aTable;
+        this.bTable = bTable;
+    }
+
+    /**
+     * Returns true if this filter was created from the given curve tables.
+     */
+    public boolean hasTables(int[] lTable, int[] aTable, int[] bTable) {
+        return Arrays.equals(this.lTable, lTable)
+            && Arrays.equals(this.aTable, aTable)
+            && Arrays.equals(this.bTable, bTable);
+    }
+
+    @Override
+    protected int withAlpha(int rgb, int newRgb) {
+        return 0xFF_00_00_00 | newRgb;
     }
 
     @Override
-    public int processPixel(int x, int y, int rgb) {
+    protected int calcColor(int rgb) {
         // 1. convert sRGB (int) to Oklab (float[])
         float[] oklab = ColorSpaces.srgbToOklab(rgb);
         float l = oklab[0];
@@ -18,6 +18,8 @@
 package pixelitor.filters.curves;
 
 import com.jhlabs.image.CurvesFilter;
+import com.jhlabs.image.PointFilter;
+import pixelitor.filters.PointAdjustment;
 import pixelitor.filters.gui.FilterWithGUI;
 import pixelitor.filters.gui.Help;
 import pixelitor.filters.gui.UserPreset;
@@ -27,6 +29,7 @@ import pixelitor.layers.Filterable;
 
 import java.awt.image.BufferedImage;
 import java.io.Serial;
+import java.util.function.IntUnaryOperator;
 
 import static pixelitor.utils.Texts.i18n;
 
@@ -35,13 +38,16 @@ import static pixelitor.utils.Texts.i18n;
  *
  * @author Łukasz Kurzaj lukaszkurzaj@gmail.com
  */
-public class ToneCurvesFilter extends FilterWithGUI {
+public class ToneCurvesFilter extends FilterWithGUI implements PointAdjustment {
     public static final String NAME = i18n("curves");
 
     @Serial
     private static final long serialVersionUID = 3679501445608294764L;
 
     private CurvesFilter filter; // the underlying JHLabs filter for sRGB
+
+    // reused while the Oklab curves don't change, because its lookup table is expensive
+    private transient OklabCurvesFilter oklabFilter;
     private final ToneCurves curves;  // the data model for the tone curves
 
     // reference to the last-used GUI instance for this filter
@@ -66,13 +72,22 @@ public class ToneCurvesFilter extends FilterWithGUI {
 
     @Override
     public BufferedImage transform(BufferedImage src, BufferedImage dest) {
+        return createPointFilter().filter(src, dest);
+    }
+
+    @Override
+    public IntUnaryOperator createPixelFunction(BufferedImage image) {
+        return PointAdjustment.toPixelFunction(createPointFilter(), image);
+    }
+
+    private PointFilter createPointFilter() {
         return switch (curves.getColorSpace()) {
-            case SRGB -> transformSrgb(src, dest);
-            case OKLAB -> transformOklab(src, dest);
+            case SRGB -> createSrgbFilter();
+            case OKLAB -> createOklabFilter();
         };
     }
 
-    private BufferedImage transformSrgb(BufferedImage src, BufferedImage dest) {
+    private PointFilter createSrgbFilter() {
         if (filter == null) {
             filter = new CurvesFilter(NAME);
         }
@@ -84,16 +99,18 @@ public class ToneCurvesFilter extends FilterWithGUI {
             curves.getCurve(ColorSpace.SRGB, Channel.BLUE).curveData
         );
 
-        return filter.filter(src, dest);
+        return filter;
     }
 
-    private BufferedImage transformOklab(BufferedImage src, BufferedImage dest) {
-        OklabCurvesFilter oklabFilter = new OklabCurvesFilter(
-            curves.getCurve(ColorSpace.OKLAB, Channel.OK_L).curveData,
-            curves.getCurve(ColorSpace.OKLAB, Channel.OK_A).curveData,
-            curves.getCurve(ColorSpace.OKLAB, Channel.OK_B).curveData
-        );
-        return oklabFilter.filter(src, dest);
+    private PointFilter createOklabFilter() {
+        int[] lTable = curves.getCurve(ColorSpace.OKLAB, Channel.OK_L).curveData.makeTable();
+        int[] aTable = curves.getCurve(ColorSpace.OKLAB, Channel.OK_A).curveData.makeTable();
+        int[] bTable = curves.getCurve(ColorSpace.OKLAB, Channel.OK_B).curveData.makeTable();
+
+        if (oklabFilter == null || !oklabFilter.hasTables(lTable, aTable, bTable)) {
+            oklabFilter = new OklabCurvesFilter(lTable, aTable, bTable);
+        }
+        return oklabFilter;
     }
 
     @Override
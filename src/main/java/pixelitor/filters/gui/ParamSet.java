@@ -158,12 +158,12 @@ public class ParamSet implements Debuggable {
      * Randomizes the values of all parameters without triggering a filter preview update.
      */
     public void randomize() {
-        long executionsBefore = Filter.executionCount;
+        long executionsBefore = Filter.getExecutionCount();
 
         params.forEach(FilterParam::randomize);
 
         // check that the filter wasn't triggered
-        assert Filter.executionCount == executionsBefore : "executionsBefore = " + executionsBefore + ", executionsAfter = " + Filter.executionCount;
+        assert Filter.getExecutionCount() == executionsBefore : "executionsBefore = " + executionsBefore + ", executionsAfter = " + Filter.getExecutionCount();
     }
 
     /**
@@ -284,7 +284,7 @@ public class ParamSet implements Debuggable {
      * and executes the filter with the new parameters.
      */
     public void loadUserPreset(UserPreset preset) {
-        long executionsBefore = Filter.executionCount;
+        long executionsBefore = Filter.getExecutionCount();
 
         for (FilterParam param : params) {
             param.loadStateFrom(preset);
@@ -298,8 +298,8 @@ public class ParamSet implements Debuggable {
         }
 
         // check that the loading didn't trigger the filter
-        assert Filter.executionCount == executionsBefore :
-            "before = " + executionsBefore + ", after = " + Filter.executionCount;
+        assert Filter.getExecutionCount() == executionsBefore :
+            "before = " + executionsBefore + ", after = " + Filter.getExecutionCount();
 
         runFilter();
     }
@@ -19,10 +19,14 @@ package pixelitor.filters.impl;
 
 import com.jhlabs.image.PointFilter;
 import net.jafama.FastMath;
+import pixelitor.utils.ImageUtils;
 
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 
+import static java.awt.image.BufferedImage.TYPE_BYTE_GRAY;
+
 /**
  * A common superclass for the Mandelbrot and Julia fractal implementations.
  */
@@ -115,7 +119,30 @@ public abstract class ComplexFractalFilter extends PointFilter {
         xStart = adjustStart(zoomedMinX, zoomedMaxX, xMin, xMax);
         yStart = adjustStart(zoomedMinY, zoomedMaxY, yMin, yMax);
 
-        return super.filter(src, dst);
+        if (!canSubdivide() || src.getType() == TYPE_BYTE_GRAY) {
+            return super.filter(src, dst);
+        }
+        return renderSubdivided(src, dst);
+    }
+
+    private BufferedImage renderSubdivided(BufferedImage src, BufferedImage dst) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        if (dst == null) {
+            dst = createCompatibleDestImage(src, null);
+        }
+
+        pt = createProgressTracker(MarianiSilverRenderer.countWorkUnits(height));
+        Point2D setPoint = getPointInSet();
+        int[] iterations = MarianiSilverRenderer.render(width, height, this::calcIterations,
+            setPoint.getX(), setPoint.getY(), pt);
+        finishProgressTracker();
+
+        int[] outPixels = ImageUtils.getPixels(dst);
+        for (int i = 0; i < outPixels.length; i++) {
+            outPixels[i] = colors[iterations[i]];
+        }
+        return dst;
     }
 
     /**
@@ -134,12 +161,42 @@ public abstract class ComplexFractalFilter extends PointFilter {
         return zoomedMin;
     }
 
+    @Override
+    public int processPixel(int x, int y, int rgb) {
+        return colors[calcIterations(x, y)];
+    }
+
     /**
-     * Calculates the color for a point based on its escape time.
+     * Returns the escape-time result of the given pixel, in the format
+     * of {@link IterationStrategy#iterate}, which is also the color index.
      */
-    protected int calcIteratedColor(double zx, double zy, double cx, double cy) {
-        int it = iterator.iterate(zx, zy, cx, cy, maxIterations);
-        return colors[it];
+    protected abstract int calcIterations(int x, int y);
+
+    /**
+     * Whether the image can be rendered with the {@link MarianiSilverRenderer},
+     * which fills the rectangles that have a uniform border.
+     */
+    protected boolean canSubdivide() {
+        return false;
+    }
+
+    /**
+     * Returns the image coordinates of a point in the set, which can be
+     * outside the image. Only called if {@link #canSubdivide()} returns true.
+     */
+    protected Point2D getPointInSet() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Iterates the given point until it escapes, and returns the number of remaining iterations.
+     */
+    protected int iterate(double zx, double zy, double cx, double cy) {
+        return iterator.iterate(zx, zy, cx, cy, maxIterations);
+    }
+
+    protected int getMaxIterations() {
+        return maxIterations;
     }
 
     /**
@@ -165,6 +222,15 @@ public abstract class ComplexFractalFilter extends PointFilter {
             return false; // no shortcut by default
         }
 
+        /**
+         * Whether the points of the parameter plane (c) that escape after at
+         * least a given number of iterations form a connected region for each
+         * number, as it's the case for the Mandelbrot and Multibrot sets.
+         */
+        default boolean hasConnectedLevelSets() {
+            return false;
+        }
+
         /**
          * Returns the starting view in the complex plane for this fractal.
          */
@@ -175,6 +241,9 @@ public abstract class ComplexFractalFilter extends PointFilter {
      * Implements the classic Mandelbrot iteration, z = z² + c.
      */
     public static class MandelbrotStrategy implements IterationStrategy {
+        // the first number of iterations after which the orbit is checked for cycles
+        private static final int FIRST_PERIOD_CHECK = 8;
+
         @Override
         public int iterate(double zx, double zy, double cx, double cy, int maxIt) {
             int it = maxIt;
@@ -183,6 +252,16 @@ public abstract class ComplexFractalFilter extends PointFilter {
             // refreshed after every update, so the escape check never inspects a stale z
             double x2 = zx * zx;
             double y2 = zy * zy;
+
+            // Periodicity checking (Brent's method): the orbit is compared to
+            // a saved point, which is replaced after exponentially growing
+            // intervals. If the orbit returns exactly to the saved point,
+            // then it's in a cycle, and it will never escape.
+            double savedX = zx;
+            double savedY = zy;
+            int checkInterval = FIRST_PERIOD_CHECK;
+            int sinceSaved = 0;
+
             while (x2 + y2 <= ESCAPE_RADIUS_SQ && it > 0) {
                 it--;
                 double xy = zx * zy;
@@ -190,6 +269,16 @@ public abstract class ComplexFractalFilter extends PointFilter {
                 zy = xy + xy + cy;
                 x2 = zx * zx;
                 y2 = zy * zy;
+
+                if (zx == savedX && zy == savedY) {
+                    return 0; // in the set
+                }
+                if (++sinceSaved == checkInterval) {
+                    sinceSaved = 0;
+                    checkInterval *= 2;
+                    savedX = zx;
+                    savedY = zy;
+                }
             }
             return it;
         }
@@ -234,6 +323,11 @@ public abstract class ComplexFractalFilter extends PointFilter {
             return false; // point is not in a known region
         }
 
+        @Override
+        public boolean hasConnectedLevelSets() {
+            return true;
+        }
+
         @Override
         public Rectangle2D getComplexView() {
             // corresponds to cxMin=-2.2, cxMax=0.7, cyMin=-1.2, cyMax=1.2
@@ -305,6 +399,11 @@ public abstract class ComplexFractalFilter extends PointFilter {
             return cx * cx + cy * cy < safeRadiusSq;
         }
 
+        @Override
+        public boolean hasConnectedLevelSets() {
+            return true;
+        }
+
         @Override
         public int iterate(double zx, double zy, double cx, double cy, int maxIt) {
             int it = maxIt;
@@ -345,6 +444,11 @@ public abstract class ComplexFractalFilter extends PointFilter {
             return cx * cx + cy * cy < safeRadiusSq;
         }
 
+        @Override
+        public boolean hasConnectedLevelSets() {
+            return true;
+        }
+
         @Override
         public int iterate(double zx, double zy, double cx, double cy, int maxIt) {
             int it = maxIt;
@@ -386,6 +490,11 @@ public abstract class ComplexFractalFilter extends PointFilter {
             return cx * cx + cy * cy < safeRadiusSq;
         }
 
+        @Override
+        public boolean hasConnectedLevelSets() {
+            return true;
+        }
+
         @Override
         public int iterate(double zx, double zy, double cx, double cy, int maxIt) {
             int it = maxIt;
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.filters.impl;
+
+import pixelitor.ThreadPool;
+import pixelitor.progress.ProgressTracker;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+/**
+ * Renders escape-time fractals with the Mariani-Silver algorithm: if
+ * all the pixels on the border of a rectangle have the same iteration
+ * count, then the rectangle is filled without iterating its inner pixels.
+ * Otherwise, the rectangle is split, and its parts are processed recursively.
+ * <p>
+ * This is only suitable for sets whose escape-time level sets are
+ * connected (such as the Mandelbrot set), and whose every band of
+ * escape times surrounds the slower escaping bands and the set itself
+ * (which isn't true if the plane is inverted). Then a uniform border
+ * can only hide the slower bands if it encloses all of them, together
+ * with the set. Therefore, the rectangles that contain a given point
+ * of the set are always split. Nothing else inside a uniform border can
+ * differ from the border, except for filaments thinner than the pixel
+ * grid. The image is split into tiles, which are rendered in parallel.
+ */
+public class MarianiSilverRenderer {
+    // the size of the independently rendered tiles
+    private static final int TILE_SIZE = 64;
+
+    // rectangles smaller than this are iterated pixel by pixel
+    private static final int MIN_RECT_SIZE = 6;
+
+    // marks the pixels whose iteration count isn't known yet
+    private static final int UNKNOWN = -1;
+
+    /**
+     * Calculates the iteration count of a pixel. It's called concurrently.
+     */
+    @FunctionalInterface
+    public interface PixelIterations {
+        int calc(int x, int y);
+    }
+
+    private final int width;
+    private final int height;
+    private final PixelIterations function;
+    private final int[] iterations;
+
+    // the image coordinates of a point in the set, which can be outside the image
+    private final double setX;
+    private final double setY;
+
+    private MarianiSilverRenderer(int width, int height, PixelIterations function,
+                                  double setX, double setY) {
+        this.width = width;
+        this.height = height;
+        this.function = function;
+        this.setX = setX;
+        this.setY = setY;
+        iterations = new int[width * height];
+        Arrays.fill(iterations, UNKNOWN);
+    }
+
+    /**
+     * Returns the iteration counts of all the pixels of an image with the given size.
+     * The given image coordinates (setX, setY) must be a point of the set,
+     * but they don't have to be inside the image.
+     * The progress tracker receives one work unit for each row of tiles.
+     */
+    public static int[] render(int width, int height, PixelIterations function,
+                               double setX, double setY, ProgressTracker pt) {
+        var renderer = new MarianiSilverRenderer(width, height, function, setX, setY);
+        renderer.renderTiles(pt);
+        return renderer.iterations;
+    }
+
+    /**
+     * Returns the number of work units that the rendering
+     * of an image with the given height reports.
+     */
+    public static int countWorkUnits(int height) {
+        return (height + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    private void renderTiles(ProgressTracker pt) {
+        int numTileRows = countWorkUnits(height);
+        Future<?>[] futures = new Future<?>[numTileRows];
+        for (int i = 0; i < numTileRows; i++) {
+            int y0 = i * TILE_SIZE;
+            int y1 = Math.min(y0 + TILE_SIZE, height) - 1;
+            futures[i] = ThreadPool.submit(() -> {
+                // the tiles don't share pixels, so they don't have to be synchronized
+                for (int x0 = 0; x0 < width; x0 += TILE_SIZE) {
+                    int x1 = Math.min(x0 + TILE_SIZE, width) - 1;
+                    renderRect(x0, y0, x1, y1);
+                }
+            });
+        }
+        ThreadPool.waitFor(futures, pt);
+    }
+
+    /**
+     * Renders the rectangle with the given corners (inclusive).
+     */
+    private void renderRect(int x0, int y0, int x1, int y1) {
+        if (x1 - x0 < MIN_RECT_SIZE || y1 - y0 < MIN_RECT_SIZE) {
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    get(x, y);
+                }
+            }
+            return;
+        }
+
+        if (!containsSetPoint(x0, y0, x1, y1) && hasUniformBorder(x0, y0, x1, y1)) {
+            int value = get(x0, y0);
+            for (int y = y0 + 1; y < y1; y++) {
+                int rowOffset = y * width;
+                Arrays.fill(iterations, rowOffset + x0 + 1, rowOffset + x1, value);
+            }
+            return;
+        }
+
+        // split along the longer side, the middle line is shared
+        if (x1 - x0 >= y1 - y0) {
+            int xm = (x0 + x1) / 2;
+            renderRect(x0, y0, xm, y1);
+            renderRect(xm, y0, x1, y1);
+        } else {
+            int ym = (y0 + y1) / 2;
+            renderRect(x0, y0, x1, ym);
+            renderRect(x0, ym, x1, y1);
+        }
+    }
+
+    // the margin of one pixel allows for the rounding to pixels
+    private boolean containsSetPoint(int x0, int y0, int x1, int y1) {
+        return setX >= x0 - 1 && setX <= x1 + 1
+            && setY >= y0 - 1 && setY <= y1 + 1;
+    }
+
+    private boolean hasUniformBorder(int x0, int y0, int x1, int y1) {
+        // all the border pixels are calculated even if a difference
+        // is found, because they are reused by the split rectangles
+        int value = get(x0, y0);
+        boolean uniform = true;
+        for (int x = x0; x <= x1; x++) {
+            uniform &= get(x, y0) == value;
+            uniform &= get(x, y1) == value;
+        }
+        for (int y = y0 + 1; y < y1; y++) {
+            uniform &= get(x0, y) == value;
+            uniform &= get(x1, y) == value;
+        }
+        return uniform;
+    }
+
+    private int get(int x, int y) {
+        int index = y * width + x;
+        int value = iterations[index];
+        if (value == UNKNOWN) {
+            value = function.calc(x, y);
+            iterations[index] = value;
+        }
+        return value;
+    }
+}
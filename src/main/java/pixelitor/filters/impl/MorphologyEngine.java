@@ -0,0 +1,315 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.filters.impl;
+
+import pixelitor.ThreadPool;
+import pixelitor.progress.ProgressTracker;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+import static pixelitor.filters.impl.MorphologyFilter.KERNEL_DIAMOND;
+import static pixelitor.filters.impl.MorphologyFilter.KERNEL_DISK;
+import static pixelitor.filters.impl.MorphologyFilter.KERNEL_SQUARE;
+
+/**
+ * Erosion and dilation (minimum and maximum filters) with a cost per
+ * pixel that doesn't depend on the radius of the structuring element.
+ * <p>
+ * The structuring elements are decomposed into line segments, and
+ * the minimum or maximum along each line is calculated with the
+ * van Herk/Gil-Werman algorithm, using three comparisons per pixel
+ * for any segment length. The lines are processed in parallel.
+ * <p>
+ * The values can be packed ARGB pixels, whose channels are processed
+ * independently, or single non-negative ints (for example the values of
+ * a grayscale mask, or the bits of non-negative floats), which are
+ * compared as a whole. Only the pixels inside the image are considered.
+ */
+public final class MorphologyEngine {
+    private MorphologyEngine() {
+        // only static methods, should not be instantiated
+    }
+
+    /**
+     * Returns the number of passes over the image, which
+     * is the number of work units reported to the progress tracker.
+     */
+    public static int countPasses(int kernel, int radius) {
+        if (radius <= 0) {
+            return 0;
+        }
+        return switch (kernel) {
+            case KERNEL_SQUARE -> 2;
+            case KERNEL_DIAMOND -> countDiamondPasses(radius);
+            case KERNEL_DISK -> {
+                int diamondRadius = calcDiskDiamondRadius(radius);
+                int squareRadius = radius - diamondRadius;
+                yield (squareRadius > 0 ? 2 : 0) + countDiamondPasses(diamondRadius);
+            }
+            default -> throw new IllegalArgumentException("kernel = " + kernel);
+        };
+    }
+
+    /**
+     * Replaces each value with the minimum (erode) or maximum (dilate) of the
+     * values in the structuring element around it. The values are modified in place.
+     *
+     * @param kernel one of the kernel constants in {@link MorphologyFilter}
+     * @param radius the radius of the structuring element, where one
+     *               corresponds to a 3x3 neighborhood
+     * @param packed whether the values are packed ARGB pixels
+     */
+    public static void apply(int[] values, int width, int height,
+                             boolean dilate, int kernel, int radius,
+                             boolean packed, ProgressTracker pt) {
+        if (radius <= 0) {
+            return;
+        }
+        var op = new Op(dilate, packed);
+
+        if (kernel == KERNEL_SQUARE) {
+            // the rectangles are separable even at the image edges
+            new Grid(values, width, height, op).square(radius, pt);
+            return;
+        }
+
+        // The diagonal lines and the combined elements need values
+        // outside the image for the intermediate results, so the passes
+        // run on an image that is padded with neutral values.
+        int pad = radius;
+        int paddedWidth = width + 2 * pad;
+        int paddedHeight = height + 2 * pad;
+        int[] padded = new int[paddedWidth * paddedHeight];
+        Arrays.fill(padded, op.neutral);
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(values, y * width, padded, (y + pad) * paddedWidth + pad, width);
+        }
+
+        var grid = new Grid(padded, paddedWidth, paddedHeight, op);
+        if (kernel == KERNEL_DIAMOND) {
+            grid.diamond(radius, pt);
+        } else if (kernel == KERNEL_DISK) {
+            int diamondRadius = calcDiskDiamondRadius(radius);
+            grid.square(radius - diamondRadius, pt);
+            grid.diamond(diamondRadius, pt);
+        } else {
+            throw new IllegalArgumentException("kernel = " + kernel);
+        }
+
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(padded, (y + pad) * paddedWidth + pad, values, y * width, width);
+        }
+    }
+
+    private static int countDiamondPasses(int radius) {
+        if (radius <= 0) {
+            return 0;
+        }
+        int numCrossPasses = 2 - radius % 2;
+        return (radius > numCrossPasses ? 2 : 0) + numCrossPasses;
+    }
+
+    // A disk is approximated by an octagon, which is the combination of
+    // a square and a diamond. The octagon is nearly regular if the
+    // diamond's radius is 2 - sqrt(2) times the total radius.
+    private static int calcDiskDiamondRadius(int radius) {
+        return (int) Math.round(radius * (2 - Math.sqrt(2)));
+    }
+
+    /**
+     * The comparison used for combining two values.
+     */
+    private static final class Op {
+        final boolean dilate;
+        final boolean packed;
+
+        // the value that doesn't change the result (used outside the image)
+        final int neutral;
+
+        Op(boolean dilate, boolean packed) {
+            this.dilate = dilate;
+            this.packed = packed;
+            if (dilate) {
+                neutral = 0;
+            } else {
+                neutral = packed ? 0xFF_FF_FF_FF : Integer.MAX_VALUE;
+            }
+        }
+
+        int combine(int a, int b) {
+            if (!packed) {
+                return dilate ? Math.max(a, b) : Math.min(a, b);
+            }
+            if (a == b) {
+                return a;
+            }
+            if (dilate) {
+                return Math.max(a >>> 24, b >>> 24) << 24
+                    | Math.max((a >>> 16) & 0xFF, (b >>> 16) & 0xFF) << 16
+                    | Math.max((a >>> 8) & 0xFF, (b >>> 8) & 0xFF) << 8
+                    | Math.max(a & 0xFF, b & 0xFF);
+            }
+            return Math.min(a >>> 24, b >>> 24) << 24
+                | Math.min((a >>> 16) & 0xFF, (b >>> 16) & 0xFF) << 16
+                | Math.min((a >>> 8) & 0xFF, (b >>> 8) & 0xFF) << 8
+                | Math.min(a & 0xFF, b & 0xFF);
+        }
+    }
+
+    /**
+     * The values of an image with the passes that can be run on them.
+     */
+    private static final class Grid {
+        private final int[] values;
+        private final int width;
+        private final int height;
+        private final Op op;
+
+        Grid(int[] values, int width, int height, Op op) {
+            this.values = values;
+            this.width = width;
+            this.height = height;
+            this.op = op;
+        }
+
+        void square(int radius, ProgressTracker pt) {
+            if (radius <= 0) {
+                return;
+            }
+            // the rows
+            linePass(height, width, radius, i -> i * width, 1, i -> width, pt);
+            // the columns
+            linePass(width, height, radius, i -> i, width, i -> height, pt);
+        }
+
+        /**
+         * A diamond with an odd radius 2m+1 is a sparse diamond (the points
+         * with even coordinate sums, the combination of two diagonal
+         * segments with the radius m) combined with a cross. With an even
+         * radius, one more cross is needed.
+         */
+        void diamond(int radius, ProgressTracker pt) {
+            if (radius <= 0) {
+                return;
+            }
+            int numCrossPasses = 2 - radius % 2;
+            int diagonalRadius = (radius - numCrossPasses) / 2;
+            if (diagonalRadius > 0) {
+                int numDiagonals = width + height - 1;
+
+                // the diagonals going down to the right, starting on the
+                // left edge (from the bottom) and then on the top edge
+                linePass(numDiagonals, Math.min(width, height), diagonalRadius,
+                    i -> i < height ? (height - 1 - i) * width : i - height + 1,
+                    width + 1,
+                    i -> i < height ? Math.min(i + 1, width) : Math.min(width - (i - height + 1), height),
+                    pt);
+
+                // the diagonals going down to the left, starting on
+                // the top edge and then on the right edge
+                linePass(numDiagonals, Math.min(width, height), diagonalRadius,
+                    i -> i < width ? i : (i - width + 1) * width + width - 1,
+                    width - 1,
+                    i -> i < width ? Math.min(i + 1, height) : Math.min(height - (i - width + 1), width),
+                    pt);
+            }
+            for (int i = 0; i < numCrossPasses; i++) {
+                crossPass(pt);
+            }
+        }
+
+        /**
+         * Runs the van Herk/Gil-Werman algorithm on each of the given lines.
+         * The lines are given by their start index, step and length.
+         */
+        private void linePass(int numLines, int maxLength, int radius,
+                              IntUnaryOperator lineStart, int step,
+                              IntUnaryOperator lineLength,
+                              ProgressTracker pt) {
+            int windowSize = 2 * radius + 1;
+
+            // the line with the padding on both sides, rounded up to full windows
+            int maxPaddedLength = (maxLength + 2 * radius + windowSize - 1) / windowSize * windowSize;
+
+            ThreadPool.processBands(numLines, (startLine, endLine) -> {
+                int[] line = new int[maxPaddedLength];
+                int[] prefix = new int[maxPaddedLength];
+                int[] suffix = new int[maxPaddedLength];
+
+                for (int i = startLine; i < endLine; i++) {
+                    int start = lineStart.applyAsInt(i);
+                    int length = lineLength.applyAsInt(i);
+                    int paddedLength = (length + 2 * radius + windowSize - 1) / windowSize * windowSize;
+
+                    Arrays.fill(line, 0, radius, op.neutral);
+                    for (int j = 0, index = start; j < length; j++, index += step) {
+                        line[radius + j] = values[index];
+                    }
+                    Arrays.fill(line, radius + length, paddedLength, op.neutral);
+
+                    // the running results from the start and from the end of each block
+                    for (int blockStart = 0; blockStart < paddedLength; blockStart += windowSize) {
+                        int blockEnd = blockStart + windowSize - 1;
+                        prefix[blockStart] = line[blockStart];
+                        for (int j = blockStart + 1; j <= blockEnd; j++) {
+                            prefix[j] = op.combine(prefix[j - 1], line[j]);
+                        }
+                        suffix[blockEnd] = line[blockEnd];
+                        for (int j = blockEnd - 1; j >= blockStart; j--) {
+                            suffix[j] = op.combine(suffix[j + 1], line[j]);
+                        }
+                    }
+
+                    // each window spans at most two blocks
+                    for (int j = 0, index = start; j < length; j++, index += step) {
+                        values[index] = op.combine(suffix[j], prefix[j + windowSize - 1]);
+                    }
+                }
+            });
+            pt.unitDone();
+        }
+
+        // a 3x3 pass with the cross-shaped (diamond) neighborhood
+        private void crossPass(ProgressTracker pt) {
+            int[] src = values.clone();
+            ThreadPool.processBands(height, (startY, endY) -> {
+                for (int y = startY; y < endY; y++) {
+                    int index = y * width;
+                    for (int x = 0; x < width; x++, index++) {
+                        int v = src[index];
+                        if (x > 0) {
+                            v = op.combine(v, src[index - 1]);
+                        }
+                        if (x < width - 1) {
+                            v = op.combine(v, src[index + 1]);
+                        }
+                        if (y > 0) {
+                            v = op.combine(v, src[index - width]);
+                        }
+                        if (y < height - 1) {
+                            v = op.combine(v, src[index + width]);
+                        }
+                        values[index] = v;
+                    }
+                }
+            });
+            pt.unitDone();
+        }
+    }
+}
@@ -24,13 +24,15 @@ import pixelitor.filters.Morphology;
 import java.awt.Color;
 
 import static java.lang.Math.max;
-import static java.lang.Math.min;
 
 /**
  * The implementation of the {@link Morphology} filter.
+ * The erosion and dilation are calculated by the {@link MorphologyEngine}.
  */
 public class MorphologyFilter extends WholeImageFilter {
-    private final int iterations;
+    // the radius of the structuring element, where a radius of
+    // n has the same effect as n iterations of the 3x3 kernel
+    private final int radius;
 
     public static final int OP_ERODE = 1;  // reduces bright areas
     public static final int OP_DILATE = 2; // expands bright areas
@@ -38,6 +40,7 @@ public class MorphologyFilter extends WholeImageFilter {
 
     public static final int KERNEL_DIAMOND = 3; // includes cross-shaped neighboring pixels
     public static final int KERNEL_SQUARE = 4; // includes all 8 surrounding pixels
+    public static final int KERNEL_DISK = 5; // an octagon approximating a circle
     private final int kernel;
 
     // apply erosion or dilation independently to each R, G, B color channel
@@ -48,18 +51,25 @@ public class MorphologyFilter extends WholeImageFilter {
     public static final int CHANNEL_YCBCR = 2;
     private final int channel;
 
-    public MorphologyFilter(String filterName, int kernel, int channel, int iterations) {
+    public MorphologyFilter(String filterName, int kernel, int channel, int radius) {
         super(filterName);
 
         this.kernel = kernel;
         this.channel = channel;
-        this.iterations = iterations;
+        this.radius = radius;
     }
 
     public void setOp(int op) {
         this.op = op;
     }
 
+    /**
+     * Returns the number of progress work units of one erosion or dilation.
+     */
+    public int getWorkUnits() {
+        return MorphologyEngine.countPasses(kernel, radius);
+    }
+
     @Override
     protected int[] filterPixels(int width, int height, int[] inPixels) {
         return switch (channel) {
@@ -70,184 +80,51 @@ public class MorphologyFilter extends WholeImageFilter {
         };
     }
 
-    private int[] filterRgb(int width, int height, int[] inPixels) {
-        // uses one array as the source and the other as the destination
-        // for the first iteration, then swap them so the previous destination
-        // becomes the new source for the second iteration, and so on
-        int[] outPixels = new int[width * height];
-        int[] srcPixels = inPixels;
-        int[] dstPixels = outPixels;
-
-        pt = createProgressTracker(iterations);
-        for (int it = 0; it < iterations; it++) {
-            int index = 0; // the index of the processed pixel
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    // the final alpha, red, green, blue values
-                    int a, r, g, b;
-
-                    if (op == OP_DILATE) {
-                        // initialize with the minimum value for the max operation
-                        a = 0;
-                        r = 0;
-                        g = 0;
-                        b = 0;
-                    } else { // OP_ERODE
-                        // initialize with the maximum value for the min operation
-                        a = 0xFF;
-                        r = 0xFF;
-                        g = 0xFF;
-                        b = 0xFF;
-                    }
-
-                    // examine neighboring pixels
-                    for (int dy = -1; dy <= 1; dy++) {
-                        int ny = y + dy;
-                        if (0 <= ny && ny < height) {
-                            int xOffset = ny * width;
-                            for (int dx = -1; dx <= 1; dx++) {
-                                if (kernel == KERNEL_DIAMOND) {
-                                    // ignore the corner neighbors
-                                    if (dx == dy && dx != 0) {
-                                        continue;
-                                    }
-                                    if (dx == -dy && dx != 0) {
-                                        continue;
-                                    }
-                                }
-
-                                int nx = x + dx;
-                                if (0 <= nx && nx < width) {
-                                    int neighborIndex = xOffset + nx;
-
-                                    // read from the source array for the current iteration
-                                    int neighborRgb = srcPixels[neighborIndex];
-                                    int neighborA = (neighborRgb >> 24) & 0xFF;
-                                    int neighborR = (neighborRgb >> 16) & 0xFF;
-                                    int neighborG = (neighborRgb >> 8) & 0xFF;
-                                    int neighborB = neighborRgb & 0xFF;
-
-                                    if (op == OP_ERODE) {
-                                        a = min(a, neighborA);
-                                        r = min(r, neighborR);
-                                        g = min(g, neighborG);
-                                        b = min(b, neighborB);
-                                    } else { // OP_DILATE
-                                        a = max(a, neighborA);
-                                        r = max(r, neighborR);
-                                        g = max(g, neighborG);
-                                        b = max(b, neighborB);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    // write to the destination array for the current iteration
-                    dstPixels[index++] = a << 24 | r << 16 | g << 8 | b;
-                }
-            }
-            pt.unitDone();
-
-            // swap the source and destination arrays for the next iteration
-            int[] temp = srcPixels;
-            srcPixels = dstPixels;
-            dstPixels = temp;
-        }
+    private void filterValues(int width, int height, int[] values, boolean packed) {
+        pt = createProgressTracker(getWorkUnits());
+        MorphologyEngine.apply(values, width, height,
+            op == OP_DILATE, kernel, radius, packed, pt);
         finishProgressTracker();
+    }
 
-        return srcPixels; // this always contains the final, correct pixel data
+    private int[] filterRgb(int width, int height, int[] inPixels) {
+        // the alpha, red, green, blue channels are processed independently
+        int[] outPixels = inPixels.clone();
+        filterValues(width, height, outPixels, true);
+        return outPixels;
     }
 
     private int[] filterYCbCr(int width, int height, int[] inPixels) {
         int numPixels = width * height;
 
         // convert the whole image to YCbCr, preserving alpha
-        float[] yChannel = new float[numPixels];
+        int[] yChannel = new int[numPixels];
         float[] cbChannel = new float[numPixels];
         float[] crChannel = new float[numPixels];
-        int[] aChannel = new int[numPixels];
 
         for (int i = 0; i < numPixels; i++) {
-            int p = inPixels[i];
-            aChannel[i] = (p >> 24) & 0xFF;
-
-            float[] ycbcr = ColorSpaces.srgbToYCbCr(p);
-            yChannel[i] = ycbcr[0];
+            float[] ycbcr = ColorSpaces.srgbToYCbCr(inPixels[i]);
+            // the bits of non-negative floats have the same order as
+            // the floats, so the luma can be processed as an int
+            yChannel[i] = Float.floatToIntBits(Math.max(0.0f, ycbcr[0]));
             cbChannel[i] = ycbcr[1];
             crChannel[i] = ycbcr[2];
         }
 
         // apply erosion or dilation to the Y channel
-        float[] srcY = yChannel;
-        float[] dstY = new float[numPixels];
-
-        pt = createProgressTracker(iterations);
-        for (int it = 0; it < iterations; it++) {
-            int index = 0;
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    float luma; // the final Y value for this pixel
-
-                    if (op == OP_DILATE) {
-                        luma = 0.0f; // min value for max operation
-                    } else { // OP_ERODE
-                        luma = 255.0f; // max value for min operation
-                    }
-
-                    // examine neighboring pixels
-                    for (int dy = -1; dy <= 1; dy++) {
-                        int ny = y + dy;
-                        if (0 <= ny && ny < height) {
-                            int xOffset = ny * width;
-                            for (int dx = -1; dx <= 1; dx++) {
-                                if (kernel == KERNEL_DIAMOND) {
-                                    if (dx == dy && dx != 0) {
-                                        continue;
-                                    }
-                                    if (dx == -dy && dx != 0) {
-                                        continue;
-                                    }
-                                }
-
-                                int nx = x + dx;
-                                if (0 <= nx && nx < width) {
-                                    int neighborIndex = xOffset + nx;
-                                    float neighborY = srcY[neighborIndex];
-
-                                    if (op == OP_ERODE) {
-                                        luma = min(luma, neighborY);
-                                    } else { // OP_DILATE
-                                        luma = max(luma, neighborY);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    dstY[index++] = luma;
-                }
-            }
-            pt.unitDone();
-
-            // swap source and destination for next iteration
-            float[] temp = srcY;
-            srcY = dstY;
-            dstY = temp;
-        }
-        finishProgressTracker();
-
-        // srcY now holds the final Y channel data.
+        filterValues(width, height, yChannel, false);
 
         // recombine and convert back to RGB
         int[] outPixels = new int[numPixels];
         float[] ycbcr = new float[3];
         for (int i = 0; i < numPixels; i++) {
-            ycbcr[0] = srcY[i]; // use the modified Y value
+            ycbcr[0] = Float.intBitsToFloat(yChannel[i]); // use the modified Y value
             ycbcr[1] = cbChannel[i];
             ycbcr[2] = crChannel[i];
 
             int rgb = ColorSpaces.ycbcrToSrgb(ycbcr); // alpha=0xFF
             // combine with the original alpha
-            outPixels[i] = (aChannel[i] << 24) | (rgb & 0x00FFFFFF);
+            outPixels[i] = (inPixels[i] & 0xFF_00_00_00) | (rgb & 0x00FFFFFF);
         }
 
         return outPixels;
@@ -259,13 +136,11 @@ public class MorphologyFilter extends WholeImageFilter {
         // convert the whole image to HSV, preserving alpha
         float[] hChannel = new float[numPixels];
         float[] sChannel = new float[numPixels];
-        float[] vChannel = new float[numPixels];
-        int[] aChannel = new int[numPixels];
+        int[] vChannel = new int[numPixels];
 
         float[] hsbvals = new float[3];
         for (int i = 0; i < numPixels; i++) {
             int p = inPixels[i];
-            aChannel[i] = (p >> 24) & 0xFF;
             int r = (p >> 16) & 0xFF;
             int g = (p >> 8) & 0xFF;
             int b = p & 0xFF;
@@ -273,79 +148,23 @@ public class MorphologyFilter extends WholeImageFilter {
             Color.RGBtoHSB(r, g, b, hsbvals);
             hChannel[i] = hsbvals[0];
             sChannel[i] = hsbvals[1];
-            vChannel[i] = hsbvals[2];
+            // the value is the largest component, kept here in the 0..255 range
+            vChannel[i] = max(r, max(g, b));
         }
 
         // apply erosion or dilation to the V channel
-        float[] srcV = vChannel;
-        float[] dstV = new float[numPixels];
-
-        pt = createProgressTracker(iterations);
-        for (int it = 0; it < iterations; it++) {
-            int index = 0;
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    float v; // the final V value for this pixel
-
-                    if (op == OP_DILATE) {
-                        v = 0.0f; // min value for max operation
-                    } else { // OP_ERODE
-                        v = 1.0f; // max value for min operation
-                    }
-
-                    // examine neighboring pixels
-                    for (int dy = -1; dy <= 1; dy++) {
-                        int ny = y + dy;
-                        if (0 <= ny && ny < height) {
-                            int xOffset = ny * width;
-                            for (int dx = -1; dx <= 1; dx++) {
-                                if (kernel == KERNEL_DIAMOND) {
-                                    if (dx == dy && dx != 0) {
-                                        continue;
-                                    }
-                                    if (dx == -dy && dx != 0) {
-                                        continue;
-                                    }
-                                }
-
-                                int nx = x + dx;
-                                if (0 <= nx && nx < width) {
-                                    int neighborIndex = xOffset + nx;
-                                    float neighborV = srcV[neighborIndex];
-
-                                    if (op == OP_ERODE) {
-                                        v = min(v, neighborV);
-                                    } else { // OP_DILATE
-                                        v = max(v, neighborV);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    dstV[index++] = v;
-                }
-            }
-            pt.unitDone();
-
-            // swap source and destination for next iteration
-            float[] temp = srcV;
-            srcV = dstV;
-            dstV = temp;
-        }
-        finishProgressTracker();
-
-        // srcV now holds the final V channel data.
+        filterValues(width, height, vChannel, false);
 
         // recombine and convert back to RGB
         int[] outPixels = new int[numPixels];
         for (int i = 0; i < numPixels; i++) {
             float h = hChannel[i];
             float s = sChannel[i];
-            float v = srcV[i]; // use the modified V value
+            float v = vChannel[i] / 255.0f; // use the modified V value
 
             int rgb = Color.HSBtoRGB(h, s, v); // alpha=0xFF
             // combine with the original alpha
-            outPixels[i] = (aChannel[i] << 24) | (rgb & 0x00FFFFFF);
+            outPixels[i] = (inPixels[i] & 0xFF_00_00_00) | (rgb & 0x00FFFFFF);
         }
 
         return outPixels;
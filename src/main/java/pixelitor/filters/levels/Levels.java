@@ -17,6 +17,7 @@
 
 package pixelitor.filters.levels;
 
+import pixelitor.filters.PointAdjustment;
 import pixelitor.filters.gui.FilterGUI;
 import pixelitor.filters.gui.FilterWithGUI;
 import pixelitor.filters.gui.UserPreset;
@@ -24,13 +25,14 @@ import pixelitor.layers.Filterable;
 
 import java.awt.image.BufferedImage;
 import java.io.Serial;
+import java.util.function.IntUnaryOperator;
 
 import static pixelitor.utils.Texts.i18n;
 
 /**
  * The Levels filter, adjusting the tonal range of an image.
  */
-public class Levels extends FilterWithGUI {
+public class Levels extends FilterWithGUI implements PointAdjustment {
     public static final String NAME = i18n("levels");
 
     @Serial
@@ -58,6 +60,11 @@ public class Levels extends FilterWithGUI {
         return levelsModel.apply(src, dest);
     }
 
+    @Override
+    public IntUnaryOperator createPixelFunction(BufferedImage image) {
+        return levelsModel.createPixelFunction(image);
+    }
+
     @Override
     public void randomize() {
         levelsModel.randomizeAndRun();
@@ -17,6 +17,7 @@
 
 package pixelitor.filters.levels;
 
+import pixelitor.filters.PointAdjustment;
 import pixelitor.filters.gui.UserPreset;
 import pixelitor.filters.lookup.GrayScaleLookup;
 import pixelitor.filters.lookup.RGBLookup;
@@ -29,6 +30,7 @@ import java.awt.image.BufferedImageOp;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.function.IntUnaryOperator;
 
 import static pixelitor.filters.util.Channel.BLUE;
 import static pixelitor.filters.util.Channel.GREEN;
@@ -74,6 +76,16 @@ public class LevelsModel {
         return filterOp.filter(src, dest);
     }
 
+    /**
+     * Returns the per-pixel function of the current settings for the given image.
+     */
+    public IntUnaryOperator createPixelFunction(BufferedImage image) {
+        if (filterOp == null) {
+            updateFilterLookup();
+        }
+        return PointAdjustment.toPixelFunction(filterOp, image);
+    }
+
     /**
      * Returns the current filter operation. Used for testing purposes.
      */
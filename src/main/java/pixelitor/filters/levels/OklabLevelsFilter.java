@@ -18,16 +18,16 @@
 package pixelitor.filters.levels;
 
 import com.jhlabs.image.ImageMath;
-import com.jhlabs.image.PointFilter;
 import pixelitor.colors.ColorSpaces;
 import pixelitor.filters.curves.OklabCurvesFilter;
 import pixelitor.filters.lookup.GrayScaleLookup;
+import pixelitor.filters.lookup.Lut3DFilter;
 
 /**
  * A PointFilter that applies levels in the Oklab color space.
  * It's similar to {@link OklabCurvesFilter}.
  */
-public class OklabLevelsFilter extends PointFilter {
+public class OklabLevelsFilter extends Lut3DFilter {
     /**
      * Domain for the 'a' and 'b' channels of Oklab that comfortably covers the sRGB gamut.
      */
@@ -47,7 +47,12 @@ public class OklabLevelsFilter extends PointFilter {
     }
 
     @Override
-    public int processPixel(int x, int y, int rgb) {
+    protected int withAlpha(int rgb, int newRgb) {
+        return 0xFF_00_00_00 | newRgb;
+    }
+
+    @Override
+    protected int calcColor(int rgb) {
         // 1. convert sRGB (int) to Oklab (float[])
         float[] oklab = ColorSpaces.srgbToOklab(rgb);
         float l = oklab[0];
@@ -19,9 +19,9 @@ package pixelitor.filters.lookup;
 
 import com.jhlabs.image.ImageMath;
 import com.jhlabs.image.PixelUtils;
-import com.jhlabs.image.PointFilter;
 import pixelitor.colors.ColorSpaces;
 import pixelitor.filters.ParametrizedFilter;
+import pixelitor.filters.PointAdjustment;
 import pixelitor.filters.gui.EnumParam;
 import pixelitor.filters.gui.IntChoiceParam;
 import pixelitor.filters.gui.IntChoiceParam.Item;
@@ -31,7 +31,9 @@ import pixelitor.filters.util.ColorSpace;
 import pixelitor.gui.GUIText;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
 import java.io.Serial;
+import java.util.function.IntUnaryOperator;
 
 import static java.awt.Color.*;
 import static pixelitor.utils.Texts.i18n;
@@ -39,7 +41,7 @@ import static pixelitor.utils.Texts.i18n;
 /**
  * Color balance filter
  */
-public class ColorBalance extends ParametrizedFilter {
+public class ColorBalance extends ParametrizedFilter implements PointAdjustment {
     @Serial
     private static final long serialVersionUID = 8496579363272349016L;
 
@@ -71,6 +73,9 @@ public class ColorBalance extends ParametrizedFilter {
     private final RangeWithColorsParam range3 = new RangeWithColorsParam(YELLOW, BLUE,
         YELLOW_BLUE_TEXT, -100, 0, 100);
 
+    // reused while the settings don't change, because its lookup table is expensive
+    private transient OklabColorBalanceFilter oklabFilter;
+
     public ColorBalance() {
         super(true);
 
@@ -140,19 +145,36 @@ public class ColorBalance extends ParametrizedFilter {
             return src;
         }
 
+        return createFilterOp(p1, p2, p3).filter(src, null);
+    }
+
+    @Override
+    public IntUnaryOperator createPixelFunction(BufferedImage image) {
+        float p1 = range1.getValueAsFloat();
+        float p2 = range2.getValueAsFloat();
+        float p3 = range3.getValueAsFloat();
+
+        if (p1 == 0 && p2 == 0 && p3 == 0) { // no change
+            return IntUnaryOperator.identity();
+        }
+
+        return PointAdjustment.toPixelFunction(createFilterOp(p1, p2, p3), image);
+    }
+
+    private BufferedImageOp createFilterOp(float p1, float p2, float p3) {
         return switch (colorSpace.getSelected()) {
-            case SRGB -> {
-                var lookup = createLookup(p1, p2, p3, affect.getValue());
-                var filterOp = lookup.asFastLookupOp();
-                yield filterOp.filter(src, null);
-            }
-            case OKLAB -> {
-                var filter = new OklabColorBalanceFilter(p1, p2, p3, affect.getValue());
-                yield filter.filter(src, null);
-            }
+            case SRGB -> createLookup(p1, p2, p3, affect.getValue()).asFastLookupOp();
+            case OKLAB -> getOklabFilter(p1, p2, p3, affect.getValue());
         };
     }
 
+    private OklabColorBalanceFilter getOklabFilter(float p1, float p2, float p3, int affect) {
+        if (oklabFilter == null || !oklabFilter.hasSettings(p1, p2, p3, affect)) {
+            oklabFilter = new OklabColorBalanceFilter(p1, p2, p3, affect);
+        }
+        return oklabFilter;
+    }
+
     @Override
     protected boolean createDefaultDestImg() {
         return false;
@@ -245,7 +267,7 @@ public class ColorBalance extends ParametrizedFilter {
         };
     }
 
-    private static class OklabColorBalanceFilter extends PointFilter {
+    private static class OklabColorBalanceFilter extends Lut3DFilter {
         private final float aAdj;
         private final float bAdj;
         private final float lAdj;
@@ -261,8 +283,20 @@ public class ColorBalance extends ParametrizedFilter {
             this.affect = affect;
         }
 
+        boolean hasSettings(float greenRed, float blueYellow, float darkLight, int affect) {
+            return aAdj == greenRed / 250.0f
+                && bAdj == blueYellow / 250.0f
+                && lAdj == darkLight / 125.0f
+                && this.affect == affect;
+        }
+
+        @Override
+        protected int withAlpha(int rgb, int newRgb) {
+            return 0xFF_00_00_00 | newRgb;
+        }
+
         @Override
-        public int processPixel(int x, int y, int rgb) {
+        protected int calcColor(int rgb) {
             float[] oklab = ColorSpaces.srgbToOklab(rgb);
 
             float l = oklab[0];
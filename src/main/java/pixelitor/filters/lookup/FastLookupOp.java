@@ -18,6 +18,7 @@
 package pixelitor.filters.lookup;
 
 import com.jhlabs.image.PixelUtils;
+import pixelitor.ThreadPool;
 import pixelitor.filters.util.FilterPalette;
 import pixelitor.utils.ImageUtils;
 
@@ -25,6 +26,7 @@ import java.awt.RenderingHints;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.*;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Performs 4-5 times faster than {@link LookupOp} if
@@ -71,56 +73,76 @@ public class FastLookupOp implements BufferedImageOp {
 
         short[][] table = lut.getTable();
 
-        for (int i = 0; i < numPixels; i++) {
-            int rgb = srcPixels[i];
-            int a = rgb >>> 24;
-            int r = (rgb >>> 16) & 0xFF;
-            int g = (rgb >>> 8) & 0xFF;
-            int b = rgb & 0xFF;
-
-            if (a == 255 || notPremultiplied) {
-                r = table[0][r];
-                g = table[1][g];
-                b = table[2][b];
-            } else if (a == 0) {
-                r = 0;
-                g = 0;
-                b = 0;
-            } else {
-                // unpremultiply
-                float f = 255.0f / a;
-                int ur = (int) (r * f);
-                int ug = (int) (g * f);
-                int ub = (int) (b * f);
-
-                if (ur > 255) {
-                    ur = 255;
-                }
-                if (ug > 255) {
-                    ug = 255;
-                }
-                if (ub > 255) {
-                    ub = 255;
-                }
-
-                // lookup
-                ur = table[0][ur];
-                ug = table[1][ug];
-                ub = table[2][ub];
-
-                // premultiply
-                float f2 = a * (1.0f / 255.0f);
-                r = (int) (ur * f2);
-                g = (int) (ug * f2);
-                b = (int) (ub * f2);
-
-                r = PixelUtils.clamp(r);
-                g = PixelUtils.clamp(g);
-                b = PixelUtils.clamp(b);
+        ThreadPool.processPixels(numPixels, (start, end) ->
+            lookupPixels(srcPixels, destPixels, start, end, table, notPremultiplied));
+
+        return dst;
+    }
+
+    private static void lookupPixels(int[] srcPixels, int[] destPixels,
+                                     int start, int end,
+                                     short[][] table, boolean notPremultiplied) {
+        for (int i = start; i < end; i++) {
+            destPixels[i] = lookupPixel(srcPixels[i], table, notPremultiplied);
+        }
+    }
+
+    private static int lookupPixel(int rgb, short[][] table, boolean notPremultiplied) {
+        int a = rgb >>> 24;
+        int r = (rgb >>> 16) & 0xFF;
+        int g = (rgb >>> 8) & 0xFF;
+        int b = rgb & 0xFF;
+
+        if (a == 255 || notPremultiplied) {
+            r = table[0][r];
+            g = table[1][g];
+            b = table[2][b];
+        } else if (a == 0) {
+            r = 0;
+            g = 0;
+            b = 0;
+        } else {
+            // unpremultiply
+            float f = 255.0f / a;
+            int ur = (int) (r * f);
+            int ug = (int) (g * f);
+            int ub = (int) (b * f);
+
+            if (ur > 255) {
+                ur = 255;
+            }
+            if (ug > 255) {
+                ug = 255;
             }
-            destPixels[i] = a << 24 | r << 16 | g << 8 | b;
+            if (ub > 255) {
+                ub = 255;
+            }
+
+            // lookup
+            ur = table[0][ur];
+            ug = table[1][ug];
+            ub = table[2][ub];
+
+            // premultiply
+            float f2 = a * (1.0f / 255.0f);
+            r = (int) (ur * f2);
+            g = (int) (ug * f2);
+            b = (int) (ub * f2);
+
+            r = PixelUtils.clamp(r);
+            g = PixelUtils.clamp(g);
+            b = PixelUtils.clamp(b);
         }
-        return dst;
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * Returns the effect of this lookup on a single pixel value
+     * of a packed int image, which is premultiplied or not.
+     */
+    public IntUnaryOperator asPixelFunction(boolean premultiplied) {
+        short[][] table = lut.getTable();
+        return rgb -> lookupPixel(rgb, table, !premultiplied);
     }
 
     private BufferedImage filterIndexed(BufferedImage src) {
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.filters.lookup;
+
+import pixelitor.ThreadPool;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A 3D color lookup table, which samples an RGB to RGB transformation on a
+ * regular grid once, and then evaluates it for any color with tetrahedral
+ * interpolation. Used for the expensive color space conversions.
+ */
+public class Lut3D {
+    // the distance between the grid points in each channel; 255 is divisible
+    // by it, so the grid points are exact colors that can be baked exactly
+    private static final int STEP = 5;
+
+    // the number of grid points in each channel
+    private static final int SIZE = 255 / STEP + 1;
+
+    // for each channel value, the index of the grid cell and the position within it
+    private static final int[] CELL_INDEX = new int[256];
+    private static final float[] CELL_FRACTION = new float[256];
+
+    static {
+        for (int v = 0; v < 256; v++) {
+            int index = Math.min(v / STEP, SIZE - 2);
+            CELL_INDEX[v] = index;
+            CELL_FRACTION[v] = (v - index * STEP) / (float) STEP;
+        }
+    }
+
+    // the red, green and blue values of the grid points, with red changing
+    // the fastest, then green, then blue (like in .cube files)
+    private final float[] table;
+
+    private Lut3D(float[] table) {
+        this.table = table;
+    }
+
+    /**
+     * Samples the given transformation, which receives and returns packed
+     * (opaque) RGB colors, on the grid points of a new lookup table.
+     */
+    public static Lut3D bake(IntUnaryOperator transform) {
+        float[] table = new float[SIZE * SIZE * SIZE * 3];
+        ThreadPool.processBands(SIZE * SIZE, (start, end) -> {
+            for (int row = start; row < end; row++) {
+                int b = (row / SIZE) * STEP;
+                int g = (row % SIZE) * STEP;
+                int index = row * SIZE * 3;
+                for (int ri = 0; ri < SIZE; ri++) {
+                    int r = ri * STEP;
+                    int rgb = transform.applyAsInt(0xFF_00_00_00 | r << 16 | g << 8 | b);
+                    table[index++] = (rgb >>> 16) & 0xFF;
+                    table[index++] = (rgb >>> 8) & 0xFF;
+                    table[index++] = rgb & 0xFF;
+                }
+            }
+        });
+        return new Lut3D(table);
+    }
+
+    /**
+     * Returns the transformed RGB value of the given color.
+     * The alpha bits of the result are zero.
+     */
+    public int lookup(int rgb) {
+        int r = (rgb >>> 16) & 0xFF;
+        int g = (rgb >>> 8) & 0xFF;
+        int b = rgb & 0xFF;
+
+        float fr = CELL_FRACTION[r];
+        float fg = CELL_FRACTION[g];
+        float fb = CELL_FRACTION[b];
+
+        int rStride = 3;
+        int gStride = SIZE * 3;
+        int bStride = SIZE * SIZE * 3;
+        int c000 = CELL_INDEX[b] * bStride + CELL_INDEX[g] * gStride + CELL_INDEX[r] * rStride;
+        int c111 = c000 + rStride + gStride + bStride;
+
+        // Tetrahedral interpolation: the cube is split into six tetrahedra
+        // along its main diagonal, and the color is interpolated from the
+        // four corners of the tetrahedron that contains it.
+        int c1;
+        int c2;
+        float w0;
+        float w1;
+        float w2;
+        float w3;
+        if (fr > fg) {
+            if (fg > fb) { // r > g > b
+                c1 = c000 + rStride;
+                c2 = c1 + gStride;
+                w0 = 1 - fr;
+                w1 = fr - fg;
+                w2 = fg - fb;
+                w3 = fb;
+            } else if (fr > fb) { // r > b >= g
+                c1 = c000 + rStride;
+                c2 = c1 + bStride;
+                w0 = 1 - fr;
+                w1 = fr - fb;
+                w2 = fb - fg;
+                w3 = fg;
+            } else { // b >= r > g
+                c1 = c000 + bStride;
+                c2 = c1 + rStride;
+                w0 = 1 - fb;
+                w1 = fb - fr;
+                w2 = fr - fg;
+                w3 = fg;
+            }
+        } else {
+            if (fb > fg) { // b > g >= r
+                c1 = c000 + bStride;
+                c2 = c1 + gStride;
+                w0 = 1 - fb;
+                w1 = fb - fg;
+                w2 = fg - fr;
+                w3 = fr;
+            } else if (fb > fr) { // g >= b > r
+                c1 = c000 + gStride;
+                c2 = c1 + bStride;
+                w0 = 1 - fg;
+                w1 = fg - fb;
+                w2 = fb - fr;
+                w3 = fr;
+            } else { // g >= r >= b
+                c1 = c000 + gStride;
+                c2 = c1 + rStride;
+                w0 = 1 - fg;
+                w1 = fg - fr;
+                w2 = fr - fb;
+                w3 = fb;
+            }
+        }
+
+        int newR = interpolate(c000, c1, c2, c111, w0, w1, w2, w3);
+        int newG = interpolate(c000 + 1, c1 + 1, c2 + 1, c111 + 1, w0, w1, w2, w3);
+        int newB = interpolate(c000 + 2, c1 + 2, c2 + 2, c111 + 2, w0, w1, w2, w3);
+        return newR << 16 | newG << 8 | newB;
+    }
+
+    private int interpolate(int i0, int i1, int i2, int i3,
+                            float w0, float w1, float w2, float w3) {
+        float value = w0 * table[i0] + w1 * table[i1] + w2 * table[i2] + w3 * table[i3];
+        // the weights are non-negative and add up to 1,
+        // so the value is within the range of the table
+        return (int) (value + 0.5f);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.filters.lookup;
+
+import com.jhlabs.image.PointFilter;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A point filter with an expensive color transformation (typically
+ * through the Oklab color space), which is baked into a {@link Lut3D}
+ * when the image is large enough to amortize the baking.
+ * <p>
+ * The settings of an instance can't change, so the owners of these
+ * filters can reuse an instance (and its baked table) as long as
+ * their settings don't change.
+ */
+public abstract class Lut3DFilter extends PointFilter {
+    // below this, calculating each pixel is cheaper than baking the table
+    private static final int MIN_PIXELS_FOR_LUT = 512 * 512;
+
+    // baked at most once, when it's first needed
+    private volatile Lut3D lut;
+
+    // whether the lookup table is used for the image that is currently filtered
+    private boolean useLut;
+
+    protected Lut3DFilter(String filterName) {
+        super(filterName);
+    }
+
+    /**
+     * Calculates the transformed color exactly. The alpha of the result is ignored.
+     */
+    protected abstract int calcColor(int rgb);
+
+    /**
+     * Returns the output pixel for the given input pixel and its
+     * transformed RGB value. By default, the input alpha is kept.
+     */
+    protected int withAlpha(int rgb, int newRgb) {
+        return (rgb & 0xFF_00_00_00) | newRgb;
+    }
+
+    @Override
+    public final int processPixel(int x, int y, int rgb) {
+        int newRgb = useLut ? lut.lookup(rgb) : calcColor(rgb) & 0x00_FF_FF_FF;
+        return withAlpha(rgb, newRgb);
+    }
+
+    /**
+     * Decides whether the lookup table is used for filtering
+     * an image with the given size.
+     */
+    @Override
+    public void setDimensions(int width, int height) {
+        useLut = usesLut(width, height);
+    }
+
+    @Override
+    public IntUnaryOperator asPixelFunction(int width, int height) {
+        // the function doesn't depend on the fields, because the
+        // same cached filter can be used for images of other sizes
+        boolean lutUsed = usesLut(width, height);
+        Lut3D table = lut;
+        return rgb -> withAlpha(rgb, lutUsed ? table.lookup(rgb) : calcColor(rgb) & 0x00_FF_FF_FF);
+    }
+
+    private boolean usesLut(int width, int height) {
+        boolean large = (long) width * height >= MIN_PIXELS_FOR_LUT;
+        if (large && lut == null) {
+            lut = Lut3D.bake(this::calcColor);
+        }
+        return large;
+    }
+}
@@ -30,6 +30,7 @@ import pixelitor.compactions.QuadrantAngle;
 import pixelitor.gui.utils.BoxAlignment;
 import pixelitor.gui.utils.MlpAlignmentSelector;
 import pixelitor.utils.ImageUtils;
+import pixelitor.utils.RasterCache;
 import pixelitor.utils.Shapes;
 import pixelitor.utils.debug.DebugNode;
 import pixelitor.utils.debug.DebugNodes;
@@ -39,7 +40,6 @@ import java.awt.*;
 import java.awt.font.*;
 import java.awt.geom.*;
 import java.awt.image.BufferedImage;
-import java.lang.ref.SoftReference;
 import java.util.Map;
 import java.util.Objects;
 
@@ -90,7 +90,8 @@ public class TransformedTextPainter implements Debuggable {
     // max width of the text block before transformations
     private int origTextWidth;
 
-    private SoftReference<BufferedImage> renderCache;
+    // the rendered text and effects, covering the bounding box
+    private final RasterCache renderCache = new RasterCache();
 
     private boolean invalidLayout = true;
 
@@ -146,8 +147,8 @@ public class TransformedTextPainter implements Debuggable {
             return;
         }
 
-        BufferedImage cachedImg = renderCache == null ? null : renderCache.get();
-        if (cachedImg == null) {
+        BufferedImage cachedImg = renderCache.getImage();
+        if (cachedImg == null || cachedImg.getWidth() != bounds.width || cachedImg.getHeight() != bounds.height) {
             // create the cached image containing the rendered text and effects
             cachedImg = GraphicsUtilities.createCompatibleTranslucentImage(bounds.width, bounds.height);
             Graphics2D cacheG = cachedImg.createGraphics();
@@ -158,7 +159,9 @@ public class TransformedTextPainter implements Debuggable {
             paintText(cacheG, origTransform);
             cacheG.dispose();
 
-            renderCache = new SoftReference<>(cachedImg);
+            // the cached image doesn't depend on the translation,
+            // so the stored bounds are only informative
+            renderCache.store(cachedImg, new Rectangle(bounds));
         }
 
         restoreDefaultRendering(g);
@@ -178,11 +181,7 @@ public class TransformedTextPainter implements Debuggable {
     }
 
     private void clearCache() {
-        BufferedImage cache = renderCache == null ? null : renderCache.get();
-        if (cache != null) {
-            cache.flush();
-        }
-        renderCache = null;
+        renderCache.invalidate();
     }
 
     private void ensureLayout() {
@@ -1038,6 +1037,7 @@ public class TransformedTextPainter implements Debuggable {
         node.addNullableDebuggable("renderBounds", renderBounds, DebugNodes::createRectangleNode);
         node.addNullableDebuggable("transformedRect", transformedRect);
         node.addPresence("transformedShape", textShape);
+        node.addBoolean("cached", renderCache.isValid());
 
         return node;
     }
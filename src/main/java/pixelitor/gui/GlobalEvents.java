@@ -18,6 +18,7 @@
 package pixelitor.gui;
 
 import pixelitor.gui.utils.TaskAction;
+import pixelitor.tools.StrokePainter;
 import pixelitor.tools.Tools;
 import pixelitor.tools.util.ArrowKey;
 import pixelitor.utils.Keys;
@@ -113,6 +114,10 @@ public class GlobalEvents {
     }
 
     private static boolean dispatchGlobalKeyEvent(KeyEvent e) {
+        // the actions triggered by the keys can change the
+        // state that is used while a brush stroke is painted
+        StrokePainter.waitUntilIdle();
+
         if (modalDialogNesting > 0) {
             return false;
         }
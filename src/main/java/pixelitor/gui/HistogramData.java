@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.gui;
+
+import pixelitor.ThreadPool;
+import pixelitor.utils.ImageUtils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+
+import static pixelitor.gui.HistogramsPanel.NUM_BINS;
+
+/**
+ * The RGB and luminance histograms of an image.
+ * The histograms are calculated in parallel bands, each band counting into
+ * its own local arrays, which are merged at the end. They can also be updated
+ * incrementally, if only a known region of the image has changed.
+ */
+public class HistogramData {
+    private final int[] reds;
+    private final int[] greens;
+    private final int[] blues;
+    private final int[] luminances;
+
+    private HistogramData() {
+        reds = new int[NUM_BINS];
+        greens = new int[NUM_BINS];
+        blues = new int[NUM_BINS];
+        luminances = new int[NUM_BINS];
+    }
+
+    /**
+     * Calculates the histograms of the whole given image.
+     */
+    public static HistogramData calc(BufferedImage img) {
+        HistogramData data = new HistogramData();
+        data.add(img, new Rectangle(0, 0, img.getWidth(), img.getHeight()));
+        return data;
+    }
+
+    public HistogramData copy() {
+        HistogramData copy = new HistogramData();
+        copy.addCounts(this, 1);
+        return copy;
+    }
+
+    /**
+     * Adds the pixels of the given region of the given image to the histograms.
+     */
+    public void add(BufferedImage img, Rectangle region) {
+        addCounts(calcRegion(img, region), 1);
+    }
+
+    /**
+     * Removes the pixels of the given region of the given image from the
+     * histograms. Together with {@link #add(BufferedImage, Rectangle)}, it can
+     * be used to update the histograms when only a region has changed.
+     */
+    public void subtract(BufferedImage img, Rectangle region) {
+        addCounts(calcRegion(img, region), -1);
+    }
+
+    private void addCounts(HistogramData other, int sign) {
+        for (int i = 0; i < NUM_BINS; i++) {
+            reds[i] += sign * other.reds[i];
+            greens[i] += sign * other.greens[i];
+            blues[i] += sign * other.blues[i];
+            luminances[i] += sign * other.luminances[i];
+        }
+    }
+
+    private static HistogramData calcRegion(BufferedImage img, Rectangle region) {
+        Rectangle r = region.intersection(new Rectangle(0, 0, img.getWidth(), img.getHeight()));
+        HistogramData total = new HistogramData();
+        if (r.isEmpty()) {
+            return total;
+        }
+
+        List<HistogramData> bandResults = new ArrayList<>();
+        ThreadPool.processBands(r.height, (startY, endY) -> {
+            HistogramData local = new HistogramData();
+            local.countRows(img, r.x, r.width, r.y + startY, r.y + endY);
+            synchronized (bandResults) {
+                bandResults.add(local);
+            }
+        });
+        for (HistogramData bandResult : bandResults) {
+            total.addCounts(bandResult, 1);
+        }
+        return total;
+    }
+
+    private void countRows(BufferedImage img, int x, int width, int startY, int endY) {
+        WritableRaster raster = img.getRaster();
+        int[] row = new int[width];
+        boolean directAccess = ImageUtils.hasPackedIntArray(img)
+            && raster.getSampleModel() instanceof SinglePixelPackedSampleModel;
+        for (int y = startY; y < endY; y++) {
+            if (directAccess) {
+                var sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+                var dataBuffer = (DataBufferInt) raster.getDataBuffer();
+                int index = dataBuffer.getOffset()
+                    + (y - raster.getSampleModelTranslateY()) * sampleModel.getScanlineStride()
+                    + x - raster.getSampleModelTranslateX();
+                System.arraycopy(dataBuffer.getData(), index, row, 0, width);
+                if (img.getType() == BufferedImage.TYPE_INT_RGB) {
+                    for (int i = 0; i < width; i++) {
+                        row[i] |= 0xFF_00_00_00;
+                    }
+                }
+            } else {
+                img.getRGB(x, y, width, 1, row, 0, width);
+            }
+            countPixels(row);
+        }
+    }
+
+    private void countPixels(int[] pixels) {
+        for (int rgb : pixels) {
+            int a = rgb >>> 24;
+            if (a > 0) {
+                int r = (rgb >>> 16) & 0xFF;
+                int g = (rgb >>> 8) & 0xFF;
+                int b = rgb & 0xFF;
+
+                reds[r]++;
+                greens[g]++;
+                blues[b]++;
+
+                int lum = (int) (0.299 * r + 0.587 * g + 0.114 * b);
+                luminances[lum]++;
+            }
+        }
+    }
+
+    public int[] getReds() {
+        return reds;
+    }
+
+    public int[] getGreens() {
+        return greens;
+    }
+
+    public int[] getBlues() {
+        return blues;
+    }
+
+    public int[] getLuminances() {
+        return luminances;
+    }
+}
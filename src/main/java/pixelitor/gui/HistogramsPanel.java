@@ -19,13 +19,15 @@ package pixelitor.gui;
 
 import pixelitor.Composition;
 import pixelitor.Views;
-import pixelitor.utils.ImageUtils;
 import pixelitor.utils.ViewActivationListener;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.awt.BorderLayout.CENTER;
 import static java.awt.BorderLayout.NORTH;
@@ -69,6 +71,23 @@ public class HistogramsPanel extends JPanel implements ViewActivationListener {
     private boolean isLogarithmic;
     private boolean isLuminance;
 
+    // the histograms are calculated on a dedicated thread (rather than
+    // on a pool thread), so that the calculation itself can use the pool
+    private final Executor calculator = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Histograms");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // requests arriving while a calculation is running are merged
+    // into this one, so that only the latest image is processed
+    private final AtomicReference<CalcRequest> pendingRequest = new AtomicReference<>();
+
+    // the state of the last calculation, only accessed on the calculator thread
+    private Composition lastComp;
+    private BufferedImage lastImage;
+    private HistogramData lastData;
+
     private HistogramsPanel() {
         super(new BorderLayout());
 
@@ -164,6 +183,13 @@ public class HistogramsPanel extends JPanel implements ViewActivationListener {
         luminancePainter.clearData();
 
         repaint();
+
+        // don't keep the last image of a closed composition
+        calculator.execute(() -> {
+            lastComp = null;
+            lastImage = null;
+            lastData = null;
+        });
     }
 
     @Override
@@ -182,38 +208,6 @@ public class HistogramsPanel extends JPanel implements ViewActivationListener {
         INSTANCE.updateHistograms(comp);
     }
 
-    // extracts the essential information from the image
-    private void calcBaseArrays(BufferedImage image) {
-        if (reds != null) {
-            Arrays.fill(reds, 0);
-            Arrays.fill(greens, 0);
-            Arrays.fill(blues, 0);
-            Arrays.fill(luminances, 0);
-        } else {
-            reds = new int[NUM_BINS];
-            greens = new int[NUM_BINS];
-            blues = new int[NUM_BINS];
-            luminances = new int[NUM_BINS];
-        }
-
-        int[] pixels = ImageUtils.getPixels(image);
-        for (int rgb : pixels) {
-            int a = rgb >>> 24;
-            if (a > 0) {
-                int r = (rgb >>> 16) & 0xFF;
-                int g = (rgb >>> 8) & 0xFF;
-                int b = rgb & 0xFF;
-
-                reds[r]++;
-                greens[g]++;
-                blues[b]++;
-
-                int lum = (int) (0.299 * r + 0.587 * g + 0.114 * b);
-                luminances[lum]++;
-            }
-        }
-    }
-
     private void calcRGBLogs() {
         if (logReds != null) {
             Arrays.fill(logReds, 0);
@@ -240,12 +234,16 @@ public class HistogramsPanel extends JPanel implements ViewActivationListener {
         calcLog(luminances, logLuminances);
     }
 
-    // called when the image is first added or when the image is changed
-    private void changeImage(BufferedImage image) {
-        calcBaseArrays(image);
-        calcLazyData();
+    // called on the EDT when new histograms were calculated
+    private void dataCalculated(HistogramData data) {
+        reds = data.getReds();
+        greens = data.getGreens();
+        blues = data.getBlues();
+        luminances = data.getLuminances();
 
+        calcLazyData();
         updatePainterData();
+        repaint();
     }
 
     private void calcLazyData() {
@@ -285,8 +283,37 @@ public class HistogramsPanel extends JPanel implements ViewActivationListener {
             return;
         }
 
-        changeImage(comp.getCompositeImage());
-        repaint();
+        // the composite image is created on the EDT, but
+        // the histograms are calculated on the calculator thread
+        CalcRequest request = new CalcRequest(comp,
+            comp.getCompositeImage(), comp.takeHistogramChanges());
+        if (pendingRequest.getAndUpdate(prev -> request.mergeWith(prev)) == null) {
+            calculator.execute(this::processPendingRequest);
+        }
+    }
+
+    // runs on the calculator thread
+    private void processPendingRequest() {
+        CalcRequest request = pendingRequest.getAndSet(null);
+        if (request == null) {
+            return;
+        }
+
+        HistogramData data;
+        if (request.canUpdate(lastComp, lastImage)) {
+            // only a region changed since the last calculation: subtract
+            // the old pixels of the region and add the new ones
+            data = lastData.copy();
+            data.subtract(lastImage, request.changedRegion());
+            data.add(request.image(), request.changedRegion());
+        } else {
+            data = HistogramData.calc(request.image());
+        }
+        lastComp = request.comp();
+        lastImage = request.image();
+        lastData = data;
+
+        SwingUtilities.invokeLater(() -> dataCalculated(data));
     }
 
     private static void calcLog(int[] input, int[] output) {
@@ -298,6 +325,33 @@ public class HistogramsPanel extends JPanel implements ViewActivationListener {
         }
     }
 
+    /**
+     * A request to calculate the histograms of a composite image.
+     * The changed region is relative to the image of the previous
+     * request, or null if the whole image could have changed.
+     */
+    private record CalcRequest(Composition comp, BufferedImage image, Rectangle changedRegion) {
+        CalcRequest mergeWith(CalcRequest prev) {
+            if (prev == null) {
+                return this;
+            }
+            // the previous request was not processed, therefore the
+            // changes are relative to the image before the previous one
+            if (prev.comp != comp || prev.changedRegion == null || changedRegion == null) {
+                return new CalcRequest(comp, image, null);
+            }
+            return new CalcRequest(comp, image, prev.changedRegion.union(changedRegion));
+        }
+
+        boolean canUpdate(Composition lastComp, BufferedImage lastImage) {
+            return changedRegion != null
+                && comp == lastComp
+                && lastImage != null
+                && lastImage.getWidth() == image.getWidth()
+                && lastImage.getHeight() == image.getHeight();
+        }
+    }
+
     public static HistogramsPanel get() {
         return INSTANCE;
     }
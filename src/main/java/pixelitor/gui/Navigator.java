@@ -321,7 +321,7 @@ public class Navigator extends JComponent
         // draw the thumbnail scaled down
         checkerboardPainter.paint(g2, null, thumbWidth, thumbHeight);
         g2.scale(thumbnailScale, thumbnailScale);
-        g2.drawImage(view.getComp().getCompositeImage(), 0, 0, null);
+        view.getComp().paintCompositeImage(g2);
 
         // draw the viewport indicator box with the original transform
         g2.setTransform(origTransform);
@@ -31,6 +31,7 @@ import pixelitor.menus.view.ZoomControl;
 import pixelitor.menus.view.ZoomLevel;
 import pixelitor.selection.SelectionActions;
 import pixelitor.tools.Tool;
+import pixelitor.tools.StrokePainter;
 import pixelitor.tools.Tools;
 import pixelitor.tools.util.PPoint;
 import pixelitor.tools.util.PRectangle;
@@ -385,8 +386,11 @@ public class View extends JComponent implements MouseListener, MouseMotionListen
 
     @Override
     public void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g;
+        // the mask and the composite are read between the painted stroke points
+        StrokePainter.runExclusively(() -> paintView((Graphics2D) g));
+    }
 
+    private void paintView(Graphics2D g2) {
         // save current transform (component space)
         var componentTransform = g2.getTransform();
 
@@ -411,7 +415,7 @@ public class View extends JComponent implements MouseListener, MouseMotionListen
             mask.paint(g2, true);
         } else {
             // paint the composite image of the composition
-            g2.drawImage(comp.getCompositeImage(), 0, 0, null);
+            comp.paintCompositeImage(g2);
 
             if (maskViewMode.isShowingRubylith()) {
                 // paint the mask as a red "rubylith" overlay over the composite image
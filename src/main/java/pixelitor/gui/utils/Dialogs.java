@@ -28,6 +28,7 @@ import pixelitor.gui.View;
 import pixelitor.layers.Layer;
 import pixelitor.selection.ShapeCombinator;
 import pixelitor.utils.Messages;
+import pixelitor.utils.RasterCachePool;
 import pixelitor.utils.test.RandomGUITest;
 
 import javax.sound.midi.MidiChannel;
@@ -345,6 +346,9 @@ public class Dialogs {
             //noinspection CallToPrintStackTrace
             e.printStackTrace();
         }
+        // the cached rasters of the vector layers can be recreated
+        RasterCachePool.clear();
+
         String msg = "<html><b>Out of memory error.</b> You can try <ul>" +
             "<li>decreasing the undo levels" +
             "<li>decreasing the number of layers" +
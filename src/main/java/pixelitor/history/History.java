@@ -22,6 +22,7 @@ import pixelitor.Composition;
 import pixelitor.Invariants;
 import pixelitor.Views;
 import pixelitor.layers.Drawable;
+import pixelitor.tools.StrokePainter;
 import pixelitor.utils.AppPreferences;
 import pixelitor.utils.Messages;
 import pixelitor.utils.debug.DebugNode;
@@ -102,7 +103,8 @@ public class History {
             // increase it before calling undoManager.undo()
             // so that the result of undo is not fadeable
             numUndoneEdits++;
-            undoManager.undo();
+            // the restored pixels can't be painted by a brush stroke at the same time
+            StrokePainter.runExclusively(undoManager::undo);
         } catch (CannotUndoException e) {
             handleUndoRedoException(e, "undo");
         }
@@ -111,7 +113,7 @@ public class History {
     public static void redo() {
         try {
             numUndoneEdits--; // after redo we should be fadeable again
-            undoManager.redo();
+            StrokePainter.runExclusively(undoManager::redo);
         } catch (CannotRedoException e) {
             handleUndoRedoException(e, "redo");
         }
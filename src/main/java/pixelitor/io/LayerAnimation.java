@@ -47,11 +47,21 @@ public class LayerAnimation {
 
     private static final int DEFAULT_DELAY_MS = 200;
 
+    // whether all frames use the color palette of the first frame
+    private final boolean globalPalette;
+
+    // whether only the changed part of each frame is written
+    private final boolean frameDifferencing;
+
     // the list of images representing animation frames
     private final List<BufferedImage> frames = new ArrayList<>();
 
-    private LayerAnimation(Composition comp, int frameDurationMs, boolean isPingPong) {
+    private LayerAnimation(Composition comp, int frameDurationMs,
+                           boolean isPingPong, boolean globalPalette,
+                           boolean frameDifferencing) {
         this.frameDurationMs = frameDurationMs;
+        this.globalPalette = globalPalette;
+        this.frameDifferencing = frameDifferencing;
 
         generateFrames(comp, isPingPong);
     }
@@ -105,8 +115,8 @@ public class LayerAnimation {
             comp.suggestFileName("gif"), gifFilter);
 
         if (outputFile != null) {
-            new LayerAnimation(
-                comp, config.getDelayMillis(), config.isPingPong())
+            new LayerAnimation(comp, config.getDelayMillis(), config.isPingPong(),
+                config.isGlobalPalette(), config.isFrameDifferencing())
                 .saveToFile(outputFile);
             Messages.showFileSavedMessage(outputFile);
         }
@@ -125,6 +135,8 @@ public class LayerAnimation {
         encoder.start(outputFile);
         encoder.setDelay(frameDurationMs);
         encoder.setRepeat(0); // infinite loop
+        encoder.setGlobalPalette(globalPalette);
+        encoder.setFrameDifferencing(frameDifferencing);
 
         for (BufferedImage image : frames) {
             encoder.addFrame(image);
@@ -138,6 +150,8 @@ public class LayerAnimation {
     public static class ConfigPanel extends JPanel implements Validated {
         private final JTextField delayTF;
         private final JCheckBox pingPongCB;
+        private final JCheckBox globalPaletteCB;
+        private final JCheckBox frameDifferencingCB;
 
         public ConfigPanel(int numLayers) {
             super(new VerticalLayout(10));
@@ -161,6 +175,12 @@ public class LayerAnimation {
                 pingPongCB.setEnabled(false);
             }
             add(pingPongCB);
+
+            globalPaletteCB = new JCheckBox("Use the Colors of the First Frame (Faster)");
+            add(globalPaletteCB);
+
+            frameDifferencingCB = new JCheckBox("Write Only the Changed Pixels (Smaller File)", true);
+            add(frameDifferencingCB);
         }
 
         public int getDelayMillis() {
@@ -171,6 +191,14 @@ public class LayerAnimation {
             return pingPongCB.isSelected();
         }
 
+        public boolean isGlobalPalette() {
+            return globalPaletteCB.isSelected();
+        }
+
+        public boolean isFrameDifferencing() {
+            return frameDifferencingCB.isSelected();
+        }
+
         @Override
         public ValidationResult validateSettings() {
             return ValidationResult.valid()
@@ -22,6 +22,7 @@ import pixelitor.CopyOptions;
 import pixelitor.filters.Filter;
 import pixelitor.filters.FilterContext;
 import pixelitor.filters.ParametrizedFilter;
+import pixelitor.filters.PointAdjustment;
 import pixelitor.filters.gui.FilterWithGUI;
 import pixelitor.history.FilterChangedEdit;
 import pixelitor.history.History;
@@ -37,6 +38,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.IntUnaryOperator;
 
 /**
  * An adjustment layer contains a filter that acts on the result of the layers below it.
@@ -96,6 +98,21 @@ public class AdjustmentLayer extends Layer implements Filterable {
         return filter.transformImage(src);
     }
 
+    /**
+     * Returns the per-pixel function of this layer if it can be applied
+     * together with the neighboring adjustment layers in a single pass,
+     * which requires no mask, normal blending mode and full opacity.
+     */
+    IntUnaryOperator createFusablePixelFunction(BufferedImage composite) {
+        if (usesMask() || !isNormalAndOpaque()) {
+            return null;
+        }
+        if (filter instanceof PointAdjustment pointAdjustment) {
+            return pointAdjustment.createPixelFunction(composite);
+        }
+        return null;
+    }
+
     @Override
     public void paint(Graphics2D g, boolean firstVisibleLayer) {
         // adjustment layers don't paint directly; they transform the composite image
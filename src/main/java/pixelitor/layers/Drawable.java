@@ -27,6 +27,7 @@ import pixelitor.utils.test.RandomGUITest;
 
 import java.awt.Component;
 import java.awt.Composite;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
 /**
@@ -45,6 +46,11 @@ public interface Drawable extends Filterable {
 
     TmpLayer createTmpLayer(Composite c, boolean softSelection);
 
+    /**
+     * Returns the temporary drawing layer, or null if there is none.
+     */
+    TmpLayer getTmpLayer();
+
     void mergeTmpDrawingLayerDown();
 
     BufferedImage getCanvasSizedSubImage();
@@ -67,6 +73,11 @@ public interface Drawable extends Filterable {
 
     void updateIconImage();
 
+    /**
+     * Updates the icon image after only the given canvas region of the image changed.
+     */
+    void updateIconImage(Rectangle changedRegion);
+
     /**
      * Returns the X translation of the underlying BufferedImage
      * relative to the canvas (always zero or negative).
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.layers;
+
+import pixelitor.ThreadPool;
+import pixelitor.filters.PointAdjustment;
+import pixelitor.utils.ImageUtils;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A run of consecutive adjustment layers with {@link PointAdjustment}
+ * filters, which is applied to the composite image in a single parallel
+ * pass, instead of one full-image pass (and image allocation) per layer.
+ * The result is the same as applying the layers one after the other.
+ */
+public final class FusedAdjustments {
+    private final IntUnaryOperator[] functions;
+
+    // the number of layers covered by this run, including hidden layers
+    private final int numLayers;
+
+    private FusedAdjustments(IntUnaryOperator[] functions, int numLayers) {
+        this.functions = functions;
+        this.numLayers = numLayers;
+    }
+
+    /**
+     * Returns the fused adjustments starting at the given index, or null
+     * if there aren't at least two fusable adjustment layers there.
+     */
+    public static FusedAdjustments collect(List<Layer> layers, int startIndex,
+                                           BufferedImage composite) {
+        if (!ImageUtils.hasPackedIntArray(composite)) {
+            return null;
+        }
+        List<IntUnaryOperator> functions = new ArrayList<>();
+        int endIndex = startIndex;
+        for (int i = startIndex; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
+            if (!layer.isVisible()) {
+                continue;
+            }
+            IntUnaryOperator function = layer instanceof AdjustmentLayer adjLayer
+                ? adjLayer.createFusablePixelFunction(composite)
+                : null;
+            if (function == null) {
+                break;
+            }
+            functions.add(function);
+            endIndex = i + 1;
+        }
+
+        if (functions.size() < 2) {
+            return null;
+        }
+        return new FusedAdjustments(
+            functions.toArray(new IntUnaryOperator[0]), endIndex - startIndex);
+    }
+
+    /**
+     * Applies the adjustments to the given composite image in place.
+     */
+    public void applyTo(BufferedImage composite) {
+        int[] pixels = ImageUtils.getPixels(composite);
+        ThreadPool.processPixels(pixels.length, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                int rgb = pixels[i];
+                for (IntUnaryOperator function : functions) {
+                    rgb = function.applyAsInt(rgb);
+                }
+                pixels[i] = rgb;
+            }
+        });
+    }
+
+    public int getNumLayers() {
+        return numLayers;
+    }
+}
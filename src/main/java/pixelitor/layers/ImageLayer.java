@@ -33,8 +33,11 @@ import pixelitor.tools.Tools;
 import pixelitor.tools.transform.Transformable;
 import pixelitor.tools.util.PPoint;
 import pixelitor.tools.util.PRectangle;
+import pixelitor.utils.ImagePyramid;
 import pixelitor.utils.ImageUtils;
 import pixelitor.utils.Messages;
+import pixelitor.utils.PackedBlender;
+import pixelitor.utils.Thumbnails;
 import pixelitor.utils.debug.Debug;
 import pixelitor.utils.debug.DebugNode;
 import pixelitor.utils.debug.DebugNodes;
@@ -114,6 +117,13 @@ public class ImageLayer extends ContentLayer implements Drawable, Transformable
     private transient AffineTransform liveTransform;
     private transient AffineTransform originalTransform;
 
+    // a downscaled version of the canvas-sized image, used for creating the thumbnails
+    private transient ImagePyramid iconProxy = ImagePyramid.createSingleLevel();
+
+    // the image and its canvas-sized region from which the icon proxy was last created
+    private transient BufferedImage iconProxyImage;
+    private transient Rectangle iconProxySource;
+
     private ImageLayer(Composition comp, String name) {
         super(comp, name);
     }
@@ -213,6 +223,9 @@ public class ImageLayer extends ContentLayer implements Drawable, Transformable
         previewImage = null;
         filterSourceImage = null;
         image = null;
+        iconProxy = ImagePyramid.createSingleLevel();
+        iconProxyImage = null;
+        iconProxySource = null;
 
         in.defaultReadObject();
         setImage(PXCFormat.deserializeImage(in));
@@ -565,20 +578,18 @@ public class ImageLayer extends ContentLayer implements Drawable, Transformable
         BufferedImage imageForUndo = getFilterSourceImage();
         setImageWithSelection(filteredImage, false);
 
-        if (!context.needsUndo()) {
-            return;
-        }
+        if (context.needsUndo()) {
+            // at this point we are sure that the image changed,
+            // considering that a filter without dialog was running
+            if (imageForUndo == image) {
+                throw new IllegalStateException("imageForUndo == image");
+            }
+            assert imageForUndo != null;
 
-        // at this point we are sure that the image changed,
-        // considering that a filter without dialog was running
-        if (imageForUndo == image) {
-            throw new IllegalStateException("imageForUndo == image");
+            var edit = new ImageEdit(filterName, comp, this,
+                imageForUndo, false);
+            History.add(edit);
         }
-        assert imageForUndo != null;
-
-        var edit = new ImageEdit(filterName, comp, this,
-            imageForUndo, false);
-        History.add(edit);
 
         // otherwise the next filter run will take the old image source,
         // not the actual one
@@ -914,6 +925,11 @@ public class ImageLayer extends ContentLayer implements Drawable, Transformable
         return tmpLayer;
     }
 
+    @Override
+    public TmpLayer getTmpLayer() {
+        return tmpLayer;
+    }
+
     @Override
     public void mergeTmpDrawingLayerDown() {
         if (tmpLayer == null) {
@@ -1028,6 +1044,16 @@ public class ImageLayer extends ContentLayer implements Drawable, Transformable
         }
     }
 
+    @Override
+    protected boolean blendDirectly(BufferedImage dst, Composite composite) {
+        // only the simple case of paint() is supported
+        if (liveTransform != null || tmpLayer != null
+            || (Tools.isDrawingShapes() && isActive() && !isMaskEditing())) {
+            return false;
+        }
+        return PackedBlender.blend(getVisibleImage(), getTx(), getTy(), dst, composite);
+    }
+
     protected void paintWithoutTmpLayer(Graphics2D g,
                                         BufferedImage visibleImage,
                                         boolean firstVisibleLayer) {
@@ -1116,8 +1142,58 @@ public class ImageLayer extends ContentLayer implements Drawable, Transformable
 
     @Override
     public BufferedImage createIconThumbnail() {
-        BufferedImage bigImg = getCanvasSizedSubImage();
-        return createThumbnail(bigImg, thumbCheckerboardPainter);
+        return createThumbnail(getIconSource(), thumbCheckerboardPainter);
+    }
+
+    /**
+     * Returns a downscaled version of the canvas-sized image
+     * that is still large enough for creating a thumbnail.
+     * Can be called outside the EDT.
+     */
+    protected BufferedImage getIconSource() {
+        BufferedImage canvasSizedImg = getCanvasSizedSubImage();
+        double scale = Math.min(
+            (double) Thumbnails.getMaxSize() / canvasSizedImg.getWidth(),
+            (double) Thumbnails.getMaxSize() / canvasSizedImg.getHeight());
+        int level = ImagePyramid.selectLevel(scale);
+        if (level == 0) {
+            return canvasSizedImg;
+        }
+        return iconProxy.getLevel(canvasSizedImg, level);
+    }
+
+    @Override
+    public void updateIconImage() {
+        // the image could have been changed in any way, so the proxy is rebuilt
+        iconProxy.invalidate();
+        iconProxySourceUpdated();
+
+        super.updateIconImage();
+    }
+
+    @Override
+    public void updateIconImage(Rectangle changedRegion) {
+        // Only the changed region of the icon proxy has to be recalculated,
+        // but only if the proxy was created from the same region of the same
+        // image. Otherwise, for example after a translation, it's rebuilt.
+        if (iconProxyImage == image && calcIconSourceBounds().equals(iconProxySource)) {
+            iconProxy.regionChanged(changedRegion);
+        } else {
+            iconProxy.invalidate();
+        }
+        iconProxySourceUpdated();
+
+        super.updateIconImage();
+    }
+
+    private void iconProxySourceUpdated() {
+        iconProxyImage = image;
+        iconProxySource = calcIconSourceBounds();
+    }
+
+    // the region of the image that is shown in the icon
+    private Rectangle calcIconSourceBounds() {
+        return new Rectangle(-getTx(), -getTy(), comp.getCanvasWidth(), comp.getCanvasHeight());
     }
 
     /**
@@ -33,6 +33,7 @@ import pixelitor.tools.Tool;
 import pixelitor.tools.Tools;
 import pixelitor.utils.ImageUtils;
 import pixelitor.utils.Messages;
+import pixelitor.utils.PackedBlender;
 import pixelitor.utils.Utils;
 import pixelitor.utils.debug.DebugNode;
 import pixelitor.utils.debug.Debuggable;
@@ -52,7 +53,6 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
-import static java.awt.AlphaComposite.DstIn;
 import static java.awt.AlphaComposite.SRC_OVER;
 import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 import static java.lang.String.format;
@@ -733,14 +733,41 @@ public abstract class Layer implements Serializable, Debuggable {
         } else {
             setupComposite(g, firstVisibleLayer);
             if (usesMask()) {
-                paintWithMask(g, firstVisibleLayer);
-            } else {
+                paintWithMask(g, currentComposite, firstVisibleLayer);
+            } else if (!canBlendDirectly(g, currentComposite)
+                || !blendDirectly(currentComposite, g.getComposite())) {
                 paint(g, firstVisibleLayer);
             }
         }
         return null;
     }
 
+    // checks whether the layer content can be blended onto the
+    // packed pixels of the composite image, bypassing the Graphics2D
+    private static boolean canBlendDirectly(Graphics2D g, BufferedImage currentComposite) {
+        return currentComposite != null
+            && PackedBlender.canBlend(g.getComposite(), g, currentComposite);
+    }
+
+    /**
+     * Blends the layer content with the given composite directly onto the
+     * given canvas-sized image. Returns false if this isn't possible
+     * in the current state of the layer, and it should be painted normally.
+     */
+    protected boolean blendDirectly(BufferedImage dst, Composite composite) {
+        return false;
+    }
+
+    /**
+     * Returns true if this layer can be rendered on a Graphics2D that
+     * covers only a part of the canvas, which isn't the case for layers
+     * that transform the whole composite image (adjustment layers and
+     * watermarking text layers).
+     */
+    public boolean canRenderInTiles() {
+        return !isAdjustment;
+    }
+
     /**
      * Paints the layer content on the given Graphics2D.
      * Called by non-adjustment layers.
@@ -750,7 +777,7 @@ public abstract class Layer implements Serializable, Debuggable {
     public abstract void paint(Graphics2D g, boolean firstVisibleLayer);
 
     // paints the layer content applying its mask
-    private void paintWithMask(Graphics2D g, boolean firstVisibleLayer) {
+    private void paintWithMask(Graphics2D g, BufferedImage currentComposite, boolean firstVisibleLayer) {
         int w = comp.getCanvasWidth();
         int h = comp.getCanvasHeight();
 
@@ -760,14 +787,15 @@ public abstract class Layer implements Serializable, Debuggable {
             cachedMaskedImage = new BufferedImage(w, h, TYPE_INT_ARGB);
             Graphics2D maskG = cachedMaskedImage.createGraphics();
             paint(maskG, firstVisibleLayer);
-            maskG.setComposite(DstIn);
-            maskG.drawImage(mask.getTransparencyImage(),
-                mask.getTx(), mask.getTy(), null);
             maskG.dispose();
+            mask.applyTo(cachedMaskedImage, mask.getTx(), mask.getTy());
         }
 
         // 2. paint the masked image onto the graphics
-        g.drawImage(cachedMaskedImage, 0, 0, null);
+        if (!canBlendDirectly(g, currentComposite)
+            || !PackedBlender.blend(cachedMaskedImage, 0, 0, currentComposite, g.getComposite())) {
+            g.drawImage(cachedMaskedImage, 0, 0, null);
+        }
     }
 
     public void invalidateMaskedImageCache() {
@@ -796,7 +824,10 @@ public abstract class Layer implements Serializable, Debuggable {
         } else {
             Graphics2D g = currentComposite.createGraphics();
             setupComposite(g, firstVisibleLayer);
-            g.drawImage(transformed, 0, 0, null);
+            if (!canBlendDirectly(g, currentComposite)
+                || !PackedBlender.blend(transformed, 0, 0, currentComposite, g.getComposite())) {
+                g.drawImage(transformed, 0, 0, null);
+            }
             g.dispose();
             return currentComposite;
         }
@@ -948,7 +979,7 @@ public abstract class Layer implements Serializable, Debuggable {
         }
 
         if (applyMask && usesMask()) {
-            paintWithMask(g, true);
+            paintWithMask(g, null, true);
         } else {
             paint(g, true);
         }
@@ -24,6 +24,7 @@ import pixelitor.gui.utils.GUIUtils;
 import pixelitor.gui.utils.TaskAction;
 import pixelitor.gui.utils.Themes;
 import pixelitor.utils.Icons;
+import pixelitor.utils.Messages;
 import pixelitor.utils.Thumbnails;
 import pixelitor.utils.debug.Debug;
 import pixelitor.utils.debug.DebugNode;
@@ -38,7 +39,9 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import static java.awt.RenderingHints.KEY_ANTIALIASING;
@@ -86,6 +89,11 @@ public class LayerGUI extends JToggleButton implements LayerUI {
 
     private DragReorderHandler dragReorderHandler;
 
+    // the layers or masks whose icons are currently being created
+    // asynchronously, and those that changed since their creation started
+    private final Set<Layer> iconsInProgress = new HashSet<>(2);
+    private final Set<Layer> iconsOutdated = new HashSet<>(2);
+
     /**
      * The Y coordinate in the parent when it is not being dragged.
      */
@@ -451,9 +459,26 @@ public class LayerGUI extends JToggleButton implements LayerUI {
             return;
         }
 
+        // Coalesce the requests: while a thumbnail is being created,
+        // further requests only schedule one more update at the end.
+        if (iconsInProgress.contains(layerOrMask)) {
+            iconsOutdated.add(layerOrMask);
+            return;
+        }
+        iconsInProgress.add(layerOrMask);
+
         CompletableFuture.supplyAsync(layerOrMask::createIconThumbnail)
-            .thenAcceptAsync(thumb ->
-                updateIconOnEDT(layerOrMask, thumb), EventQueue::invokeLater);
+            .whenCompleteAsync((thumb, e) -> {
+                iconsInProgress.remove(layerOrMask);
+                if (e != null) {
+                    Messages.showException(e);
+                } else if (thumb != null) {
+                    updateIconOnEDT(layerOrMask, thumb);
+                }
+                if (iconsOutdated.remove(layerOrMask)) {
+                    updateIconImageAsync(layerOrMask);
+                }
+            }, EventQueue::invokeLater);
     }
 
     private void updateIconOnEDT(Layer layerOrMask, BufferedImage thumb) {
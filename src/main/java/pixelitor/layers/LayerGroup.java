@@ -18,8 +18,10 @@
 package pixelitor.layers;
 
 
+import pixelitor.Canvas;
 import pixelitor.Composition;
 import pixelitor.CopyOptions;
+import pixelitor.ThreadPool;
 import pixelitor.compactions.FlipDirection;
 import pixelitor.compactions.Outsets;
 import pixelitor.compactions.QuadrantAngle;
@@ -149,14 +151,37 @@ public class LayerGroup extends CompositeLayer {
         return currentComposite;
     }
 
+    @Override
+    public boolean canRenderInTiles() {
+        if (!isPassThrough()) {
+            // isolated groups are painted from their own canvas-sized cached image
+            return true;
+        }
+        for (Layer layer : layers) {
+            if (layer.isVisible() && !layer.canRenderInTiles()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private BufferedImage renderPassThrough(Graphics2D g, BufferedImage currentComposite, boolean firstVisibleLayer) {
         // Apply the layers as if they were directly in the parent holder.
         // The algorithm is similar to ImageUtils.calcComposite(),
         // but here we have to consider the existing state of the composition.
-        for (Layer layer : layers) {
+        for (int i = 0; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
             if (!layer.isVisible()) {
                 continue;
             }
+            if (!firstVisibleLayer) {
+                var fused = FusedAdjustments.collect(layers, i, currentComposite);
+                if (fused != null) {
+                    fused.applyTo(currentComposite);
+                    i += fused.getNumLayers() - 1;
+                    continue;
+                }
+            }
             BufferedImage result = layer.render(g, currentComposite, firstVisibleLayer);
             if (result != null) { // adjustment layer or watermarking text layer
                 currentComposite = result;
@@ -178,14 +203,78 @@ public class LayerGroup extends CompositeLayer {
         if (isPassThrough()) {
             cachedImage = null;
         } else {
-            cachedImage = ImageUtils.calcComposite(layers, comp.getCanvas());
-            if (needsIconUpdate) {
-                updateIconImage();
-                needsIconUpdate = false;
+            setCachedImage(ImageUtils.calcComposite(layers, comp.getCanvas()));
+        }
+    }
+
+    private void setCachedImage(BufferedImage newImage) {
+        cachedImage = newImage;
+        if (needsIconUpdate) {
+            updateIconImage();
+            needsIconUpdate = false;
+        }
+    }
+
+    /**
+     * Calculates the missing cached images of the visible isolated groups
+     * among the given layers (also looking into pass-through groups) in
+     * parallel, so that the following sequential compositing finds them
+     * ready. The sibling groups are independent, because each one is
+     * composited only from its own subtree.
+     */
+    public static void prepareCachedImages(List<Layer> layers, Canvas canvas) {
+        List<LayerGroup> groups = new ArrayList<>();
+        collectGroupsToRender(layers, groups);
+        if (groups.size() < 2) {
+            // a single group is calculated when it's rendered,
+            // and its own child groups can still be prepared in parallel
+            return;
+        }
+
+        BufferedImage[] images = new BufferedImage[groups.size()];
+        Runnable[] tasks = new Runnable[groups.size()];
+        for (int i = 0; i < tasks.length; i++) {
+            int groupIndex = i;
+            List<Layer> groupLayers = groups.get(i).layers;
+            tasks[i] = () -> images[groupIndex] = ImageUtils.calcComposite(groupLayers, canvas);
+        }
+        ThreadPool.runInParallel(tasks);
+
+        // the icons can only be updated on the calling thread
+        for (int i = 0; i < images.length; i++) {
+            groups.get(i).setCachedImage(images[i]);
+        }
+    }
+
+    private static void collectGroupsToRender(List<Layer> layers, List<LayerGroup> groups) {
+        for (Layer layer : layers) {
+            if (layer.isVisible() && layer instanceof LayerGroup group) {
+                if (group.isPassThrough()) {
+                    collectGroupsToRender(group.layers, groups);
+                } else if (group.cachedImage == null && group.canRenderConcurrently()) {
+                    groups.add(group);
+                }
             }
         }
     }
 
+    // Returns true if the subtree can be rendered on a pool thread. Smart
+    // objects are excluded, because their contents can be shared, and so
+    // are the nested groups with postponed icon updates, because the
+    // icons must be updated on the calling thread.
+    private boolean canRenderConcurrently() {
+        for (Layer layer : layers) {
+            if (layer instanceof SmartObject) {
+                return false;
+            }
+            if (layer instanceof LayerGroup group
+                && (group.needsIconUpdate || !group.canRenderConcurrently())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void invalidateImageCache() {
         if (cachedImage != null) {
@@ -18,6 +18,7 @@
 package pixelitor.layers;
 
 import pixelitor.Composition;
+import pixelitor.ThreadPool;
 import pixelitor.colors.Colors;
 import pixelitor.history.History;
 import pixelitor.history.ImageEdit;
@@ -32,12 +33,19 @@ import pixelitor.utils.debug.DebugNode;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import java.io.Serial;
 
 import static java.awt.AlphaComposite.DstIn;
 import static java.awt.image.BufferedImage.TYPE_BYTE_GRAY;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
 import static pixelitor.utils.ImageUtils.isGrayscale;
 import static pixelitor.utils.Thumbnails.createThumbnail;
 
@@ -106,10 +114,91 @@ public class LayerMask extends ImageLayer {
      * Applies this mask to the given image, modifying its alpha channel.
      */
     public void applyTo(BufferedImage in) {
-        Graphics2D g = in.createGraphics();
-        g.setComposite(DstIn);
-        g.drawImage(getTransparencyImage(), 0, 0, null);
-        g.dispose();
+        applyTo(in, 0, 0);
+    }
+
+    /**
+     * Applies this mask, placed at the given position, to the given image.
+     * The alpha channel of packed int images is multiplied by the mask
+     * values directly, without going through the transparency image.
+     */
+    public void applyTo(BufferedImage in, int maskX, int maskY) {
+        BufferedImage maskImage = getTransparencyImage();
+        if (!multiplyAlpha(in, maskImage.getRaster(), maskX, maskY)) {
+            Graphics2D g = in.createGraphics();
+            g.setComposite(DstIn);
+            g.drawImage(maskImage, maskX, maskY, null);
+            g.dispose();
+        }
+    }
+
+    // Multiplies the pixels of the given image by the given gray mask values in
+    // the area covered by the mask, like the DstIn composite, with the area
+    // outside the mask left unchanged. Returns false if the rasters aren't supported.
+    private static boolean multiplyAlpha(BufferedImage img, Raster maskRaster, int maskX, int maskY) {
+        int type = img.getType();
+        if ((type != TYPE_INT_ARGB && type != TYPE_INT_ARGB_PRE)
+            || !(img.getRaster().getDataBuffer() instanceof DataBufferInt imgBuffer)
+            || !(img.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel imgModel)
+            || !(maskRaster.getDataBuffer() instanceof DataBufferByte maskBuffer)
+            || !(maskRaster.getSampleModel() instanceof ComponentSampleModel maskModel)
+            || maskModel.getNumBands() != 1) {
+            return false;
+        }
+
+        Rectangle area = new Rectangle(maskX, maskY, maskRaster.getWidth(), maskRaster.getHeight())
+            .intersection(new Rectangle(0, 0, img.getWidth(), img.getHeight()));
+        if (area.isEmpty()) {
+            return true;
+        }
+
+        WritableRaster imgRaster = img.getRaster();
+        int[] pixels = imgBuffer.getData();
+        int stride = imgModel.getScanlineStride();
+        int imgStart = imgBuffer.getOffset()
+            + (area.y - imgRaster.getSampleModelTranslateY()) * stride
+            + area.x - imgRaster.getSampleModelTranslateX();
+
+        byte[] maskPixels = maskBuffer.getData();
+        int maskStride = maskModel.getScanlineStride();
+        int maskPixelStride = maskModel.getPixelStride();
+        int maskStart = maskBuffer.getOffset() + maskModel.getOffset(
+            area.x - maskX - maskRaster.getSampleModelTranslateX(),
+            area.y - maskY - maskRaster.getSampleModelTranslateY(), 0);
+
+        boolean premultiplied = img.isAlphaPremultiplied();
+        ThreadPool.processBands(area.height, (startY, endY) -> {
+            for (int y = startY; y < endY; y++) {
+                int index = imgStart + y * stride;
+                int maskIndex = maskStart + y * maskStride;
+                for (int x = 0; x < area.width; x++, index++, maskIndex += maskPixelStride) {
+                    int maskValue = maskPixels[maskIndex] & 0xFF;
+                    int argb = pixels[index];
+                    if (maskValue == 255 || argb == 0) {
+                        continue;
+                    }
+                    int newAlpha = mul255(argb >>> 24, maskValue);
+                    if (newAlpha == 0) {
+                        pixels[index] = 0;
+                    } else if (premultiplied) {
+                        pixels[index] = newAlpha << 24
+                            | mul255((argb >>> 16) & 0xFF, maskValue) << 16
+                            | mul255((argb >>> 8) & 0xFF, maskValue) << 8
+                            | mul255(argb & 0xFF, maskValue);
+                    } else {
+                        // the color of a non-premultiplied pixel doesn't change
+                        pixels[index] = newAlpha << 24 | (argb & 0x00_FF_FF_FF);
+                    }
+                }
+            }
+        });
+        return true;
+    }
+
+    // returns a * b / 255, rounded, for values between 0 and 255
+    private static int mul255(int a, int b) {
+        int t = a * b + 128;
+        return (t + (t >>> 8)) >>> 8;
     }
 
     /**
@@ -293,8 +382,7 @@ public class LayerMask extends ImageLayer {
     @Override
     public BufferedImage createIconThumbnail() {
         // same as for the image layer, but without checkerboard painter
-        BufferedImage bigImg = getCanvasSizedSubImage();
-        return createThumbnail(bigImg, null);
+        return createThumbnail(getIconSource(), null);
     }
 
     @Override
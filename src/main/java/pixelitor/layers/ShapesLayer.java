@@ -34,12 +34,15 @@ import pixelitor.tools.shapes.StyledShape;
 import pixelitor.tools.transform.TransformBox;
 import pixelitor.utils.ImageUtils;
 import pixelitor.utils.Messages;
+import pixelitor.utils.RasterCache;
 import pixelitor.utils.Thumbnails;
 import pixelitor.utils.debug.DebugNode;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.util.concurrent.CompletableFuture;
 
@@ -61,12 +64,23 @@ public class ShapesLayer extends ContentLayer {
     //   method would not be needed.
     private TransformBox transformBox;
 
-    private transient BufferedImage cachedImage;
+    // a raster of the shape, covering only its painted bounds
+    private transient RasterCache renderCache = new RasterCache();
 
     public ShapesLayer(Composition comp, String name) {
         super(comp, name);
     }
 
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        renderCache = new RasterCache();
+        if (styledShape != null) {
+            styledShape.setShapeChangeListener(renderCache::invalidate);
+        }
+    }
+
     /**
      * Creates a new shapes layer and adds it to the composition.
      */
@@ -105,23 +119,26 @@ public class ShapesLayer extends ContentLayer {
 
     @Override
     public void paint(Graphics2D g, boolean firstVisibleLayer) {
-        if (styledShape == null) {
+        if (!hasShape()) {
             return;
         }
-        // the custom blending modes don't work with shape-filling gradients
-        boolean needsCache = g.getComposite().getClass() != AlphaComposite.class
+
+        // The custom blending modes don't work with shape-filling gradients,
+        // so then the shape is painted from its raster even if the raster
+        // is scaled. Otherwise the raster is only used if it isn't scaled.
+        boolean needsImage = g.getComposite().getClass() != AlphaComposite.class
             && styledShape.hasBlendingIssue();
-        if (needsCache) {
-            if (cachedImage == null) {
-                cachedImage = ImageUtils.createSysCompatibleImage(comp.getCanvas());
-                Graphics2D imgG = cachedImage.createGraphics();
-                styledShape.paint(imgG);
-                imgG.dispose();
-            }
-            g.drawImage(cachedImage, 0, 0, null);
-        } else {
+        if (!needsImage && !RasterCache.canPaintWith(g.getTransform())) {
             styledShape.paint(g);
+            return;
+        }
+
+        Rectangle cacheBounds = styledShape.getPaintedBounds()
+            .intersection(comp.getCanvas().getBounds());
+        if (cacheBounds.isEmpty()) {
+            return;
         }
+        renderCache.paint(g, cacheBounds, styledShape::paint);
     }
 
     @Override
@@ -247,12 +264,12 @@ public class ShapesLayer extends ContentLayer {
     public void setStyledShape(StyledShape styledShape) {
         this.styledShape = styledShape;
 
+        renderCache.invalidate();
+
         // register a listener to invalidate the layer's
         // image cache when the styled shape changes
         if (styledShape != null) {
-            styledShape.setShapeChangeListener(() -> cachedImage = null);
-        } else {
-            cachedImage = null; // clear the cache if the shape is removed
+            styledShape.setShapeChangeListener(renderCache::invalidate);
         }
     }
 
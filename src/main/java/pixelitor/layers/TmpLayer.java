@@ -78,6 +78,10 @@ public class TmpLayer {
         return g;
     }
 
+    public BufferedImage getImage() {
+        return image;
+    }
+
     public boolean hasSmallImage() {
         return smallImage;
     }
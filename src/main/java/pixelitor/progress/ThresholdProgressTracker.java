@@ -17,6 +17,7 @@
 
 package pixelitor.progress;
 
+import pixelitor.AppMode;
 import pixelitor.utils.Threads;
 
 import java.awt.EventQueue;
@@ -67,11 +68,7 @@ public abstract class ThresholdProgressTracker implements ProgressTracker {
         if (!isProgressVisible) {
             double elapsedTime = System.currentTimeMillis() - startTimeMillis;
             if (elapsedTime > VISIBILITY_THRESHOLD_MS) {
-                if (Threads.calledOnEDT()) {
-                    onProgressStart();
-                } else {
-                    EventQueue.invokeLater(this::onProgressStart);
-                }
+                runOnEDT(this::onProgressStart);
                 isProgressVisible = true;
             }
         }
@@ -80,11 +77,7 @@ public abstract class ThresholdProgressTracker implements ProgressTracker {
         if (isProgressVisible) {
             int currentPercent = (int) (completedUnits * 100.0 / numTotalUnits);
             if (currentPercent > lastReportedPercent) {
-                if (Threads.calledOnEDT()) {
-                    onProgressUpdate(currentPercent);
-                } else {
-                    EventQueue.invokeLater(() -> onProgressUpdate(currentPercent));
-                }
+                runOnEDT(() -> onProgressUpdate(currentPercent));
                 lastReportedPercent = currentPercent;
             }
         }
@@ -93,16 +86,22 @@ public abstract class ThresholdProgressTracker implements ProgressTracker {
     @Override
     public void finished() {
         if (isProgressVisible) {
-            if (Threads.calledOnEDT()) {
-                onProgressComplete();
-            } else {
-                EventQueue.invokeLater(this::onProgressComplete);
-            }
+            runOnEDT(this::onProgressComplete);
             isProgressVisible = false;
             lastReportedPercent = 0;
         }
     }
 
+    // in headless mode the callbacks run on the calling
+    // thread, because there is no GUI to update
+    private static void runOnEDT(Runnable task) {
+        if (Threads.calledOnEDT() || AppMode.isHeadless()) {
+            task.run();
+        } else {
+            EventQueue.invokeLater(task);
+        }
+    }
+
     /**
      * Called when progress tracking should become visible.
      * This is called on the EDT after the time threshold is exceeded.
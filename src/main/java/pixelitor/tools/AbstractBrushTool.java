@@ -105,9 +105,14 @@ public abstract class AbstractBrushTool extends Tool {
     private JButton showLazyMouseDialogButton;
 
     // current brush outline coordinates in component space
-    // (lags behind the mouse if lazy mouse is enabled)
-    private int outlineCoX;
-    private int outlineCoY;
+    // (lags behind the mouse if lazy mouse is enabled, in which
+    // case they can be updated by the painter thread)
+    private volatile int outlineCoX;
+    private volatile int outlineCoY;
+
+    // true if the dragged points of the current brush
+    // stroke are painted on the StrokePainter's thread
+    private boolean paintingAsync;
 
     private final BrushOutlinePainter brushPainter = new BrushOutlinePainter(DEFAULT_BRUSH_RADIUS);
 
@@ -272,22 +277,49 @@ public abstract class AbstractBrushTool extends Tool {
                 affectedArea.startStrokeAt(e);
             }
         }
+
+        paintingAsync = brushContext != null && canPaintAsync();
     }
 
     @Override
     public void mouseDragged(PMouseEvent e) {
-        processStrokePoint(e, false); // continue the stroke
+        if (paintingAsync) {
+            // the EDT only queues the point, so that it can
+            // keep receiving mouse events while the dabs are painted
+            StrokePainter.submitPoint(() -> continueStrokeTo(e));
+        } else {
+            continueStrokeTo(e);
+        }
+
+        if (!lazyMouse) {
+            outlineCoX = (int) e.getCoX();
+            outlineCoY = (int) e.getCoY();
+        }
+    }
+
+    private void continueStrokeTo(PMouseEvent e) {
+        processStrokePoint(e, false);
 
         if (lazyMouse) {
             PPoint drawLoc = lazyMouseBrush.getDrawLocation();
             outlineCoX = (int) drawLoc.getCoX();
             outlineCoY = (int) drawLoc.getCoY();
-        } else {
-            outlineCoX = (int) e.getCoX();
-            outlineCoY = (int) e.getCoY();
         }
     }
 
+    /**
+     * Returns true if the dragged points of the stroke can be painted
+     * outside the EDT. This isn't the case for brushes that also paint
+     * on the EDT, and in unit tests, which expect synchronous painting.
+     */
+    private boolean canPaintAsync() {
+        if (AppMode.isUnitTesting()) {
+            return false;
+        }
+        // the spray brush also paints from a Swing timer
+        return !hasBrushType() || getBrushType() != BrushType.SPRAY;
+    }
+
     @Override
     public void mouseReleased(PMouseEvent e) {
         if (brushContext == null) {
@@ -295,13 +327,13 @@ public abstract class AbstractBrushTool extends Tool {
             return;
         }
 
+        finishBrushStroke();
+
         // regardless of whether lazy mouse is enabled, reset
         // the outline back to the actual mouse coordinates
         outlineCoX = (int) e.getCoX();
         outlineCoY = (int) e.getCoY();
 
-        finishBrushStroke();
-
         // repaint needed if lazy mouse caused drawing lag
         if (lazyMouse) {
             e.getView().repaint();
@@ -378,12 +410,21 @@ public abstract class AbstractBrushTool extends Tool {
     private void finishBrushStroke() {
         assert brushContext != null;
 
+        if (paintingAsync) {
+            paintingAsync = false;
+            StrokePainter.waitForPendingTasks();
+        }
+
         Drawable dr = brushContext.getDrawable();
+        BrushContext context = brushContext;
 
         brush.finishBrushStroke();
+        // calculated before the history edit, which translates its rectangle
+        Rectangle changedRegion = affectedArea.toRectangle(brush.getMaxEffectiveRadius());
         addBrushStrokeToHistory(dr);
 
-        brushContext.finish();
+        // the stroke changed the composite image only in the repainted regions
+        dr.getComp().updateRegionally(() -> context.finish(changedRegion));
         brushContext = null;
     }
 
@@ -454,7 +495,13 @@ public abstract class AbstractBrushTool extends Tool {
 
     private void updateDrawingRadius() {
         int newRadius = getRadius();
-        brush.setRadius(newRadius);
+        if (paintingAsync) {
+            // changed with the keyboard while painting
+            Brush strokeBrush = brush;
+            StrokePainter.submit(() -> strokeBrush.setRadius(newRadius));
+        } else {
+            brush.setRadius(newRadius);
+        }
 
         brushPainter.setRadius(newRadius);
         if (paintBrushOutline) {
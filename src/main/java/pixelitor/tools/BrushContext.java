@@ -26,6 +26,7 @@ import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Composite;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
 import static java.awt.AlphaComposite.DST_OUT;
@@ -71,6 +72,7 @@ public class BrushContext {
         graphics.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
 
         brush.setTarget(dr, graphics);
+        brush.setTargetImage(drawTarget.getTargetImage(dr));
     }
 
     public BufferedImage getOriginalImage() {
@@ -87,14 +89,15 @@ public class BrushContext {
     }
 
     /**
-     * Disposes graphics resources and finalizes the drawing on the target drawable.
+     * Disposes graphics resources and finalizes the drawing on the target
+     * drawable. The given canvas region contains all the painted pixels.
      */
-    public void finish() {
+    public void finish(Rectangle changedRegion) {
         graphics.dispose();
 
         drawTarget.finishBrushStroke(dr, originalImage);
         dr.update();
-        dr.updateIconImage();
+        dr.updateIconImage(changedRegion);
     }
 
     /**
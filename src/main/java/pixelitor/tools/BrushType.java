@@ -18,6 +18,7 @@
 package pixelitor.tools;
 
 import pixelitor.tools.brushes.*;
+import pixelitor.tools.shapes.ShapeType;
 
 import java.util.IdentityHashMap;
 import java.util.function.Supplier;
@@ -115,6 +116,19 @@ public enum BrushType {
 
     public abstract Brush createBrush(AbstractBrushTool tool, double radius);
 
+    /**
+     * Returns true if several brushes of this type can paint on different
+     * threads at the same time, which isn't the case if they share some
+     * mutable state (the stroke history, a timer or a random shape).
+     */
+    public boolean canPaintConcurrently(AbstractBrushTool tool) {
+        return switch (this) {
+            case SPRAY, CONNECT, WOBBLE -> false;
+            case SHAPE -> ((ShapeDabsBrushSettings) getSettings(tool)).getShapeType() != ShapeType.RANDOM_STAR;
+            default -> true;
+        };
+    }
+
     @Override
     public String toString() {
         return displayName;
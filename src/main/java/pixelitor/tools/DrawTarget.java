@@ -40,6 +40,11 @@ public enum DrawTarget {
             return dr.createTmpLayer(composite, false).getGraphics();
         }
 
+        @Override
+        public BufferedImage getTargetImage(Drawable dr) {
+            return dr.getTmpLayer().getImage();
+        }
+
         @Override
         public BufferedImage prepareForBrushStroke(Drawable dr) {
             // it can simply return the drawable's image because
@@ -64,6 +69,11 @@ public enum DrawTarget {
             return dr.getCanvasSizedSubImage().createGraphics();
         }
 
+        @Override
+        public BufferedImage getTargetImage(Drawable dr) {
+            return dr.getCanvasSizedSubImage();
+        }
+
         @Override
         public BufferedImage prepareForBrushStroke(Drawable dr) {
             BufferedImage image = dr.getImage();
@@ -82,6 +92,12 @@ public enum DrawTarget {
 
     public abstract Graphics2D createGraphics(Drawable dr, Composite composite);
 
+    /**
+     * Returns the image that the graphics created by
+     * {@link #createGraphics(Drawable, Composite)} draws on.
+     */
+    public abstract BufferedImage getTargetImage(Drawable dr);
+
     /**
      * Returns the backup/original image for undo support.
      */
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.tools;
+
+import pixelitor.ThreadPool;
+import pixelitor.layers.Drawable;
+import pixelitor.tools.util.PPoint;
+import pixelitor.tools.util.PRectangle;
+
+import java.awt.EventQueue;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Renders the dragged parts of brush strokes on a dedicated painter
+ * thread, so that expensive brushes don't block the event dispatch
+ * thread, and the mouse events are not coalesced while the EDT is busy.
+ *
+ * The points are painted in the order they were received. The repaints
+ * requested by the brushes on the painter thread (or on the pool threads
+ * painting the mirrors of a symmetry brush) are merged and forwarded
+ * to the EDT, where the layers and the view are updated.
+ * <p>
+ * At most {@link #MAX_QUEUED_POINTS} points wait for the painter thread.
+ * If it falls further behind, the last waiting point is replaced by the
+ * new one, so that finishing the stroke never has to wait for long.
+ * <p>
+ * Until the stroke is finished, the brush, the drawable (with its
+ * temporary drawing layer) and the other state used by the brushes are
+ * changed only by the painter thread. The key events, which can trigger
+ * any action while the mouse is dragged, are dispatched only after the
+ * queued operations are finished (see {@link #waitUntilIdle()}).
+ * The only code that runs concurrently with the painting is the code
+ * on the EDT that reads the pixels (compositing and painting the view),
+ * and it runs between the painted points through {@link #runExclusively(Runnable)}.
+ */
+public final class StrokePainter {
+    private static volatile Thread painterThread;
+
+    private static final ExecutorService painter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Brush Painter");
+        thread.setDaemon(true);
+        painterThread = thread;
+        return thread;
+    });
+
+    // held by the painter thread while it paints, and by the EDT
+    // while it accesses the pixels that could be painted
+    private static final ReentrantLock paintLock = new ReentrantLock();
+
+    // the maximum number of stroke points waiting for the painter thread
+    private static final int MAX_QUEUED_POINTS = 16;
+
+    private record QueuedTask(Runnable task, boolean isPoint) {
+    }
+
+    // the operations waiting for the painter thread, guarded by itself
+    private static final Deque<QueuedTask> queue = new ArrayDeque<>();
+    private static int numQueuedPoints;
+
+    // true while the painter thread is processing the queue
+    private static boolean draining;
+
+    // the last scheduled processing of the queue, only accessed on the EDT
+    private static Future<?> lastTask;
+
+    // the first failure of the current stroke, accessed on the
+    // EDT only after all the submitted tasks are finished
+    private static RuntimeException failure;
+
+    // true on the pool threads while they paint parts of a stroke
+    private static final ThreadLocal<Boolean> paintingInPool = ThreadLocal.withInitial(() -> false);
+
+    // the drawable and the image-space region that were painted
+    // on the painter thread, but not yet repainted on the EDT
+    private static Drawable dirtyDrawable;
+    private static Rectangle dirtyRegion;
+
+    private StrokePainter() {
+        // should not be instantiated
+    }
+
+    /**
+     * Schedules the painting of a stroke point on the painter thread
+     * after the previously submitted operations. If too many points are
+     * waiting, then the last waiting point is skipped, and the stroke goes
+     * straight to the new point, like with coalesced mouse events.
+     * Must be called on the EDT.
+     */
+    public static void submitPoint(Runnable paintPoint) {
+        enqueue(paintPoint, true);
+    }
+
+    /**
+     * Schedules the given brush operation to run on the painter thread
+     * after the previously submitted ones. Unlike the points, it's never
+     * skipped. Must be called on the EDT.
+     */
+    public static void submit(Runnable task) {
+        enqueue(task, false);
+    }
+
+    private static void enqueue(Runnable task, boolean isPoint) {
+        assert EventQueue.isDispatchThread();
+
+        synchronized (queue) {
+            if (isPoint && numQueuedPoints >= MAX_QUEUED_POINTS && queue.getLast().isPoint()) {
+                queue.removeLast();
+                numQueuedPoints--;
+            }
+            queue.addLast(new QueuedTask(task, isPoint));
+            if (isPoint) {
+                numQueuedPoints++;
+            }
+            if (!draining) {
+                draining = true;
+                lastTask = painter.submit(StrokePainter::drainQueue);
+            }
+        }
+    }
+
+    // runs the queued operations on the painter thread until the queue is empty
+    private static void drainQueue() {
+        while (true) {
+            QueuedTask next;
+            synchronized (queue) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+                if (next.isPoint()) {
+                    numQueuedPoints--;
+                }
+            }
+            if (failure != null) {
+                continue; // the rest of a failed stroke is skipped
+            }
+            paintLock.lock();
+            try {
+                next.task().run();
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                paintLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs the given task while no stroke points are painted. The painting
+     * of the current point is finished first, but the further queued
+     * points are painted only after the task.
+     */
+    public static void runExclusively(Runnable task) {
+        callExclusively(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the result of the given task, which is
+     * run like in {@link #runExclusively(Runnable)}.
+     */
+    public static <T> T callExclusively(Supplier<T> task) {
+        if (paintingInPool.get()) {
+            // the painter thread holds the lock while it waits for this thread
+            return task.get();
+        }
+        paintLock.lock();
+        try {
+            return task.get();
+        } finally {
+            paintLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all submitted operations are finished, and applies
+     * their repaints. After this returns, the brush state can be safely
+     * accessed on the EDT. Exceptions thrown on the painter thread are rethrown here.
+     */
+    public static void waitForPendingTasks() {
+        waitUntilIdle();
+
+        // no tasks are running now, so the field can be accessed here
+        if (failure != null) {
+            RuntimeException e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until all submitted operations are finished, and applies their
+     * repaints, but unlike {@link #waitForPendingTasks()}, it can be called
+     * in the middle of a stroke. After this returns, the EDT can change the
+     * state used by the brushes, because the painter thread stays idle
+     * until the next operation is submitted. Does nothing if there are no
+     * submitted operations.
+     */
+    public static void waitUntilIdle() {
+        assert EventQueue.isDispatchThread();
+        if (lastTask == null) {
+            return;
+        }
+        // the painter thread would wait for this thread forever
+        assert !paintLock.isHeldByCurrentThread();
+
+        try {
+            // the queue is processed in order, and the last
+            // processing ends only after the queue is emptied
+            lastTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            lastTask = null;
+        }
+
+        flushRepaints();
+    }
+
+    /**
+     * Runs the given brush operations, which must paint disjoint regions
+     * of the same target, in parallel on the {@link ThreadPool}.
+     * Their repaints are deferred like on the painter thread.
+     */
+    public static void paintInParallel(Runnable[] tasks) {
+        Runnable[] poolTasks = new Runnable[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            Runnable task = tasks[i];
+            poolTasks[i] = () -> {
+                // the calling thread also runs a task, so the flag is restored
+                boolean wasPaintingInPool = paintingInPool.get();
+                paintingInPool.set(true);
+                try {
+                    task.run();
+                } finally {
+                    paintingInPool.set(wasPaintingInPool);
+                }
+            };
+        }
+        ThreadPool.runInParallel(poolTasks);
+
+        if (EventQueue.isDispatchThread()) {
+            // no need to wait for the scheduled flush
+            flushRepaints();
+        }
+    }
+
+    /**
+     * Repaints the region between the given points, or defers it to
+     * the EDT if called on the painter thread. Brushes should call this
+     * instead of calling {@link Drawable#repaintRegion} directly.
+     */
+    public static void repaintRegion(Drawable dr, PPoint start, PPoint end, double thickness) {
+        if (shouldDeferRepaints()) {
+            addDirtyRegion(dr, PPoint.calcImBounds(start, end, thickness));
+        } else {
+            dr.repaintRegion(start, end, thickness);
+        }
+    }
+
+    /**
+     * Repaints the given area, or defers it to the EDT if called on the painter thread.
+     */
+    public static void repaintRegion(Drawable dr, PRectangle area) {
+        if (shouldDeferRepaints()) {
+            addDirtyRegion(dr, area.getIm().getBounds());
+        } else {
+            dr.repaintRegion(area);
+        }
+    }
+
+    private static boolean shouldDeferRepaints() {
+        return Thread.currentThread() == painterThread || paintingInPool.get();
+    }
+
+    private static void addDirtyRegion(Drawable dr, Rectangle imRegion) {
+        boolean flushNeeded;
+        synchronized (StrokePainter.class) {
+            flushNeeded = dirtyRegion == null;
+            if (flushNeeded) {
+                dirtyDrawable = dr;
+                dirtyRegion = imRegion;
+            } else {
+                assert dirtyDrawable == dr;
+                dirtyRegion.add(imRegion);
+            }
+        }
+        if (flushNeeded) {
+            // the regions painted until the EDT gets to
+            // this are merged into a single repaint
+            EventQueue.invokeLater(StrokePainter::flushRepaints);
+        }
+    }
+
+    private static void flushRepaints() {
+        Drawable dr;
+        Rectangle region;
+        synchronized (StrokePainter.class) {
+            dr = dirtyDrawable;
+            region = dirtyRegion;
+            dirtyDrawable = null;
+            dirtyRegion = null;
+        }
+        if (dr != null) {
+            dr.repaintRegion(PRectangle.fromIm(region, dr.getComp().getView()));
+        }
+    }
+}
@@ -19,10 +19,12 @@ package pixelitor.tools.brushes;
 
 import pixelitor.layers.Drawable;
 import pixelitor.tools.AbstractBrushTool;
+import pixelitor.tools.StrokePainter;
 import pixelitor.tools.util.PPoint;
 import pixelitor.utils.debug.DebugNode;
 
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.Objects;
 
 /**
@@ -32,6 +34,9 @@ public abstract class AbstractBrush implements Brush {
     protected Graphics2D targetG;
     protected Drawable dr;
 
+    // draws the stamps directly into the target image, if possible
+    private DabCompositor dabCompositor;
+
     protected double radius = AbstractBrushTool.DEFAULT_BRUSH_RADIUS;
     protected double diameter;
 
@@ -65,6 +70,23 @@ public abstract class AbstractBrush implements Brush {
     public void setTarget(Drawable dr, Graphics2D g) {
         this.dr = Objects.requireNonNull(dr);
         targetG = Objects.requireNonNull(g);
+        dabCompositor = null;
+    }
+
+    @Override
+    public void setTargetImage(BufferedImage image) {
+        // the clip and the transform of the graphics are already set
+        dabCompositor = DabCompositor.create(image, targetG);
+    }
+
+    /**
+     * Draws the given stamp image with its top left corner at the given
+     * position, using the current composite of the target graphics.
+     */
+    protected void drawStamp(BufferedImage stamp, int x, int y) {
+        if (dabCompositor == null || !dabCompositor.draw(stamp, x, y, targetG.getComposite())) {
+            targetG.drawImage(stamp, x, y, null);
+        }
     }
 
     /**
@@ -73,7 +95,7 @@ public abstract class AbstractBrush implements Brush {
      * Should be called *before* updating the previous point with {@link #setPrevious(PPoint)}.
      */
     protected void repaintComp(PPoint p) {
-        dr.repaintRegion(previous, p, diameter);
+        StrokePainter.repaintRegion(dr, previous, p, diameter);
     }
 
     /**
@@ -22,6 +22,7 @@ import pixelitor.tools.util.PPoint;
 import pixelitor.utils.debug.Debuggable;
 
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
 /**
  * The behavior of a brush used for drawing on a {@link Drawable}.
@@ -93,6 +94,12 @@ public interface Brush extends Debuggable {
      */
     void setTarget(Drawable dr, Graphics2D g);
 
+    /**
+     * Sets the image that the target Graphics2D draws on,
+     * which allows drawing the dabs directly into its pixels.
+     */
+    void setTargetImage(BufferedImage image);
+
     /**
      * Sets the radius of the brush.
      */
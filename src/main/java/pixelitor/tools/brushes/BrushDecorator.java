@@ -22,6 +22,7 @@ import pixelitor.tools.util.PPoint;
 import pixelitor.utils.debug.DebugNode;
 
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
 /**
  * A base class for brush decorators.
@@ -89,6 +90,11 @@ public abstract class BrushDecorator implements Brush {
         delegate.setTarget(dr, g);
     }
 
+    @Override
+    public void setTargetImage(BufferedImage image) {
+        delegate.setTargetImage(image);
+    }
+
     @Override
     public void setRadius(double radius) {
         delegate.setRadius(radius);
@@ -117,11 +117,10 @@ public class CloneBrush extends CopyBrush {
 
     @Override
     public void putDab(PPoint currentPoint, double angle) {
-        var transform = AffineTransform.getTranslateInstance(
-            currentPoint.getImX() - radius,
-            currentPoint.getImY() - radius
-        );
-        targetG.drawImage(brushImage, transform, null);
+        // rounded like the nearest neighbor sampling of drawImage
+        int x = (int) Math.round(currentPoint.getImX() - radius);
+        int y = (int) Math.round(currentPoint.getImY() - radius);
+        drawStamp(brushImage, x, y);
         repaintComp(currentPoint);
     }
 
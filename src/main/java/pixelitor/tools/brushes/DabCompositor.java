@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.tools.brushes;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+import static java.awt.AlphaComposite.DST_OUT;
+import static java.awt.AlphaComposite.SRC_OVER;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+
+/**
+ * Composites brush stamps directly into the packed pixels of the target
+ * image. For small dabs, the validation and loop selection of each
+ * {@link Graphics2D#drawImage} call costs more than the blending itself.
+ * <p>
+ * It can only be used if the target's {@link Graphics2D} has no transform
+ * and at most a rectangular clip, and only for the source over (the
+ * painting brushes) and destination out (the eraser) composites.
+ */
+class DabCompositor {
+    private final int[] pixels;
+    private final int offset;
+    private final int stride;
+    private final boolean premultiplied;
+
+    // the drawable area in image coordinates: the image bounds and the clip
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+
+    private DabCompositor(BufferedImage image, Rectangle area) {
+        WritableRaster raster = image.getRaster();
+        pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
+        stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        // the index of the (0, 0) pixel, which also works for sub-images
+        offset = raster.getDataBuffer().getOffset()
+            - raster.getSampleModelTranslateY() * stride
+            - raster.getSampleModelTranslateX();
+        premultiplied = image.isAlphaPremultiplied();
+
+        minX = area.x;
+        minY = area.y;
+        maxX = area.x + area.width;
+        maxY = area.y + area.height;
+    }
+
+    /**
+     * Returns a compositor for the given target image, which is painted
+     * through the given {@link Graphics2D}, or null if the image or
+     * the graphics settings are not supported.
+     */
+    static DabCompositor create(BufferedImage image, Graphics2D g) {
+        if (image == null || !isSupported(image) || !g.getTransform().isIdentity()) {
+            return null;
+        }
+
+        Rectangle area = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+        Shape clip = g.getClip();
+        if (clip != null) {
+            if (!(clip instanceof Rectangle2D clipRect) || !isPixelAligned(clipRect)) {
+                return null;
+            }
+            area = area.intersection(clipRect.getBounds());
+        }
+        return new DabCompositor(image, area);
+    }
+
+    private static boolean isSupported(BufferedImage img) {
+        int type = img.getType();
+        return (type == TYPE_INT_ARGB || type == TYPE_INT_ARGB_PRE)
+            && img.getRaster().getDataBuffer() instanceof DataBufferInt
+            && img.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel;
+    }
+
+    // Java2D rounds the fractional clip edges to the pixel centers,
+    // so only the rectangles with integer coordinates are handled here
+    private static boolean isPixelAligned(Rectangle2D rect) {
+        return rect.getX() == Math.floor(rect.getX())
+            && rect.getY() == Math.floor(rect.getY())
+            && rect.getWidth() == Math.floor(rect.getWidth())
+            && rect.getHeight() == Math.floor(rect.getHeight());
+    }
+
+    /**
+     * Composites the given (non-premultiplied, packed ARGB) stamp with its top
+     * left corner at the given position. Returns false without drawing
+     * anything if the given stamp or composite isn't supported.
+     */
+    boolean draw(BufferedImage stamp, int x, int y, Composite composite) {
+        if (!(composite instanceof AlphaComposite ac)
+            || stamp.getType() != TYPE_INT_ARGB
+            || !(stamp.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+            return false;
+        }
+        int rule = ac.getRule();
+        if (rule != SRC_OVER && rule != DST_OUT) {
+            return false;
+        }
+        int extraAlpha = Math.round(ac.getAlpha() * 255);
+
+        int startX = Math.max(x, minX);
+        int startY = Math.max(y, minY);
+        int endX = Math.min(x + stamp.getWidth(), maxX);
+        int endY = Math.min(y + stamp.getHeight(), maxY);
+        if (startX >= endX || startY >= endY || extraAlpha == 0) {
+            return true; // nothing to draw
+        }
+
+        WritableRaster stampRaster = stamp.getRaster();
+        int[] stampPixels = ((DataBufferInt) stampRaster.getDataBuffer()).getData();
+        int stampStride = ((SinglePixelPackedSampleModel) stampRaster.getSampleModel()).getScanlineStride();
+        int stampOffset = stampRaster.getDataBuffer().getOffset()
+            - stampRaster.getSampleModelTranslateY() * stampStride
+            - stampRaster.getSampleModelTranslateX();
+
+        int width = endX - startX;
+        for (int dy = startY; dy < endY; dy++) {
+            int srcIndex = stampOffset + (dy - y) * stampStride + startX - x;
+            int dstIndex = offset + dy * stride + startX;
+            if (rule == SRC_OVER) {
+                srcOverRow(stampPixels, srcIndex, dstIndex, width, extraAlpha);
+            } else {
+                dstOutRow(stampPixels, srcIndex, dstIndex, width, extraAlpha);
+            }
+        }
+        return true;
+    }
+
+    private void srcOverRow(int[] src, int srcIndex, int dstIndex, int width, int extraAlpha) {
+        for (int i = 0; i < width; i++) {
+            int s = src[srcIndex + i];
+            int sa = mul255(s >>> 24, extraAlpha);
+            if (sa == 0) {
+                continue;
+            }
+            int sr = (s >>> 16) & 0xFF;
+            int sg = (s >>> 8) & 0xFF;
+            int sb = s & 0xFF;
+
+            int di = dstIndex + i;
+            int d = pixels[di];
+            int da = d >>> 24;
+            if (sa == 255 || da == 0) {
+                pixels[di] = premultiplied
+                    ? sa << 24 | mul255(sr, sa) << 16 | mul255(sg, sa) << 8 | mul255(sb, sa)
+                    : sa << 24 | (s & 0x00_FF_FF_FF);
+                continue;
+            }
+
+            int dr = (d >>> 16) & 0xFF;
+            int dg = (d >>> 8) & 0xFF;
+            int db = d & 0xFF;
+            int invSa = 255 - sa;
+            if (premultiplied) {
+                pixels[di] = (sa + mul255(da, invSa)) << 24
+                    | (mul255(sr, sa) + mul255(dr, invSa)) << 16
+                    | (mul255(sg, sa) + mul255(dg, invSa)) << 8
+                    | (mul255(sb, sa) + mul255(db, invSa));
+            } else {
+                // the weights of the source and destination colors, scaled by 255
+                int srcWeight = sa * 255;
+                int dstWeight = da * invSa;
+                int sum = srcWeight + dstWeight;
+                int half = sum / 2;
+                pixels[di] = ((sum + 127) / 255) << 24
+                    | ((sr * srcWeight + dr * dstWeight + half) / sum) << 16
+                    | ((sg * srcWeight + dg * dstWeight + half) / sum) << 8
+                    | ((sb * srcWeight + db * dstWeight + half) / sum);
+            }
+        }
+    }
+
+    private void dstOutRow(int[] src, int srcIndex, int dstIndex, int width, int extraAlpha) {
+        for (int i = 0; i < width; i++) {
+            int sa = mul255(src[srcIndex + i] >>> 24, extraAlpha);
+            if (sa == 0) {
+                continue;
+            }
+            int di = dstIndex + i;
+            int d = pixels[di];
+            int invSa = 255 - sa;
+            int newAlpha = mul255(d >>> 24, invSa);
+            if (newAlpha == 0) {
+                pixels[di] = 0;
+            } else if (premultiplied) {
+                pixels[di] = newAlpha << 24
+                    | mul255((d >>> 16) & 0xFF, invSa) << 16
+                    | mul255((d >>> 8) & 0xFF, invSa) << 8
+                    | mul255(d & 0xFF, invSa);
+            } else {
+                // the color of a non-premultiplied pixel doesn't change
+                pixels[di] = newAlpha << 24 | (d & 0x00_FF_FF_FF);
+            }
+        }
+    }
+
+    // returns a * b / 255, rounded, for values between 0 and 255
+    private static int mul255(int a, int b) {
+        int t = a * b + 128;
+        return (t + (t >>> 8)) >>> 8;
+    }
+}
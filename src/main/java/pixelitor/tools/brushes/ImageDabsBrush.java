@@ -20,44 +20,72 @@ package pixelitor.tools.brushes;
 import pixelitor.tools.util.PPoint;
 import pixelitor.utils.ImageUtils;
 
-import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 import static java.awt.RenderingHints.KEY_INTERPOLATION;
 import static java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR;
-import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_BYTE_GRAY;
 
 /**
  * A {@link DabsBrush} that uses images as dabs.
  */
 public class ImageDabsBrush extends DabsBrush {
-    private static final Map<ImageBrushType, BufferedImage> templateImages
+    // the templates are scaled down from the nearest bigger
+    // level, so the levels don't have to be smaller than this
+    private static final int MIN_PYRAMID_LEVEL_SIZE = 16;
+
+    // the template images and their halved versions for each type
+    private static final Map<ImageBrushType, BufferedImage[]> templatePyramids
         = new EnumMap<>(ImageBrushType.class);
 
-    // a black-and-white, unchanging image, which defines the brush's texture
-    private final BufferedImage templateImg;
+    private final ImageBrushType imageBrushType;
 
-    // a colorized version of the template, using the current color for
-    // the pixels and the template's grayscale values for the transparency
-    private BufferedImage coloredBrushImg;
+    // black-and-white, unchanging images, which define the brush's
+    // texture: the template and its successively halved versions
+    private final BufferedImage[] templatePyramid;
 
-    // the colorized image, scaled to match the current
-    // brush diameter, and used as the stamp/dab of the brush
+    // the colorized and scaled template, using the current color for
+    // the pixels and the template's grayscale values for the transparency,
+    // and used as the stamp/dab of the brush (shared with the stamp cache)
     private BufferedImage finalScaledImg;
 
-    private Color lastColor;
+    private int stampRGB;
 
     public ImageDabsBrush(double radius, ImageBrushType imageBrushType,
                           double spacingRatio, RotationSettings rotationSettings) {
         super(radius, new RadiusRatioSpacing(spacingRatio),
             rotationSettings, false);
+        this.imageBrushType = imageBrushType;
 
         // share template images between instances of the same brush type
-        templateImg = templateImages.computeIfAbsent(imageBrushType,
-            ImageBrushType::createTemplateImage);
+        templatePyramid = templatePyramids.computeIfAbsent(imageBrushType,
+            type -> createPyramid(type.createTemplateImage()));
+    }
+
+    private static BufferedImage[] createPyramid(BufferedImage template) {
+        List<BufferedImage> levels = new ArrayList<>();
+        levels.add(template);
+        BufferedImage level = template;
+        while (level.getWidth() / 2 >= MIN_PYRAMID_LEVEL_SIZE) {
+            // halving with bilinear interpolation averages the 2x2 blocks
+            level = scaleGray(level, level.getWidth() / 2);
+            levels.add(level);
+        }
+        return levels.toArray(new BufferedImage[0]);
+    }
+
+    private static BufferedImage scaleGray(BufferedImage src, int newSize) {
+        BufferedImage dest = new BufferedImage(newSize, newSize, TYPE_BYTE_GRAY);
+        Graphics2D g = dest.createGraphics();
+        g.setRenderingHint(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(src, 0, 0, newSize, newSize, null);
+        g.dispose();
+        return dest;
     }
 
     @Override
@@ -75,48 +103,37 @@ public class ImageDabsBrush extends DabsBrush {
     @Override
     void initBrushStamp(PPoint p) {
         assert diameter > 0 : "zero diameter in " + getClass().getName();
-        Color currentColor = targetG.getColor();
-
-        boolean colorChanged = !currentColor.equals(lastColor);
-        if (colorChanged) {
-            recreateColoredBrushImage(currentColor);
-            lastColor = currentColor;
-        }
 
-        // always check size, as it might have changed even if color hasn't
-        recreateFinalScaledImage(diameter, colorChanged);
+        stampRGB = targetG.getColor().getRGB() & 0x00_FF_FF_FF;
+        finalScaledImg = getStamp((int) diameter, 0);
     }
 
     /**
-     * Recreates the final scaled image from the colorized image.
+     * Returns the stamp with the current color, the given size and the given angle bucket.
      */
-    private void recreateFinalScaledImage(double diameter, boolean colorChanged) {
-        int newSize = (int) diameter;
-        assert newSize > 0 : "newSize = " + newSize;
-        if (!colorChanged && isBrushImageSize(newSize)) {
-            return; // nothing changed
-        }
-
-        if (finalScaledImg != null) {
-            finalScaledImg.flush();
-        }
-        finalScaledImg = new BufferedImage(newSize, newSize, TYPE_INT_ARGB);
-        Graphics2D g = finalScaledImg.createGraphics();
-        g.drawImage(coloredBrushImg, 0, 0, newSize, newSize, null);
-        g.dispose();
-    }
-
-    private boolean isBrushImageSize(double size) {
-        return finalScaledImg != null && finalScaledImg.getWidth() == size;
+    private BufferedImage getStamp(int size, int angleIndex) {
+        assert size > 0 : "size = " + size;
+        var key = new StampCache.Key(imageBrushType, size, angleIndex, stampRGB, 0, 0);
+        return StampCache.get(key, () -> angleIndex == 0
+            ? createStamp(size)
+            : StampCache.rotate(getStamp(size, 0), StampCache.toAngle(angleIndex)));
     }
 
     /**
-     * Recreates a colorized brush image from the template image
-     * using the given color.
+     * Scales the template from the nearest bigger pyramid level, and colorizes it.
      */
-    private void recreateColoredBrushImage(Color color) {
-        int colorNoAlpha = color.getRGB() & 0x00_FF_FF_FF;
-        coloredBrushImg = ImageUtils.maskToTransparency(templateImg, colorNoAlpha);
+    private BufferedImage createStamp(int size) {
+        BufferedImage level = templatePyramid[0];
+        for (BufferedImage candidate : templatePyramid) {
+            if (candidate.getWidth() < size) {
+                break;
+            }
+            level = candidate;
+        }
+        BufferedImage scaledTemplate = level.getWidth() == size
+            ? level
+            : scaleGray(level, size);
+        return ImageUtils.maskToTransparency(scaledTemplate, stampRGB);
     }
 
     @Override
@@ -128,8 +145,14 @@ public class ImageDabsBrush extends DabsBrush {
         int drawStartX = (int) (x - radius);
         int drawStartY = (int) (y - radius);
 
-        if (!settings.isDirectional() || angle == 0) {
-            targetG.drawImage(finalScaledImg, drawStartX, drawStartY, null);
+        int angleIndex = settings.isDirectional() ? StampCache.toAngleIndex(angle) : 0;
+        if (angleIndex == 0) {
+            drawStamp(finalScaledImg, drawStartX, drawStartY);
+        } else if (finalScaledImg.getWidth() <= StampCache.MAX_VARIANT_SIZE) {
+            // draw a pre-rotated stamp, which is bigger, but has the same center
+            BufferedImage rotatedImg = getStamp(finalScaledImg.getWidth(), angleIndex);
+            int offset = (rotatedImg.getWidth() - finalScaledImg.getWidth()) / 2;
+            drawStamp(rotatedImg, drawStartX - offset, drawStartY - offset);
         } else {
             // draw rotated image
             var origTransform = targetG.getTransform();
@@ -145,13 +168,8 @@ public class ImageDabsBrush extends DabsBrush {
     @Override
     public void dispose() {
         super.dispose();
-        if (coloredBrushImg != null) {
-            coloredBrushImg.flush();
-            coloredBrushImg = null;
-        }
-        if (finalScaledImg != null) {
-            finalScaledImg.flush();
-            finalScaledImg = null;
-        }
-    }    
+
+        // not flushed, because it can be still used through the stamp cache
+        finalScaledImg = null;
+    }
 }
@@ -22,11 +22,14 @@ import pixelitor.tools.shapes.ShapeType;
 import pixelitor.tools.util.PPoint;
 import pixelitor.utils.Shapes;
 
+import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
+import java.awt.image.BufferedImage;
 
 import static java.awt.RenderingHints.KEY_ANTIALIASING;
 import static java.awt.RenderingHints.VALUE_ANTIALIAS_ON;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 
 /**
  * A {@link DabsBrush} that draws filled shapes as dabs.
@@ -48,6 +51,12 @@ public class ShapeDabsBrush extends DabsBrush {
         double y = currentPoint.getImY();
         ShapeType shapeType = ((ShapeDabsBrushSettings) settings).getShapeType();
 
+        if (canUseStamps(shapeType)) {
+            putStampDab(shapeType, x, y, angle);
+            repaintComp(currentPoint);
+            return;
+        }
+
         // create the base shape at the given position
         Shape baseShape = shapeType.createShape(x - radius, y - radius, diameter);
 
@@ -60,6 +69,57 @@ public class ShapeDabsBrush extends DabsBrush {
         repaintComp(currentPoint);
     }
 
+    private boolean canUseStamps(ShapeType shapeType) {
+        // the random star would be different for each dab
+        return diameter <= StampCache.MAX_VARIANT_SIZE
+            && shapeType != ShapeType.RANDOM_STAR
+            && targetG.getPaint() instanceof Color;
+    }
+
+    /**
+     * Draws the dab by copying a cached image of the shape, which is rasterized
+     * at the rounded angle and the rounded subpixel position of the dab.
+     */
+    private void putStampDab(ShapeType shapeType, double x, double y, double angle) {
+        int steps = StampCache.SUBPIXEL_STEPS;
+        int scaledX = (int) Math.round(x * steps);
+        int scaledY = (int) Math.round(y * steps);
+        int subPixelX = Math.floorMod(scaledX, steps);
+        int subPixelY = Math.floorMod(scaledY, steps);
+        int angleIndex = StampCache.toAngleIndex(angle);
+        int rgb = targetG.getColor().getRGB();
+
+        var key = new StampCache.Key(shapeType, diameter, angleIndex, rgb, subPixelX, subPixelY);
+        BufferedImage stamp = StampCache.get(key, () -> createStamp(key));
+
+        // the shape's center is in the middle of the stamp, offset by the subpixel position
+        int center = stamp.getWidth() / 2;
+        drawStamp(stamp,
+            Math.floorDiv(scaledX, steps) - center,
+            Math.floorDiv(scaledY, steps) - center);
+    }
+
+    private BufferedImage createStamp(StampCache.Key key) {
+        int stampSize = StampCache.calcRotatedSize((int) Math.ceil(diameter) + 2);
+        int center = stampSize / 2;
+        double shapeX = center + key.subPixelX() / (double) StampCache.SUBPIXEL_STEPS;
+        double shapeY = center + key.subPixelY() / (double) StampCache.SUBPIXEL_STEPS;
+
+        Shape shape = ((ShapeType) key.source()).createShape(
+            shapeX - radius, shapeY - radius, diameter);
+        if (key.angleIndex() != 0) {
+            shape = Shapes.rotate(shape, StampCache.toAngle(key.angleIndex()), shapeX, shapeY);
+        }
+
+        BufferedImage stamp = new BufferedImage(stampSize, stampSize, TYPE_INT_ARGB);
+        Graphics2D g = stamp.createGraphics();
+        g.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
+        g.setColor(new Color(key.rgb(), true));
+        g.fill(shape);
+        g.dispose();
+        return stamp;
+    }
+
     @Override
     void initBrushStamp(PPoint p) {
         // no per-dab or per-segment initialization needed for shapes
@@ -88,17 +88,16 @@ public class SmudgeBrush extends CopyBrush {
 
     @Override
     public void putDab(PPoint currentPoint, double angle) {
-        var transform = AffineTransform.getTranslateInstance(
-            currentPoint.getImX() - radius,
-            currentPoint.getImY() - radius
-        );
+        // rounded like the nearest neighbor sampling of drawImage
+        int x = (int) Math.round(currentPoint.getImX() - radius);
+        int y = (int) Math.round(currentPoint.getImY() - radius);
 
         // SrcOver allows smudging into transparent areas, but transparency
         // can't be smudged into non-transparent areas.
         // DstOver allows only smudging into transparent.
         targetG.setComposite(AlphaComposite.SrcOver.derive(strength));
 
-        targetG.drawImage(brushImage, transform, null);
+        drawStamp(brushImage, x, y);
         lastPoint = currentPoint;
         repaintComp(currentPoint);
     }
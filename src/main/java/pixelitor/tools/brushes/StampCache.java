@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.tools.brushes;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.awt.RenderingHints.KEY_INTERPOLATION;
+import static java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+
+/**
+ * A least-recently-used cache of pre-rendered brush stamps, shared by
+ * the dab brushes. Dabs with the same source, size, angle and color are
+ * drawn by copying the cached stamp, instead of rescaling, rotating
+ * or rasterizing the source for each dab.
+ */
+class StampCache {
+    // the rotation angles are rounded to multiples of 360/NUM_ANGLES degrees
+    private static final int NUM_ANGLES = 128;
+
+    // the subpixel positions are rounded to 1/SUBPIXEL_STEPS pixels
+    static final int SUBPIXEL_STEPS = 4;
+
+    // Rotated (and subpixel-positioned) stamps are only cached up to
+    // this size, because each size and color has many variants.
+    static final int MAX_VARIANT_SIZE = 256;
+
+    // the memory limit of the cache, about 64 MB
+    private static final long MAX_CACHED_PIXELS = 16 * 1024 * 1024;
+
+    // the iteration order is the access order, so the eldest is the least recently used
+    private static final Map<Key, BufferedImage> stamps = new LinkedHashMap<>(64, 0.75f, true);
+    private static long cachedPixels = 0;
+
+    /**
+     * The cache key of a stamp. The source identifies the unscaled shape or
+     * image, and the subpixel offsets are in 1/{@link #SUBPIXEL_STEPS} pixels.
+     */
+    record Key(Object source, double size, int angleIndex, int rgb, int subPixelX, int subPixelY) {
+    }
+
+    private StampCache() {
+        // should not be instantiated
+    }
+
+    /**
+     * Returns the cached stamp for the given key, or creates it with the given factory.
+     */
+    static BufferedImage get(Key key, Supplier<BufferedImage> factory) {
+        BufferedImage stamp = getCached(key);
+        if (stamp == null) {
+            // rendered outside the lock, because the stamps can
+            // be requested concurrently (for example by symmetry brushes)
+            stamp = factory.get();
+            put(key, stamp);
+        }
+        return stamp;
+    }
+
+    private static synchronized BufferedImage getCached(Key key) {
+        return stamps.get(key);
+    }
+
+    private static synchronized void put(Key key, BufferedImage stamp) {
+        BufferedImage prev = stamps.put(key, stamp);
+        if (prev != null) {
+            cachedPixels -= numPixels(prev);
+        }
+        cachedPixels += numPixels(stamp);
+
+        Iterator<BufferedImage> it = stamps.values().iterator();
+        while (cachedPixels > MAX_CACHED_PIXELS && it.hasNext()) {
+            BufferedImage eldest = it.next();
+            if (eldest == stamp) {
+                break; // the new stamp is kept even if it's alone too big
+            }
+            cachedPixels -= numPixels(eldest);
+            it.remove();
+        }
+    }
+
+    private static long numPixels(BufferedImage img) {
+        return (long) img.getWidth() * img.getHeight();
+    }
+
+    /**
+     * Returns the index of the nearest angle bucket, with zero for unrotated stamps.
+     */
+    static int toAngleIndex(double angle) {
+        return Math.floorMod(Math.round(angle * NUM_ANGLES / (2 * Math.PI)), NUM_ANGLES);
+    }
+
+    static double toAngle(int angleIndex) {
+        return angleIndex * 2 * Math.PI / NUM_ANGLES;
+    }
+
+    /**
+     * Returns the size of a square image that can contain the given
+     * image rotated by any angle around its center, with the same
+     * parity as the original size so that the centers can be aligned.
+     */
+    static int calcRotatedSize(int size) {
+        return size + 2 * ((int) Math.ceil(size * (Math.sqrt(2) - 1) / 2) + 1);
+    }
+
+    /**
+     * Returns a copy of the given square stamp rotated around its center.
+     */
+    static BufferedImage rotate(BufferedImage stamp, double angle) {
+        int size = stamp.getWidth();
+        int rotatedSize = calcRotatedSize(size);
+        double center = rotatedSize / 2.0;
+
+        BufferedImage rotated = new BufferedImage(rotatedSize, rotatedSize, TYPE_INT_ARGB);
+        Graphics2D g = rotated.createGraphics();
+        g.setRenderingHint(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
+        g.rotate(angle, center, center);
+        int offset = (rotatedSize - size) / 2;
+        g.drawImage(stamp, offset, offset, null);
+        g.dispose();
+        return rotated;
+    }
+}
@@ -17,14 +17,18 @@
 
 package pixelitor.tools.brushes;
 
+import pixelitor.AppMode;
 import pixelitor.layers.Drawable;
 import pixelitor.tools.AbstractBrushTool;
 import pixelitor.tools.BrushType;
+import pixelitor.tools.StrokePainter;
 import pixelitor.tools.Symmetry;
 import pixelitor.tools.util.PPoint;
 import pixelitor.utils.debug.DebugNode;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 
 /**
  * A brush implementing symmetry by delegating to multiple
@@ -46,6 +50,20 @@ public class SymmetryBrush implements Brush {
     // the affected area is shared between all the internal brushes
     private final AffectedArea affectedArea;
 
+    // the drawing target, kept so that the internal brushes
+    // can get their own graphics for painting in parallel
+    private Drawable dr;
+    private Graphics2D targetG;
+    private BufferedImage targetImage;
+
+    // the copies of the target graphics used by the internal brushes
+    // (except the first one) while they paint in parallel, or null
+    private Graphics2D[] parallelGraphics;
+
+    // the unit tests paint sequentially by default, so that
+    // the calls of the internal brushes have a deterministic order
+    private boolean parallelAllowed = !AppMode.isUnitTesting();
+
     public SymmetryBrush(AbstractBrushTool tool, BrushType brushType,
                          Symmetry symmetry, double radius) {
         this.tool = tool;
@@ -65,11 +83,22 @@ public class SymmetryBrush implements Brush {
 
     @Override
     public void setTarget(Drawable dr, Graphics2D g) {
+        this.dr = dr;
+        targetG = g;
+        targetImage = null;
         for (int i = 0; i < numBrushes; i++) {
             brushes[i].setTarget(dr, g);
         }
     }
 
+    @Override
+    public void setTargetImage(BufferedImage image) {
+        targetImage = image;
+        for (int i = 0; i < numBrushes; i++) {
+            brushes[i].setTargetImage(image);
+        }
+    }
+
     @Override
     public void setRadius(double radius) {
         for (int i = 0; i < numBrushes; i++) {
@@ -127,22 +156,114 @@ public class SymmetryBrush implements Brush {
 
     @Override
     public void startStrokeAt(PPoint p) {
+        prepareParallelPainting();
         symmetry.startAt(this, p);
     }
 
     @Override
     public void continueTo(PPoint p) {
+        if (parallelGraphics != null && continueInParallel(p)) {
+            return;
+        }
         symmetry.continueTo(this, p);
     }
 
     @Override
     public void lineConnectTo(PPoint p) {
+        prepareParallelPainting();
         symmetry.lineConnectTo(this, p);
     }
 
     @Override
     public void finishBrushStroke() {
         symmetry.finishBrushStroke(this);
+        finishParallelPainting();
+    }
+
+    /**
+     * Gives each internal brush its own copy of the target graphics (which
+     * isn't thread-safe), so that the mirrors can be painted in parallel.
+     * The copies are made at the start of the drawing, because the color
+     * and the composite are set after the target.
+     */
+    private void prepareParallelPainting() {
+        finishParallelPainting();
+        if (numBrushes == 1 || targetG == null || !parallelAllowed
+            || !brushType.canPaintConcurrently(tool)) {
+            return;
+        }
+
+        parallelGraphics = new Graphics2D[numBrushes];
+        for (int i = 1; i < numBrushes; i++) {
+            parallelGraphics[i] = (Graphics2D) targetG.create();
+            brushes[i].setTarget(dr, parallelGraphics[i]);
+            brushes[i].setTargetImage(targetImage);
+        }
+    }
+
+    /**
+     * Allows or forbids painting the mirrors in parallel, from the next stroke.
+     */
+    void setParallelAllowed(boolean parallelAllowed) {
+        this.parallelAllowed = parallelAllowed;
+    }
+
+    /**
+     * Returns true if the current stroke can paint the mirrors in parallel.
+     */
+    boolean isPaintingInParallel() {
+        return parallelGraphics != null;
+    }
+
+    private void finishParallelPainting() {
+        if (parallelGraphics == null) {
+            return;
+        }
+        for (int i = 1; i < parallelGraphics.length; i++) {
+            parallelGraphics[i].dispose();
+            if (brushes[i] != null) {
+                brushes[i].setTarget(dr, targetG);
+                brushes[i].setTargetImage(targetImage);
+            }
+        }
+        parallelGraphics = null;
+    }
+
+    /**
+     * Continues the stroke with all the internal brushes in parallel,
+     * if the regions painted by them don't overlap, so that the result
+     * is the same as with sequential painting. Returns false if
+     * nothing was painted, because the regions overlap.
+     */
+    private boolean continueInParallel(PPoint p) {
+        PPoint[] points = new PPoint[numBrushes];
+        Rectangle[] regions = new Rectangle[numBrushes];
+        for (int i = 0; i < numBrushes; i++) {
+            points[i] = (i == 0) ? p : symmetry.transform(p, i);
+            Brush brush = brushes[i];
+            PPoint previous = brush.getPrevious();
+            if (previous == null) {
+                return false;
+            }
+            // rotated dabs can reach beyond the radius in the corners
+            double reach = brush.getMaxEffectiveRadius() * Math.sqrt(2) + 2;
+            regions[i] = PPoint.calcImBounds(previous, points[i], reach);
+            for (int j = 0; j < i; j++) {
+                if (regions[i].intersects(regions[j])) {
+                    return false;
+                }
+            }
+        }
+
+        Runnable[] tasks = new Runnable[numBrushes];
+        for (int i = 0; i < numBrushes; i++) {
+            affectedArea.extendStrokeTo(points[i]);
+            Brush brush = brushes[i];
+            PPoint point = points[i];
+            tasks[i] = () -> brush.continueTo(point);
+        }
+        StrokePainter.paintInParallel(tasks);
+        return true;
     }
 
     public void brushTypeChanged(BrushType newBrushType, double radius) {
@@ -189,6 +310,7 @@ public class SymmetryBrush implements Brush {
 
     @Override
     public void dispose() {
+        finishParallelPainting();
         for (int i = 0; i < numBrushes; i++) {
             brushes[i].dispose();
             brushes[i] = null;
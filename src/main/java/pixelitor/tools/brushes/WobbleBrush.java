@@ -17,6 +17,7 @@
 
 package pixelitor.tools.brushes;
 
+import pixelitor.tools.StrokePainter;
 import pixelitor.tools.shapes.StrokeType;
 import pixelitor.tools.util.PPoint;
 
@@ -53,6 +54,6 @@ public class WobbleBrush extends StrokeBrush {
         if (radius < 3) {
             thickness += 2;
         }
-        dr.repaintRegion(previous, p, thickness);
+        StrokePainter.repaintRegion(dr, previous, p, thickness);
     }
 }
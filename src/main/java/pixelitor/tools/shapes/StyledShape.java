@@ -298,6 +298,7 @@ public class StyledShape implements Transformable, Serializable, Cloneable {
         shape = origShape;
 
         setState(State.INITIAL_DRAG);
+        notifyChangeListener();
         assert checkInvariants();
     }
 
@@ -600,9 +601,10 @@ public class StyledShape implements Transformable, Serializable, Cloneable {
 
         Composition comp = Views.getActiveComp();
         History.add(new StyledShapeEdit(editName, comp, backup));
-        comp.getActiveLayer().update();
 
+        // invalidates the cached raster before the layer is recomposited
         notifyChangeListener();
+        comp.getActiveLayer().update();
     }
 
     public ShapeType getShapeType() {
@@ -665,6 +667,28 @@ public class StyledShape implements Transformable, Serializable, Cloneable {
         return shape.getBounds();
     }
 
+    /**
+     * Returns the bounds of all the pixels touched by the painting
+     * of this shape, including the stroke and the effects.
+     */
+    public Rectangle getPaintedBounds() {
+        Rectangle2D bounds = hasStroke()
+            ? stroke.createStrokedShape(shape).getBounds2D()
+            : shape.getBounds2D();
+        if (hasFill()) {
+            bounds = bounds.createUnion(shape.getBounds2D());
+        }
+
+        // one extra pixel for the antialiasing
+        double padding = 1.0;
+        if (effects.hasEnabledEffects()) {
+            padding += effects.calcMaxEffectPadding();
+        }
+        return new Rectangle2D.Double(
+            bounds.getX() - padding, bounds.getY() - padding,
+            bounds.getWidth() + 2 * padding, bounds.getHeight() + 2 * padding).getBounds();
+    }
+
     public boolean hasBlendingIssue() {
         // for some reason the JDK built-in gradients
         // don't blend with the custom blending modes
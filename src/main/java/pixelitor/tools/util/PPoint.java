@@ -25,6 +25,7 @@ import pixelitor.utils.debug.Debuggable;
 
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.util.Objects;
@@ -108,6 +109,23 @@ public class PPoint implements Debuggable {
         return new LazyIm(view, imX, imY);
     }
 
+    /**
+     * Returns the image-space rectangle affected by painting
+     * a segment with the given thickness between the given points.
+     */
+    public static Rectangle calcImBounds(PPoint start, PPoint end, double thickness) {
+        double minX = Math.min(start.getImX(), end.getImX()) - thickness;
+        double minY = Math.min(start.getImY(), end.getImY()) - thickness;
+        double maxX = Math.max(start.getImX(), end.getImX()) + thickness;
+        double maxY = Math.max(start.getImY(), end.getImY()) + thickness;
+
+        // add an extra pixel on every side for the rounding and antialiasing
+        int x = (int) Math.floor(minX) - 1;
+        int y = (int) Math.floor(minY) - 1;
+        return new Rectangle(x, y,
+            (int) Math.ceil(maxX) + 2 - x, (int) Math.ceil(maxY) + 2 - y);
+    }
+
     public static PPoint halfPointBetween(DraggablePoint p1, DraggablePoint p2) {
         double x = (p1.getImX() + p2.getImX()) / 2.0;
         double y = (p1.getImY() + p2.getImY()) / 2.0;
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.utils;
+
+import pixelitor.progress.ProgressHandler;
+
+import java.awt.Component;
+import java.io.PrintStream;
+
+/**
+ * A {@link MessageHandler} implementation that prints the messages
+ * to the console. It's used in headless (command-line) mode.
+ */
+public class ConsoleMessageHandler implements MessageHandler {
+    private final PrintStream out;
+    private final PrintStream err;
+
+    // the number of errors and exceptions shown so far
+    private int numErrors = 0;
+
+    public ConsoleMessageHandler() {
+        this(System.out, System.err);
+    }
+
+    public ConsoleMessageHandler(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public synchronized boolean hasErrors() {
+        return numErrors > 0;
+    }
+
+    @Override
+    public synchronized void showInStatusBar(String msg) {
+        String text = stripHTML(msg);
+        if (!text.isBlank()) {
+            out.println(text);
+        }
+    }
+
+    @Override
+    public ProgressHandler startProgress(String msg, int maxValue) {
+        return new ConsoleProgressHandler(stripHTML(msg), maxValue);
+    }
+
+    @Override
+    public synchronized void showInfo(String title, String msg, Component parent) {
+        out.println(title + ": " + stripHTML(msg));
+    }
+
+    @Override
+    public synchronized void showWarning(String title, String msg, Component parent) {
+        err.println("Warning: " + title + ": " + stripHTML(msg));
+    }
+
+    @Override
+    public synchronized void showError(String title, String msg, Component parent) {
+        numErrors++;
+        err.println("Error: " + title + ": " + stripHTML(msg));
+    }
+
+    @Override
+    public synchronized boolean showYesNoQuestion(String title, String msg) {
+        // there is nobody to answer, so the safe choice is taken
+        out.println(title + ": " + stripHTML(msg) + " (answered no)");
+        return false;
+    }
+
+    @Override
+    public void showException(Throwable exception) {
+        showException(exception, Thread.currentThread());
+    }
+
+    @Override
+    public synchronized void showException(Throwable exception, Thread srcThread) {
+        numErrors++;
+        err.println("Exception in the thread \"" + srcThread.getName() + "\":");
+        exception.printStackTrace(err);
+    }
+
+    @Override
+    public void showExceptionOnEDT(Throwable exception) {
+        // there is no GUI, so it can be shown on any thread
+        showException(exception);
+    }
+
+    private static String stripHTML(String msg) {
+        return msg.replace("<br>", " ").replaceAll("<[^>]*>", "");
+    }
+
+    /**
+     * Prints the progress of an operation in steps of 10 percent.
+     */
+    private class ConsoleProgressHandler implements ProgressHandler {
+        private static final int PERCENT_STEP = 10;
+
+        private final String msg;
+        private final int maxValue;
+        private int lastPrintedPercent = 0;
+
+        ConsoleProgressHandler(String msg, int maxValue) {
+            this.msg = msg;
+            this.maxValue = maxValue;
+            showInStatusBar(msg + "...");
+        }
+
+        @Override
+        public void updateProgress(int currentValue) {
+            if (maxValue <= 0) { // indeterminate progress
+                return;
+            }
+            int percent = (int) (currentValue * 100L / maxValue);
+            if (percent >= lastPrintedPercent + PERCENT_STEP && percent < 100) {
+                lastPrintedPercent = percent - percent % PERCENT_STEP;
+                showInStatusBar(msg + ": " + lastPrintedPercent + "%");
+            }
+        }
+
+        @Override
+        public void stopProgress() {
+            // the end of the operation is reported by its own message
+        }
+
+        @Override
+        public void stopProgressOnEDT() {
+            stopProgress();
+        }
+    }
+}
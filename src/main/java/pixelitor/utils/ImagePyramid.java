@@ -0,0 +1,367 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.utils;
+
+import pixelitor.ThreadPool;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+
+/**
+ * A lazily built pyramid of successively halved versions (mipmaps) of
+ * a frequently changing base image, such as the composite image of a
+ * composition. Painting the nearest level instead of the full-resolution
+ * image makes zoomed-out painting faster and also smoother, because each
+ * level is the box-filtered average of the previous one.
+ * <p>
+ * If only a region of the base image changed, then only the
+ * corresponding regions of the already built levels are recalculated.
+ * <p>
+ * A single-level pyramid only keeps the last requested level, which
+ * is calculated directly from the base image. It needs less memory,
+ * and it's good enough for rarely changing level requests, such as
+ * the sources of the layer thumbnails.
+ */
+public class ImagePyramid {
+    private static final int MAX_LEVEL = 16;
+
+    // no levels smaller than this are built
+    private static final int MIN_LEVEL_SIZE = 16;
+
+    // levels[n] is 2^n times smaller than the base image, levels[0] is unused
+    private final BufferedImage[] levels = new BufferedImage[MAX_LEVEL + 1];
+
+    // if true, only the last requested level is kept
+    private final boolean singleLevel;
+
+    private int baseWidth;
+    private int baseHeight;
+
+    // the region of the base image that changed since the last update
+    private Rectangle dirtyRegion;
+
+    public ImagePyramid() {
+        this(false);
+    }
+
+    private ImagePyramid(boolean singleLevel) {
+        this.singleLevel = singleLevel;
+    }
+
+    /**
+     * Returns a pyramid that only keeps the last requested level.
+     */
+    public static ImagePyramid createSingleLevel() {
+        return new ImagePyramid(true);
+    }
+
+    /**
+     * Returns the index of the pyramid level that should
+     * be used for painting the base image at the given scale.
+     */
+    public static int selectLevel(double scale) {
+        int level = 0;
+        while (level < MAX_LEVEL && scale <= 0.5) {
+            scale *= 2;
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Returns the given level of the pyramid of the given base image,
+     * building or updating the levels if necessary. The returned level
+     * can be smaller than the requested one for small images.
+     */
+    public synchronized BufferedImage getLevel(BufferedImage base, int level) {
+        if (base.getWidth() != baseWidth || base.getHeight() != baseHeight) {
+            invalidate();
+            baseWidth = base.getWidth();
+            baseHeight = base.getHeight();
+        }
+
+        while (level > 0 && ((baseWidth >> level) < MIN_LEVEL_SIZE
+            || (baseHeight >> level) < MIN_LEVEL_SIZE)) {
+            level--;
+        }
+        if (level == 0) {
+            return base;
+        }
+        if (singleLevel) {
+            return getSingleLevel(base, level);
+        }
+
+        if (dirtyRegion != null) {
+            updateDirtyRegion(base);
+        }
+
+        for (int i = 1; i <= level; i++) {
+            if (levels[i] == null) {
+                BufferedImage src = i == 1 ? base : levels[i - 1];
+                BufferedImage dst = new BufferedImage(
+                    (src.getWidth() + 1) / 2, (src.getHeight() + 1) / 2, TYPE_INT_ARGB_PRE);
+                downscale(src, dst, new Rectangle(0, 0, dst.getWidth(), dst.getHeight()));
+                levels[i] = dst;
+            }
+        }
+        return levels[level];
+    }
+
+    private BufferedImage getSingleLevel(BufferedImage base, int level) {
+        if (levels[level] == null) {
+            invalidate(); // drops the previously requested level
+            int blockSize = 1 << level;
+            BufferedImage dst = new BufferedImage(
+                (baseWidth + blockSize - 1) >> level,
+                (baseHeight + blockSize - 1) >> level, TYPE_INT_ARGB_PRE);
+            downscaleBlocks(base, dst, new Rectangle(0, 0, dst.getWidth(), dst.getHeight()), level);
+            levels[level] = dst;
+        } else if (dirtyRegion != null) {
+            Rectangle region = dirtyRegion.intersection(new Rectangle(0, 0, baseWidth, baseHeight));
+            dirtyRegion = null;
+            if (!region.isEmpty()) {
+                BufferedImage dst = levels[level];
+                int blockSize = 1 << level;
+                int x0 = region.x >> level;
+                int y0 = region.y >> level;
+                int x1 = Math.min(dst.getWidth(), (region.x + region.width + blockSize - 1) >> level);
+                int y1 = Math.min(dst.getHeight(), (region.y + region.height + blockSize - 1) >> level);
+                downscaleBlocks(base, dst, new Rectangle(x0, y0, x1 - x0, y1 - y0), level);
+            }
+        }
+        return levels[level];
+    }
+
+    // recalculates the changed region in all the already built levels
+    private void updateDirtyRegion(BufferedImage base) {
+        Rectangle region = dirtyRegion.intersection(new Rectangle(0, 0, baseWidth, baseHeight));
+        dirtyRegion = null;
+
+        for (int i = 1; i <= MAX_LEVEL && levels[i] != null; i++) {
+            if (region.isEmpty()) {
+                return;
+            }
+            BufferedImage src = i == 1 ? base : levels[i - 1];
+            BufferedImage dst = levels[i];
+
+            // the destination region covering the changed source pixels
+            int x0 = region.x >> 1;
+            int y0 = region.y >> 1;
+            int x1 = Math.min(dst.getWidth(), (region.x + region.width + 1) >> 1);
+            int y1 = Math.min(dst.getHeight(), (region.y + region.height + 1) >> 1);
+            region = new Rectangle(x0, y0, x1 - x0, y1 - y0);
+
+            downscale(src, dst, region);
+        }
+    }
+
+    /**
+     * Signals that only the given region (in base image coordinates)
+     * of the base image changed, so the next request can update the
+     * levels incrementally.
+     */
+    public synchronized void regionChanged(Rectangle region) {
+        if (!hasLevels()) {
+            return; // nothing to update
+        }
+        if (dirtyRegion == null) {
+            dirtyRegion = new Rectangle(region);
+        } else {
+            dirtyRegion.add(region);
+        }
+    }
+
+    private boolean hasLevels() {
+        for (int i = 1; i <= MAX_LEVEL; i++) {
+            if (levels[i] != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Signals that the whole base image changed.
+     */
+    public synchronized void invalidate() {
+        for (int i = 1; i <= MAX_LEVEL; i++) {
+            if (levels[i] != null) {
+                levels[i].flush();
+                levels[i] = null;
+            }
+        }
+        dirtyRegion = null;
+    }
+
+    /**
+     * Calculates the given region of the destination image by averaging
+     * 2x2 blocks of the source image. The destination must be a
+     * premultiplied image, half the size of the source (rounded up).
+     */
+    private static void downscale(BufferedImage src, BufferedImage dst, Rectangle dstRegion) {
+        int srcWidth = src.getWidth();
+        int srcHeight = src.getHeight();
+        int dstWidth = dst.getWidth();
+        int[] dstPixels = ((DataBufferInt) dst.getRaster().getDataBuffer()).getData();
+
+        int x0 = dstRegion.x;
+        int x1 = dstRegion.x + dstRegion.width;
+        int srcX0 = 2 * x0;
+        int srcX1 = Math.min(srcWidth, 2 * x1);
+        int rowLength = srcX1 - srcX0;
+
+        ThreadPool.processBands(dstRegion.height, (startY, endY) -> {
+            int[] upperRow = new int[rowLength];
+            int[] lowerRow = new int[rowLength];
+            for (int y = dstRegion.y + startY; y < dstRegion.y + endY; y++) {
+                int srcY = 2 * y;
+                readPremultipliedRow(src, srcY, srcX0, rowLength, upperRow);
+                if (srcY + 1 < srcHeight) {
+                    readPremultipliedRow(src, srcY + 1, srcX0, rowLength, lowerRow);
+                } else {
+                    System.arraycopy(upperRow, 0, lowerRow, 0, rowLength);
+                }
+
+                int dstIndex = y * dstWidth + x0;
+                for (int x = x0; x < x1; x++) {
+                    int left = 2 * x - srcX0;
+                    // at an odd right edge, the last column is duplicated
+                    int right = Math.min(left + 1, rowLength - 1);
+                    dstPixels[dstIndex++] = average(
+                        upperRow[left], upperRow[right], lowerRow[left], lowerRow[right]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Calculates the given region of the destination image by averaging
+     * the blocks of 2^level x 2^level source pixels. The blocks at the
+     * right and bottom edges can be smaller. The destination must be
+     * a premultiplied image.
+     */
+    private static void downscaleBlocks(BufferedImage src, BufferedImage dst,
+                                        Rectangle dstRegion, int level) {
+        int srcWidth = src.getWidth();
+        int srcHeight = src.getHeight();
+        int dstWidth = dst.getWidth();
+        int[] dstPixels = ((DataBufferInt) dst.getRaster().getDataBuffer()).getData();
+
+        int x0 = dstRegion.x;
+        int x1 = dstRegion.x + dstRegion.width;
+        int srcX0 = x0 << level;
+        int srcX1 = Math.min(srcWidth, x1 << level);
+        int rowLength = srcX1 - srcX0;
+
+        ThreadPool.processBands(dstRegion.height, (startY, endY) -> {
+            int[] row = new int[rowLength];
+            // the sums of the a, r, g, b values in each block of the row
+            long[] sums = new long[4 * dstRegion.width];
+            for (int y = dstRegion.y + startY; y < dstRegion.y + endY; y++) {
+                Arrays.fill(sums, 0);
+                int srcY0 = y << level;
+                int srcY1 = Math.min(srcHeight, (y + 1) << level);
+                for (int srcY = srcY0; srcY < srcY1; srcY++) {
+                    readPremultipliedRow(src, srcY, srcX0, rowLength, row);
+                    for (int i = 0; i < rowLength; i++) {
+                        int p = row[i];
+                        int base = 4 * (i >> level);
+                        sums[base] += p >>> 24;
+                        sums[base + 1] += (p >> 16) & 0xFF;
+                        sums[base + 2] += (p >> 8) & 0xFF;
+                        sums[base + 3] += p & 0xFF;
+                    }
+                }
+
+                int dstIndex = y * dstWidth + x0;
+                for (int x = x0; x < x1; x++) {
+                    int blockX0 = x << level;
+                    int blockWidth = Math.min(srcX1, (x + 1) << level) - blockX0;
+                    long count = (long) blockWidth * (srcY1 - srcY0);
+                    long half = count / 2;
+                    int base = 4 * (x - x0);
+                    int a = (int) ((sums[base] + half) / count);
+                    int r = (int) ((sums[base + 1] + half) / count);
+                    int g = (int) ((sums[base + 2] + half) / count);
+                    int b = (int) ((sums[base + 3] + half) / count);
+                    dstPixels[dstIndex++] = a << 24 | r << 16 | g << 8 | b;
+                }
+            }
+        });
+    }
+
+    private static int average(int p1, int p2, int p3, int p4) {
+        int a = ((p1 >>> 24) + (p2 >>> 24) + (p3 >>> 24) + (p4 >>> 24) + 2) >> 2;
+        int r = (((p1 >> 16) & 0xFF) + ((p2 >> 16) & 0xFF) + ((p3 >> 16) & 0xFF) + ((p4 >> 16) & 0xFF) + 2) >> 2;
+        int g = (((p1 >> 8) & 0xFF) + ((p2 >> 8) & 0xFF) + ((p3 >> 8) & 0xFF) + ((p4 >> 8) & 0xFF) + 2) >> 2;
+        int b = ((p1 & 0xFF) + (p2 & 0xFF) + (p3 & 0xFF) + (p4 & 0xFF) + 2) >> 2;
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    // reads a part of a row of the given image as premultiplied ARGB pixels
+    private static void readPremultipliedRow(BufferedImage img, int y, int x, int length, int[] out) {
+        int type = img.getType();
+        WritableRaster raster = img.getRaster();
+        if (ImageUtils.hasPackedIntArray(img)
+            && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) {
+            // also works for sub-images
+            DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
+            int index = dataBuffer.getOffset()
+                + (y - raster.getSampleModelTranslateY()) * sampleModel.getScanlineStride()
+                + x - raster.getSampleModelTranslateX();
+            System.arraycopy(dataBuffer.getData(), index, out, 0, length);
+            if (type == TYPE_INT_ARGB_PRE) {
+                return;
+            }
+            if (type == TYPE_INT_RGB) {
+                for (int i = 0; i < length; i++) {
+                    out[i] |= 0xFF_00_00_00;
+                }
+                return;
+            }
+            assert type == TYPE_INT_ARGB;
+        } else {
+            img.getRGB(x, y, length, 1, out, 0, length);
+        }
+
+        // premultiply the non-premultiplied ARGB pixels
+        for (int i = 0; i < length; i++) {
+            int rgb = out[i];
+            int a = rgb >>> 24;
+            if (a == 255) {
+                continue;
+            }
+            if (a == 0) {
+                out[i] = 0;
+                continue;
+            }
+            int r = ((rgb >> 16) & 0xFF) * a / 255;
+            int g = ((rgb >> 8) & 0xFF) * a / 255;
+            int b = (rgb & 0xFF) * a / 255;
+            out[i] = a << 24 | r << 16 | g << 8 | b;
+        }
+    }
+}
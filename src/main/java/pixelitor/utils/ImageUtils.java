@@ -26,13 +26,17 @@ import com.jhlabs.image.ImageMath;
 import com.twelvemonkeys.image.ImageUtil;
 import org.jdesktop.swingx.graphics.BlendComposite;
 import org.jdesktop.swingx.painter.CheckerboardPainter;
+import pixelitor.AppMode;
 import pixelitor.Canvas;
+import pixelitor.ThreadPool;
 import pixelitor.colors.Colors;
 import pixelitor.filters.Invert;
 import pixelitor.gui.utils.Dialogs;
 import pixelitor.layers.ContentLayer;
+import pixelitor.layers.FusedAdjustments;
 import pixelitor.layers.ImageLayer;
 import pixelitor.layers.Layer;
+import pixelitor.layers.LayerGroup;
 import pixelitor.progress.ProgressTracker;
 import pixelitor.selection.Selection;
 import pixelitor.tools.Tools;
@@ -71,11 +75,14 @@ public class ImageUtils {
     private static final double DEG_315_IN_RADIANS = Math.PI / 4;
     private static final Color CHECKERBOARD_GRAY = new Color(200, 200, 200);
 
-    private static final GraphicsConfiguration graphicsConfig = GraphicsEnvironment
+    // null in headless mode, where there is no screen device
+    private static final GraphicsConfiguration graphicsConfig = GraphicsEnvironment.isHeadless()
+        ? null : GraphicsEnvironment
         .getLocalGraphicsEnvironment()
         .getDefaultScreenDevice()
         .getDefaultConfiguration();
-    private static final ColorModel defaultColorModel = graphicsConfig.getColorModel();
+    private static final ColorModel defaultColorModel = graphicsConfig == null
+        ? ColorModel.getRGBdefault() : graphicsConfig.getColorModel();
 
     private ImageUtils() {
     }
@@ -96,8 +103,7 @@ public class ImageUtils {
             }
         }
 
-        BufferedImage output = graphicsConfig.createCompatibleImage(
-            input.getWidth(), input.getHeight(), TRANSLUCENT);
+        BufferedImage output = createSysCompatibleImage(input.getWidth(), input.getHeight());
         Graphics2D g = output.createGraphics();
         g.drawImage(input, 0, 0, null);
         g.dispose();
@@ -120,6 +126,9 @@ public class ImageUtils {
     public static BufferedImage createSysCompatibleImage(int width, int height) {
         assert width > 0 && height > 0;
 
+        if (graphicsConfig == null) {
+            return new BufferedImage(width, height, TYPE_INT_ARGB);
+        }
         return graphicsConfig.createCompatibleImage(width, height, TRANSLUCENT);
     }
 
@@ -968,12 +977,14 @@ public class ImageUtils {
 
     public static void unpremultiply(BufferedImage dest) {
         int[] pixels = getPixels(dest);
-        ImageMath.unpremultiply(pixels);
+        ThreadPool.processPixels(pixels.length, (start, end) ->
+            ImageMath.unpremultiply(pixels, start, end - start));
     }
 
     public static void premultiply(BufferedImage src) {
         int[] pixels = getPixels(src);
-        ImageMath.premultiply(pixels);
+        ThreadPool.processPixels(pixels.length, (start, end) ->
+            ImageMath.premultiply(pixels, start, end - start));
     }
 
     public static BufferedImage filterPremultiplied(BufferedImage src,
@@ -1001,7 +1012,9 @@ public class ImageUtils {
     public static BufferedImage calcComposite(List<Layer> layers, Canvas canvas) {
         if (layers.size() == 1) { // optimization for single-layer compositions
             Layer layer = layers.getFirst();
-            if (Tools.activeTool.isDirectDrawing() && layer.isVisible()) {
+            // in headless mode there is no active tool
+            boolean directDrawing = AppMode.isHeadless() || Tools.activeTool.isDirectDrawing();
+            if (directDrawing && layer.isVisible()) {
                 BufferedImage layerImg = layer.toImage(true, true);
 
                 // it can be null if there's a single adjustment layer
@@ -1011,16 +1024,28 @@ public class ImageUtils {
             }
         }
 
+        // the independent child groups are rendered in parallel
+        LayerGroup.prepareCachedImages(layers, canvas);
+
         var compositeImg = new BufferedImage(
             canvas.getWidth(), canvas.getHeight(), TYPE_INT_ARGB_PRE);
         Graphics2D g = compositeImg.createGraphics();
 
         // the first visible layer is always applied with normal blending mode
         boolean firstVisibleLayer = true;
-        for (Layer layer : layers) {
+        for (int i = 0; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
             if (!layer.isVisible()) {
                 continue;
             }
+            if (!firstVisibleLayer) {
+                var fused = FusedAdjustments.collect(layers, i, compositeImg);
+                if (fused != null) {
+                    fused.applyTo(compositeImg);
+                    i += fused.getNumLayers() - 1;
+                    continue;
+                }
+            }
             BufferedImage result = layer.render(g, compositeImg, firstVisibleLayer);
             if (result != null) { // adjustment layer or watermarking text layer
                 compositeImg = result;
@@ -17,56 +17,97 @@
 
 package pixelitor.utils;
 
+import pixelitor.ThreadPool;
 import pixelitor.progress.ProgressTracker;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * K-means clustering algorithm for RGB color quantization.
+ * <p>
+ * The pixels are first reduced to a histogram of their distinct colors,
+ * and the clustering works on the weighted colors. The colors are assigned
+ * to the centroids in parallel, with separate running sums for each thread.
+ * Optionally, each iteration only processes a random sample (mini-batch)
+ * of the pixels, which is much faster for large images.
  */
 public class KMeansClustering {
+    // the number of sampled pixels per cluster in each mini-batch iteration
+    private static final int SAMPLES_PER_CLUSTER = 512;
+
     private final int numClusters;
     private final int maxIterations;
+    private final boolean miniBatch;
     private final Random random;
 
-    public KMeansClustering(int numClusters, int maxIterations, Random random) {
+    public KMeansClustering(int numClusters, int maxIterations, boolean miniBatch, Random random) {
         this.numClusters = numClusters;
         this.maxIterations = maxIterations;
+        this.miniBatch = miniBatch;
         this.random = random;
     }
 
     /**
-     * Performs color quantization for a fixed number of iterations.
+     * Performs color quantization for at most the given number of iterations.
+     * The progress tracker receives one work unit for the initialization
+     * and one for each iteration, even if the centroids converge earlier.
      */
     public int[] cluster(int[] pixels, boolean useKMeansPlusPlus, ProgressTracker pt) {
-        int[] centroids = initCentroids(pixels, useKMeansPlusPlus);
+        // the full-batch iterations and the k-means++ initialization
+        // work on the histogram, the mini-batch iterations on the pixels
+        ColorHistogram histogram = null;
+        if (!miniBatch) {
+            histogram = ColorHistogram.of(pixels);
+        } else if (useKMeansPlusPlus) {
+            histogram = ColorHistogram.of(samplePixels(pixels, 4 * calcBatchSize()));
+        }
+
+        int[] centroids = initCentroids(pixels, histogram, useKMeansPlusPlus);
+
+        // the number of samples each centroid received in all the mini-batches so far
+        int[] sampleCounts = miniBatch ? new int[numClusters] : null;
 
         pt.unitDone();
 
         // perform k-means iterations
         for (int it = 0; it < maxIterations; it++) {
-            // assign each pixel to the nearest centroid
-            IntList[] clusters = assignPixelsToClusters(pixels, centroids);
-
-            // calculate new centroids as the average of assigned colors
-            int[] newCentroids = recalcCentroids(clusters);
+            int[] newCentroids = miniBatch
+                ? updateWithMiniBatch(pixels, centroids, sampleCounts)
+                : recalcCentroids(histogram, centroids);
 
-            // a convergence check could be added here, but for simplicity
-            // we run for a fixed number of iterations.
-            // if (Arrays.equals(centroids, newCentroids)) {
-            //     break;
-            // }
+            pt.unitDone();
 
+            if (Arrays.equals(centroids, newCentroids)) {
+                // converged, the further iterations wouldn't change anything
+                pt.unitsDone(maxIterations - it - 1);
+                break;
+            }
             centroids = newCentroids;
-            pt.unitDone();
         }
 
         return centroids;
     }
 
-    private int[] initCentroids(int[] pixels, boolean useKMeansPlusPlus) {
+    private int calcBatchSize() {
+        return SAMPLES_PER_CLUSTER * numClusters;
+    }
+
+    private int[] samplePixels(int[] pixels, int numSamples) {
+        if (numSamples >= pixels.length) {
+            return pixels;
+        }
+        int[] samples = new int[numSamples];
+        for (int i = 0; i < numSamples; i++) {
+            samples[i] = pixels[random.nextInt(pixels.length)];
+        }
+        return samples;
+    }
+
+    private int[] initCentroids(int[] pixels, ColorHistogram histogram, boolean useKMeansPlusPlus) {
         return useKMeansPlusPlus
-            ? initKMeansPlusPlusCentroids(pixels)
+            ? initKMeansPlusPlusCentroids(pixels, histogram)
             : initRandomCentroids(pixels);
     }
 
@@ -76,7 +117,7 @@ public class KMeansClustering {
     private int[] initRandomCentroids(int[] pixels) {
         int[] centroids = new int[numClusters];
         for (int i = 0; i < numClusters; i++) {
-            centroids[i] = (pixels[random.nextInt(pixels.length)]);
+            centroids[i] = pixels[random.nextInt(pixels.length)] & 0xFF_FF_FF;
         }
         return centroids;
     }
@@ -84,108 +125,155 @@ public class KMeansClustering {
     /**
      * Initializes centroids using the k-means++ algorithm for better initial placement.
      */
-    private int[] initKMeansPlusPlusCentroids(int[] pixels) {
+    private int[] initKMeansPlusPlusCentroids(int[] pixels, ColorHistogram histogram) {
+        int[] colors = histogram.colors;
+        int[] counts = histogram.counts;
+        int numColors = colors.length;
         int[] centroids = new int[numClusters];
 
         // choose the first centroid randomly
-        centroids[0] = pixels[random.nextInt(pixels.length)];
+        centroids[0] = pixels[random.nextInt(pixels.length)] & 0xFF_FF_FF;
+
+        // the squared distance of each color to its nearest centroid,
+        // updated incrementally as the centroids are chosen
+        int[] distances = new int[numColors];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        long[] weights = new long[numColors];
 
         // choose the remaining centroids based on a weighted probability distribution
         for (int i = 1; i < numClusters; i++) {
-            double[] distances = new double[pixels.length];
-            double sumDistances = calcKMeansPlusPlusWeights(pixels, i, centroids, distances);
+            int newCentroid = centroids[i - 1];
+            LongAdder sumWeights = new LongAdder();
+            ThreadPool.processPixels(numColors, (start, end) -> {
+                long bandSum = 0;
+                for (int j = start; j < end; j++) {
+                    int dist = calcSquaredRgbDistance(colors[j], newCentroid);
+                    if (dist < distances[j]) {
+                        distances[j] = dist;
+                    }
+                    weights[j] = (long) distances[j] * counts[j];
+                    bandSum += weights[j];
+                }
+                sumWeights.add(bandSum);
+            });
 
-            // choose the next centroid
-            selectNextCentroidFromWeights(pixels, sumDistances, distances, centroids, i);
+            long sum = sumWeights.sum();
+            if (sum == 0) {
+                // there are fewer distinct colors than clusters
+                centroids[i] = newCentroid;
+                continue;
+            }
+            // the sum is exact, so the choice depends only on the random seed
+            long target = (long) (random.nextDouble() * sum);
+            centroids[i] = colors[selectWeighted(weights, target)];
         }
 
         return centroids;
     }
 
     /**
-     * Calculates distance-based weights for k-means++ initialization.
+     * Calculates new centroid positions as the average of all colors in each
+     * cluster. An empty cluster keeps its previous centroid.
      */
-    private static double calcKMeansPlusPlusWeights(int[] pixels, int numExistingCentroids, int[] centroids, double[] distances) {
-        double sumDistances = 0;
-        for (int j = 0; j < pixels.length; j++) {
-            // for each pixel, find the squared distance to the nearest existing centroid
-            double minSquaredDist = Double.MAX_VALUE;
-            for (int l = 0; l < numExistingCentroids; l++) {
-                double squaredDist = calcSquaredRgbDistance(pixels[j], centroids[l]);
-                if (squaredDist < minSquaredDist) {
-                    minSquaredDist = squaredDist;
+    private int[] recalcCentroids(ColorHistogram histogram, int[] centroids) {
+        int[] colors = histogram.colors;
+        int[] counts = histogram.counts;
+
+        // the sums of the red, green, blue values and the pixel counts for each cluster
+        long[] sums = new long[4 * numClusters];
+        ThreadPool.processPixels(colors.length, (start, end) -> {
+            long[] bandSums = new long[4 * numClusters];
+            for (int i = start; i < end; i++) {
+                int rgb = colors[i];
+                int count = counts[i];
+                int base = 4 * findClosestCentroidIndex(rgb, centroids);
+                bandSums[base] += (long) ((rgb >> 16) & 0xFF) * count;
+                bandSums[base + 1] += (long) ((rgb >> 8) & 0xFF) * count;
+                bandSums[base + 2] += (long) (rgb & 0xFF) * count;
+                bandSums[base + 3] += count;
+            }
+            synchronized (sums) {
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += bandSums[i];
                 }
             }
-            distances[j] = minSquaredDist;
-            sumDistances += distances[j];
-        }
-        return sumDistances;
-    }
+        });
 
-    /**
-     * Selects the next centroid using weighted probability based on distances.
-     */
-    private void selectNextCentroidFromWeights(int[] pixels, double sumDistances, double[] distances, int[] centroids, int centroidIndex) {
-        double randValue = random.nextDouble() * sumDistances;
-        for (int j = 0; j < pixels.length; j++) {
-            randValue -= distances[j];
-            if (randValue <= 0) {
-                centroids[centroidIndex] = pixels[j];
-                return;
+        int[] newCentroids = new int[numClusters];
+        for (int i = 0; i < numClusters; i++) {
+            int base = 4 * i;
+            long clusterSize = sums[base + 3];
+            if (clusterSize == 0) {
+                newCentroids[i] = centroids[i];
+                continue;
             }
+
+            int newR = (int) (sums[base] / clusterSize);
+            int newG = (int) (sums[base + 1] / clusterSize);
+            int newB = (int) (sums[base + 2] / clusterSize);
+            newCentroids[i] = (newR << 16) | (newG << 8) | newB;
         }
-        // fallback for the last pixel, in case of floating point inaccuracies
-        centroids[centroidIndex] = pixels[pixels.length - 1];
+        return newCentroids;
     }
 
     /**
-     * Assigns each pixel to its nearest centroid cluster.
+     * Moves the centroids towards a random sample of pixels,
+     * with a learning rate that decreases for each centroid as
+     * it receives more samples (Sculley's mini-batch k-means).
+     * The given sample counts are updated, because they are
+     * accumulated over all the iterations.
      */
-    private IntList[] assignPixelsToClusters(int[] pixels, int[] centroids) {
-        IntList[] clusters = new IntList[numClusters];
-        int estimatedSize = pixels.length / numClusters + 1;
+    private int[] updateWithMiniBatch(int[] pixels, int[] centroids, int[] sampleCounts) {
+        int[] batch = samplePixels(pixels, calcBatchSize());
+
+        // the assignments use the centroids from the start of the iteration
+        int[] assignments = new int[batch.length];
+        ThreadPool.processPixels(batch.length, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                assignments[i] = findClosestCentroidIndex(batch[i], centroids);
+            }
+        });
+
+        double[] rgb = new double[3 * numClusters];
         for (int i = 0; i < numClusters; i++) {
-            clusters[i] = new IntList(estimatedSize);
+            int c = centroids[i];
+            rgb[3 * i] = (c >> 16) & 0xFF;
+            rgb[3 * i + 1] = (c >> 8) & 0xFF;
+            rgb[3 * i + 2] = c & 0xFF;
         }
-        for (int rgb : pixels) {
-            int closestCentroidIndex = findClosestCentroidIndex(rgb, centroids);
-            clusters[closestCentroidIndex].add(rgb);
+
+        for (int i = 0; i < batch.length; i++) {
+            int cluster = assignments[i];
+            double rate = 1.0 / ++sampleCounts[cluster];
+            int p = batch[i];
+            int base = 3 * cluster;
+            rgb[base] += (((p >> 16) & 0xFF) - rgb[base]) * rate;
+            rgb[base + 1] += (((p >> 8) & 0xFF) - rgb[base + 1]) * rate;
+            rgb[base + 2] += ((p & 0xFF) - rgb[base + 2]) * rate;
         }
-        return clusters;
-    }
 
-    /**
-     * Calculates new centroid positions as the average of all colors in each cluster.
-     */
-    private int[] recalcCentroids(IntList[] clusters) {
         int[] newCentroids = new int[numClusters];
-
         for (int i = 0; i < numClusters; i++) {
-            IntList cluster = clusters[i];
-            int clusterSize = cluster.size();
-            if (clusterSize == 0) {
-                // if a cluster is empty, its centroid remains at black.
-                // another strategy could be to re-initialize it randomly.
-                newCentroids[i] = 0;
-                continue;
-            }
+            newCentroids[i] = (int) Math.round(rgb[3 * i]) << 16
+                | (int) Math.round(rgb[3 * i + 1]) << 8
+                | (int) Math.round(rgb[3 * i + 2]);
+        }
+        return newCentroids;
+    }
 
-            // calculate average RGB values for the cluster
-            long sumR = 0;
-            long sumG = 0;
-            long sumB = 0;
-            for (int j = 0; j < clusterSize; j++) {
-                int rgb = cluster.get(j);
-                sumR += (rgb >> 16) & 0xFF;
-                sumG += (rgb >> 8) & 0xFF;
-                sumB += rgb & 0xFF;
+    /**
+     * Returns the index where the running sum of the
+     * given weights first exceeds the given target.
+     */
+    private static int selectWeighted(long[] weights, long target) {
+        long sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            if (sum > target) {
+                return i;
             }
-            int newR = (int) (sumR / clusterSize);
-            int newG = (int) (sumG / clusterSize);
-            int newB = (int) (sumB / clusterSize);
-            newCentroids[i] = (newR << 16) | (newG << 8) | newB;
         }
-        return newCentroids;
+        return weights.length - 1;
     }
 
     /**
@@ -193,10 +281,10 @@ public class KMeansClustering {
      */
     public static int findClosestCentroidIndex(int rgb, int[] centroids) {
         int closestIndex = 0;
-        double closestDist = Double.MAX_VALUE;
+        int closestDist = Integer.MAX_VALUE;
 
         for (int i = 0; i < centroids.length; i++) {
-            double dist = calcSquaredRgbDistance(rgb, centroids[i]);
+            int dist = calcSquaredRgbDistance(rgb, centroids[i]);
             if (dist < closestDist) {
                 closestIndex = i;
                 closestDist = dist;
@@ -208,7 +296,7 @@ public class KMeansClustering {
     /**
      * Calculates the squared Euclidean distance between two RGB colors.
      */
-    private static double calcSquaredRgbDistance(int rgb1, int rgb2) {
+    private static int calcSquaredRgbDistance(int rgb1, int rgb2) {
         int r1 = (rgb1 >> 16) & 0xFF;
         int g1 = (rgb1 >> 8) & 0xFF;
         int b1 = rgb1 & 0xFF;
@@ -221,6 +309,127 @@ public class KMeansClustering {
         int dG = g1 - g2;
         int dB = b1 - b2;
 
-        return (double) dR * dR + dG * dG + dB * dB;
+        return dR * dR + dG * dG + dB * dB;
+    }
+
+    /**
+     * The distinct RGB colors of an image (ignoring alpha) with their pixel counts.
+     */
+    private static final class ColorHistogram {
+        private static final int EMPTY = -1;
+
+        final int[] colors;
+        final int[] counts;
+
+        private ColorHistogram(int[] colors, int[] counts) {
+            this.colors = colors;
+            this.counts = counts;
+        }
+
+        static ColorHistogram of(int[] pixels) {
+            // each band counts its colors in its own hash table,
+            // and then the tables are merged
+            CountTable merged = new CountTable(1024);
+            ThreadPool.processPixels(pixels.length, (start, end) -> {
+                CountTable table = new CountTable(1024);
+                for (int i = start; i < end; i++) {
+                    table.add(pixels[i] & 0xFF_FF_FF, 1);
+                }
+                synchronized (merged) {
+                    merged.addAll(table);
+                }
+            });
+
+            // sorted, so that the result doesn't depend on the order of the merges
+            int[] colors = merged.getKeys();
+            Arrays.sort(colors);
+            int[] counts = new int[colors.length];
+            for (int i = 0; i < colors.length; i++) {
+                counts[i] = merged.get(colors[i]);
+            }
+            return new ColorHistogram(colors, counts);
+        }
+
+        /**
+         * A hash table with open addressing from non-negative int keys to counts.
+         */
+        private static final class CountTable {
+            private int[] keys;
+            private int[] values;
+            private int size;
+
+            CountTable(int capacity) {
+                keys = new int[capacity];
+                values = new int[capacity];
+                Arrays.fill(keys, EMPTY);
+            }
+
+            void add(int key, int count) {
+                int mask = keys.length - 1;
+                int i = hash(key) & mask;
+                while (keys[i] != EMPTY) {
+                    if (keys[i] == key) {
+                        values[i] += count;
+                        return;
+                    }
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = count;
+                if (++size > keys.length / 2) {
+                    grow();
+                }
+            }
+
+            int get(int key) {
+                int mask = keys.length - 1;
+                int i = hash(key) & mask;
+                while (keys[i] != EMPTY) {
+                    if (keys[i] == key) {
+                        return values[i];
+                    }
+                    i = (i + 1) & mask;
+                }
+                return 0;
+            }
+
+            void addAll(CountTable other) {
+                for (int i = 0; i < other.keys.length; i++) {
+                    if (other.keys[i] != EMPTY) {
+                        add(other.keys[i], other.values[i]);
+                    }
+                }
+            }
+
+            int[] getKeys() {
+                int[] result = new int[size];
+                int index = 0;
+                for (int key : keys) {
+                    if (key != EMPTY) {
+                        result[index++] = key;
+                    }
+                }
+                return result;
+            }
+
+            private void grow() {
+                int[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new int[oldKeys.length * 2];
+                values = new int[oldValues.length * 2];
+                Arrays.fill(keys, EMPTY);
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != EMPTY) {
+                        add(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+
+            private static int hash(int key) {
+                int h = key * 0x9E3779B9;
+                return h ^ (h >>> 16);
+            }
+        }
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.utils;
+
+import com.jhlabs.composite.RGBComposite;
+import com.jhlabs.composite.RGBComposite.RGBCompositeContext;
+import pixelitor.ThreadPool;
+
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+
+/**
+ * Blends images with the {@link RGBComposite} blending modes directly on
+ * their packed int pixels, in parallel row bands, instead of going through
+ * {@link Graphics2D#drawImage}, which composes on a single thread and
+ * accesses the pixels through the slow {@code Raster.getPixels}/{@code setPixels}.
+ * <p>
+ * The per-channel math is still done by the composite's own context,
+ * and the pixel values are passed to it in the same (non-converted)
+ * form as Java2D does, so the results are identical.
+ */
+public final class PackedBlender {
+    private PackedBlender() {
+        // should not be instantiated
+    }
+
+    /**
+     * Returns true if the given composite can be used to blend
+     * directly onto the given destination image, which is
+     * painted through the given {@link Graphics2D}.
+     */
+    public static boolean canBlend(Composite composite, Graphics2D g, BufferedImage dst) {
+        return composite instanceof RGBComposite
+            && g.getTransform().isIdentity()
+            && g.getClip() == null
+            && isSupported(dst);
+    }
+
+    /**
+     * Blends the given source image, with its top-left corner at the
+     * given position, onto the destination image using the given composite.
+     * Returns false if the images aren't supported and nothing was blended.
+     */
+    public static boolean blend(BufferedImage src, int x, int y,
+                                BufferedImage dst, Composite composite) {
+        if (!(composite instanceof RGBComposite rgbComposite)
+            || !isSupported(src) || !isSupported(dst)) {
+            return false;
+        }
+
+        Rectangle area = new Rectangle(x, y, src.getWidth(), src.getHeight())
+            .intersection(new Rectangle(0, 0, dst.getWidth(), dst.getHeight()));
+        if (area.isEmpty()) {
+            return true;
+        }
+
+        float alpha = rgbComposite.getAlpha();
+        ThreadPool.processBands(area.height, (startY, endY) -> {
+            // the contexts aren't guaranteed to be thread-safe
+            var context = (RGBCompositeContext) rgbComposite.createContext(
+                src.getColorModel(), dst.getColorModel(), null);
+            blendRows(src, area.x - x, area.y - y + startY,
+                dst, area.x, area.y + startY,
+                area.width, endY - startY, context, alpha);
+        });
+        return true;
+    }
+
+    private static void blendRows(BufferedImage src, int srcX, int srcY,
+                                  BufferedImage dst, int dstX, int dstY,
+                                  int width, int numRows,
+                                  RGBCompositeContext context, float alpha) {
+        int[] srcPixels = getData(src);
+        int[] dstPixels = getData(dst);
+        int srcStride = getStride(src);
+        int dstStride = getStride(dst);
+        int srcStart = getIndex(src, srcX, srcY);
+        int dstStart = getIndex(dst, dstX, dstY);
+
+        // the channel layout used by the composite contexts
+        int[] srcChannels = new int[width * 4];
+        int[] dstChannels = new int[width * 4];
+
+        for (int row = 0; row < numRows; row++) {
+            int srcIndex = srcStart + row * srcStride;
+            int dstIndex = dstStart + row * dstStride;
+
+            unpack(srcPixels, srcIndex, srcChannels, width);
+            unpack(dstPixels, dstIndex, dstChannels, width);
+            context.composeRGB(srcChannels, dstChannels, alpha);
+            pack(dstChannels, dstPixels, dstIndex, width);
+        }
+    }
+
+    private static void unpack(int[] pixels, int start, int[] channels, int width) {
+        for (int i = 0, c = 0; i < width; i++, c += 4) {
+            int argb = pixels[start + i];
+            channels[c] = (argb >>> 16) & 0xFF;
+            channels[c + 1] = (argb >>> 8) & 0xFF;
+            channels[c + 2] = argb & 0xFF;
+            channels[c + 3] = argb >>> 24;
+        }
+    }
+
+    private static void pack(int[] channels, int[] pixels, int start, int width) {
+        for (int i = 0, c = 0; i < width; i++, c += 4) {
+            pixels[start + i] = (channels[c + 3] & 0xFF) << 24
+                | (channels[c] & 0xFF) << 16
+                | (channels[c + 1] & 0xFF) << 8
+                | (channels[c + 2] & 0xFF);
+        }
+    }
+
+    private static boolean isSupported(BufferedImage img) {
+        int type = img.getType();
+        return (type == TYPE_INT_ARGB || type == TYPE_INT_ARGB_PRE)
+            && img.getRaster().getDataBuffer() instanceof DataBufferInt
+            && img.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel;
+    }
+
+    private static int[] getData(BufferedImage img) {
+        return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+    }
+
+    private static int getStride(BufferedImage img) {
+        var sampleModel = (SinglePixelPackedSampleModel) img.getRaster().getSampleModel();
+        return sampleModel.getScanlineStride();
+    }
+
+    // the array index of the given pixel, which also works for sub-images
+    private static int getIndex(BufferedImage img, int x, int y) {
+        WritableRaster raster = img.getRaster();
+        return raster.getDataBuffer().getOffset()
+            + (y - raster.getSampleModelTranslateY()) * getStride(img)
+            + x - raster.getSampleModelTranslateX();
+    }
+}
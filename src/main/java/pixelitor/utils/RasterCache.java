@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.utils;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * A rasterized image of some vector content (shapes, text), covering only
+ * the bounding box of the content, and not the whole canvas.
+ * The cached image is held strongly, but its memory is accounted in
+ * the shared {@link RasterCachePool}, which can evict it if the total
+ * memory used by the raster caches exceeds the budget. The pool doesn't
+ * keep the cache alive after its owner becomes unreachable.
+ * <p>
+ * The owner is responsible for calling {@link #invalidate()}
+ * whenever the rendered content changes.
+ */
+public class RasterCache {
+    private volatile BufferedImage image;
+    private volatile Rectangle bounds;
+
+    private final RasterCachePool.Key poolKey = new RasterCachePool.Key(this);
+
+    /**
+     * Returns the cached image, or null if the cache is invalid.
+     */
+    public BufferedImage getImage() {
+        BufferedImage img = image;
+        if (img != null) {
+            RasterCachePool.touch(poolKey);
+        }
+        return img;
+    }
+
+    /**
+     * Returns the image-space bounds of the cached image.
+     */
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public boolean isValid() {
+        return image != null;
+    }
+
+    /**
+     * Stores a new image in this cache, replacing the previous one.
+     */
+    public void store(BufferedImage newImage, Rectangle newBounds) {
+        invalidate();
+        bounds = newBounds;
+        image = newImage;
+        RasterCachePool.add(poolKey, (long) newImage.getWidth() * newImage.getHeight() * 4);
+    }
+
+    /**
+     * Paints the content using the cached image, rendering it first
+     * with the given renderer if the cache is invalid or if the bounds
+     * changed. The renderer gets a {@link Graphics2D} that is translated
+     * so that it can paint in image space.
+     */
+    public void paint(Graphics2D g, Rectangle contentBounds, Consumer<Graphics2D> renderer) {
+        BufferedImage img = getImage();
+        if (img == null || !contentBounds.equals(bounds)) {
+            img = ImageUtils.createSysCompatibleImage(contentBounds.width, contentBounds.height);
+            Graphics2D imgG = img.createGraphics();
+            imgG.translate(-contentBounds.x, -contentBounds.y);
+            renderer.accept(imgG);
+            imgG.dispose();
+            store(img, new Rectangle(contentBounds));
+        }
+        g.drawImage(img, contentBounds.x, contentBounds.y, null);
+    }
+
+    /**
+     * Discards the cached image.
+     */
+    public void invalidate() {
+        if (image != null) {
+            RasterCachePool.remove(poolKey);
+            evict();
+        }
+    }
+
+    // called by the pool with its lock held
+    void evict() {
+        BufferedImage img = image;
+        image = null;
+        if (img != null) {
+            img.flush();
+        }
+    }
+
+    /**
+     * Returns true if the cached raster can be used to paint on a
+     * {@link Graphics2D} with the given transform, which is the case
+     * if the transform is only an integer translation (or the identity).
+     */
+    public static boolean canPaintWith(AffineTransform at) {
+        if ((at.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0) {
+            return false;
+        }
+        double tx = at.getTranslateX();
+        double ty = at.getTranslateY();
+        return tx == (int) tx && ty == (int) ty;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.utils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The shared memory budget of all {@link RasterCache} instances.
+ * If the total size of the cached images exceeds the budget,
+ * then the least recently used caches are evicted.
+ * <p>
+ * The pool refers to the caches only weakly, so it doesn't keep
+ * alive the rasters of deleted layers or closed compositions.
+ */
+public final class RasterCachePool {
+    // the fraction of the max heap that can be used by the raster caches
+    private static final int HEAP_FRACTION = 8;
+
+    private static final long budgetBytes = Runtime.getRuntime().maxMemory() / HEAP_FRACTION;
+
+    // the cached image sizes in bytes, in access order
+    private static final Map<Key, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long usedBytes = 0;
+
+    // the keys of the garbage-collected caches
+    private static final ReferenceQueue<RasterCache> collectedCaches = new ReferenceQueue<>();
+
+    private RasterCachePool() {
+        throw new AssertionError("utility class");
+    }
+
+    /**
+     * Identifies a cache in the pool without keeping it alive.
+     * Each cache holds its own key.
+     */
+    static final class Key extends WeakReference<RasterCache> {
+        Key(RasterCache cache) {
+            super(cache, collectedCaches);
+        }
+    }
+
+    static synchronized void add(Key key, long sizeBytes) {
+        removeCollected();
+
+        Long prevSize = entries.put(key, sizeBytes);
+        if (prevSize != null) {
+            usedBytes -= prevSize;
+        }
+        usedBytes += sizeBytes;
+
+        evictIfNecessary(key);
+    }
+
+    static synchronized void touch(Key key) {
+        // the access-ordered map moves the cache to the end
+        entries.get(key);
+    }
+
+    static synchronized void remove(Key key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            usedBytes -= size;
+        }
+    }
+
+    // releases the budget of the caches that were garbage-collected
+    private static void removeCollected() {
+        for (var ref = collectedCaches.poll(); ref != null; ref = collectedCaches.poll()) {
+            remove((Key) ref);
+        }
+    }
+
+    // evicts the least recently used caches, but never the one that was just added
+    private static void evictIfNecessary(Key justAdded) {
+        Iterator<Map.Entry<Key, Long>> it = entries.entrySet().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            Map.Entry<Key, Long> entry = it.next();
+            Key key = entry.getKey();
+            if (key == justAdded) {
+                continue;
+            }
+            usedBytes -= entry.getValue();
+            it.remove();
+            evict(key);
+        }
+    }
+
+    private static void evict(Key key) {
+        RasterCache cache = key.get();
+        if (cache != null) {
+            cache.evict();
+        }
+    }
+
+    /**
+     * Evicts all the cached images, for example in low-memory situations.
+     */
+    public static synchronized void clear() {
+        for (Key key : entries.keySet()) {
+            evict(key);
+        }
+        entries.clear();
+        usedBytes = 0;
+        removeCollected();
+    }
+
+    public static synchronized long getUsedBytes() {
+        removeCollected();
+        return usedBytes;
+    }
+
+    public static synchronized int getNumCaches() {
+        removeCollected();
+        return entries.size();
+    }
+}
@@ -433,7 +433,7 @@ public class RandomGUITest {
 
         log("filter: " + filter.getName());
 
-        long executionsBefore = Filter.executionCount;
+        long executionsBefore = Filter.getExecutionCount();
 
         if (filter instanceof FilterWithGUI guiFilter) {
             runGUIFilter(guiFilter, dr);
@@ -441,9 +441,9 @@ public class RandomGUITest {
             runNonGUIFilter(filter, dr);
         }
 
-        if (Filter.executionCount != executionsBefore + 1) {
+        if (Filter.getExecutionCount() != executionsBefore + 1) {
             throw new IllegalStateException("%s: before = %d, after = %d"
-                .formatted(filter.getName(), executionsBefore, Filter.executionCount));
+                .formatted(filter.getName(), executionsBefore, Filter.getExecutionCount()));
         }
     }
 
@@ -508,7 +508,7 @@ public class RandomGUITest {
             return;
         }
 
-        long executionsBefore = Filter.executionCount;
+        long executionsBefore = Filter.getExecutionCount();
 
         ParametrizedFilter filter = getRandomTweenFilter();
         String filterName = filter.getName();
@@ -548,10 +548,10 @@ public class RandomGUITest {
 
         dr.stopPreviewing();
 
-        if (Filter.executionCount != executionsBefore + 1) {
+        if (Filter.getExecutionCount() != executionsBefore + 1) {
             throw new IllegalStateException(
                 "filter = %s, before = %d, after = %d".formatted(
-                    filterName, executionsBefore, Filter.executionCount));
+                    filterName, executionsBefore, Filter.getExecutionCount()));
         }
     }
 
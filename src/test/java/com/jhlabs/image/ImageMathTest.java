@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.jhlabs.image;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the branch-free premultiplication kernels
+ * against the previous per-pixel implementations.
+ */
+@DisplayName("ImageMath tests")
+class ImageMathTest {
+    @Test
+    @DisplayName("premultiply gives the same results as the division")
+    void premultiply() {
+        int[] pixels = createAllAlphaChannelPairs();
+        int[] expected = pixels.clone();
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = premultiplyPixel(expected[i]);
+        }
+
+        ImageMath.premultiply(pixels);
+
+        assertThat(pixels).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("unpremultiply gives the same results as the division")
+    void unpremultiply() {
+        int[] pixels = createAllAlphaChannelPairs();
+        int[] expected = pixels.clone();
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = unpremultiplyPixel(expected[i]);
+        }
+
+        ImageMath.unpremultiply(pixels);
+
+        assertThat(pixels).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("only the given block is processed")
+    void processesOnlyTheBlock() {
+        int pixel = 0x80_FF_80_40;
+        int[] pixels = {pixel, pixel, pixel, pixel};
+
+        ImageMath.premultiply(pixels, 1, 2);
+
+        int premultiplied = premultiplyPixel(pixel);
+        assertThat(pixels).isEqualTo(new int[]{pixel, premultiplied, premultiplied, pixel});
+    }
+
+    // every alpha with every channel value, with the
+    // three channels of a pixel set to different values
+    private static int[] createAllAlphaChannelPairs() {
+        int[] pixels = new int[256 * 256];
+        for (int a = 0; a < 256; a++) {
+            for (int c = 0; c < 256; c++) {
+                pixels[a * 256 + c] = a << 24 | c << 16 | (255 - c) << 8 | (c * 7 & 0xFF);
+            }
+        }
+        return pixels;
+    }
+
+    // the previous implementation of premultiply
+    private static int premultiplyPixel(int rgb) {
+        int a = rgb >>> 24;
+        if (a == 255) {
+            return rgb;
+        }
+        if (a == 0) {
+            return 0;
+        }
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+
+        r = (r * a) / 255;
+        g = (g * a) / 255;
+        b = (b * a) / 255;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    // the previous implementation of unpremultiply
+    private static int unpremultiplyPixel(int rgb) {
+        int a = rgb >>> 24;
+        if (a == 0 || a == 255) {
+            return rgb;
+        }
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+
+        r = Math.min(255, (r * 255) / a);
+        g = Math.min(255, (g * 255) / a);
+        b = Math.min(255, (b * 255) / a);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pd;
+
+import net.jafama.FastMath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import pixelitor.TestHelper;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the row-band parallel edge detection against the previous
+ * column-order implementation. The previous hysteresis traced the edges
+ * incorrectly, so the reference keeps all the edge candidates that are
+ * connected to a strong edge pixel, which is the intended behavior.
+ */
+@DisplayName("CannyEdgeDetector tests")
+class CannyEdgeDetectorTest {
+    private static final float GAUSSIAN_CUT_OFF = 0.005f;
+    private static final float MAGNITUDE_SCALE = 100.0F;
+    private static final float MAGNITUDE_LIMIT = 1000.0F;
+    private static final int MAGNITUDE_MAX = (int) (MAGNITUDE_SCALE * MAGNITUDE_LIMIT);
+
+    private static final Random random = new Random(3);
+
+    @BeforeAll
+    static void beforeAllTests() {
+        TestHelper.setUnitTestingMode();
+    }
+
+    @RepeatedTest(20)
+    @DisplayName("the same edges as the previous implementation")
+    void sameAsPreviousImplementation() {
+        int width = 20 + random.nextInt(200);
+        int height = 20 + random.nextInt(200);
+        BufferedImage src = createRandomShapes(width, height);
+
+        float low = 0.5f + random.nextFloat() * 3;
+        float high = low + random.nextFloat() * 6;
+        float kernelRadius = 0.5f + random.nextFloat() * 3;
+        int kernelWidth = 2 + random.nextInt(20);
+        boolean normalize = random.nextBoolean();
+
+        var detector = new CannyEdgeDetector();
+        detector.setLowThreshold(low);
+        detector.setHighThreshold(high);
+        detector.setGaussianKernelRadius(kernelRadius);
+        detector.setGaussianKernelWidth(kernelWidth);
+        detector.setContrastNormalized(normalize);
+        detector.setSourceImage(src);
+        detector.process();
+        BufferedImage edges = detector.getEdgesImage();
+        int[] actual = edges.getRGB(0, 0, width, height, null, 0, width);
+
+        int[] magnitude = calcMagnitude(readLuminance(src, normalize),
+            width, height, kernelRadius, kernelWidth);
+        int[] expected = traceEdges(magnitude, width, height,
+            Math.round(low * MAGNITUDE_SCALE), Math.round(high * MAGNITUDE_SCALE));
+
+        assertThat(actual)
+            .as("%dx%d, low = %.2f, high = %.2f, radius = %.2f, width = %d, normalize = %b",
+                width, height, low, high, kernelRadius, kernelWidth, normalize)
+            .isEqualTo(expected);
+    }
+
+    private static BufferedImage createRandomShapes(int width, int height) {
+        BufferedImage img = new BufferedImage(width, height, TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        for (int i = 0; i < 30; i++) {
+            g.setColor(new Color(random.nextInt()));
+            g.fillOval(random.nextInt(width), random.nextInt(height),
+                random.nextInt(width), random.nextInt(height));
+            g.drawLine(random.nextInt(width), random.nextInt(height),
+                random.nextInt(width), random.nextInt(height));
+        }
+        g.dispose();
+        return img;
+    }
+
+    private static int[] readLuminance(BufferedImage src, boolean normalize) {
+        int numPixels = src.getWidth() * src.getHeight();
+        int[] pixels = src.getRGB(0, 0, src.getWidth(), src.getHeight(), null, 0, src.getWidth());
+        int[] luminance = new int[numPixels];
+        for (int i = 0; i < numPixels; i++) {
+            int p = pixels[i];
+            luminance[i] = Math.round(0.299f * ((p >> 16) & 0xFF)
+                + 0.587f * ((p >> 8) & 0xFF) + 0.114f * (p & 0xFF));
+        }
+        if (!normalize) {
+            return luminance;
+        }
+
+        int[] histogram = new int[256];
+        for (int lum : luminance) {
+            histogram[lum]++;
+        }
+        int[] remap = new int[256];
+        int sum = 0;
+        int j = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            sum += histogram[i];
+            int target = sum * 255 / numPixels;
+            for (int k = j + 1; k <= target; k++) {
+                remap[k] = i;
+            }
+            j = target;
+        }
+        for (int i = 0; i < numPixels; i++) {
+            luminance[i] = remap[luminance[i]];
+        }
+        return luminance;
+    }
+
+    // the gradient calculation and non-maximum suppression
+    // of the previous implementation, in column order
+    private static int[] calcMagnitude(int[] luminance, int width, int height,
+                                       float kernelRadius, int kernelWidth) {
+        int numPixels = width * height;
+        float[] xConv = new float[numPixels];
+        float[] yConv = new float[numPixels];
+        float[] xGradient = new float[numPixels];
+        float[] yGradient = new float[numPixels];
+        int[] magnitude = new int[numPixels];
+
+        float[] kernel = new float[kernelWidth];
+        float[] diffKernel = new float[kernelWidth];
+        int kwidth;
+        for (kwidth = 0; kwidth < kernelWidth; kwidth++) {
+            float g1 = gaussian(kwidth, kernelRadius);
+            if (g1 <= GAUSSIAN_CUT_OFF && kwidth >= 2) {
+                break;
+            }
+            float g2 = gaussian(kwidth - 0.5f, kernelRadius);
+            float g3 = gaussian(kwidth + 0.5f, kernelRadius);
+            kernel[kwidth] = (g1 + g2 + g3) / 3.0f / (2.0f * (float) Math.PI * kernelRadius * kernelRadius);
+            diffKernel[kwidth] = g3 - g2;
+        }
+
+        int initX = kwidth - 1;
+        int maxX = width - (kwidth - 1);
+        int initY = width * (kwidth - 1);
+        int maxY = width * (height - (kwidth - 1));
+
+        for (int x = initX; x < maxX; x++) {
+            for (int y = initY; y < maxY; y += width) {
+                int index = x + y;
+                float sumX = luminance[index] * kernel[0];
+                float sumY = sumX;
+                int xOffset = 1;
+                int yOffset = width;
+                while (xOffset < kwidth) {
+                    sumY += kernel[xOffset] * (luminance[index - yOffset] + luminance[index + yOffset]);
+                    sumX += kernel[xOffset] * (luminance[index - xOffset] + luminance[index + xOffset]);
+                    yOffset += width;
+                    xOffset++;
+                }
+                yConv[index] = sumY;
+                xConv[index] = sumX;
+            }
+        }
+
+        for (int x = initX; x < maxX; x++) {
+            for (int y = initY; y < maxY; y += width) {
+                float sum = 0.0f;
+                int index = x + y;
+                for (int i = 1; i < kwidth; i++) {
+                    sum += diffKernel[i] * (yConv[index - i] - yConv[index + i]);
+                }
+                xGradient[index] = sum;
+            }
+        }
+
+        for (int x = kwidth; x < width - kwidth; x++) {
+            for (int y = initY; y < maxY; y += width) {
+                float sum = 0.0f;
+                int index = x + y;
+                int yOffset = width;
+                for (int i = 1; i < kwidth; i++) {
+                    sum += diffKernel[i] * (xConv[index - yOffset] - xConv[index + yOffset]);
+                    yOffset += width;
+                }
+                yGradient[index] = sum;
+            }
+        }
+
+        initX = kwidth;
+        maxX = width - kwidth;
+        initY = width * kwidth;
+        maxY = width * (height - kwidth);
+        for (int x = initX; x < maxX; x++) {
+            for (int y = initY; y < maxY; y += width) {
+                int index = x + y;
+                int indexN = index - width;
+                int indexS = index + width;
+                int indexW = index - 1;
+                int indexE = index + 1;
+                int indexNW = indexN - 1;
+                int indexNE = indexN + 1;
+                int indexSW = indexS - 1;
+                int indexSE = indexS + 1;
+
+                float xGrad = xGradient[index];
+                float yGrad = yGradient[index];
+                float gradMag = hypot(xGrad, yGrad);
+
+                float nMag = hypot(xGradient[indexN], yGradient[indexN]);
+                float sMag = hypot(xGradient[indexS], yGradient[indexS]);
+                float wMag = hypot(xGradient[indexW], yGradient[indexW]);
+                float eMag = hypot(xGradient[indexE], yGradient[indexE]);
+                float neMag = hypot(xGradient[indexNE], yGradient[indexNE]);
+                float seMag = hypot(xGradient[indexSE], yGradient[indexSE]);
+                float swMag = hypot(xGradient[indexSW], yGradient[indexSW]);
+                float nwMag = hypot(xGradient[indexNW], yGradient[indexNW]);
+                float tmp;
+                if (xGrad * yGrad <= 0
+                    ? Math.abs(xGrad) >= Math.abs(yGrad)
+                    ? (tmp = Math.abs(xGrad * gradMag)) >= Math.abs(yGrad * neMag - (xGrad + yGrad) * eMag)
+                    && tmp > Math.abs(yGrad * swMag - (xGrad + yGrad) * wMag)
+                    : (tmp = Math.abs(yGrad * gradMag)) >= Math.abs(xGrad * neMag - (yGrad + xGrad) * nMag)
+                    && tmp > Math.abs(xGrad * swMag - (yGrad + xGrad) * sMag)
+                    : Math.abs(xGrad) >= Math.abs(yGrad)
+                    ? (tmp = Math.abs(xGrad * gradMag)) >= Math.abs(yGrad * seMag + (xGrad - yGrad) * eMag)
+                    && tmp > Math.abs(yGrad * nwMag + (xGrad - yGrad) * wMag)
+                    : (tmp = Math.abs(yGrad * gradMag)) >= Math.abs(xGrad * seMag + (yGrad - xGrad) * sMag)
+                    && tmp > Math.abs(xGrad * nwMag + (yGrad - xGrad) * nMag)
+                ) {
+                    magnitude[index] = gradMag >= MAGNITUDE_LIMIT ? MAGNITUDE_MAX : (int) (MAGNITUDE_SCALE * gradMag);
+                } else {
+                    magnitude[index] = 0;
+                }
+            }
+        }
+        return magnitude;
+    }
+
+    // keeps the edge candidates that are 8-connected to a strong edge pixel
+    private static int[] traceEdges(int[] magnitude, int width, int height, int low, int high) {
+        int threshold = Math.max(low, 1);
+        boolean[] isEdge = new boolean[magnitude.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < magnitude.length; i++) {
+            if (magnitude[i] >= high && magnitude[i] >= threshold) {
+                isEdge[i] = true;
+                queue.add(i);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int i = queue.remove();
+            int x = i % width;
+            int y = i / width;
+            for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++) {
+                for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++) {
+                    int neighbor = ny * width + nx;
+                    if (!isEdge[neighbor] && magnitude[neighbor] >= threshold) {
+                        isEdge[neighbor] = true;
+                        queue.add(neighbor);
+                    }
+                }
+            }
+        }
+
+        int[] edges = new int[magnitude.length];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = isEdge[i] ? -1 : 0xFF_00_00_00;
+        }
+        return edges;
+    }
+
+    private static float hypot(float x, float y) {
+        return (float) FastMath.hypot(x, y);
+    }
+
+    private static float gaussian(float x, float sigma) {
+        return (float) Math.exp(-(x * x) / (2.0f * sigma * sigma));
+    }
+}
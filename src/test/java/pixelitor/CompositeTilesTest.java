@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pixelitor.filters.Invert;
+import pixelitor.layers.BlendingMode;
+import pixelitor.layers.ImageLayer;
+import pixelitor.layers.Layer;
+import pixelitor.layers.LayerGroup;
+import pixelitor.layers.MaskInitMethod;
+import pixelitor.tools.util.PRectangle;
+import pixelitor.utils.ImageUtils;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the tiled composite image is identical to the
+ * composite image calculated in one step, for mixed layer stacks.
+ */
+@DisplayName("composite tiles tests")
+class CompositeTilesTest {
+    // not multiples of the tile size, so that there are partial tiles
+    private static final int CANVAS_WIDTH = 600;
+    private static final int CANVAS_HEIGHT = 400;
+
+    private Composition comp;
+    private Canvas canvas;
+    private ImageLayer topLayer;
+
+    // the layers of the composition, from bottom to top
+    private final List<Layer> layers = new ArrayList<>();
+
+    @BeforeAll
+    static void beforeAllTests() {
+        TestHelper.setUnitTestingMode();
+    }
+
+    @BeforeEach
+    void beforeEachTest() {
+        comp = TestHelper.createRealComp("CompositeTilesTest", ImageLayer.class, CANVAS_WIDTH, CANVAS_HEIGHT);
+        canvas = comp.getCanvas();
+        layers.clear();
+
+        ImageLayer bottomLayer = (ImageLayer) comp.getLayer(0);
+        fill(bottomLayer.getImage(), new GradientPaint(0, 0, Color.RED, CANVAS_WIDTH, CANVAS_HEIGHT, Color.BLUE));
+        layers.add(bottomLayer);
+
+        ImageLayer maskedLayer = createImageLayer("masked",
+            new GradientPaint(0, 0, Color.YELLOW, 0, CANVAS_HEIGHT, new Color(0, 128, 0, 100)));
+        maskedLayer.setBlendingMode(BlendingMode.MULTIPLY, false, false);
+        maskedLayer.addMask(MaskInitMethod.REVEAL_ALL, false);
+        fill(maskedLayer.getMask().getImage(),
+            new GradientPaint(0, 0, Color.WHITE, CANVAS_WIDTH, 0, Color.DARK_GRAY));
+        addLayer(maskedLayer);
+
+        addLayer(TestHelper.createColorFillLayer(comp, new Color(255, 200, 0), "color fill"));
+        layers.getLast().setBlendingMode(BlendingMode.SCREEN, false, false);
+        layers.getLast().setOpacity(0.4f, false, false);
+
+        ImageLayer passThroughChild = createImageLayer("pass-through child",
+            new GradientPaint(100, 0, new Color(0, 0, 0, 0), 500, 0, Color.MAGENTA));
+        passThroughChild.setBlendingMode(BlendingMode.OVERLAY, false, false);
+        addLayer(new LayerGroup(comp, "pass-through group", new ArrayList<>(List.of(passThroughChild))));
+
+        ImageLayer isolatedChild = createImageLayer("isolated child",
+            new GradientPaint(0, 300, Color.CYAN, 0, 100, Color.WHITE));
+        isolatedChild.setBlendingMode(BlendingMode.DIFFERENCE, false, false);
+        LayerGroup isolatedGroup = new LayerGroup(comp, "isolated group", new ArrayList<>(List.of(isolatedChild)));
+        isolatedGroup.setBlendingMode(BlendingMode.HARD_LIGHT, false, false);
+        isolatedGroup.setOpacity(0.7f, false, false);
+        addLayer(isolatedGroup);
+
+        // the centered text is inside a single tile, so that its
+        // antialiased edges aren't clipped to the tile boundaries
+        addLayer(TestHelper.createTextLayer(comp, "text"));
+
+        topLayer = TestHelper.createEmptyImageLayer(comp, "top");
+        topLayer.setOpacity(0.8f, false, false);
+        addLayer(topLayer);
+
+        comp.invalidateImageCache();
+    }
+
+    @Test
+    @DisplayName("the tiled composite equals the full composite")
+    void wholeImage() {
+        var tiles = new CompositeTiles();
+
+        assertSameImage(tiles.createImage(layers, canvas), calcFullComposite());
+    }
+
+    @Test
+    @DisplayName("regional changes update the tiled composite")
+    void regionalChange() {
+        var tiles = new CompositeTiles();
+        tiles.createImage(layers, canvas);
+
+        // crosses the boundaries of four tiles
+        Rectangle changed = new Rectangle(230, 200, 60, 100);
+        fill(topLayer.getImage(), Color.GREEN, changed);
+        tiles.invalidate(changed);
+
+        assertSameImage(tiles.createImage(layers, canvas), calcFullComposite());
+    }
+
+    @Test
+    @DisplayName("painting the visible tiles doesn't break the other tiles")
+    void paintPartially() {
+        var tiles = new CompositeTiles();
+        Rectangle visible = new Rectangle(20, 30, 300, 200);
+        BufferedImage painted = new BufferedImage(CANVAS_WIDTH, CANVAS_HEIGHT, TYPE_INT_ARGB_PRE);
+        Graphics2D g = painted.createGraphics();
+        g.setClip(visible);
+        tiles.paint(g, layers, canvas, visible);
+
+        Rectangle changed = new Rectangle(250, 10, 300, 300);
+        fill(topLayer.getImage(), Color.ORANGE, changed);
+        tiles.invalidate(changed);
+        tiles.paint(g, layers, canvas, visible);
+        g.dispose();
+
+        BufferedImage expected = calcFullComposite();
+        assertSameImage(painted.getSubimage(visible.x, visible.y, visible.width, visible.height),
+            expected.getSubimage(visible.x, visible.y, visible.width, visible.height));
+        assertSameImage(tiles.createImage(layers, canvas), expected);
+    }
+
+    @Test
+    @DisplayName("the composition uses the tiles for every consumer")
+    void compositionWithTiles() {
+        assertSameImage(comp.getCompositeImage(), calcFullComposite());
+
+        Rectangle changed = new Rectangle(500, 350, 100, 50);
+        fill(topLayer.getImage(), Color.PINK, changed);
+        comp.repaintRegion(PRectangle.fromIm(changed, comp.getView()));
+
+        assertSameImage(comp.getCompositeImage(), calcFullComposite());
+    }
+
+    @Test
+    @DisplayName("the composition falls back to the full composite with adjustments")
+    void compositionWithAdjustment() {
+        addLayer(TestHelper.createAdjustmentLayer(comp, "invert", new Invert()));
+        comp.invalidateImageCache();
+        assertSameImage(comp.getCompositeImage(), calcFullComposite());
+
+        Rectangle changed = new Rectangle(0, 0, 300, 10);
+        fill(topLayer.getImage(), Color.PINK, changed);
+        comp.repaintRegion(PRectangle.fromIm(changed, comp.getView()));
+
+        assertSameImage(comp.getCompositeImage(), calcFullComposite());
+    }
+
+    private BufferedImage calcFullComposite() {
+        return ImageUtils.calcComposite(layers, canvas);
+    }
+
+    private ImageLayer createImageLayer(String name, Paint paint) {
+        ImageLayer layer = TestHelper.createEmptyImageLayer(comp, name);
+        fill(layer.getImage(), paint);
+        return layer;
+    }
+
+    private void addLayer(Layer layer) {
+        comp.addLayerWithoutUI(layer);
+        layers.add(layer);
+    }
+
+    private static void fill(BufferedImage image, Paint paint) {
+        fill(image, paint, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+    }
+
+    private static void fill(BufferedImage image, Paint paint, Rectangle area) {
+        Graphics2D g = image.createGraphics();
+        g.setPaint(paint);
+        g.fill(area);
+        g.dispose();
+    }
+
+    private static void assertSameImage(BufferedImage actual, BufferedImage expected) {
+        assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int actualRGB = actual.getRGB(x, y);
+                int expectedRGB = expected.getRGB(x, y);
+                if (actualRGB != expectedRGB) {
+                    assertThat(Integer.toHexString(actualRGB))
+                        .as("pixel at (%d, %d)", x, y)
+                        .isEqualTo(Integer.toHexString(expectedRGB));
+                }
+            }
+        }
+    }
+}
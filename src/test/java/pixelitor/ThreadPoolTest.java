@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pixelitor.progress.ProgressTracker;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@DisplayName("ThreadPool tests")
+class ThreadPoolTest {
+    @Test
+    @DisplayName("row tasks submitted from all the pool threads don't deadlock")
+    void nestedSubmitsFromAllPoolThreads() {
+        int numOuterTasks = 2 * ThreadPool.getNumCores() + 1;
+        int numRows = 50;
+        AtomicInteger rowsDone = new AtomicInteger();
+
+        Runnable[] outerTasks = new Runnable[numOuterTasks];
+        for (int i = 0; i < numOuterTasks; i++) {
+            // simulates a filter that is applied while
+            // rendering layer groups in parallel
+            outerTasks[i] = () -> {
+                Future<?>[] rowFutures = new Future<?>[numRows];
+                for (int y = 0; y < numRows; y++) {
+                    rowFutures[y] = ThreadPool.submit(rowsDone::incrementAndGet);
+                }
+                ThreadPool.waitFor(rowFutures, ProgressTracker.NO_OP_TRACKER);
+            };
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> ThreadPool.runInParallel(outerTasks));
+        assertThat(rowsDone.get()).isEqualTo(numOuterTasks * numRows);
+    }
+
+    @Test
+    @DisplayName("a task submitted from a pool thread runs on that thread")
+    void submitFromPoolThreadRunsInline() throws Exception {
+        Future<Boolean> outer = ThreadPool.submit2(() -> {
+            Thread poolThread = Thread.currentThread();
+            Future<Thread> inner = ThreadPool.submit2(Thread::currentThread);
+            return inner.isDone() && inner.get() == poolThread;
+        });
+        assertThat(outer.get()).isTrue();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.automate;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pixelitor.TestHelper;
+import pixelitor.io.FileFormat;
+import pixelitor.utils.ConsoleMessageHandler;
+import pixelitor.utils.Messages;
+import pixelitor.utils.TestMessageHandler;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("HeadlessProcessor tests")
+class HeadlessProcessorTest {
+    @TempDir
+    File tempDir;
+
+    @BeforeAll
+    static void beforeAllTests() {
+        TestHelper.setUnitTestingMode();
+    }
+
+    @Test
+    @DisplayName("the headless mode requires the explicit flag")
+    void isRequested() {
+        assertThat(HeadlessProcessor.isRequested(new String[]{"--headless", "a.png"})).isTrue();
+
+        assertThat(HeadlessProcessor.isRequested(new String[0])).isFalse();
+        assertThat(HeadlessProcessor.isRequested(new String[]{"a.png"})).isFalse();
+        // the flag must be the first argument
+        assertThat(HeadlessProcessor.isRequested(new String[]{"a.png", "--headless"})).isFalse();
+    }
+
+    @Nested
+    @DisplayName("argument parsing")
+    class Parsing {
+        @Test
+        @DisplayName("input files, operations and output")
+        void validArgs() {
+            String outDir = tempDir.getPath();
+            var processor = HeadlessProcessor.parseArgs(new String[]{
+                "--headless",
+                "--filter", "Invert",
+                "--filter", "GaussianBlur", "--preset", "Radius=5",
+                "--fit", "200X100",
+                "--flatten",
+                "--output", outDir,
+                "--format", "JPG",
+                "a.png", "b.png"});
+
+            assertThat(processor.getInputFiles())
+                .containsExactly(new File("a.png"), new File("b.png"));
+            assertThat(processor.getNumActions()).isEqualTo(4);
+            assertThat(processor.getOutput()).isEqualTo(new File(outDir));
+            assertThat(processor.getOutputFormat()).isEqualTo(FileFormat.JPG);
+        }
+
+        @Test
+        @DisplayName("a single input file can be saved to a new file")
+        void singleOutputFile() {
+            var processor = HeadlessProcessor.parseArgs(new String[]{
+                "--headless", "in.png", "--output", "out.jpg"});
+
+            assertThat(processor.getInputFiles()).containsExactly(new File("in.png"));
+            assertThat(processor.getNumActions()).isZero();
+            assertThat(processor.getOutput()).isEqualTo(new File("out.jpg"));
+            assertThat(processor.getOutputFormat()).isNull();
+        }
+
+        @ParameterizedTest(name = "{0} => {1}")
+        @CsvSource(delimiter = '|', value = {
+            "a.png --output out.png                             | The first argument must be --headless",
+            "--headless --output out.png                        | No input files were given.",
+            "--headless a.png                                   | No output was given.",
+            "--headless a.png b.png --output out.png            | The output must be an existing directory",
+            "--headless a.png --output                          | Missing value after --output",
+            "--headless a.png --output out.png --sharpen 5      | Unknown option: --sharpen",
+            "--headless a.png --output out.png --format xyz     | Unsupported format: xyz",
+            "--headless a.png --output out.png --resize 100     | Invalid size: 100",
+            "--headless a.png --output out.png --fit 0x100      | Invalid size: 0x100",
+            "--headless a.png --output out.png --fit axb        | Invalid size: axb",
+            "--headless a.png --output out.png --filter NoSuch  | Filter not found: NoSuch",
+            "--headless a.png --output out.png --preset Radius=5 | --preset must follow a --filter",
+            "--headless a.png --output out.png --filter Invert --preset x=1 | doesn't support presets",
+        })
+        void invalidArgs(String args, String expectedMsg) {
+            assertThatThrownBy(() -> HeadlessProcessor.parseArgs(args.trim().split(" +")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(expectedMsg);
+        }
+    }
+
+    @Nested
+    @DisplayName("running")
+    class Running {
+        private final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        private final ConsoleMessageHandler msgHandler = new ConsoleMessageHandler(
+            new PrintStream(outBytes, true, StandardCharsets.UTF_8),
+            new PrintStream(errBytes, true, StandardCharsets.UTF_8));
+
+        private int run(String... args) {
+            Messages.setHandler(msgHandler);
+            try {
+                return HeadlessProcessor.run(args, msgHandler,
+                    new PrintStream(errBytes, true, StandardCharsets.UTF_8));
+            } finally {
+                Messages.setHandler(new TestMessageHandler());
+            }
+        }
+
+        private String getErrOutput() {
+            return errBytes.toString(StandardCharsets.UTF_8);
+        }
+
+        @Test
+        @DisplayName("a file is loaded, filtered and saved")
+        void loadFilterSave() throws IOException {
+            BufferedImage input = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < input.getHeight(); y++) {
+                for (int x = 0; x < input.getWidth(); x++) {
+                    input.setRGB(x, y, x < 10 ? 0xFF_00_00 : 0x33_66_99);
+                }
+            }
+            File inputFile = new File(tempDir, "input.png");
+            ImageIO.write(input, "png", inputFile);
+            File outputFile = new File(tempDir, "output.png");
+
+            int exitCode = run("--headless", inputFile.getPath(),
+                "--filter", "Invert", "--output", outputFile.getPath());
+
+            assertThat(exitCode).isEqualTo(HeadlessProcessor.EXIT_OK);
+            assertThat(msgHandler.hasErrors()).isFalse();
+            assertThat(outputFile).isFile();
+
+            BufferedImage output = ImageIO.read(outputFile);
+            assertThat(output.getWidth()).isEqualTo(20);
+            assertThat(output.getHeight()).isEqualTo(10);
+            assertThat(output.getRGB(0, 0) & 0xFF_FF_FF).isEqualTo(0x00_FF_FF);
+            assertThat(output.getRGB(19, 9) & 0xFF_FF_FF).isEqualTo(0xCC_99_66);
+            // the input file isn't changed
+            assertThat(ImageIO.read(inputFile).getRGB(0, 0) & 0xFF_FF_FF).isEqualTo(0xFF_00_00);
+        }
+
+        @Test
+        @DisplayName("a usage error prints the usage")
+        void usageError() {
+            int exitCode = run("--headless", "a.png");
+
+            assertThat(exitCode).isEqualTo(HeadlessProcessor.EXIT_USAGE_ERROR);
+            assertThat(getErrOutput())
+                .contains("No output was given.")
+                .contains("Usage: pixelitor --headless");
+            assertThat(msgHandler.hasErrors()).isFalse();
+        }
+
+        @Test
+        @DisplayName("a missing input file is a processing error")
+        void missingInputFile() {
+            File missing = new File(tempDir, "missing.png");
+            int exitCode = run("--headless", missing.getPath(),
+                "--output", tempDir.getPath());
+
+            assertThat(exitCode).isEqualTo(HeadlessProcessor.EXIT_PROCESSING_ERROR);
+            assertThat(getErrOutput())
+                .contains("Error: File Not Found: " + missing.getAbsolutePath())
+                .doesNotContain("Usage:");
+            assertThat(msgHandler.hasErrors()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.filters;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pixelitor.TestHelper;
+
+import java.awt.Color;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the integral image based Kuwahara filter against a brute-force
+ * calculation of the sub-region statistics, followed by the HSV
+ * brightness change of the previous implementation.
+ */
+@DisplayName("Kuwahara tests")
+class KuwaharaTest {
+    // the brightness change by scaling the channels
+    // and the HSV round trip can round differently
+    private static final int MAX_CHANNEL_ERROR = 1;
+
+    @BeforeAll
+    static void beforeAllTests() {
+        TestHelper.setUnitTestingMode();
+    }
+
+    @ParameterizedTest(name = "{0}x{1}, radius = {2}")
+    @CsvSource({
+        "1, 1, 1",
+        "7, 3, 5",
+        "60, 45, 1",
+        "83, 300, 3",
+        "150, 70, 10",
+    })
+    @DisplayName("the same result as the brute-force calculation")
+    void sameAsBruteForce(int width, int height, int radius) {
+        Random random = new Random(width * 31L + height);
+        int[] noise = new int[width * height];
+        int[] gradient = new int[width * height];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = random.nextInt();
+            gradient[i] = 0xFF_00_00_00 | ((i / 7) % 256) << 16 | ((i / width) % 256) << 8 | random.nextInt(20);
+        }
+
+        checkSameAsBruteForce(noise, width, height, radius);
+        checkSameAsBruteForce(gradient, width, height, radius);
+    }
+
+    private static void checkSameAsBruteForce(int[] src, int width, int height, int radius) {
+        int[] expected = new int[src.length];
+        applyBruteForce(src, expected, width, height, radius);
+
+        int[] actual = new int[src.length];
+        Kuwahara.apply(src, actual, width, height, radius);
+
+        for (int i = 0; i < src.length; i++) {
+            assertThat(actual[i] >>> 24).isEqualTo(0xFF);
+            for (int shift = 0; shift < 24; shift += 8) {
+                int diff = Math.abs(((actual[i] >> shift) & 0xFF) - ((expected[i] >> shift) & 0xFF));
+                assertThat(diff)
+                    .as("pixel %d of %d", i, src.length)
+                    .isLessThanOrEqualTo(MAX_CHANNEL_ERROR);
+            }
+        }
+    }
+
+    private static void applyBruteForce(int[] src, int[] dest, int width, int height, int radius) {
+        float[] hsv = new float[3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double minVariance = Double.MAX_VALUE;
+                double bestMean = 0;
+                for (int region = 0; region < 4; region++) {
+                    int originX = (region & 1) == 0 ? x - radius : x;
+                    int originY = (region & 2) == 0 ? y - radius : y;
+                    int x1 = Math.max(0, originX);
+                    int y1 = Math.max(0, originY);
+                    int x2 = Math.min(width - 1, originX + radius);
+                    int y2 = Math.min(height - 1, originY + radius);
+
+                    long sum = 0;
+                    long sumSq = 0;
+                    long count = 0;
+                    for (int ry = y1; ry <= y2; ry++) {
+                        for (int rx = x1; rx <= x2; rx++) {
+                            int b = brightness(src[ry * width + rx]);
+                            sum += b;
+                            sumSq += b * b;
+                            count++;
+                        }
+                    }
+                    double variance = (double) (count * sumSq - sum * sum) / (count * count);
+                    if (variance < minVariance) {
+                        minVariance = variance;
+                        bestMean = (double) sum / count;
+                    }
+                }
+
+                int rgb = src[y * width + x];
+                Color.RGBtoHSB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF, hsv);
+                dest[y * width + x] = Color.HSBtoRGB(hsv[0], hsv[1], (float) (bestMean / 255.0));
+            }
+        }
+    }
+
+    private static int brightness(int rgb) {
+        return Math.max((rgb >> 16) & 0xFF, Math.max((rgb >> 8) & 0xFF, rgb & 0xFF));
+    }
+}
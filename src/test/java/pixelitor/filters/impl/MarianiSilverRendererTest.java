@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.filters.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pixelitor.filters.impl.MarianiSilverRenderer.PixelIterations;
+import pixelitor.progress.ProgressTracker;
+
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the subdividing renderer against iterating every pixel.
+ */
+@DisplayName("MarianiSilverRenderer tests")
+class MarianiSilverRendererTest {
+    // the filaments thinner than the pixel grid can be missed
+    private static final double MAX_DIFFERENT_PIXELS_RATIO = 1.0e-4;
+
+    @ParameterizedTest(name = "{0}x{1}, center = ({2}, {3})")
+    @CsvSource({
+        "1, 1, 0.5, 0.5",
+        "5, 200, 0.4, 0.6",
+        "65, 3, 0.5, 0.5",
+        "64, 64, 0.37, 0.61",
+        "300, 211, 0.37, 0.61",
+        "300, 211, -0.3, 1.2",
+    })
+    @DisplayName("connected level sets are rendered exactly")
+    void connectedLevelSets(int width, int height, double centerX, double centerY) {
+        // concentric rings, with the smallest values in the center
+        double setX = width * centerX;
+        double setY = height * centerY;
+        PixelIterations rings = (x, y) -> {
+            double dx = x - setX;
+            double dy = y - setY;
+            return (int) (Math.sqrt(dx * dx + dy * dy) / 7);
+        };
+
+        int[] actual = MarianiSilverRenderer.render(width, height, rings,
+            setX, setY, ProgressTracker.NO_OP_TRACKER);
+
+        assertThat(actual).isEqualTo(renderPerPixel(width, height, rings));
+    }
+
+    @Test
+    @DisplayName("the Mandelbrot set is rendered within the tolerance")
+    void mandelbrotSet() {
+        int width = 480;
+        int height = 360;
+        var view = new Rectangle2D.Double(-2.2, -1.2, 3.0, 2.4);
+        PixelIterations mandelbrot = createMandelbrot(view, width, height);
+
+        var numCalls = new AtomicInteger();
+        int[] actual = renderMandelbrot(view, width, height, (x, y) -> {
+            numCalls.incrementAndGet();
+            return mandelbrot.calc(x, y);
+        });
+        int[] expected = renderPerPixel(width, height, mandelbrot);
+
+        int numDifferent = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (actual[i] != expected[i]) {
+                numDifferent++;
+            }
+        }
+        assertThat(numDifferent).isLessThanOrEqualTo((int) (MAX_DIFFERENT_PIXELS_RATIO * expected.length));
+
+        // the inside of the set and the outer bands are filled
+        assertThat(numCalls.get()).isLessThanOrEqualTo(expected.length * 3 / 4);
+    }
+
+    @ParameterizedTest(name = "{0}x{1}, view width = {2}")
+    @CsvSource({
+        "40, 30, 3.0",
+        "63, 63, 3.0",
+        "64, 48, 12.0",
+        "200, 150, 40.0",
+    })
+    @DisplayName("the Mandelbrot set inside a single tile isn't erased")
+    void mandelbrotSetInsideTile(int width, int height, double viewWidth) {
+        double viewHeight = viewWidth * height / width;
+        var view = new Rectangle2D.Double(-0.7 - viewWidth / 2, -viewHeight / 2, viewWidth, viewHeight);
+        PixelIterations mandelbrot = createMandelbrot(view, width, height);
+
+        int[] actual = renderMandelbrot(view, width, height, mandelbrot);
+
+        assertThat(actual).isEqualTo(renderPerPixel(width, height, mandelbrot));
+    }
+
+    // the escape-time iterations of the pixels, counting up
+    private static PixelIterations createMandelbrot(Rectangle2D view, int width, int height) {
+        return (x, y) -> {
+            double cx = view.getX() + view.getWidth() * x / width;
+            double cy = view.getY() + view.getHeight() * y / height;
+            double zx = 0;
+            double zy = 0;
+            int it = 0;
+            while (it < 256 && zx * zx + zy * zy <= 4) {
+                double tmp = zx * zx - zy * zy + cx;
+                zy = 2 * zx * zy + cy;
+                zx = tmp;
+                it++;
+            }
+            return it;
+        };
+    }
+
+    private static int[] renderMandelbrot(Rectangle2D view, int width, int height,
+                                          PixelIterations function) {
+        // the image coordinates of c = 0, which is in the set
+        double setX = -view.getX() * width / view.getWidth();
+        double setY = -view.getY() * height / view.getHeight();
+        return MarianiSilverRenderer.render(width, height, function,
+            setX, setY, ProgressTracker.NO_OP_TRACKER);
+    }
+
+    @Test
+    @DisplayName("each pixel is calculated at most once")
+    void calculatesPixelsOnce() {
+        int width = 150;
+        int height = 100;
+        int[] numCalls = new int[width * height];
+        MarianiSilverRenderer.render(width, height, (x, y) -> {
+            synchronized (numCalls) {
+                numCalls[y * width + x]++;
+            }
+            return x / 10;
+        }, -1, -1, ProgressTracker.NO_OP_TRACKER);
+
+        for (int count : numCalls) {
+            assertThat(count).isLessThanOrEqualTo(1);
+        }
+    }
+
+    private static int[] renderPerPixel(int width, int height, PixelIterations function) {
+        int[] iterations = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                iterations[y * width + x] = function.calc(x, y);
+            }
+        }
+        return iterations;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.filters.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pixelitor.colors.ColorSpaces;
+import pixelitor.progress.ProgressTracker;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static org.assertj.core.api.Assertions.assertThat;
+import static pixelitor.filters.impl.MorphologyFilter.*;
+
+/**
+ * Checks the constant-time erosion and dilation against the
+ * previous implementation, which applied the 3x3 neighborhood
+ * (square or diamond) once for each unit of the radius.
+ */
+@DisplayName("MorphologyEngine tests")
+class MorphologyEngineTest {
+    private static final int NUM_RANDOM_CASES = 200;
+
+    private final Random random = new Random(42);
+
+    @ParameterizedTest(name = "kernel = {0}")
+    @ValueSource(ints = {KERNEL_SQUARE, KERNEL_DIAMOND})
+    @DisplayName("the same result as the repeated 3x3 neighborhoods")
+    void sameAsRepeatedNeighborhoods(int kernel) {
+        for (int i = 0; i < NUM_RANDOM_CASES; i++) {
+            int width = 1 + random.nextInt(25);
+            int height = 1 + random.nextInt(25);
+            int radius = 1 + random.nextInt(12);
+            boolean dilate = random.nextBoolean();
+            boolean packed = random.nextBoolean();
+            int[] values = createRandomValues(width * height, packed);
+
+            int[] expected = values.clone();
+            for (int it = 0; it < radius; it++) {
+                expected = applyNeighborhood(expected, width, height,
+                    kernel == KERNEL_DIAMOND, dilate, packed);
+            }
+
+            int[] actual = values.clone();
+            MorphologyEngine.apply(actual, width, height, dilate,
+                kernel, radius, packed, ProgressTracker.NO_OP_TRACKER);
+
+            assertThat(actual)
+                .as("%dx%d, radius = %d, dilate = %b, packed = %b",
+                    width, height, radius, dilate, packed)
+                .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("the disk is the octagon of a square and a diamond")
+    void diskIsOctagon() {
+        for (int i = 0; i < NUM_RANDOM_CASES; i++) {
+            int width = 1 + random.nextInt(25);
+            int height = 1 + random.nextInt(25);
+            int radius = 1 + random.nextInt(12);
+            boolean dilate = random.nextBoolean();
+            boolean packed = random.nextBoolean();
+            int[] values = createRandomValues(width * height, packed);
+
+            int[] expected = applyOctagon(values, width, height, radius, dilate, packed);
+
+            int[] actual = values.clone();
+            MorphologyEngine.apply(actual, width, height, dilate,
+                KERNEL_DISK, radius, packed, ProgressTracker.NO_OP_TRACKER);
+
+            assertThat(actual)
+                .as("%dx%d, radius = %d, dilate = %b, packed = %b",
+                    width, height, radius, dilate, packed)
+                .isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest(name = "kernel = {0}")
+    @ValueSource(ints = {KERNEL_SQUARE, KERNEL_DIAMOND, KERNEL_DISK})
+    @DisplayName("the counted passes are reported to the progress tracker")
+    void reportsAllPasses(int kernel) {
+        for (int radius = 0; radius <= 20; radius++) {
+            var numUnits = new AtomicInteger();
+            MorphologyEngine.apply(new int[100], 10, 10, true, kernel, radius,
+                true, new CountingTracker(numUnits));
+
+            assertThat(numUnits.get())
+                .as("radius = %d", radius)
+                .isEqualTo(MorphologyEngine.countPasses(kernel, radius));
+        }
+    }
+
+    @ParameterizedTest(name = "channel = {0}")
+    @ValueSource(ints = {CHANNEL_RGB, CHANNEL_HSV, CHANNEL_YCBCR})
+    @DisplayName("the color channels are processed as before")
+    void colorChannels(int channel) {
+        int width = 31;
+        int height = 17;
+        BufferedImage src = new BufferedImage(width, height, TYPE_INT_ARGB);
+        int[] srcPixels = getPixels(src);
+        System.arraycopy(createRandomValues(srcPixels.length, true), 0, srcPixels, 0, srcPixels.length);
+
+        for (int kernel : new int[]{KERNEL_SQUARE, KERNEL_DIAMOND}) {
+            for (int op : new int[]{OP_ERODE, OP_DILATE}) {
+                var filter = new MorphologyFilter("Morphology", kernel, channel, 3);
+                filter.setOp(op);
+                int[] actual = getPixels(filter.filter(src, null));
+
+                int[] expected = applyOldFilter(srcPixels, width, height,
+                    kernel == KERNEL_DIAMOND, op == OP_DILATE, channel, 3);
+                assertThat(actual)
+                    .as("kernel = %d, op = %d", kernel, op)
+                    .isEqualTo(expected);
+            }
+        }
+    }
+
+    private int[] createRandomValues(int length, boolean packed) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            // few distinct values, so that there are ties
+            values[i] = packed ? random.nextInt() : random.nextInt(1000);
+        }
+        return values;
+    }
+
+    // one iteration of the previous implementation
+    private static int[] applyNeighborhood(int[] src, int width, int height,
+                                           boolean diamond, boolean dilate, boolean packed) {
+        int[] dst = new int[src.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = src[y * width + x];
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if (diamond && dx != 0 && dy != 0) {
+                            continue; // ignore the corner neighbors
+                        }
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                            value = combine(value, src[ny * width + nx], dilate, packed);
+                        }
+                    }
+                }
+                dst[y * width + x] = value;
+            }
+        }
+        return dst;
+    }
+
+    // the brute-force application of the octagon
+    private static int[] applyOctagon(int[] src, int width, int height,
+                                      int radius, boolean dilate, boolean packed) {
+        int diamondRadius = (int) Math.round(radius * (2 - Math.sqrt(2)));
+        int squareRadius = radius - diamondRadius;
+
+        int[] dst = new int[src.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = src[y * width + x];
+                for (int ny = 0; ny < height; ny++) {
+                    for (int nx = 0; nx < width; nx++) {
+                        // the distance from the square around the pixel
+                        int distX = Math.max(0, Math.abs(nx - x) - squareRadius);
+                        int distY = Math.max(0, Math.abs(ny - y) - squareRadius);
+                        if (distX + distY <= diamondRadius) {
+                            value = combine(value, src[ny * width + nx], dilate, packed);
+                        }
+                    }
+                }
+                dst[y * width + x] = value;
+            }
+        }
+        return dst;
+    }
+
+    private static int combine(int a, int b, boolean dilate, boolean packed) {
+        if (!packed) {
+            return dilate ? Math.max(a, b) : Math.min(a, b);
+        }
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int ca = (a >>> shift) & 0xFF;
+            int cb = (b >>> shift) & 0xFF;
+            result |= (dilate ? Math.max(ca, cb) : Math.min(ca, cb)) << shift;
+        }
+        return result;
+    }
+
+    // the color channel handling of the previous implementation
+    private static int[] applyOldFilter(int[] pixels, int width, int height,
+                                        boolean diamond, boolean dilate,
+                                        int channel, int radius) {
+        if (channel == CHANNEL_RGB) {
+            int[] result = pixels;
+            for (int it = 0; it < radius; it++) {
+                result = applyNeighborhood(result, width, height, diamond, dilate, true);
+            }
+            return result;
+        }
+
+        int numPixels = pixels.length;
+        float[][] components = new float[numPixels][];
+        int[] channelValues = new int[numPixels];
+        for (int i = 0; i < numPixels; i++) {
+            int p = pixels[i];
+            if (channel == CHANNEL_HSV) {
+                components[i] = Color.RGBtoHSB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF, null);
+            } else {
+                components[i] = ColorSpaces.srgbToYCbCr(p);
+            }
+            // the non-negative floats are ordered like their bits
+            channelValues[i] = Float.floatToIntBits(components[i][channel == CHANNEL_HSV ? 2 : 0]);
+        }
+        for (int it = 0; it < radius; it++) {
+            channelValues = applyNeighborhood(channelValues, width, height, diamond, dilate, false);
+        }
+
+        int[] result = new int[numPixels];
+        for (int i = 0; i < numPixels; i++) {
+            float[] c = components[i];
+            float value = Float.intBitsToFloat(channelValues[i]);
+            int rgb;
+            if (channel == CHANNEL_HSV) {
+                rgb = Color.HSBtoRGB(c[0], c[1], value);
+            } else {
+                rgb = ColorSpaces.ycbcrToSrgb(new float[]{value, c[1], c[2]});
+            }
+            result[i] = (pixels[i] & 0xFF_00_00_00) | (rgb & 0xFF_FF_FF);
+        }
+        return result;
+    }
+
+    private static int[] getPixels(BufferedImage img) {
+        return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+    }
+
+    private record CountingTracker(AtomicInteger numUnits) implements ProgressTracker {
+        @Override
+        public void unitDone() {
+            numUnits.incrementAndGet();
+        }
+
+        @Override
+        public void unitsDone(int completedUnits) {
+            numUnits.addAndGet(completedUnits);
+        }
+
+        @Override
+        public void finished() {
+        }
+    }
+}
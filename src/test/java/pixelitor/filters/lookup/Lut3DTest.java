@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.filters.lookup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pixelitor.colors.ColorSpaces;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the baked 3D lookup tables against the exact color transformations.
+ */
+@DisplayName("Lut3D tests")
+class Lut3DTest {
+    // The maximum difference per channel between the interpolated and
+    // the exact result of a smooth transformation (the measured maximum is 2).
+    private static final int MAX_SMOOTH_ERROR = 2;
+
+    // A transformation that moves colors out of the sRGB gamut is only
+    // piecewise smooth, because of the clipping. Near the clipping
+    // boundaries the error can be bigger, but the measured mean error
+    // per pixel is about 0.4, and 98% of the colors are within 1.
+    private static final double MAX_CLIPPED_MEAN_ERROR = 0.5;
+    private static final double MIN_CLIPPED_WITHIN_ONE = 0.97;
+    private static final int MAX_CLIPPED_ERROR = 32;
+
+    private static final IntUnaryOperator OKLAB_LIGHTEN = rgb -> {
+        float[] oklab = ColorSpaces.srgbToOklab(rgb);
+        oklab[0] = Math.min(1.0f, oklab[0] + 0.05f);
+        return ColorSpaces.oklabToSrgb(oklab);
+    };
+
+    private static final IntUnaryOperator OKLCH_ADJUSTMENT = rgb -> {
+        float[] oklch = ColorSpaces.srgbToOklch(rgb);
+        oklch[0] = Math.min(1.0f, oklch[0] * 1.1f);
+        oklch[1] = oklch[1] * 1.2f;
+        oklch[2] = (oklch[2] + 30.0f) % 360.0f;
+        return ColorSpaces.oklchToSrgb(oklch);
+    };
+
+    @Test
+    @DisplayName("the identity is reproduced exactly for every color")
+    void identity() {
+        Lut3D lut = Lut3D.bake(rgb -> rgb);
+
+        for (int rgb = 0; rgb <= 0xFF_FF_FF; rgb++) {
+            if (lut.lookup(rgb) != rgb) {
+                assertThat(Integer.toHexString(lut.lookup(rgb)))
+                    .isEqualTo(Integer.toHexString(rgb));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("the grid points are exact for any transformation")
+    void gridPoints() {
+        // a transformation that can't be interpolated
+        IntUnaryOperator scramble = rgb -> (rgb * 0x9E3779B1) >>> 8;
+        Lut3D lut = Lut3D.bake(scramble);
+
+        for (int r = 0; r < 256; r += 5) {
+            for (int g = 0; g < 256; g += 5) {
+                for (int b = 0; b < 256; b += 5) {
+                    int rgb = 0xFF_00_00_00 | r << 16 | g << 8 | b;
+                    assertThat(lut.lookup(rgb)).isEqualTo(scramble.applyAsInt(rgb) & 0xFF_FF_FF);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("a smooth transformation is approximated within the tolerance")
+    void smoothTransformation() {
+        Lut3D lut = Lut3D.bake(OKLAB_LIGHTEN);
+
+        int maxError = 0;
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int rgb = 0xFF_00_00_00 | random.nextInt(0x1_00_00_00);
+            int expected = OKLAB_LIGHTEN.applyAsInt(rgb);
+            maxError = Math.max(maxError, calcMaxChannelDiff(lut.lookup(rgb), expected));
+        }
+        assertThat(maxError).isLessThanOrEqualTo(MAX_SMOOTH_ERROR);
+    }
+
+    @Test
+    @DisplayName("a clipped transformation is approximated within the tolerance")
+    void clippedTransformation() {
+        Lut3D lut = Lut3D.bake(OKLCH_ADJUSTMENT);
+
+        int numColors = 100_000;
+        int numWithinOne = 0;
+        long sumErrors = 0;
+        int maxError = 0;
+        Random random = new Random(42);
+        for (int i = 0; i < numColors; i++) {
+            int rgb = 0xFF_00_00_00 | random.nextInt(0x1_00_00_00);
+            int expected = OKLCH_ADJUSTMENT.applyAsInt(rgb);
+            int error = calcMaxChannelDiff(lut.lookup(rgb), expected);
+            if (error <= 1) {
+                numWithinOne++;
+            }
+            sumErrors += error;
+            maxError = Math.max(maxError, error);
+        }
+        assertThat((double) sumErrors / numColors).isLessThanOrEqualTo(MAX_CLIPPED_MEAN_ERROR);
+        assertThat((double) numWithinOne / numColors).isGreaterThanOrEqualTo(MIN_CLIPPED_WITHIN_ONE);
+        assertThat(maxError).isLessThanOrEqualTo(MAX_CLIPPED_ERROR);
+    }
+
+    @Test
+    @DisplayName("small images are filtered exactly, large ones with the table")
+    void filterUsesTableOnlyForLargeImages() {
+        var filter = new LightenFilter();
+
+        BufferedImage small = createRandomImage(100, 80);
+        int[] smallSrc = getPixels(small);
+        int[] smallDst = getPixels(filter.filter(small, null));
+        for (int i = 0; i < smallSrc.length; i++) {
+            int expected = (smallSrc[i] & 0xFF_00_00_00)
+                | (OKLAB_LIGHTEN.applyAsInt(smallSrc[i]) & 0xFF_FF_FF);
+            assertThat(smallDst[i]).isEqualTo(expected);
+        }
+
+        BufferedImage large = createRandomImage(512, 512);
+        int[] largeSrc = getPixels(large);
+        int[] largeDst = getPixels(filter.filter(large, null));
+        int maxError = 0;
+        for (int i = 0; i < largeSrc.length; i++) {
+            maxError = Math.max(maxError,
+                calcMaxChannelDiff(largeDst[i], OKLAB_LIGHTEN.applyAsInt(largeSrc[i])));
+        }
+        assertThat(maxError).isLessThanOrEqualTo(MAX_SMOOTH_ERROR);
+    }
+
+    @Test
+    @DisplayName("the pixel function matches the filter for any image size")
+    void pixelFunctionMatchesFilter() {
+        var filter = new LightenFilter();
+        for (int size : new int[]{50, 512}) {
+            BufferedImage src = createRandomImage(size, size);
+            int[] expected = getPixels(filter.filter(src, null));
+
+            IntUnaryOperator function = filter.asPixelFunction(size, size);
+            int[] srcPixels = getPixels(src);
+            for (int i = 0; i < srcPixels.length; i++) {
+                assertThat(function.applyAsInt(srcPixels[i])).isEqualTo(expected[i]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("a pixel function isn't changed by later uses of the filter")
+    void pixelFunctionKeepsItsChoice() {
+        var filter = new LightenFilter();
+        IntUnaryOperator smallFunction = filter.asPixelFunction(50, 50);
+
+        // the same filter is prepared for a large image
+        filter.asPixelFunction(512, 512);
+        filter.filter(createRandomImage(512, 512), null);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            int rgb = random.nextInt();
+            int expected = (rgb & 0xFF_00_00_00) | (OKLAB_LIGHTEN.applyAsInt(rgb) & 0xFF_FF_FF);
+            assertThat(smallFunction.applyAsInt(rgb)).isEqualTo(expected);
+        }
+    }
+
+    private static int calcMaxChannelDiff(int rgb1, int rgb2) {
+        int maxDiff = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int diff = Math.abs(((rgb1 >>> shift) & 0xFF) - ((rgb2 >>> shift) & 0xFF));
+            maxDiff = Math.max(maxDiff, diff);
+        }
+        return maxDiff;
+    }
+
+    private static BufferedImage createRandomImage(int width, int height) {
+        BufferedImage img = new BufferedImage(width, height, TYPE_INT_ARGB);
+        int[] pixels = getPixels(img);
+        Random random = new Random(width);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return img;
+    }
+
+    private static int[] getPixels(BufferedImage img) {
+        return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+    }
+
+    private static class LightenFilter extends Lut3DFilter {
+        LightenFilter() {
+            super("Lighten");
+        }
+
+        @Override
+        protected int calcColor(int rgb) {
+            return OKLAB_LIGHTEN.applyAsInt(rgb);
+        }
+    }
+}
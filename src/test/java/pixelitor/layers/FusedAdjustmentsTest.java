@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.layers;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pixelitor.Composition;
+import pixelitor.TestHelper;
+import pixelitor.filters.BrightnessContrast;
+import pixelitor.filters.ChannelMixer;
+import pixelitor.filters.HueSat;
+import pixelitor.filters.ParametrizedFilter;
+import pixelitor.filters.lookup.ColorBalance;
+import pixelitor.filters.util.ColorSpace;
+import pixelitor.filters.util.CylColorSpace;
+import pixelitor.gui.GUIText;
+import pixelitor.utils.ImageUtils;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the fused point adjustments give exactly
+ * the same result as applying the layers one after the other.
+ */
+@DisplayName("FusedAdjustments tests")
+class FusedAdjustmentsTest {
+    private static final int NUM_RANDOM_SETTINGS = 5;
+
+    private Composition comp;
+
+    @BeforeAll
+    static void beforeAllTests() {
+        TestHelper.setUnitTestingMode();
+    }
+
+    // small images are filtered directly, big ones with the baked lookup tables
+    @ParameterizedTest(name = "size = {0}")
+    @ValueSource(ints = {50, 512})
+    @DisplayName("the same result as the sequential layers")
+    void sameAsSequential(int size) {
+        comp = TestHelper.createEmptyComp("FusedAdjustmentsTest");
+        BufferedImage src = createRandomImage(size);
+        List<ParametrizedFilter> filters = List.of(new HueSat(),
+            new ColorBalance(), new BrightnessContrast(), new ChannelMixer());
+
+        for (int i = 0; i < NUM_RANDOM_SETTINGS; i++) {
+            filters.forEach(ParametrizedFilter::randomize);
+            checkSameAsSequential(src, createLayers(filters), filters.size());
+        }
+    }
+
+    @ParameterizedTest(name = "size = {0}")
+    @ValueSource(ints = {50, 512})
+    @DisplayName("the same result in the Oklab color spaces")
+    void sameAsSequentialInOklab(int size) {
+        comp = TestHelper.createEmptyComp("FusedAdjustmentsTest");
+        BufferedImage src = createRandomImage(size);
+        var hueSat = new HueSat();
+        var colorBalance = new ColorBalance();
+        List<ParametrizedFilter> filters = List.of(hueSat, colorBalance);
+
+        for (int i = 0; i < NUM_RANDOM_SETTINGS; i++) {
+            filters.forEach(ParametrizedFilter::randomize);
+            hueSat.getParamSet().set(GUIText.COLOR_SPACE, CylColorSpace.OKLCH.toString());
+            colorBalance.getParamSet().set(GUIText.COLOR_SPACE, ColorSpace.OKLAB.toString());
+            checkSameAsSequential(src, createLayers(filters), filters.size());
+        }
+    }
+
+    @Test
+    @DisplayName("hidden layers are skipped, but counted")
+    void skipsHiddenLayers() {
+        comp = TestHelper.createEmptyComp("FusedAdjustmentsTest");
+        BufferedImage src = createRandomImage(50);
+        List<ParametrizedFilter> filters = List.of(new BrightnessContrast(),
+            new HueSat(), new ChannelMixer());
+        filters.forEach(ParametrizedFilter::randomize);
+
+        List<Layer> layers = createLayers(filters);
+        layers.get(1).setVisible(false, false, false);
+
+        checkSameAsSequential(src, layers, 3);
+    }
+
+    @Test
+    @DisplayName("a single adjustment layer isn't fused")
+    void singleLayerNotFused() {
+        comp = TestHelper.createEmptyComp("FusedAdjustmentsTest");
+        BufferedImage src = createRandomImage(50);
+        List<Layer> layers = createLayers(List.of(new HueSat()));
+
+        assertThat(FusedAdjustments.collect(layers, 0, src)).isNull();
+    }
+
+    private static void checkSameAsSequential(BufferedImage src, List<Layer> layers, int numFusedLayers) {
+        BufferedImage expected = ImageUtils.copyImage(src);
+        for (Layer layer : layers) {
+            if (layer.isVisible()) {
+                expected = ((AdjustmentLayer) layer).transformImage(expected);
+            }
+        }
+
+        BufferedImage actual = ImageUtils.copyImage(src);
+        FusedAdjustments fused = FusedAdjustments.collect(layers, 0, actual);
+        assertThat(fused).isNotNull();
+        assertThat(fused.getNumLayers()).isEqualTo(numFusedLayers);
+        fused.applyTo(actual);
+
+        assertThat(ImageUtils.getPixels(actual)).isEqualTo(ImageUtils.getPixels(expected));
+    }
+
+    private List<Layer> createLayers(List<ParametrizedFilter> filters) {
+        List<Layer> layers = new ArrayList<>();
+        for (ParametrizedFilter filter : filters) {
+            layers.add(new AdjustmentLayer(comp, filter.getName(), filter));
+        }
+        return layers;
+    }
+
+    // a premultiplied image, like the composite image
+    private static BufferedImage createRandomImage(int size) {
+        Random random = new Random(size);
+        BufferedImage img = new BufferedImage(size, size, TYPE_INT_ARGB_PRE);
+        int[] pixels = ImageUtils.getPixels(img);
+        for (int i = 0; i < pixels.length; i++) {
+            // many opaque pixels, and some with every other alpha
+            int a = random.nextBoolean() ? 255 : random.nextInt(256);
+            int r = random.nextInt(a + 1);
+            int g = random.nextInt(a + 1);
+            int b = random.nextInt(a + 1);
+            pixels[i] = a << 24 | r << 16 | g << 8 | b;
+        }
+        return img;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.layers;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pixelitor.Composition;
+import pixelitor.TestHelper;
+import pixelitor.tools.util.PRectangle;
+import pixelitor.utils.ImagePyramid;
+import pixelitor.utils.Thumbnails;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the icon proxy of an image layer is never stale,
+ * whichever way its icon is updated.
+ */
+@DisplayName("image layer icon proxy tests")
+class IconProxyTest {
+    private static final int THUMB_SIZE = 32;
+    private static final int CANVAS_WIDTH = 400;
+    private static final int CANVAS_HEIGHT = 300;
+
+    private Composition comp;
+    private ImageLayer layer;
+
+    @BeforeAll
+    static void beforeAllTests() {
+        TestHelper.setUnitTestingMode();
+        Thumbnails.updateThumbSize(THUMB_SIZE);
+    }
+
+    @BeforeEach
+    void beforeEachTest() {
+        comp = TestHelper.createRealComp("IconProxyTest", ImageLayer.class, CANVAS_WIDTH, CANVAS_HEIGHT);
+        layer = (ImageLayer) comp.getActiveLayer();
+        fill(layer.getImage(), Color.RED, new Rectangle(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT));
+        createProxy();
+    }
+
+    @Test
+    @DisplayName("an update without a region rebuilds the proxy")
+    void updateWithoutRegion() {
+        fill(layer.getImage(), Color.BLUE, new Rectangle(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT));
+        // repainting a small region doesn't mean that only that region changed
+        layer.repaintRegion(PRectangle.fromIm(new Rectangle(10, 10, 5, 5), comp.getView()));
+        layer.updateIconImage();
+
+        assertProxyIsUpToDate();
+    }
+
+    @Test
+    @DisplayName("a regional update recalculates the changed region")
+    void regionalUpdate() {
+        Rectangle region = new Rectangle(101, 53, 30, 20);
+        fill(layer.getImage(), Color.BLUE, region);
+        layer.updateIconImage(region);
+
+        assertProxyIsUpToDate();
+    }
+
+    @Test
+    @DisplayName("a regional update after replacing the image rebuilds the proxy")
+    void regionalUpdateAfterNewImage() {
+        BufferedImage newImage = new BufferedImage(CANVAS_WIDTH, CANVAS_HEIGHT, TYPE_INT_ARGB);
+        fill(newImage, Color.GREEN, new Rectangle(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT));
+        layer.setImage(newImage);
+        layer.updateIconImage(new Rectangle(0, 0, 10, 10));
+
+        assertProxyIsUpToDate();
+    }
+
+    @Test
+    @DisplayName("a regional update after moving the image rebuilds the proxy")
+    void regionalUpdateAfterTranslation() {
+        // a layer that is bigger than the canvas
+        BufferedImage bigImage = new BufferedImage(CANVAS_WIDTH + 100, CANVAS_HEIGHT + 100, TYPE_INT_ARGB);
+        fill(bigImage, Color.RED, new Rectangle(0, 0, bigImage.getWidth(), bigImage.getHeight()));
+        fill(bigImage, Color.BLUE, new Rectangle(0, 0, 60, 60));
+        layer = TestHelper.createImageLayer(comp, bigImage, "big layer");
+        layer.setTranslation(-50, -50);
+        createProxy();
+
+        // the source region of the proxy moves, but the image is the same
+        layer.setTranslation(0, 0);
+        layer.updateIconImage(new Rectangle(0, 0, 10, 10));
+
+        assertProxyIsUpToDate();
+    }
+
+    private void createProxy() {
+        layer.updateIconImage();
+        layer.getIconSource();
+    }
+
+    private void assertProxyIsUpToDate() {
+        BufferedImage source = layer.getCanvasSizedSubImage();
+        int level = ImagePyramid.selectLevel(Math.min(
+            (double) THUMB_SIZE / source.getWidth(),
+            (double) THUMB_SIZE / source.getHeight()));
+        BufferedImage expected = ImagePyramid.createSingleLevel().getLevel(source, level);
+
+        BufferedImage actual = layer.getIconSource();
+
+        assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+        assertThat(getPixels(actual)).isEqualTo(getPixels(expected));
+    }
+
+    private static int[] getPixels(BufferedImage img) {
+        return img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+    }
+
+    private static void fill(BufferedImage img, Color color, Rectangle region) {
+        Graphics2D g = img.createGraphics();
+        g.setColor(color);
+        g.fill(region);
+        g.dispose();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pixelitor.manual;
+
+import com.jhlabs.composite.MultiplyComposite;
+import com.jhlabs.image.ImageMath;
+import pixelitor.utils.ImageUtils;
+import pixelitor.utils.PackedBlender;
+
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+
+/**
+ * Compares the previous scalar per-pixel kernels with the branch-free
+ * single-threaded and the parallel versions. Each run starts from the
+ * same input, which is restored outside the measured time, and the
+ * results of the compared kernels are checked to be the same.
+ */
+public class TestKernelPerformance {
+    private static final int IMAGE_SIZE = 4000;
+    private static final int NUM_WARMUP_RUNS = 5;
+    private static final int NUM_TESTS_PER_KERNEL = 20;
+
+    private TestKernelPerformance() {
+    }
+
+    public static void main(String[] args) {
+        BufferedImage src = createRandomImage(TYPE_INT_ARGB);
+        int[] input = ImageUtils.getPixels(src).clone();
+
+        BufferedImage image = createRandomImage(TYPE_INT_ARGB);
+        int[] pixels = ImageUtils.getPixels(image);
+
+        int[] oldResult = measure("premultiply, previous", input, pixels,
+            () -> premultiplyWithDivisions(pixels));
+        int[] newResult = measure("premultiply, branch-free", input, pixels,
+            () -> ImageMath.premultiply(pixels));
+        int[] parallelResult = measure("premultiply, parallel", input, pixels,
+            () -> ImageUtils.premultiply(image));
+        checkSame(oldResult, newResult, parallelResult);
+
+        // the unpremultiply kernels get a valid premultiplied input
+        int[] premultiplied = oldResult;
+        oldResult = measure("unpremultiply, previous", premultiplied, pixels,
+            () -> unpremultiplyWithDivisions(pixels));
+        newResult = measure("unpremultiply, branch-free", premultiplied, pixels,
+            () -> ImageMath.unpremultiply(pixels));
+        parallelResult = measure("unpremultiply, parallel", premultiplied, pixels,
+            () -> ImageUtils.unpremultiply(image));
+        checkSame(oldResult, newResult, parallelResult);
+
+        BufferedImage dst = createRandomImage(TYPE_INT_ARGB_PRE);
+        int[] dstPixels = ImageUtils.getPixels(dst);
+        int[] dstInput = dstPixels.clone();
+        Composite multiply = new MultiplyComposite(0.8f);
+        oldResult = measure("multiply, Graphics2D", dstInput, dstPixels, () -> {
+            Graphics2D g = dst.createGraphics();
+            g.setComposite(multiply);
+            g.drawImage(src, 0, 0, null);
+            g.dispose();
+        });
+        newResult = measure("multiply, packed", dstInput, dstPixels,
+            () -> PackedBlender.blend(src, 0, 0, dst, multiply));
+        checkSame(oldResult, newResult);
+
+        System.exit(0);
+    }
+
+    private static BufferedImage createRandomImage(int type) {
+        BufferedImage img = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, type);
+        int[] pixels = ImageUtils.getPixels(img);
+        Random random = new Random(42);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return img;
+    }
+
+    /**
+     * Runs the kernel on the given pixels, after restoring them from
+     * the input before each run, and returns the result of the last run.
+     */
+    private static int[] measure(String name, int[] input, int[] pixels, Runnable kernel) {
+        for (int i = 0; i < NUM_WARMUP_RUNS; i++) {
+            System.arraycopy(input, 0, pixels, 0, pixels.length);
+            kernel.run();
+        }
+
+        double minSeconds = Double.MAX_VALUE;
+        double sumSeconds = 0;
+        for (int i = 0; i < NUM_TESTS_PER_KERNEL; i++) {
+            System.arraycopy(input, 0, pixels, 0, pixels.length);
+
+            long startTime = System.nanoTime();
+            kernel.run();
+            double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+
+            minSeconds = Math.min(minSeconds, seconds);
+            sumSeconds += seconds;
+        }
+        System.out.printf("%s: min = %.4f, average = %.4f%n",
+            name, minSeconds, sumSeconds / NUM_TESTS_PER_KERNEL);
+        return pixels.clone();
+    }
+
+    private static void checkSame(int[] expected, int[]... results) {
+        for (int[] result : results) {
+            if (!Arrays.equals(expected, result)) {
+                throw new IllegalStateException("different results");
+            }
+        }
+    }
+
+    // the previous implementation of ImageMath.premultiply
+    private static void premultiplyWithDivisions(int[] p) {
+        for (int i = 0; i < p.length; i++) {
+            int rgb = p[i];
+            int a = rgb >>> 24;
+            if (a == 255) {
+                continue;
+            }
+            if (a == 0) {
+                p[i] = 0;
+                continue;
+            }
+            int r = (((rgb >> 16) & 0xFF) * a) / 255;
+            int g = (((rgb >> 8) & 0xFF) * a) / 255;
+            int b = ((rgb & 0xFF) * a) / 255;
+            p[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+    }
+
+    // the previous implementation of ImageMath.unpremultiply
+    private static void unpremultiplyWithDivisions(int[] p) {
+        for (int i = 0; i < p.length; i++) {
+            int rgb = p[i];
+            int a = rgb >>> 24;
+            if (a != 0 && a != 255) {
+                int r = Math.min(255, (((rgb >> 16) & 0xFF) * 255) / a);
+                int g = Math.min(255, (((rgb >> 8) & 0xFF) * 255) / a);
+                int b = Math.min(255, ((rgb & 0xFF) * 255) / a);
+                p[i] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+}
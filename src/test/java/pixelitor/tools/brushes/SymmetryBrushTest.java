@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.tools.brushes;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import pixelitor.Composition;
+import pixelitor.TestHelper;
+import pixelitor.gui.View;
+import pixelitor.layers.Drawable;
+import pixelitor.layers.ImageLayer;
+import pixelitor.tools.BrushType;
+import pixelitor.tools.Symmetry;
+import pixelitor.tools.Tools;
+import pixelitor.tools.util.PPoint;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("SymmetryBrush tests")
+class SymmetryBrushTest {
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 100;
+
+    @BeforeAll
+    static void beforeAllTests() {
+        TestHelper.setUnitTestingMode();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Symmetry.class, names = {"VERTICAL_MIRROR", "TWO_MIRRORS"})
+    @DisplayName("the mirrors painted in parallel match the sequential painting")
+    void parallelMatchesSequential(Symmetry symmetry) {
+        int[] sequential = paintStroke(symmetry, false);
+        int[] parallel = paintStroke(symmetry, true);
+
+        assertThat(parallel).isEqualTo(sequential);
+
+        // the stroke and its mirrors were painted
+        long numPainted = Arrays.stream(sequential).filter(p -> p != 0).count();
+        assertThat(numPainted).isGreaterThan(0);
+    }
+
+    private static int[] paintStroke(Symmetry symmetry, boolean parallel) {
+        Composition comp = TestHelper.createRealComp("SymmetryBrushTest", ImageLayer.class, WIDTH, HEIGHT);
+        Symmetry.activeCanvasSizeChanged(comp.getCanvas());
+        Drawable dr = comp.getActiveDrawableOrThrow();
+        View view = comp.getView();
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLACK);
+
+        var brush = new SymmetryBrush(Tools.BRUSH, BrushType.HARD, symmetry, 5);
+        brush.setParallelAllowed(parallel);
+        brush.setTarget(dr, g);
+
+        // far enough from the symmetry axes for the mirrors to be painted in parallel
+        brush.startStrokeAt(PPoint.fromIm(20, 15, view));
+        assertThat(brush.isPaintingInParallel()).isEqualTo(parallel);
+        for (int i = 1; i <= 20; i++) {
+            brush.continueTo(PPoint.fromIm(20 + 3 * i, 15 + i, view));
+        }
+        brush.finishBrushStroke();
+        brush.dispose();
+        g.dispose();
+
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ConsoleMessageHandler tests")
+class ConsoleMessageHandlerTest {
+    private final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+    private final ConsoleMessageHandler handler = new ConsoleMessageHandler(
+        new PrintStream(outBytes, true, StandardCharsets.UTF_8),
+        new PrintStream(errBytes, true, StandardCharsets.UTF_8));
+
+    private String getOut() {
+        return outBytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private String getErr() {
+        return errBytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("the HTML tags are removed")
+    void stripsHTML() {
+        handler.showInStatusBar("<html>Saved <b>a.png</b>");
+        handler.showInfo("Info", "first<br>second", null);
+
+        assertThat(getOut()).isEqualTo(String.format("Saved a.png%nInfo: first second%n"));
+        assertThat(getErr()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("only the errors and exceptions are counted as errors")
+    void countsErrors() {
+        handler.showInfo("Info", "msg", null);
+        handler.showWarning("Warning", "msg", null);
+        assertThat(handler.hasErrors()).isFalse();
+
+        handler.showError("Title", "msg", null);
+        assertThat(handler.hasErrors()).isTrue();
+        assertThat(getErr()).contains("Warning: Warning: msg", "Error: Title: msg");
+    }
+
+    @Test
+    @DisplayName("an exception is printed with its thread")
+    void showsException() {
+        handler.showExceptionOnEDT(new IllegalStateException("test exception"));
+
+        assertThat(handler.hasErrors()).isTrue();
+        assertThat(getErr())
+            .contains("Exception in the thread \"" + Thread.currentThread().getName() + "\"")
+            .contains("java.lang.IllegalStateException: test exception");
+    }
+
+    @Test
+    @DisplayName("the questions are answered with no")
+    void answersNo() {
+        assertThat(handler.showYesNoQuestion("Overwrite", "Overwrite a.png?")).isFalse();
+        assertThat(getOut()).contains("(answered no)");
+    }
+
+    @Test
+    @DisplayName("the progress is printed in steps of 10%")
+    void printsProgressSteps() {
+        var progress = handler.startProgress("Saving", 200);
+        for (int i = 0; i <= 200; i++) {
+            progress.updateProgress(i);
+        }
+        progress.stopProgress();
+
+        String[] lines = getOut().split("\\R");
+        assertThat(lines).hasSize(10);
+        assertThat(lines[0]).isEqualTo("Saving...");
+        assertThat(lines[1]).isEqualTo("Saving: 10%");
+        assertThat(lines[9]).isEqualTo("Saving: 90%");
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pixelitor.progress.ProgressTracker;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("KMeansClustering tests")
+class KMeansClusteringTest {
+    @ParameterizedTest(name = "clusters = {0}, colors = {1}")
+    @CsvSource({
+        "2, 2",
+        "5, 40",
+        "8, 1000",
+        "16, 16777216",
+    })
+    @DisplayName("full batch: the same centroids as the per-pixel iterations")
+    void fullBatchSameAsPerPixel(int numClusters, int numColors) {
+        Random random = new Random(numClusters);
+        int[] pixels = new int[50_000];
+        for (int i = 0; i < pixels.length; i++) {
+            // random alpha values, which must be ignored
+            pixels[i] = random.nextInt() & 0xFF_00_00_00 | random.nextInt(numColors);
+        }
+        int maxIterations = 10;
+
+        int[] actual = new KMeansClustering(numClusters, maxIterations, false, new Random(1))
+            .cluster(pixels, false, ProgressTracker.NO_OP_TRACKER);
+
+        // the same random initial centroids
+        Random initRandom = new Random(1);
+        int[] expected = new int[numClusters];
+        for (int i = 0; i < numClusters; i++) {
+            expected[i] = pixels[initRandom.nextInt(pixels.length)] & 0xFF_FF_FF;
+        }
+        for (int it = 0; it < maxIterations; it++) {
+            expected = iteratePerPixel(pixels, expected);
+        }
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @ParameterizedTest(name = "miniBatch = {0}")
+    @ValueSource(booleans = {false, true})
+    @DisplayName("finds two well-separated gray clusters")
+    void findsSeparatedClusters(boolean miniBatch) {
+        Random random = new Random(3);
+        int[] pixels = new int[200_000];
+        for (int i = 0; i < pixels.length; i++) {
+            int v = (i % 3 == 0 ? 50 : 200) + random.nextInt(41) - 20;
+            pixels[i] = 0xFF_00_00_00 | v << 16 | v << 8 | v;
+        }
+
+        int[] centroids = new KMeansClustering(2, 20, miniBatch, new Random(1))
+            .cluster(pixels, true, ProgressTracker.NO_OP_TRACKER);
+
+        Arrays.sort(centroids);
+        for (int c = 0; c < 2; c++) {
+            int expectedGray = c == 0 ? 50 : 200;
+            for (int shift = 0; shift < 24; shift += 8) {
+                assertThat((centroids[c] >> shift) & 0xFF)
+                    .isGreaterThanOrEqualTo(expectedGray - 2)
+                    .isLessThanOrEqualTo(expectedGray + 2);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("reports all the iterations even if it converges earlier")
+    void reportsAllIterations() {
+        int[] pixels = {0xFF_00_00_00, 0xFF_FF_FF_FF, 0xFF_00_00_00, 0xFF_FF_FF_FF};
+        var numUnits = new AtomicInteger();
+        ProgressTracker pt = new ProgressTracker() {
+            @Override
+            public void unitDone() {
+                numUnits.incrementAndGet();
+            }
+
+            @Override
+            public void unitsDone(int completedUnits) {
+                numUnits.addAndGet(completedUnits);
+            }
+
+            @Override
+            public void finished() {
+            }
+        };
+
+        new KMeansClustering(2, 10, false, new Random(1)).cluster(pixels, true, pt);
+
+        assertThat(numUnits.get()).isEqualTo(11);
+    }
+
+    // One iteration of the previous implementation, which assigned each
+    // pixel separately. An empty cluster now keeps its centroid.
+    private static int[] iteratePerPixel(int[] pixels, int[] centroids) {
+        long[] sumR = new long[centroids.length];
+        long[] sumG = new long[centroids.length];
+        long[] sumB = new long[centroids.length];
+        long[] sizes = new long[centroids.length];
+        for (int rgb : pixels) {
+            int cluster = KMeansClustering.findClosestCentroidIndex(rgb, centroids);
+            sumR[cluster] += (rgb >> 16) & 0xFF;
+            sumG[cluster] += (rgb >> 8) & 0xFF;
+            sumB[cluster] += rgb & 0xFF;
+            sizes[cluster]++;
+        }
+
+        int[] newCentroids = new int[centroids.length];
+        for (int i = 0; i < centroids.length; i++) {
+            if (sizes[i] == 0) {
+                newCentroids[i] = centroids[i];
+                continue;
+            }
+            newCentroids[i] = (int) (sumR[i] / sizes[i]) << 16
+                | (int) (sumG[i] / sizes[i]) << 8
+                | (int) (sumB[i] / sizes[i]);
+        }
+        return newCentroids;
+    }
+}
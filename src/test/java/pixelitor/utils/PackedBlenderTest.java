@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Laszlo Balazs-Csiki and Contributors
+ *
+ * This file is part of Pixelitor. Pixelitor is free software: you
+ * can redistribute it and/or modify it under the terms of the GNU
+ * General Public License, version 3 as published by the Free
+ * Software Foundation.
+ *
+ * Pixelitor is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pixelitor. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package pixelitor.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import pixelitor.layers.BlendingMode;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.EnumSource.Mode.EXCLUDE;
+
+/**
+ * Checks that blending on the packed pixels gives
+ * the same results as {@link Graphics2D#drawImage}.
+ */
+@DisplayName("PackedBlender tests")
+class PackedBlenderTest {
+    private static final float[] OPACITIES = {1.0f, 0.6f};
+
+    private final Random random = new Random(42);
+
+    @ParameterizedTest(name = "{0}")
+    // the normal and erase modes use an AlphaComposite
+    @EnumSource(value = BlendingMode.class, names = {"PASS_THROUGH", "NORMAL", "ERASE"}, mode = EXCLUDE)
+    @DisplayName("the same result as drawImage")
+    void sameAsDrawImage(BlendingMode mode) {
+        for (float opacity : OPACITIES) {
+            Composite composite = mode.getComposite(opacity);
+            for (int dstType : new int[]{TYPE_INT_ARGB_PRE, TYPE_INT_ARGB}) {
+                BufferedImage src = createRandomImage(57, 31, TYPE_INT_ARGB);
+                BufferedImage dst = createRandomImage(43, 47, dstType);
+
+                // the source is partially outside the destination
+                checkSameAsDrawImage(src, -5, 20, copy(dst), copy(dst), composite);
+                checkSameAsDrawImage(src, 0, 0, copy(dst), copy(dst), composite);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("sub-images are blended at the right position")
+    void subImages() {
+        Composite composite = BlendingMode.MULTIPLY.getComposite(0.8f);
+        BufferedImage src = createRandomImage(60, 50, TYPE_INT_ARGB).getSubimage(7, 5, 30, 20);
+        BufferedImage dst = createRandomImage(80, 70, TYPE_INT_ARGB_PRE);
+
+        checkSameAsDrawImage(src, 12, -4,
+            copy(dst).getSubimage(10, 3, 50, 40),
+            copy(dst).getSubimage(10, 3, 50, 40), composite);
+    }
+
+    @Test
+    @DisplayName("the unsupported cases are left to the Graphics2D")
+    void unsupported() {
+        BufferedImage src = createRandomImage(10, 10, TYPE_INT_ARGB);
+        BufferedImage dst = createRandomImage(10, 10, TYPE_INT_ARGB_PRE);
+        BufferedImage rgbDst = new BufferedImage(10, 10, TYPE_INT_RGB);
+        int[] dstPixels = getPixels(dst);
+
+        assertThat(PackedBlender.blend(src, 0, 0, dst, AlphaComposite.SrcOver)).isFalse();
+        assertThat(PackedBlender.blend(src, 0, 0, rgbDst, BlendingMode.SCREEN.getComposite(1.0f))).isFalse();
+        assertThat(getPixels(dst)).isEqualTo(dstPixels);
+    }
+
+    // expected and actual are two copies of the destination
+    private static void checkSameAsDrawImage(BufferedImage src, int x, int y,
+                                             BufferedImage expected, BufferedImage actual,
+                                             Composite composite) {
+        Graphics2D g = expected.createGraphics();
+        g.setComposite(composite);
+        g.drawImage(src, x, y, null);
+        g.dispose();
+
+        assertThat(PackedBlender.blend(src, x, y, actual, composite)).isTrue();
+
+        assertThat(getPixels(actual)).isEqualTo(getPixels(expected));
+    }
+
+    private BufferedImage createRandomImage(int width, int height, int type) {
+        BufferedImage img = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int argb = random.nextInt();
+                if (type == TYPE_INT_ARGB_PRE) {
+                    // only valid premultiplied values
+                    int a = argb >>> 24;
+                    argb = a << 24
+                        | ((argb >> 16) & 0xFF) * a / 255 << 16
+                        | ((argb >> 8) & 0xFF) * a / 255 << 8
+                        | (argb & 0xFF) * a / 255;
+                }
+                img.getRaster().setDataElements(x, y, new int[]{argb});
+            }
+        }
+        return img;
+    }
+
+    private static BufferedImage copy(BufferedImage img) {
+        return new BufferedImage(img.getColorModel(), img.copyData(null),
+            img.isAlphaPremultiplied(), null);
+    }
+
+    // the raw pixel values, which also works for sub-images
+    private static int[] getPixels(BufferedImage img) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        return (int[]) img.getRaster().getDataElements(0, 0, width, height, null);
+    }
+}